@@ -28,6 +28,11 @@ DROP VIEW IF EXISTS view_order_summary;
 DROP VIEW IF EXISTS view_sales_report;
 
 -- Drop tables in reverse order
+DROP TABLE IF EXISTS payment_attempts;
+DROP TABLE IF EXISTS change_log;
+DROP TABLE IF EXISTS sales_category_daily;
+DROP TABLE IF EXISTS sales_product_daily;
+DROP TABLE IF EXISTS sales_daily;
 DROP TABLE IF EXISTS order_promotions;
 DROP TABLE IF EXISTS promotions;
 DROP TABLE IF EXISTS attendance;
@@ -87,6 +92,7 @@ CREATE TABLE products (
     cost_price DECIMAL(10,2),
     description TEXT,
     image_url VARCHAR(255),
+    stock_quantity INT DEFAULT NULL, -- NULL = không quản lý tồn kho (đồ pha chế); trừ khi xác nhận order
     is_available BOOLEAN DEFAULT TRUE,
     is_active BOOLEAN DEFAULT TRUE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
@@ -119,6 +125,7 @@ CREATE TABLE tables (
     area_id INT NOT NULL,
     capacity INT DEFAULT 4,
     status ENUM('available', 'occupied', 'reserved', 'cleaning') DEFAULT 'available',
+    version INT NOT NULL DEFAULT 0, -- Tăng mỗi lần đổi trạng thái (compare-and-set)
     is_active BOOLEAN DEFAULT TRUE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
@@ -152,7 +159,7 @@ CREATE TABLE customers (
 -- Orders table
 CREATE TABLE orders (
     order_id INT PRIMARY KEY AUTO_INCREMENT,
-    order_number VARCHAR(20) UNIQUE NOT NULL,
+    order_number VARCHAR(32) UNIQUE NOT NULL, -- ORD-yyyyMMdd-TT-NNNN (ngày, terminal, số thứ tự)
     table_id INT,
     customer_id INT,
     user_id INT NOT NULL, -- Staff who created the order
@@ -164,6 +171,7 @@ CREATE TABLE orders (
     payment_status ENUM('pending', 'paid', 'cancelled') DEFAULT 'pending',
     order_status ENUM('pending', 'confirmed', 'preparing', 'ready', 'served', 'completed', 'cancelled') DEFAULT 'pending',
     notes TEXT,
+    version INT NOT NULL DEFAULT 0, -- Tăng mỗi lần ghi (optimistic locking)
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     
@@ -181,9 +189,8 @@ CREATE TABLE orders (
     INDEX idx_order_date (order_date),
     INDEX idx_order_status (order_status),
     INDEX idx_payment_status (payment_status),
-    INDEX idx_order_table (table_id),
+    INDEX idx_order_table_status (table_id, order_status), -- tra cứu order đang mở theo bàn
     INDEX idx_order_user (user_id),
-    INDEX idx_order_number (order_number),
     INDEX idx_order_customer (customer_id)
 );
 
@@ -273,6 +280,95 @@ CREATE TABLE system_settings (
     INDEX idx_setting_key (setting_key)
 );
 
+-- =====================================================
+-- SALES ROLLUP TABLES
+-- Cộng dồn trong cùng transaction khi order chuyển sang 'paid'
+-- (SalesRollupService), có thể dựng lại bằng SalesRollupService.backfill()
+-- Ngày = DATE(orders.order_date); doanh thu = orders.total_amount
+-- =====================================================
+
+-- Doanh thu theo ngày
+CREATE TABLE sales_daily (
+    sales_date DATE PRIMARY KEY,
+    total_orders INT NOT NULL DEFAULT 0,
+    total_revenue DECIMAL(14,2) NOT NULL DEFAULT 0.00,
+    total_items_sold INT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+-- Doanh thu theo sản phẩm theo ngày
+CREATE TABLE sales_product_daily (
+    sales_date DATE NOT NULL,
+    product_id INT NOT NULL,
+    quantity_sold INT NOT NULL DEFAULT 0,
+    revenue DECIMAL(14,2) NOT NULL DEFAULT 0.00,
+    
+    PRIMARY KEY (sales_date, product_id),
+    FOREIGN KEY (product_id) REFERENCES products(product_id) ON DELETE CASCADE,
+    INDEX idx_sales_product (product_id)
+);
+
+-- Doanh thu theo danh mục theo ngày
+CREATE TABLE sales_category_daily (
+    sales_date DATE NOT NULL,
+    category_id INT NOT NULL,
+    quantity_sold INT NOT NULL DEFAULT 0,
+    revenue DECIMAL(14,2) NOT NULL DEFAULT 0.00,
+    
+    PRIMARY KEY (sales_date, category_id),
+    FOREIGN KEY (category_id) REFERENCES categories(category_id) ON DELETE CASCADE,
+    INDEX idx_sales_category (category_id)
+);
+
+-- =====================================================
+-- CHANGE FEED GIỮA CÁC TERMINAL
+-- Ghi cùng transaction với TableDAOImpl.updateTable và các lệnh ghi orders
+-- (OrderDAOImpl); mỗi terminal đọc tiếp theo seq (ChangeFeedListener)
+-- thay vì tải lại toàn bộ bàn/order
+-- =====================================================
+
+CREATE TABLE change_log (
+    seq BIGINT PRIMARY KEY AUTO_INCREMENT,
+    entity_type ENUM('table', 'order') NOT NULL,
+    entity_id INT NOT NULL,
+    table_id INT,
+    status VARCHAR(20),           -- tables.status hoặc orders.order_status ('deleted' khi xóa order)
+    payment_status VARCHAR(20),   -- chỉ với order
+    version INT,                  -- tables.version, chỉ với bàn
+    terminal_id TINYINT UNSIGNED NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    
+    INDEX idx_change_log_created (created_at)
+);
+
+-- =====================================================
+-- LƯỢT THANH TOÁN THEO IDEMPOTENCY KEY
+-- PaymentService giữ chỗ một dòng trước khi gọi cổng / ghi order;
+-- bấm thanh toán hai lần hoặc thử lại sau khi phản hồi chậm trả lại
+-- kết quả đã lưu thay vì chạy lại toàn bộ quy trình
+-- =====================================================
+
+CREATE TABLE payment_attempts (
+    attempt_id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    idempotency_key VARCHAR(64) NOT NULL,
+    order_id INT NOT NULL,
+    payment_method VARCHAR(20) NOT NULL,
+    amount DECIMAL(12,2) NOT NULL,
+    -- refund_required: đã thu tiền nhưng order đã được thanh toán bởi lượt khác (cần hoàn tiền)
+    status ENUM('in_progress', 'succeeded', 'failed', 'refund_required') NOT NULL DEFAULT 'in_progress',
+    attempt_count INT NOT NULL DEFAULT 1,  -- tăng mỗi lần chạy lại sau 'failed' / quá hạn
+    transaction_id VARCHAR(100),
+    message VARCHAR(255),
+    change_amount DECIMAL(12,2) NOT NULL DEFAULT 0.00,
+    receipt_path VARCHAR(255),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    
+    UNIQUE KEY uk_payment_attempts_key (idempotency_key),
+    FOREIGN KEY (order_id) REFERENCES orders(order_id) ON DELETE CASCADE,
+    INDEX idx_payment_attempts_order (order_id)
+);
+
 -- =====================================================
 -- CREATE VIEWS FOR ANALYTICS
 -- =====================================================
@@ -380,7 +476,7 @@ AFTER INSERT ON orders
 FOR EACH ROW
 BEGIN
     IF NEW.table_id IS NOT NULL AND NEW.order_status IN ('pending', 'confirmed', 'preparing', 'ready', 'served') THEN
-        UPDATE tables SET status = 'occupied' WHERE table_id = NEW.table_id;
+        UPDATE tables SET version = version + (status <> 'occupied'), status = 'occupied' WHERE table_id = NEW.table_id;
     END IF;
 END//
 
@@ -397,12 +493,12 @@ BEGIN
         
         -- Nếu đơn hàng hoàn thành hoặc hủy -> bàn available
         IF NEW.order_status IN ('completed', 'cancelled') THEN
-            UPDATE tables SET status = 'available' WHERE table_id = NEW.table_id;
+            UPDATE tables SET version = version + (status <> 'available'), status = 'available' WHERE table_id = NEW.table_id;
         END IF;
         
         -- Nếu đơn hàng đang active -> bàn occupied
         IF NEW.order_status IN ('pending', 'confirmed', 'preparing', 'ready', 'served') THEN
-            UPDATE tables SET status = 'occupied' WHERE table_id = NEW.table_id;
+            UPDATE tables SET version = version + (status <> 'occupied'), status = 'occupied' WHERE table_id = NEW.table_id;
         END IF;
     END IF;
 END//
@@ -1,5 +1,6 @@
 package com.cafe;
 
+import com.cafe.util.ImageStore;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -27,6 +28,7 @@ public class CafeManagementApplication extends Application {
     @Override
     public void start(Stage stage) {
         primaryStage = stage;
+        ImageStore.warnIfNotShared();
         try {
             showLoginScene();
         } catch (Exception e) {
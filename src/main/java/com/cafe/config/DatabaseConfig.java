@@ -321,4 +321,12 @@ public class DatabaseConfig {
     public static boolean getPropertyAsBoolean(String key, boolean defaultValue) {
         return Boolean.parseBoolean(getProperty(key, String.valueOf(defaultValue)));
     }
+    
+    /**
+     * Mã terminal của máy hiện tại (app.terminalId, 1-99)
+     */
+    public static int getTerminalId() {
+        int terminalId = getPropertyAsInt("app.terminalId", 1);
+        return terminalId >= 1 && terminalId <= 99 ? terminalId : 1;
+    }
 }
\ No newline at end of file
@@ -2,6 +2,9 @@ package com.cafe.controller.admin;
 
 import com.cafe.CafeManagementApplication;
 import com.cafe.controller.base.DashboardCommunicator;
+import com.cafe.controller.base.DashboardEvent.TableStatusChanged;
+import com.cafe.controller.base.ChangeFeedListener;
+import com.cafe.controller.base.DashboardEventBus;
 import com.cafe.controller.dashboard.DashboardController;
 import com.cafe.util.SessionManager;
 
@@ -75,6 +78,15 @@ public class AdminDashboardController extends DashboardController {
             setupTabNavigation();
             setupEventHandlers();
 
+            // Cập nhật tab quản lý bàn (nếu đã mở) khi trạng thái bàn thay đổi
+            DashboardEventBus.subscribe(TableStatusChanged.class, event -> {
+                if (loadedControllers.get("table") instanceof AdminTableController tableController) {
+                    tableController.applyTableStatus(event.tableId(), event.status(), event.version());
+                }
+            }).bindTo(contentPane);
+
+            // Nhận thay đổi bàn/order từ các terminal khác (change_log)
+            ChangeFeedListener.start();
 
 
             // Load default content (User Management)
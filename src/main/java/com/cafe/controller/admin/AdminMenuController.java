@@ -11,6 +11,9 @@ import com.cafe.model.entity.Category;
 import com.cafe.model.entity.Product;
 import com.cafe.util.AlertUtils;
 import com.cafe.util.SessionManager;
+import com.cafe.util.BackgroundExecutor;
+import com.cafe.util.ImageLoader;
+import com.cafe.util.ImageStore;
 
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -20,7 +23,6 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
@@ -767,7 +769,7 @@ public class AdminMenuController implements Initializable, DashboardCommunicator
             }
         };
 
-        new Thread(loadTask).start();
+        BackgroundExecutor.submitLatest("AdminMenuController.loadCategories", loadTask);
     }
 
     private void loadProducts() {
@@ -811,7 +813,7 @@ public class AdminMenuController implements Initializable, DashboardCommunicator
             }
         };
 
-        new Thread(loadTask).start();
+        BackgroundExecutor.submitLatest("AdminMenuController.loadProducts", loadTask);
     }
 
     private void refreshData() {
@@ -1150,10 +1152,11 @@ public class AdminMenuController implements Initializable, DashboardCommunicator
         imageUrlField.setPromptText("https://...");
         imageUrlField.getStyleClass().add("form-field");
         
-        // Real-time image loading
+        // Real-time image loading (chờ người dùng gõ xong URL)
         imageUrlField.textProperty().addListener((obs, oldVal, newVal) -> {
             if (newVal != null && !newVal.trim().isEmpty()) {
-                loadImageFromUrl(newVal.trim());
+                String url = newVal.trim();
+                BackgroundExecutor.debounce("AdminMenuController.imageUrl", 400, () -> loadImageFromUrl(url));
             }
         });
         
@@ -1383,7 +1386,7 @@ public class AdminMenuController implements Initializable, DashboardCommunicator
             }
         };
 
-        new Thread(deleteTask).start();
+        BackgroundExecutor.submit(deleteTask);
     }
 
     private void toggleProductStatus() {
@@ -1423,7 +1426,7 @@ public class AdminMenuController implements Initializable, DashboardCommunicator
             }
         };
 
-        new Thread(updateTask).start();
+        BackgroundExecutor.submit(updateTask);
     }
 
     private void duplicateProduct() {
@@ -1659,8 +1662,7 @@ public class AdminMenuController implements Initializable, DashboardCommunicator
             
             // Clear image
             if (formProductImageView != null) {
-                Image defaultImage = new Image(getClass().getResourceAsStream("/images/no-image.png"));
-                formProductImageView.setImage(defaultImage);
+                formProductImageView.setImage(ImageLoader.loadDefaultProductImage());
             }
             
             // Clear validation styles
@@ -1821,7 +1823,7 @@ public class AdminMenuController implements Initializable, DashboardCommunicator
             }
         };
 
-        new Thread(saveTask).start();
+        BackgroundExecutor.submit(saveTask);
     }
 
     /**
@@ -1885,7 +1887,7 @@ public class AdminMenuController implements Initializable, DashboardCommunicator
         
         // Clear image
         if (productImageView != null) {
-                            productImageView.setImage(new Image(getClass().getResourceAsStream("/images/no-image.png")));
+            productImageView.setImage(ImageLoader.loadDefaultProductImage());
         }
     }
 
@@ -1894,53 +1896,15 @@ public class AdminMenuController implements Initializable, DashboardCommunicator
     // =============================================
 
     private void loadImageFromUrl(String imageUrl) {
-        if (imageUrl == null || imageUrl.trim().isEmpty()) {
-            // Load default image
-            Image defaultImage = new Image(getClass().getResourceAsStream("/images/no-image.png"));
-            if (productImageView != null) {
-                productImageView.setImage(defaultImage);
-            }
-            if (formProductImageView != null) {
-                formProductImageView.setImage(defaultImage);
-            }
-            return;
+        // Placeholder hiện ngay, ảnh thật (cache theo kích thước khung) thay thế khi tải xong
+        if (productImageView != null) {
+            ImageLoader.loadInto(productImageView, imageUrl,
+                    productImageView.getFitWidth(), productImageView.getFitHeight());
+        }
+        if (formProductImageView != null) {
+            ImageLoader.loadInto(formProductImageView, imageUrl,
+                    formProductImageView.getFitWidth(), formProductImageView.getFitHeight());
         }
-
-        Task<Image> imageTask = new Task<Image>() {
-            @Override
-            protected Image call() throws Exception {
-                return new Image(imageUrl, true); // Load in background
-            }
-
-            @Override
-            protected void succeeded() {
-                Platform.runLater(() -> {
-                    Image image = getValue();
-                    if (productImageView != null) {
-                        productImageView.setImage(image);
-                    }
-                    if (formProductImageView != null) {
-                        formProductImageView.setImage(image);
-                    }
-                });
-            }
-
-            @Override
-            protected void failed() {
-                Platform.runLater(() -> {
-                    // Load default image on failure
-                    Image defaultImage = new Image(getClass().getResourceAsStream("/images/no-image.png"));
-                    if (productImageView != null) {
-                        productImageView.setImage(defaultImage);
-                    }
-                    if (formProductImageView != null) {
-                        formProductImageView.setImage(defaultImage);
-                    }
-                });
-            }
-        };
-
-        new Thread(imageTask).start();
     }
 
     private void selectImageFile() {
@@ -1961,11 +1925,18 @@ public class AdminMenuController implements Initializable, DashboardCommunicator
         File selectedFile = fileChooser.showOpenDialog(window);
 
         if (selectedFile != null) {
-            String imageUrl = selectedFile.toURI().toString();
-            if (imageUrlField != null) {
-                imageUrlField.setText(imageUrl);
-            }
-            loadImageFromUrl(imageUrl);
+            // Chép vào kho ảnh dùng chung + tạo thumbnail ở background, image_url lưu key của kho
+            ImageStore.ingest(selectedFile).whenComplete((imageKey, error) -> Platform.runLater(() -> {
+                if (error != null) {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    AlertUtils.showError("Lỗi", "Không thể lưu ảnh sản phẩm: " + cause.getMessage());
+                    return;
+                }
+                if (imageUrlField != null) {
+                    imageUrlField.setText(imageKey);
+                }
+                loadImageFromUrl(imageKey);
+            }));
         }
     }
 
@@ -1982,24 +1953,27 @@ public class AdminMenuController implements Initializable, DashboardCommunicator
         File selectedFile = fileChooser.showOpenDialog(window);
 
         if (selectedFile != null) {
-            String imageUrl = selectedFile.toURI().toString();
-            currentEditingProduct.setImageUrl(imageUrl);
+            Product product = currentEditingProduct;
             
-            // Save to database
-            Task<Boolean> updateTask = new Task<Boolean>() {
+            // Đưa ảnh vào kho (băm + chép + thumbnail) rồi lưu key vào database;
+            // product chỉ nhận key mới sau khi lưu thành công
+            Task<String> updateTask = new Task<String>() {
                 @Override
-                protected Boolean call() throws Exception {
+                protected String call() throws Exception {
+                    String key = ImageStore.ingestNow(selectedFile.toPath());
                     try (Connection connection = DatabaseConfig.getConnection()) {
                         ProductDAO dao = new ProductDAOImpl(connection);
-                        return dao.update(currentEditingProduct);
+                        return dao.updateImageUrl(product.getProductId(), key) ? key : null;
                     }
                 }
 
                 @Override
                 protected void succeeded() {
                     Platform.runLater(() -> {
-                        if (getValue()) {
-                            loadImageFromUrl(imageUrl);
+                        String key = getValue();
+                        if (key != null) {
+                            product.setImageUrl(key);
+                            loadImageFromUrl(key);
                             AlertUtils.showInfo("Thành công", "Đã cập nhật ảnh sản phẩm");
                         } else {
                             AlertUtils.showError("Lỗi", "Không thể cập nhật ảnh sản phẩm");
@@ -2015,7 +1989,7 @@ public class AdminMenuController implements Initializable, DashboardCommunicator
                 }
             };
 
-            new Thread(updateTask).start();
+            BackgroundExecutor.submit(updateTask);
         }
     }
 
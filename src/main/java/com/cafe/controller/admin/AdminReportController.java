@@ -1,9 +1,17 @@
 package com.cafe.controller.admin;
 
 import com.cafe.controller.base.DashboardCommunicator;
-import com.cafe.config.DatabaseConfig;
+import com.cafe.model.dto.SalesBreakdown;
+import com.cafe.model.dto.SalesData;
+import com.cafe.service.OrderExportService;
+import com.cafe.service.ReceiptService;
+import com.cafe.service.SalesRollupService;
 import com.cafe.util.DateUtils;
+import com.cafe.util.ExcelExporter;
+import com.cafe.util.ExportProgress;
+import com.cafe.util.PDFExporter;
 import com.cafe.util.PriceFormatter;
+import com.cafe.util.BackgroundExecutor;
 
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -16,9 +24,6 @@ import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 
 import java.net.URL;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -36,6 +41,9 @@ public class AdminReportController implements Initializable, DashboardCommunicat
     @FXML private ComboBox<String> reportTypeCombo;
     @FXML private Button generateReportButton;
     @FXML private Button exportReportButton;
+    @FXML private Button exportCsvButton;
+    @FXML private Button exportPdfBundleButton;
+    @FXML private Button exportReceiptBundleButton;
     @FXML private Button refreshButton;
 
     // Revenue Statistics
@@ -76,6 +84,9 @@ public class AdminReportController implements Initializable, DashboardCommunicat
     private ObservableList<ReportData> reportDataList = FXCollections.observableArrayList();
     private ObservableList<ProductReportData> productReportDataList = FXCollections.observableArrayList();
     private Object dashboardController;
+    private final SalesRollupService salesRollupService = new SalesRollupService();
+    private Task<?> exportTask;
+    private Button exportTaskButton;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -229,7 +240,7 @@ public class AdminReportController implements Initializable, DashboardCommunicat
 
     @FXML
     private void handleRefresh() {
-        generateReport();
+        generateReport(true);
     }
 
     @FXML
@@ -237,12 +248,34 @@ public class AdminReportController implements Initializable, DashboardCommunicat
         exportReport();
     }
 
+    @FXML
+    private void handleExportCsv() {
+        exportOrderLinesCsv();
+    }
+
+    @FXML
+    private void handleExportPdfBundle() {
+        exportDailyReportBundle();
+    }
+
+    @FXML
+    private void handleExportReceiptBundle() {
+        exportDailyReceiptBundle();
+    }
+
     @FXML
     private void handlePrintReport() {
         printReport();
     }
 
     private void generateReport() {
+        generateReport(false);
+    }
+
+    /**
+     * @param rebuildRollup dựng lại sales rollup của khoảng ngày trước khi đọc (nút Làm mới)
+     */
+    private void generateReport(boolean rebuildRollup) {
         LocalDate startDate = startDatePicker.getValue();
         LocalDate endDate = endDatePicker.getValue();
 
@@ -259,6 +292,11 @@ public class AdminReportController implements Initializable, DashboardCommunicat
         Task<Void> reportTask = new Task<Void>() {
             @Override
             protected Void call() throws Exception {
+                if (rebuildRollup) {
+                    salesRollupService.backfill(startDate, endDate);
+                } else {
+                    salesRollupService.backfillIfEmpty();
+                }
                 loadRevenueData(startDate, endDate);
                 loadProductData(startDate, endDate);
                 loadCategoryData(startDate, endDate);
@@ -281,140 +319,59 @@ public class AdminReportController implements Initializable, DashboardCommunicat
             }
         };
 
-        new Thread(reportTask).start();
+        BackgroundExecutor.submitLatest("AdminReportController.generateReport", reportTask);
     }
 
     private void loadRevenueData(LocalDate startDate, LocalDate endDate) {
-        String sql = """
-            SELECT DATE(o.order_date) as order_date,
-                   COUNT(*) as total_orders,
-                   SUM(o.total_amount) as total_revenue,
-                   AVG(o.total_amount) as avg_order_value
-            FROM orders o
-            WHERE DATE(o.order_date) BETWEEN ? AND ?
-            GROUP BY DATE(o.order_date)
-            ORDER BY order_date
-            """;
-
         List<ReportData> data = new ArrayList<>();
-        
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setDate(1, java.sql.Date.valueOf(startDate));
-            stmt.setDate(2, java.sql.Date.valueOf(endDate));
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    ReportData reportData = new ReportData(
-                        rs.getDate("order_date").toString(),
-                        rs.getInt("total_orders"),
-                        rs.getDouble("total_revenue"),
-                        rs.getDouble("avg_order_value")
-                    );
-                    data.add(reportData);
-                }
-            }
-            
-            Platform.runLater(() -> {
-                reportDataList.clear();
-                reportDataList.addAll(data);
-            });
-            
-        } catch (Exception e) {
-            System.err.println("Error loading revenue data: " + e.getMessage());
+        for (SalesData day : salesRollupService.getDailySales(startDate, endDate)) {
+            data.add(new ReportData(
+                day.getDate().toString(),
+                day.getTotalOrders(),
+                day.getTotalRevenue(),
+                day.getAverageOrderValue()
+            ));
         }
+
+        Platform.runLater(() -> {
+            reportDataList.clear();
+            reportDataList.addAll(data);
+        });
     }
 
     private void loadProductData(LocalDate startDate, LocalDate endDate) {
-        String sql = """
-            SELECT p.product_name as product_name,
-                   SUM(od.quantity) as quantity_sold,
-                   SUM(od.quantity * od.unit_price) as revenue
-            FROM order_details od
-            JOIN products p ON od.product_id = p.product_id
-            JOIN orders o ON od.order_id = o.order_id
-            WHERE DATE(o.order_date) BETWEEN ? AND ?
-            GROUP BY p.product_id, p.product_name
-            ORDER BY revenue DESC
-            LIMIT 10
-            """;
-
         List<ProductReportData> data = new ArrayList<>();
         double totalRevenue = 0;
-        
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setDate(1, java.sql.Date.valueOf(startDate));
-            stmt.setDate(2, java.sql.Date.valueOf(endDate));
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    double revenue = rs.getDouble("revenue");
-                    totalRevenue += revenue;
-                    
-                    ProductReportData productData = new ProductReportData(
-                        rs.getString("product_name"),
-                        rs.getInt("quantity_sold"),
-                        revenue,
-                        0 // percentage will be calculated later
-                    );
-                    data.add(productData);
-                }
-            }
-            
-            // Calculate percentages
-            final double finalTotalRevenue = totalRevenue;
-            data.forEach(item -> item.setPercentage((item.getRevenue() / finalTotalRevenue) * 100));
-            
-            Platform.runLater(() -> {
-                productReportDataList.clear();
-                productReportDataList.addAll(data);
-            });
-            
-        } catch (Exception e) {
-            System.err.println("Error loading product data: " + e.getMessage());
+
+        for (SalesBreakdown product : salesRollupService.getTopProducts(startDate, endDate, 10)) {
+            totalRevenue += product.getRevenue();
+            data.add(new ProductReportData(
+                product.getName(),
+                product.getQuantitySold(),
+                product.getRevenue(),
+                0 // percentage will be calculated later
+            ));
         }
+
+        // Calculate percentages
+        final double finalTotalRevenue = totalRevenue;
+        data.forEach(item -> item.setPercentage((item.getRevenue() / finalTotalRevenue) * 100));
+
+        Platform.runLater(() -> {
+            productReportDataList.clear();
+            productReportDataList.addAll(data);
+        });
     }
 
     private void loadCategoryData(LocalDate startDate, LocalDate endDate) {
-        String sql = """
-            SELECT c.category_name as category_name,
-                   SUM(od.quantity * od.unit_price) as revenue
-            FROM order_details od
-            JOIN products p ON od.product_id = p.product_id
-            JOIN categories c ON p.category_id = c.category_id
-            JOIN orders o ON od.order_id = o.order_id
-            WHERE DATE(o.order_date) BETWEEN ? AND ?
-            GROUP BY c.category_id, c.category_name
-            ORDER BY revenue DESC
-            """;
-
         ObservableList<PieChart.Data> pieChartData = FXCollections.observableArrayList();
-        
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setDate(1, java.sql.Date.valueOf(startDate));
-            stmt.setDate(2, java.sql.Date.valueOf(endDate));
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    pieChartData.add(new PieChart.Data(
-                        rs.getString("category_name"),
-                        rs.getDouble("revenue")
-                    ));
-                }
-            }
-            
-            Platform.runLater(() -> {
-                categoryDistributionChart.setData(pieChartData);
-            });
-            
-        } catch (Exception e) {
-            System.err.println("Error loading category data: " + e.getMessage());
+        for (SalesBreakdown category : salesRollupService.getCategorySales(startDate, endDate)) {
+            pieChartData.add(new PieChart.Data(category.getName(), category.getRevenue()));
         }
+
+        Platform.runLater(() -> {
+            categoryDistributionChart.setData(pieChartData);
+        });
     }
 
     private void updateCharts() {
@@ -467,48 +424,197 @@ public class AdminReportController implements Initializable, DashboardCommunicat
         dailyAvgRevenueLabel.setText(PriceFormatter.format(dailyAvgRevenue));
     }
 
+    /**
+     * Xuất Excel chạy nền: tổng hợp theo ngày + toàn bộ đơn hàng trong khoảng ngày (stream từ DB).
+     * Trong lúc chạy nút xuất hiển thị tiến độ; bấm lần nữa để hủy.
+     */
     private void exportReport() {
-        try {
-            String fileName = "BaoCao_" + java.time.LocalDateTime.now().format(
-                java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
-            
-            // Create Excel file using Apache POI
-            org.apache.poi.ss.usermodel.Workbook workbook = new org.apache.poi.xssf.usermodel.XSSFWorkbook();
-            org.apache.poi.ss.usermodel.Sheet sheet = workbook.createSheet("Báo cáo doanh thu");
-            
-            // Create header row
-            org.apache.poi.ss.usermodel.Row headerRow = sheet.createRow(0);
-            headerRow.createCell(0).setCellValue("Ngày");
-            headerRow.createCell(1).setCellValue("Số đơn hàng");
-            headerRow.createCell(2).setCellValue("Doanh thu");
-            headerRow.createCell(3).setCellValue("Giá trị TB");
-            
-            // Add data rows
-            int rowNum = 1;
-            for (ReportData data : reportTable.getItems()) {
-                org.apache.poi.ss.usermodel.Row row = sheet.createRow(rowNum++);
-                row.createCell(0).setCellValue(data.getDate());
-                row.createCell(1).setCellValue(data.getOrders());
-                row.createCell(2).setCellValue(data.getRevenue());
-                row.createCell(3).setCellValue(data.getAvgValue());
+        if (cancelRunningExport(exportReportButton)) {
+            return;
+        }
+
+        LocalDate startDate = startDatePicker.getValue();
+        LocalDate endDate = endDatePicker.getValue();
+        if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
+            showError("Vui lòng chọn khoảng thời gian hợp lệ");
+            return;
+        }
+
+        String fileName = "BaoCao_" + java.time.LocalDateTime.now().format(
+            java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
+        List<ReportData> dailyRows = new ArrayList<>(reportTable.getItems());
+
+        startExport(exportReportButton,
+                progress -> new ExcelExporter().exportOrderReport(dailyRows, startDate, endDate,
+                        new java.io.File(fileName), progress),
+                rows -> {
+                    if (rows >= 0) {
+                        showInfo("Thành công", "Đã xuất " + rows + " đơn hàng ra file: " + fileName);
+                    }
+                });
+    }
+
+    /**
+     * Xuất CSV chi tiết từng món của mọi đơn trong khoảng ngày (cho kế toán), chạy nền, có thể hủy
+     */
+    private void exportOrderLinesCsv() {
+        if (cancelRunningExport(exportCsvButton)) {
+            return;
+        }
+
+        LocalDate startDate = startDatePicker.getValue();
+        LocalDate endDate = endDatePicker.getValue();
+        if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
+            showError("Vui lòng chọn khoảng thời gian hợp lệ");
+            return;
+        }
+
+        boolean gzip = OrderExportService.isGzipEnabled();
+        java.nio.file.Path target = java.nio.file.Paths.get(
+                OrderExportService.defaultFileName(startDate, endDate, gzip));
+
+        startExport(exportCsvButton,
+                progress -> new OrderExportService().exportOrderLines(startDate, endDate, target, gzip, progress),
+                result -> {
+                    if (result != null) {
+                        showInfo("Thành công", String.format("Đã xuất %,d dòng (%,.0f dòng/giây) ra file: %s",
+                                result.rows(), result.rowsPerSecond(), result.file().getFileName()));
+                    }
+                });
+    }
+
+    /**
+     * Xuất PDF báo cáo từng ngày (mỗi ngày một trang, render song song), chạy nền, có thể hủy
+     */
+    private void exportDailyReportBundle() {
+        if (cancelRunningExport(exportPdfBundleButton)) {
+            return;
+        }
+
+        LocalDate startDate = startDatePicker.getValue();
+        LocalDate endDate = endDatePicker.getValue();
+        if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
+            showError("Vui lòng chọn khoảng thời gian hợp lệ");
+            return;
+        }
+
+        java.nio.file.Path target = java.nio.file.Paths.get("BaoCaoNgay_"
+                + startDate.format(DateTimeFormatter.BASIC_ISO_DATE) + "_"
+                + endDate.format(DateTimeFormatter.BASIC_ISO_DATE) + ".pdf");
+
+        startExport(exportPdfBundleButton,
+                progress -> new PDFExporter().exportDailyReportBundle(startDate, endDate, target, progress),
+                days -> {
+                    if (days >= 0) {
+                        showInfo("Thành công", "Đã xuất " + days + " ngày ra file: " + target.getFileName());
+                    }
+                });
+    }
+
+    /**
+     * Gộp mọi hóa đơn của ngày "Đến ngày" thành một file PDF (mỗi hóa đơn một trang), chạy nền, có thể hủy
+     */
+    private void exportDailyReceiptBundle() {
+        if (cancelRunningExport(exportReceiptBundleButton)) {
+            return;
+        }
+
+        LocalDate day = endDatePicker.getValue();
+        if (day == null) {
+            showError("Vui lòng chọn ngày");
+            return;
+        }
+
+        java.nio.file.Path target = java.nio.file.Paths.get(
+                "HoaDon_" + day.format(DateTimeFormatter.BASIC_ISO_DATE) + ".pdf");
+
+        startExport(exportReceiptBundleButton,
+                progress -> new ReceiptService().exportDailyReceiptBundle(day, target, progress),
+                receipts -> {
+                    if (receipts >= 0) {
+                        showInfo("Thành công", "Đã xuất " + receipts + " hóa đơn ngày "
+                                + day.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")) + " ra file: " + target.getFileName());
+                    }
+                });
+    }
+
+    /**
+     * Tác vụ xuất file nhận ExportProgress nối vào Task đang chạy
+     */
+    @FunctionalInterface
+    private interface ExportJob<T> {
+        T run(ExportProgress progress) throws Exception;
+    }
+
+    /**
+     * Bấm lại nút đang xuất thì hủy; đang có tác vụ xuất khác thì bỏ qua
+     * @return true nếu đã có tác vụ xuất đang chạy
+     */
+    private boolean cancelRunningExport(Button button) {
+        if (exportTask == null || !exportTask.isRunning()) {
+            return false;
+        }
+        if (exportTaskButton == button) {
+            exportTask.cancel();
+        }
+        return true;
+    }
+
+    private <T> void startExport(Button button, ExportJob<T> job, java.util.function.Consumer<T> onSuccess) {
+        String buttonText = button.getText();
+
+        Task<T> task = new Task<T>() {
+            @Override
+            protected T call() throws Exception {
+                Task<T> self = this;
+                return job.run(new ExportProgress() {
+                    @Override
+                    public void update(long done, long total) {
+                        updateProgress(done, total);
+                    }
+
+                    @Override
+                    public boolean isCancelled() {
+                        return self.isCancelled();
+                    }
+                });
             }
-            
-            // Auto-size columns
-            for (int i = 0; i < 4; i++) {
-                sheet.autoSizeColumn(i);
+
+            @Override
+            protected void succeeded() {
+                restoreExportButton(button, buttonText);
+                onSuccess.accept(getValue());
             }
-            
-            // Write to file
-            try (java.io.FileOutputStream fileOut = new java.io.FileOutputStream(fileName)) {
-                workbook.write(fileOut);
-                workbook.close();
-                showInfo("Thành công", "Đã xuất báo cáo ra file: " + fileName);
+
+            @Override
+            protected void cancelled() {
+                restoreExportButton(button, buttonText);
             }
-            
-        } catch (Exception e) {
-            showError("Lỗi xuất báo cáo: " + e.getMessage());
-            e.printStackTrace();
-        }
+
+            @Override
+            protected void failed() {
+                restoreExportButton(button, buttonText);
+                showError("Lỗi xuất báo cáo: " + getException().getMessage());
+                getException().printStackTrace();
+            }
+        };
+
+        task.progressProperty().addListener((obs, oldValue, newValue) -> {
+            double value = newValue.doubleValue();
+            button.setText(value >= 0
+                    ? String.format("⏹ Hủy xuất (%.0f%%)", value * 100)
+                    : "⏹ Hủy xuất");
+        });
+        button.setText("⏹ Hủy xuất");
+        exportTask = task;
+        exportTaskButton = button;
+        BackgroundExecutor.submit(task);
+    }
+
+    private void restoreExportButton(Button button, String text) {
+        button.setText(text);
+        exportTask = null;
+        exportTaskButton = null;
     }
 
     private void printReport() {
@@ -5,6 +5,7 @@ import com.cafe.service.TableService;
 import com.cafe.model.entity.TableCafe;
 import com.cafe.model.entity.Area;
 import com.cafe.util.AlertUtils;
+import com.cafe.util.BackgroundExecutor;
 
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -267,9 +268,7 @@ public class AdminTableController implements Initializable, DashboardCommunicato
             });
         });
 
-        Thread loadThread = new Thread(loadTask);
-        loadThread.setDaemon(true);
-        loadThread.start();
+        BackgroundExecutor.submitLatest("AdminTableController.loadData", loadTask);
     }
 
     // Event handlers
@@ -412,9 +411,7 @@ public class AdminTableController implements Initializable, DashboardCommunicato
                 });
             });
 
-            Thread deleteThread = new Thread(deleteTask);
-            deleteThread.setDaemon(true);
-            deleteThread.start();
+            BackgroundExecutor.submit(deleteTask);
         }
     }
 
@@ -716,9 +713,7 @@ public class AdminTableController implements Initializable, DashboardCommunicato
             });
         });
 
-        Thread addThread = new Thread(addTask);
-        addThread.setDaemon(true);
-        addThread.start();
+        BackgroundExecutor.submit(addTask);
     }
 
     private void updateExistingTable(TableCafe table) {
@@ -754,15 +749,33 @@ public class AdminTableController implements Initializable, DashboardCommunicato
             });
         });
 
-        Thread updateThread = new Thread(updateTask);
-        updateThread.setDaemon(true);
-        updateThread.start();
+        BackgroundExecutor.submit(updateTask);
     }
 
     public void refreshData() {
         Platform.runLater(this::loadData);
     }
 
+    /**
+     * Áp dụng trạng thái bàn đã lưu (từ DashboardEventBus) mà không tải lại danh sách
+     */
+    public void applyTableStatus(int tableId, String status, int version) {
+        for (TableCafe table : tableList) {
+            if (table.getTableId() == tableId) {
+                if (version >= 0 && version < table.getVersion()) {
+                    return; // Sự kiện cũ hơn bản đang hiển thị
+                }
+                table.setStatus(status);
+                if (version >= 0) {
+                    table.setVersion(version);
+                }
+                tableView.refresh();
+                updateStats();
+                return;
+            }
+        }
+    }
+
     @Override
     public void setDashboardController(Object dashboardController) {
         this.dashboardController = dashboardController;
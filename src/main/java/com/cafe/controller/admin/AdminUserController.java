@@ -8,6 +8,7 @@ import com.cafe.model.entity.User;
 import com.cafe.util.AlertUtils;
 import com.cafe.util.PasswordUtil;
 import com.cafe.util.ValidationUtils;
+import com.cafe.util.BackgroundExecutor;
 
 
 import javafx.application.Platform;
@@ -419,7 +420,7 @@ public class AdminUserController implements Initializable, DashboardCommunicator
             }
         };
 
-        new Thread(loadTask).start();
+        BackgroundExecutor.submitLatest("AdminUserController.loadUsers", loadTask);
     }
 
     private void filterUsers() {
@@ -606,7 +607,7 @@ public class AdminUserController implements Initializable, DashboardCommunicator
                 }
             };
 
-        new Thread(saveTask).start();
+        BackgroundExecutor.submit(saveTask);
     }
     
 
@@ -671,7 +672,7 @@ public class AdminUserController implements Initializable, DashboardCommunicator
                     }
                 };
 
-            new Thread(updateTask).start();
+            BackgroundExecutor.submit(updateTask);
         }
     }
     
@@ -786,7 +787,7 @@ public class AdminUserController implements Initializable, DashboardCommunicator
             }
         };
 
-            new Thread(toggleTask).start();
+            BackgroundExecutor.submit(toggleTask);
     }
     }
 
@@ -832,7 +833,7 @@ public class AdminUserController implements Initializable, DashboardCommunicator
             }
         };
 
-            new Thread(deleteTask).start();
+            BackgroundExecutor.submit(deleteTask);
         }
     }
 
@@ -874,7 +875,7 @@ public class AdminUserController implements Initializable, DashboardCommunicator
                     }
                 };
 
-                new Thread(resetTask).start();
+                BackgroundExecutor.submit(resetTask);
             } else {
                 AlertUtils.showError("Lỗi", "Mật khẩu không hợp lệ. Mật khẩu phải có ít nhất 6 ký tự.");
             }
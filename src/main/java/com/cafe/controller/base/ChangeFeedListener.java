@@ -0,0 +1,232 @@
+package com.cafe.controller.base;
+
+import com.cafe.config.DatabaseConfig;
+import com.cafe.controller.base.DashboardEvent.OrderChanged;
+import com.cafe.controller.base.DashboardEvent.TableStatusChanged;
+import com.cafe.dao.base.ChangeLogDAO;
+import com.cafe.dao.base.ChangeLogDAOImpl;
+import com.cafe.model.dto.ChangeLogEntry;
+import com.cafe.model.entity.Order;
+import com.cafe.service.ActiveOrderRegistry;
+import com.cafe.util.ChangeFeedMulticast;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Đọc tiếp bảng change_log (theo seq) và phát thay đổi của terminal khác
+ * lên DashboardEventBus (TableStatusChanged, OrderChanged)
+ *
+ * - Một thread nền cho mỗi terminal; mỗi lượt chỉ là một range scan trên khóa chính
+ *   (seq > lastSeq), không tải lại danh sách bàn/order
+ * - transport=poll: đọc mỗi changefeed.pollIntervalMs;
+ *   transport=multicast: đọc ngay khi có tín hiệu từ terminal ghi (ChangeFeedMulticast),
+ *   poll chậm làm dự phòng
+ * - seq AUTO_INCREMENT được cấp lúc insert nhưng transaction có thể commit không theo
+ *   thứ tự → seq bị bỏ qua được ghi nhớ là "lỗ hổng" và đọc lại riêng (seq IN ...) trong
+ *   GAP_TIMEOUT_MILLIS (transaction bị rollback để lại lỗ hổng vĩnh viễn, hết hạn thì bỏ);
+ *   phần đọc tiếp luôn đi từ lastSeq nên lỗ hổng không làm đọc lại các dòng đã xử lý
+ * - Dòng order do chính terminal này ghi được bỏ qua (UI local đã cập nhật qua DashboardEventBus);
+ *   dòng bàn thì vẫn phát để nhận version mới do trigger trên orders tạo ra
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public final class ChangeFeedListener {
+
+    private static final int BATCH_SIZE = 500;
+    private static final long GAP_TIMEOUT_MILLIS = 10_000;
+    private static final int MAX_TRACKED_GAPS = 1_000;
+    private static final long MULTICAST_FALLBACK_POLL_MILLIS = 5_000;
+    private static final long FOLLOW_UP_DELAY_MILLIS = 250; // Đọc lại sau tín hiệu (transaction có thể chưa commit)
+    private static final long RETENTION_MILLIS = 24L * 60 * 60 * 1000;
+
+    private static Thread thread;
+    private static volatile boolean running = false;
+
+    // Chỉ được đọc/ghi trên thread change-feed
+    private static long lastSeq = -1;
+    private static final Map<Long, Long> gaps = new HashMap<>(); // seq còn thiếu → lúc phát hiện
+
+    private ChangeFeedListener() {
+    }
+
+    /**
+     * Bắt đầu theo dõi change_log (gọi nhiều lần không sao)
+     */
+    public static synchronized void start() {
+        if (!DatabaseConfig.getPropertyAsBoolean("changefeed.enabled", true)) {
+            return;
+        }
+        if (thread != null && thread.isAlive()) {
+            return;
+        }
+        running = true;
+        thread = new Thread(ChangeFeedListener::run, "change-feed");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Dừng theo dõi
+     */
+    public static synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    private static void run() {
+        long configuredPollInterval = Math.max(100, DatabaseConfig.getPropertyAsInt("changefeed.pollIntervalMs", 500));
+        long pollInterval = configuredPollInterval;
+        ChangeFeedMulticast.Receiver receiver = null;
+        if (ChangeFeedMulticast.isEnabled()) {
+            try {
+                receiver = ChangeFeedMulticast.openReceiver();
+                pollInterval = MULTICAST_FALLBACK_POLL_MILLIS;
+            } catch (Exception e) {
+                System.err.println("⚠️ Change feed multicast unavailable, polling instead: " + e.getMessage());
+            }
+        }
+
+        System.out.println("✅ Change feed started (terminal " + DatabaseConfig.getTerminalId() + ")");
+        try {
+            initialize();
+            long followUpAt = 0;
+            while (running) {
+                long wait = followUpAt > 0 ? Math.max(1, followUpAt - System.currentTimeMillis()) : pollInterval;
+                if (receiver != null) {
+                    try {
+                        if (receiver.await(wait)) {
+                            followUpAt = System.currentTimeMillis() + FOLLOW_UP_DELAY_MILLIS;
+                        } else {
+                            followUpAt = 0;
+                        }
+                    } catch (Exception e) {
+                        if (!running) {
+                            break;
+                        }
+                        // Socket multicast hỏng → chuyển hẳn sang poll thay vì dừng change feed
+                        System.err.println("⚠️ Change feed multicast failed, polling instead: " + e.getMessage());
+                        receiver.close();
+                        receiver = null;
+                        followUpAt = 0;
+                        pollInterval = configuredPollInterval;
+                    }
+                } else {
+                    Thread.sleep(wait);
+                }
+                pollOnce();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            if (running) {
+                System.err.println("❌ Change feed stopped: " + e.getMessage());
+                e.printStackTrace();
+            }
+        } finally {
+            if (receiver != null) {
+                receiver.close();
+            }
+            System.out.println("🔒 Change feed stopped");
+        }
+    }
+
+    /**
+     * Bắt đầu từ cuối log (UI vừa tải trạng thái đầy đủ) và dọn dòng cũ
+     */
+    private static void initialize() {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            ChangeLogDAO changeLogDAO = new ChangeLogDAOImpl(conn);
+            int purged = changeLogDAO.deleteOlderThan(new Timestamp(System.currentTimeMillis() - RETENTION_MILLIS));
+            if (purged > 0) {
+                System.out.println("🧹 Purged " + purged + " old change_log rows");
+            }
+            lastSeq = changeLogDAO.findLatestSeq();
+        } catch (Exception e) {
+            System.err.println("❌ Error initializing change feed: " + e.getMessage());
+        }
+    }
+
+    private static void pollOnce() {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            ChangeLogDAO changeLogDAO = new ChangeLogDAOImpl(conn);
+            if (lastSeq < 0) {
+                lastSeq = changeLogDAO.findLatestSeq();
+                return;
+            }
+
+            // Lỗ hổng: chỉ đọc lại đúng các seq còn thiếu
+            if (!gaps.isEmpty()) {
+                long now = System.currentTimeMillis();
+                for (ChangeLogEntry entry : changeLogDAO.findBySeqs(new ArrayList<>(gaps.keySet()))) {
+                    accept(entry, now);
+                }
+            }
+
+            // Dòng mới: lastSeq tăng sau mỗi trang nên vòng lặp luôn tiến
+            List<ChangeLogEntry> entries;
+            do {
+                entries = changeLogDAO.findAfter(lastSeq, BATCH_SIZE);
+                long now = System.currentTimeMillis();
+                for (ChangeLogEntry entry : entries) {
+                    accept(entry, now);
+                }
+            } while (entries.size() == BATCH_SIZE && running);
+            expireGaps(System.currentTimeMillis());
+        } catch (Exception e) {
+            System.err.println("❌ Error reading change feed: " + e.getMessage());
+        }
+    }
+
+    private static void accept(ChangeLogEntry entry, long now) {
+        long seq = entry.getSeq();
+        if (seq <= lastSeq) {
+            if (gaps.remove(seq) == null) {
+                return; // Đã xử lý ở lượt trước
+            }
+        } else {
+            for (long missing = lastSeq + 1; missing < seq && gaps.size() < MAX_TRACKED_GAPS; missing++) {
+                gaps.put(missing, now);
+            }
+            lastSeq = seq;
+        }
+
+        if (entry.isTable() || entry.getTerminalId() != DatabaseConfig.getTerminalId()) {
+            dispatch(entry);
+        }
+    }
+
+    private static void expireGaps(long now) {
+        gaps.values().removeIf(firstSeen -> now - firstSeen > GAP_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Chuyển một dòng change_log thành sự kiện dashboard
+     */
+    private static void dispatch(ChangeLogEntry entry) {
+        Integer tableId = entry.getTableId();
+        if (entry.isTable() && tableId != null && entry.getStatus() != null) {
+            int version = entry.getVersion() != null ? entry.getVersion() : -1;
+            DashboardEventBus.publish(new TableStatusChanged(tableId, entry.getStatus(), version));
+        } else if (entry.isOrder()) {
+            if (tableId != null) {
+                // Registry chỉ giữ orderId; order đóng/xóa ở terminal khác phải được gỡ khỏi bàn
+                Order order = new Order();
+                order.setOrderId(entry.getEntityId());
+                order.setTableId(tableId);
+                order.setOrderStatus(entry.getStatus());
+                ActiveOrderRegistry.track(order);
+            }
+            DashboardEventBus.publish(new OrderChanged(tableId != null ? tableId : 0, entry.getEntityId(),
+                    entry.getStatus(), entry.getPaymentStatus()));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.cafe.controller.base;
+
+/**
+ * Các sự kiện trao đổi giữa các controller của dashboard qua DashboardEventBus
+ *
+ * Mỗi sự kiện có một coalesceKey: trong cùng một FX pulse, các sự kiện
+ * trùng key chỉ giữ lại sự kiện mới nhất (ví dụ nhiều lần đổi trạng thái
+ * của cùng một bàn chỉ được áp dụng một lần).
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public sealed interface DashboardEvent {
+
+    /**
+     * Key gộp sự kiện: loại sự kiện (32 bit cao) + ID đối tượng (32 bit thấp)
+     */
+    long coalesceKey();
+
+    /**
+     * Trạng thái bàn đã được lưu vào database
+     * version = tables.version tương ứng (-1 nếu không rõ); sự kiện có version
+     * cũ hơn bản đang giữ được bỏ qua
+     */
+    record TableStatusChanged(int tableId, String status, int version) implements DashboardEvent {
+        @Override
+        public long coalesceKey() {
+            return (1L << 32) | (tableId & 0xFFFF_FFFFL);
+        }
+    }
+
+    /**
+     * Danh sách món của order tại một bàn đã thay đổi
+     */
+    record OrderItemsChanged(int tableId, int orderId, int itemCount, double totalAmount) implements DashboardEvent {
+        @Override
+        public long coalesceKey() {
+            return (2L << 32) | (tableId & 0xFFFF_FFFFL);
+        }
+    }
+
+    /**
+     * Order đã được thanh toán xong
+     */
+    record PaymentCompleted(int tableId, int orderId, String orderNumber, String paymentMethod,
+                            double amount) implements DashboardEvent {
+        @Override
+        public long coalesceKey() {
+            return (3L << 32) | (orderId & 0xFFFF_FFFFL);
+        }
+    }
+
+    /**
+     * Order tại một bàn đã được terminal khác thay đổi (từ ChangeFeedListener)
+     * orderStatus = "deleted" khi order bị xóa
+     */
+    record OrderChanged(int tableId, int orderId, String orderStatus, String paymentStatus) implements DashboardEvent {
+        @Override
+        public long coalesceKey() {
+            return (4L << 32) | (orderId & 0xFFFF_FFFFL);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.cafe.controller.base;
+
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.stage.Window;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Event bus in-process, có kiểu, cho các controller của dashboard
+ * (TableController, MenuController, OrderPanelController, DashboardController...)
+ *
+ * - Subscriber đăng ký theo class của sự kiện; khi phát chỉ cần một lần tra map,
+ *   không dùng reflection
+ * - publish() gọi được từ bất kỳ thread nào; sự kiện được gom lại và phát
+ *   trên FX thread một lần cho mỗi đợt (một Platform.runLater), sự kiện trùng
+ *   coalesceKey chỉ giữ bản mới nhất
+ * - Subscription gắn với một Node (bindTo) tự hủy khi view bị gỡ khỏi scene,
+ *   nên controller được tạo lại khi đổi tab không bị rò rỉ
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public final class DashboardEventBus {
+
+    private static final Map<Class<?>, CopyOnWriteArrayList<Subscription>> subscribers = new ConcurrentHashMap<>();
+
+    // Hai buffer luân phiên: một nhận sự kiện mới, một đang được phát
+    private static LinkedHashMap<Long, DashboardEvent> pending = new LinkedHashMap<>();
+    private static LinkedHashMap<Long, DashboardEvent> dispatching = new LinkedHashMap<>();
+    private static boolean flushScheduled = false;
+    private static final Object lock = new Object();
+
+    private DashboardEventBus() {
+    }
+
+    /**
+     * Đăng ký nhận một loại sự kiện (handler luôn chạy trên FX thread)
+     */
+    public static <E extends DashboardEvent> Subscription subscribe(Class<E> eventType, Consumer<? super E> handler) {
+        Subscription subscription = new Subscription(eventType, event -> handler.accept(eventType.cast(event)));
+        subscribers.computeIfAbsent(eventType, type -> new CopyOnWriteArrayList<>()).add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Phát sự kiện; được gửi tới subscriber ở lần flush kế tiếp trên FX thread
+     */
+    public static void publish(DashboardEvent event) {
+        if (event == null) {
+            return;
+        }
+        boolean schedule;
+        synchronized (lock) {
+            pending.put(event.coalesceKey(), event);
+            schedule = !flushScheduled;
+            flushScheduled = true;
+        }
+        if (schedule) {
+            Platform.runLater(DashboardEventBus::flush);
+        }
+    }
+
+    private static void flush() {
+        LinkedHashMap<Long, DashboardEvent> batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = dispatching;
+            dispatching = batch;
+            flushScheduled = false;
+        }
+
+        for (DashboardEvent event : batch.values()) {
+            List<Subscription> handlers = subscribers.get(event.getClass());
+            if (handlers == null) {
+                continue;
+            }
+            for (Subscription subscription : handlers) {
+                try {
+                    subscription.handler.accept(event);
+                } catch (Exception e) {
+                    System.err.println("❌ Error handling " + event.getClass().getSimpleName() + ": " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        }
+        batch.clear();
+    }
+
+    /**
+     * Số subscriber đang đăng ký (debug)
+     */
+    public static int getSubscriberCount() {
+        int count = 0;
+        for (List<Subscription> handlers : subscribers.values()) {
+            count += handlers.size();
+        }
+        return count;
+    }
+
+    /**
+     * Một đăng ký nhận sự kiện
+     */
+    public static final class Subscription {
+        private final Class<?> eventType;
+        private final Consumer<DashboardEvent> handler;
+
+        private Subscription(Class<?> eventType, Consumer<DashboardEvent> handler) {
+            this.eventType = eventType;
+            this.handler = handler;
+        }
+
+        /**
+         * Hủy đăng ký
+         */
+        public void cancel() {
+            List<Subscription> handlers = subscribers.get(eventType);
+            if (handlers != null) {
+                handlers.remove(this);
+            }
+        }
+
+        /**
+         * Tự hủy đăng ký khi node bị gỡ khỏi scene (view bị thay thế)
+         * hoặc khi scene chứa nó bị gỡ khỏi cửa sổ (đăng xuất → scene mới)
+         */
+        public Subscription bindTo(Node owner) {
+            ChangeListener<Window> windowListener = (obs, oldWindow, newWindow) -> {
+                if (oldWindow != null && newWindow == null) {
+                    cancel();
+                }
+            };
+            ChangeListener<Scene> sceneListener = (obs, oldScene, newScene) -> {
+                if (oldScene != null) {
+                    oldScene.windowProperty().removeListener(windowListener);
+                }
+                if (newScene != null) {
+                    newScene.windowProperty().addListener(windowListener);
+                } else if (oldScene != null) {
+                    cancel();
+                }
+            };
+            owner.sceneProperty().addListener(sceneListener);
+            if (owner.getScene() != null) {
+                owner.getScene().windowProperty().addListener(windowListener);
+            }
+            return this;
+        }
+    }
+}
@@ -57,4 +57,41 @@ public interface DashboardEventHandler {
      * @param tableId Table ID affected
      */
     void onOrderStatusChanged(String newStatus, int tableId);
-}
\ No newline at end of file
+
+    /**
+     * Persist a table status change and publish it to the event bus
+     * @param tableId Table ID
+     * @param newStatus New table status
+     */
+    void updateTableStatus(int tableId, String newStatus);
+
+    /**
+     * Show order panel for a table
+     * @param tableId Table ID
+     */
+    void showOrderPanel(int tableId);
+
+    /**
+     * Show order panel for a just-reserved table (keeps reserved status)
+     * @param tableId Table ID
+     */
+    void showOrderPanelForReserved(int tableId);
+
+    /**
+     * Switch dashboard tab
+     * @param tabName Tab name ("menu", "table")
+     */
+    void switchToTab(String tabName);
+
+    /**
+     * Last known status of a table (null if unknown)
+     * @param tableId Table ID
+     */
+    String getTableStatus(int tableId);
+
+    /**
+     * Display name of a table (null if unknown)
+     * @param tableId Table ID
+     */
+    String getTableName(int tableId);
+}
@@ -3,8 +3,6 @@ package com.cafe.controller.base;
 import com.cafe.model.entity.Product;
 import com.cafe.model.entity.TableCafe;
 
-import java.lang.reflect.Method;
-
 /**
  * Helper class for type-safe dashboard communication
  *
@@ -51,30 +49,39 @@ public class DashboardHelper {
     /**
      * ✅ NEW: Show order panel for specific table
      */
-    public static void showOrderPanel(Object dashboardController, int tableId) {
-        try {
-            if (dashboardController != null) {
-                // Use reflection to call showOrderPanel method on dashboard
-                Method method = dashboardController.getClass().getMethod("showOrderPanel", int.class);
-                method.invoke(dashboardController, tableId);
-            }
-        } catch (Exception e) {
-            System.err.println("Error showing order panel: " + e.getMessage());
+    public static void showOrderPanel(Object dashboard, int tableId) {
+        if (dashboard instanceof DashboardEventHandler) {
+            ((DashboardEventHandler) dashboard).showOrderPanel(tableId);
         }
     }
 
     /**
      * ✅ NEW: Update table status through dashboard
+     * (dashboard lưu trạng thái rồi phát TableStatusChanged qua DashboardEventBus)
+     */
+    public static void updateTableStatus(Object dashboard, int tableId, String newStatus) {
+        if (dashboard instanceof DashboardEventHandler) {
+            ((DashboardEventHandler) dashboard).updateTableStatus(tableId, newStatus);
+        }
+    }
+
+    /**
+     * Last known table status via dashboard (null if unknown)
      */
-    public static void updateTableStatus(Object dashboardController, int tableId, String newStatus) {
-        try {
-            if (dashboardController != null) {
-                // Use reflection to call updateTableStatus method on dashboard
-                Method method = dashboardController.getClass().getMethod("updateTableStatus", int.class, String.class);
-                method.invoke(dashboardController, tableId, newStatus);
-            }
-        } catch (Exception e) {
-            System.err.println("Error updating table status through dashboard: " + e.getMessage());
+    public static String getTableStatus(Object dashboard, int tableId) {
+        if (dashboard instanceof DashboardEventHandler) {
+            return ((DashboardEventHandler) dashboard).getTableStatus(tableId);
+        }
+        return null;
+    }
+
+    /**
+     * Table display name via dashboard (null if unknown)
+     */
+    public static String getTableName(Object dashboard, int tableId) {
+        if (dashboard instanceof DashboardEventHandler) {
+            return ((DashboardEventHandler) dashboard).getTableName(tableId);
         }
+        return null;
     }
-}
\ No newline at end of file
+}
@@ -4,6 +4,7 @@ import com.cafe.model.entity.Customer;
 import com.cafe.service.CustomerService;
 import com.cafe.util.AlertUtils;
 import com.cafe.util.PriceFormatter;
+import com.cafe.util.BackgroundExecutor;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -297,9 +298,7 @@ public class CustomerController implements Initializable {
             };
             
             // Run task in background
-            Thread loadThread = new Thread(loadTask);
-            loadThread.setDaemon(true);
-            loadThread.start();
+            BackgroundExecutor.submitLatest("CustomerController.loadCustomerData", loadTask);
             
         } catch (Exception e) {
             handleLoadError("Lỗi hệ thống", e);
@@ -477,9 +476,7 @@ public class CustomerController implements Initializable {
                     }
                 };
                 
-                Thread deleteThread = new Thread(deleteTask);
-                deleteThread.setDaemon(true);
-                deleteThread.start();
+                BackgroundExecutor.submit(deleteTask);
             }
             
         } catch (Exception e) {
@@ -551,9 +548,7 @@ public class CustomerController implements Initializable {
                 }
             };
             
-            Thread saveThread = new Thread(saveTask);
-            saveThread.setDaemon(true);
-            saveThread.start();
+            BackgroundExecutor.submit(saveTask);
             
         } catch (Exception e) {
             System.err.println("❌ Error saving customer: " + e.getMessage());
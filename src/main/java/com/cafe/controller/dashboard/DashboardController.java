@@ -6,10 +6,16 @@ import com.cafe.controller.menu.MenuController;
 import com.cafe.controller.order.OrderPanelController;
 import com.cafe.controller.table.TableController;
 import com.cafe.controller.base.DashboardCommunicator;
+import com.cafe.controller.base.DashboardEvent.TableStatusChanged;
+import com.cafe.controller.base.ChangeFeedListener;
+import com.cafe.controller.base.DashboardEventBus;
 import com.cafe.controller.base.DashboardEventHandler;
 
 import com.cafe.model.entity.Product;
+import com.cafe.model.dto.TableStatusTransition;
 import com.cafe.model.entity.TableCafe;
+import com.cafe.service.TableService;
+import com.cafe.util.BackgroundExecutor;
 import com.cafe.util.SessionManager;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -23,6 +29,8 @@ import javafx.scene.layout.VBox;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.ResourceBundle;
 
 
@@ -70,6 +78,10 @@ public class DashboardController implements Initializable, DashboardEventHandler
     private MenuController currentMenuController;
     private TableController currentTableController;
 
+    // Trạng thái/version bàn mới nhất nhận qua DashboardEventBus (khi tab bàn chưa mở)
+    private final Map<Integer, TableStatusChanged> knownTableStates = new HashMap<>();
+    private final TableService tableService = new TableService();
+
     // User session info - Sẽ được load từ SessionManager
     private String currentUserName = "";
     private String currentUserRole = "";
@@ -94,6 +106,13 @@ public class DashboardController implements Initializable, DashboardEventHandler
             // Initialize OrderPanel communication
             initializeOrderPanelCommunication();
 
+            // Theo dõi trạng thái bàn qua event bus
+            DashboardEventBus.subscribe(TableStatusChanged.class, this::rememberTableState)
+                    .bindTo(contentPane);
+
+            // Nhận thay đổi bàn/order từ các terminal khác (change_log)
+            ChangeFeedListener.start();
+
             // Load default content (menu)
             loadMenuContent();
 
@@ -712,28 +731,9 @@ public class DashboardController implements Initializable, DashboardEventHandler
                     javafx.scene.control.ButtonType result = confirmAlert.showAndWait().orElse(noButton);
                     
                     if (result == yesButton) {
-                        // Clear the order using OrderPanelController via reflection
-                        try {
-                            java.lang.reflect.Method clearMethod = orderPanelRootController.getClass().getMethod("clearOrder");
-                            clearMethod.invoke(orderPanelRootController);
-                            System.out.println("✅ Order cleared successfully");
-                            
-                            // Show success message
-                            javafx.scene.control.Alert successAlert = new javafx.scene.control.Alert(javafx.scene.control.Alert.AlertType.INFORMATION);
-                            successAlert.setTitle("Thành công");
-                            successAlert.setHeaderText("Đơn hàng đã được xóa");
-                            successAlert.setContentText("Đơn hàng hiện tại đã được xóa thành công.");
-                            successAlert.showAndWait();
-                        } catch (Exception reflectionException) {
-                            System.err.println("❌ clearOrder method not found in OrderPanelController: " + reflectionException.getMessage());
-                            
-                            // Show error dialog
-                            javafx.scene.control.Alert errorAlert = new javafx.scene.control.Alert(javafx.scene.control.Alert.AlertType.ERROR);
-                            errorAlert.setTitle("Lỗi");
-                            errorAlert.setHeaderText("Không thể xóa đơn hàng");
-                            errorAlert.setContentText("Phương thức xóa đơn hàng chưa được implement trong OrderPanelController.");
-                            errorAlert.showAndWait();
-                        }
+                        // Hủy order ở background, OrderPanel báo kết quả khi xong
+                        orderPanelRootController.clearOrder();
+                        System.out.println("🗑️ Order clear requested");
                     } else {
                         System.out.println("🗑️ Order clear cancelled by user");
                     }
@@ -790,11 +790,7 @@ public class DashboardController implements Initializable, DashboardEventHandler
         try {
             System.out.println("🔄 Order status changed: " + newStatus + " for table " + tableId);
 
-            // Refresh table display if currently viewing tables
-            if (currentTableController != null && "table".equals(currentTab)) {
-                System.out.println("🔄 Refreshing table display for status update...");
-                refreshTableDisplay();
-            }
+            // Table view tự cập nhật qua TableStatusChanged trên DashboardEventBus
 
             // Log status change for audit trail
             System.out.println("📝 Status change logged: Table " + tableId + " -> " + newStatus);
@@ -810,19 +806,35 @@ public class DashboardController implements Initializable, DashboardEventHandler
     // =====================================================
 
     /**
-     * ✅ NEW: Update table status - called by DashboardHelper via reflection
-     * This method is required for the reflection call in DashboardHelper.updateTableStatus()
+     * ✅ NEW: Update table status - called through DashboardHelper.updateTableStatus()
+     * Trạng thái được lưu rồi phát TableStatusChanged, các view tự cập nhật
      */
+    @Override
     public void updateTableStatus(int tableId, String newStatus) {
         try {
             System.out.println("🔄 DashboardController.updateTableStatus called: Table " + tableId + " -> " + newStatus);
             
             // Forward the update to TableController if it's loaded
-            if (currentTableController != null) {
+            if (currentTableController != null && currentTableController.getTableById(tableId) != null) {
                 currentTableController.updateTableStatus(tableId, newStatus);
                 System.out.println("✅ Table status update forwarded to TableController");
             } else {
-                System.err.println("⚠️ TableController not loaded - cannot update table status");
+                // Tab bàn chưa mở → compare-and-set từ trạng thái đã biết (nếu có) ở background
+                TableStatusChanged known = knownTableStates.get(tableId);
+                BackgroundExecutor.submit(() -> {
+                    TableStatusTransition result = known != null && known.version() >= 0
+                            ? tableService.transitionTableStatus(tableId, known.status(), known.version(), newStatus)
+                            : tableService.transitionTableStatus(tableId, newStatus);
+                    if (result.getStatus() != null && result.getOutcome() != TableStatusTransition.Outcome.REJECTED) {
+                        DashboardEventBus.publish(new TableStatusChanged(tableId, result.getStatus(), result.getVersion()));
+                    }
+                    if (result.isSuccess()) {
+                        System.out.println("✅ Table " + tableId + " status saved: " + result.getStatus());
+                    } else {
+                        System.err.println("❌ Table " + tableId + " status not updated (" + result.getOutcome()
+                                + ", current: " + result.getStatus() + ")");
+                    }
+                });
             }
             
             // Also notify OrderPanel if it's available
@@ -841,8 +853,8 @@ public class DashboardController implements Initializable, DashboardEventHandler
 
     /**
      * ✅ NEW: Show order panel for specific table
-     * This method is required for the reflection call in DashboardHelper.showOrderPanel()
      */
+    @Override
     public void showOrderPanel(int tableId) {
         try {
             System.out.println("📋 DashboardController.showOrderPanel called for table: " + tableId);
@@ -864,6 +876,7 @@ public class DashboardController implements Initializable, DashboardEventHandler
     /**
      * ✅ NEW: Show order panel for just-reserved table (preserve reserved status)
      */
+    @Override
     public void showOrderPanelForReserved(int tableId) {
         try {
             System.out.println("📋 DashboardController.showOrderPanelForReserved called for table: " + tableId);
@@ -900,68 +913,10 @@ public class DashboardController implements Initializable, DashboardEventHandler
         }
     }
     
-    /**
-     * Refresh table display specifically
-     */
-    private void refreshTableDisplay() {
-        try {
-            if (currentTableController != null) {
-                System.out.println("🔄 Refreshing table display...");
-                
-                // Try to call refresh method on TableController
-                try {
-                    // Method 1: Direct method call if available
-                    if (currentTableController instanceof com.cafe.controller.table.TableController) {
-                        com.cafe.controller.table.TableController tableController = 
-                            (com.cafe.controller.table.TableController) currentTableController;
-                        
-                        // Try to call refresh method
-                        try {
-                            java.lang.reflect.Method refreshMethod = tableController.getClass().getMethod("refreshData");
-                            refreshMethod.invoke(tableController);
-                            System.out.println("✅ Table display refreshed via refreshData method");
-                        } catch (NoSuchMethodException e) {
-                            // Try alternative method names
-                            try {
-                                java.lang.reflect.Method refreshMethod = tableController.getClass().getMethod("refresh");
-                                refreshMethod.invoke(tableController);
-                                System.out.println("✅ Table display refreshed via refresh method");
-                            } catch (NoSuchMethodException e2) {
-                                // Try loadData method
-                                try {
-                                    java.lang.reflect.Method loadMethod = tableController.getClass().getMethod("loadData");
-                                    loadMethod.invoke(tableController);
-                                    System.out.println("✅ Table display refreshed via loadData method");
-                                } catch (NoSuchMethodException e3) {
-                                    // Fallback: reload the entire table content
-                                    System.out.println("⚠️ No refresh method found, reloading table content...");
-                                    loadTableContent();
-                                }
-                            }
-                        }
-                    } else {
-                        // Fallback: reload the entire table content
-                        System.out.println("⚠️ TableController type not recognized, reloading table content...");
-                        loadTableContent();
-                    }
-                } catch (Exception e) {
-                    System.err.println("❌ Error refreshing table display: " + e.getMessage());
-                    // Fallback: reload the entire table content
-                    System.out.println("🔄 Falling back to reloading table content...");
-                    loadTableContent();
-                }
-            } else {
-                System.err.println("⚠️ TableController not available for refresh");
-            }
-        } catch (Exception e) {
-            System.err.println("❌ Error in refreshTableDisplay: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
     /**
      * Switch to specific tab programmatically
      */
+    @Override
     public void switchToTab(String tabName) {
         System.out.println("🔄 Switching to tab: " + tabName);
 
@@ -1001,6 +956,29 @@ public class DashboardController implements Initializable, DashboardEventHandler
         return currentTableController;
     }
 
+    @Override
+    public String getTableStatus(int tableId) {
+        TableCafe table = currentTableController != null ? currentTableController.getTableById(tableId) : null;
+        if (table != null) {
+            return table.getStatus();
+        }
+        TableStatusChanged known = knownTableStates.get(tableId);
+        return known != null ? known.status() : null;
+    }
+
+    private void rememberTableState(TableStatusChanged event) {
+        TableStatusChanged known = knownTableStates.get(event.tableId());
+        if (known == null || event.version() < 0 || event.version() >= known.version()) {
+            knownTableStates.put(event.tableId(), event);
+        }
+    }
+
+    @Override
+    public String getTableName(int tableId) {
+        TableCafe table = currentTableController != null ? currentTableController.getTableById(tableId) : null;
+        return table != null ? table.getTableName() : null;
+    }
+
     public String getCurrentUserName() {
         return currentUserName;
     }
@@ -1,22 +1,24 @@
 package com.cafe.controller.menu;
 
 import com.cafe.controller.base.DashboardCommunicator;
+import com.cafe.controller.base.DashboardEvent.OrderItemsChanged;
+import com.cafe.controller.base.DashboardEvent.PaymentCompleted;
+import com.cafe.controller.base.DashboardEventBus;
 import com.cafe.controller.base.DashboardHelper;
 import com.cafe.model.entity.Category;
 import com.cafe.model.entity.Product;
 import com.cafe.service.MenuService;
+import com.cafe.util.BackgroundExecutor;
+import com.cafe.util.PriceFormatter;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
-import javafx.geometry.Insets;
-import javafx.geometry.Pos;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
 import javafx.concurrent.Task;
 
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
 
@@ -37,9 +39,7 @@ public class MenuController implements Initializable, DashboardCommunicator {
     @FXML private Button refreshButton;
     @FXML private ProgressIndicator loadingIndicator;
     @FXML private Label statusLabel;
-    @FXML private ScrollPane productScrollPane;
-    @FXML private VBox productContainer;
-    @FXML private TilePane productGrid;
+    @FXML private ListView<List<Product>> productGrid;
     @FXML private VBox emptyStateContainer;
     @FXML private Label emptyStateLabel;
 
@@ -52,9 +52,14 @@ public class MenuController implements Initializable, DashboardCommunicator {
     private Integer selectedCategoryId = null;
     private String currentSearchKeyword = "";
 
-    // Grid configuration
-    private static final double PRODUCT_CARD_WIDTH = 200;
-    private static final double PRODUCT_CARD_HEIGHT = 280;
+    // Load theo category và search cùng ghi vào currentProducts → chỉ kết quả mới nhất được hiển thị
+    private static final String PRODUCTS_TASK_KEY = "MenuController.products";
+    private static final String SEARCH_DEBOUNCE_KEY = "MenuController.searchInput";
+    private static final long SEARCH_DEBOUNCE_MILLIS = 300;
+
+    // Grid configuration: mỗi item của ListView là một hàng products
+    private List<Product> displayedProducts = List.of();
+    private int gridColumns = 1;
 
     // ✅ Dashboard communication
     private Object dashboardController;
@@ -68,6 +73,8 @@ public class MenuController implements Initializable, DashboardCommunicator {
             // Setup UI components
             setupSearchField();
             setupLoadingIndicator();
+            setupProductGrid();
+            subscribeOrderEvents();
 
             // Load initial data
             loadInitialData();
@@ -92,6 +99,21 @@ public class MenuController implements Initializable, DashboardCommunicator {
         return dashboardController;
     }
 
+    /**
+     * Hiển thị tóm tắt đơn hiện tại trên thanh trạng thái (từ DashboardEventBus)
+     */
+    private void subscribeOrderEvents() {
+        DashboardEventBus.subscribe(OrderItemsChanged.class, event -> {
+            if (event.itemCount() > 0) {
+                updateStatus("🧾 Đơn hiện tại: " + event.itemCount() + " món - "
+                        + PriceFormatter.formatVNDWithUnit(event.totalAmount()));
+            }
+        }).bindTo(productGrid);
+        DashboardEventBus.subscribe(PaymentCompleted.class,
+                event -> updateStatus("💰 Đã thanh toán " + event.orderNumber()))
+                .bindTo(productGrid);
+    }
+
     /**
      * Setup search field behavior
      */
@@ -106,7 +128,10 @@ public class MenuController implements Initializable, DashboardCommunicator {
         }
 
         if (searchBtn != null) {
-            searchBtn.setOnAction(e -> performSearch());
+            searchBtn.setOnAction(e -> {
+                BackgroundExecutor.cancel(SEARCH_DEBOUNCE_KEY);
+                performSearch();
+            });
         }
         
         // Handle refresh button in admin layout
@@ -126,6 +151,30 @@ public class MenuController implements Initializable, DashboardCommunicator {
         loadingIndicator.setManaged(false);
     }
 
+    /**
+     * Setup virtualized product grid
+     */
+    private void setupProductGrid() {
+        productGrid.setCellFactory(list -> new ProductGridCell(this::handleAddToOrder));
+        productGrid.setFixedCellSize(ProductGridCell.CARD_HEIGHT + ProductGridCell.GAP);
+        productGrid.setFocusTraversable(false);
+
+        // Số cột phụ thuộc độ rộng → chia lại hàng khi resize
+        productGrid.widthProperty().addListener((obs, oldWidth, newWidth) -> {
+            int columns = calculateColumns(newWidth.doubleValue());
+            if (columns != gridColumns) {
+                gridColumns = columns;
+                rebuildRows();
+            }
+        });
+    }
+
+    private int calculateColumns(double width) {
+        // Trừ padding và thanh cuộn dọc
+        double usable = width - 2 * ProductGridCell.GAP - 20;
+        return Math.max(1, (int) ((usable + ProductGridCell.GAP) / (ProductGridCell.CARD_WIDTH + ProductGridCell.GAP)));
+    }
+
     /**
      * Load initial data (categories and products)
      */
@@ -176,7 +225,7 @@ public class MenuController implements Initializable, DashboardCommunicator {
         };
 
         statusLabel.textProperty().bind(loadDataTask.messageProperty());
-        new Thread(loadDataTask).start();
+        BackgroundExecutor.submitLatest("MenuController.loadInitialData", loadDataTask);
     }
 
     /**
@@ -240,6 +289,18 @@ public class MenuController implements Initializable, DashboardCommunicator {
      * Load products by category
      */
     private void loadProductsByCategory(Integer categoryId) {
+        // Catalog đã nằm trong bộ nhớ → đọc trực tiếp, không cần background task
+        if (menuService.isCatalogLoaded()) {
+            BackgroundExecutor.cancel(PRODUCTS_TASK_KEY);
+            List<Product> products = categoryId == null
+                    ? menuService.getAllAvailableProducts()
+                    : menuService.getProductsByCategory(categoryId);
+            currentProducts = products;
+            displayProducts(products);
+            updateStatus("Đã tải " + products.size() + " sản phẩm");
+            return;
+        }
+
         showLoading(true);
 
         Task<List<Product>> loadProductsTask = new Task<List<Product>>() {
@@ -275,16 +336,16 @@ public class MenuController implements Initializable, DashboardCommunicator {
         };
 
         statusLabel.textProperty().bind(loadProductsTask.messageProperty());
-        new Thread(loadProductsTask).start();
+        BackgroundExecutor.submitLatest(PRODUCTS_TASK_KEY, loadProductsTask);
     }
 
     /**
-     * Display products in tile pane
+     * Display products in virtualized grid
      */
     private void displayProducts(List<Product> products) {
-        productGrid.getChildren().clear();
-
         if (products == null || products.isEmpty()) {
+            displayedProducts = List.of();
+            productGrid.getItems().clear();
             showEmptyState(true);
             return;
         }
@@ -292,129 +353,25 @@ public class MenuController implements Initializable, DashboardCommunicator {
         showEmptyState(false);
 
         // *** SORT PRODUCTS BY ID (ASCENDING) ***
-        List<Product> sortedProducts = products.stream()
+        // Kết quả tìm kiếm giữ nguyên thứ tự theo mức độ liên quan
+        displayedProducts = !currentSearchKeyword.isEmpty() ? products : products.stream()
                 .sorted((p1, p2) -> Integer.compare(p1.getProductId(), p2.getProductId()))
                 .toList();
 
-        // Configure tile pane
-        productGrid.setHgap(15);
-        productGrid.setVgap(15);
-        productGrid.setPadding(new Insets(10));
-
-        // Add products to tile pane in sorted order
-        for (Product product : sortedProducts) {
-            VBox productCard = createProductCard(product);
-            productGrid.getChildren().add(productCard);
-        }
-        
-        System.out.println("✅ Products displayed sorted by ID (ascending)");
+        rebuildRows();
+        productGrid.scrollTo(0);
     }
 
     /**
-     * ✅ ENHANCED: Create product card UI component với Dashboard communication
+     * Chia products thành các hàng theo số cột hiện tại;
+     * ListView chỉ dựng cell cho các hàng đang hiển thị
      */
-    private VBox createProductCard(Product product) {
-        VBox card = new VBox(10);
-        card.setPrefWidth(PRODUCT_CARD_WIDTH);
-        card.setPrefHeight(PRODUCT_CARD_HEIGHT);
-        card.setAlignment(Pos.CENTER);
-        card.setStyle("""
-            -fx-background-color: white;
-            -fx-border-color: #e0e0e0;
-            -fx-border-width: 1;
-            -fx-border-radius: 8;
-            -fx-background-radius: 8;
-            -fx-padding: 15;
-            -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 5, 0, 0, 2);
-            """);
-
-        // Product image
-        ImageView imageView = new ImageView();
-        imageView.setFitWidth(160);
-        imageView.setFitHeight(120);
-        imageView.setPreserveRatio(true);
-        imageView.setStyle("-fx-background-color: #f5f5f5; -fx-background-radius: 5;");
-
-        // Try to load product image
-        try {
-            if (product.getImageUrl() != null && !product.getImageUrl().isEmpty()) {
-                Image image = new Image(product.getImageUrl(), false);
-                imageView.setImage(image);
-            } else {
-                // Use placeholder image
-                imageView.setStyle("-fx-background-color: #f5f5f5;");
-            }
-        } catch (Exception e) {
-            // Use placeholder on error
-            imageView.setStyle("-fx-background-color: #f5f5f5;");
+    private void rebuildRows() {
+        List<List<Product>> rows = new ArrayList<>((displayedProducts.size() + gridColumns - 1) / gridColumns);
+        for (int start = 0; start < displayedProducts.size(); start += gridColumns) {
+            rows.add(displayedProducts.subList(start, Math.min(start + gridColumns, displayedProducts.size())));
         }
-
-        // Product name
-        Label nameLabel = new Label(product.getProductName());
-        nameLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 14px; -fx-text-fill: #333;");
-        nameLabel.setWrapText(true);
-        nameLabel.setAlignment(Pos.CENTER);
-        nameLabel.setMaxWidth(PRODUCT_CARD_WIDTH - 30);
-
-        // Product price
-        Label priceLabel = new Label(product.getFormattedPrice());
-        priceLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 13px; -fx-text-fill: #E67E22;");
-
-        // ✅ ENHANCED: Add to order button với Dashboard communication
-        Button addButton = createAddToOrderButton(product);
-
-        // Hover effect
-        card.setOnMouseEntered(e -> {
-            card.setStyle(card.getStyle() + "; -fx-border-color: #8B4513; -fx-effect: dropshadow(gaussian, rgba(139,69,19,0.3), 8, 0, 0, 3);");
-        });
-
-        card.setOnMouseExited(e -> {
-            card.setStyle("""
-                -fx-background-color: white;
-                -fx-border-color: #e0e0e0;
-                -fx-border-width: 1;
-                -fx-border-radius: 8;
-                -fx-background-radius: 8;
-                -fx-padding: 15;
-                -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 5, 0, 0, 2);
-                """);
-        });
-
-        card.getChildren().addAll(imageView, nameLabel, priceLabel, addButton);
-
-        return card;
-    }
-
-    /**
-     * ✅ NEW: Create add to order button với enhanced functionality
-     */
-    private Button createAddToOrderButton(Product product) {
-        Button addButton = new Button("Thêm vào đơn");
-
-        // Base button styling
-        String baseStyle = """
-            -fx-font-weight: bold;
-            -fx-padding: 8 12;
-            -fx-background-radius: 5;
-            -fx-min-width: 120;
-            """;
-
-        // ✅ HỦY CHECK HẾT HÀNG - Luôn cho phép order
-        addButton.setStyle(baseStyle + "-fx-background-color: #28a745; -fx-text-fill: white;");
-
-        // ✅ Set click action với Dashboard communication
-        addButton.setOnAction(e -> handleAddToOrder(product));
-
-        // Enhanced hover effects
-        addButton.setOnMouseEntered(e -> {
-            addButton.setStyle(baseStyle + "-fx-background-color: #218838; -fx-text-fill: white; -fx-cursor: hand;");
-        });
-
-        addButton.setOnMouseExited(e -> {
-            addButton.setStyle(baseStyle + "-fx-background-color: #28a745; -fx-text-fill: white;");
-        });
-
-        return addButton;
+        productGrid.getItems().setAll(rows);
     }
 
     /**
@@ -449,16 +406,7 @@ public class MenuController implements Initializable, DashboardCommunicator {
             updateStatus("✅ Đã thêm " + product.getProductName() + " vào đơn hàng");
 
             // Reset status after 3 seconds
-            new Thread(() -> {
-                try {
-                    Thread.sleep(3000);
-                    Platform.runLater(() -> {
-                        updateStatus("Sẵn sàng");
-                    });
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            }).start();
+            BackgroundExecutor.runLater(3000, () -> updateStatus("Sẵn sàng"));
         });
 
         // Option 2: Could also show toast notification
@@ -474,6 +422,16 @@ public class MenuController implements Initializable, DashboardCommunicator {
             return;
         }
 
+        // Tìm trên chỉ mục in-memory → trả kết quả ngay trên FX thread
+        if (menuService.isCatalogLoaded()) {
+            BackgroundExecutor.cancel(PRODUCTS_TASK_KEY);
+            List<Product> products = menuService.searchProducts(currentSearchKeyword, selectedCategoryId);
+            currentProducts = products;
+            displayProducts(products);
+            updateStatus("Tìm thấy " + products.size() + " sản phẩm");
+            return;
+        }
+
         showLoading(true);
 
         Task<List<Product>> searchTask = new Task<List<Product>>() {
@@ -504,28 +462,14 @@ public class MenuController implements Initializable, DashboardCommunicator {
         };
 
         statusLabel.textProperty().bind(searchTask.messageProperty());
-        new Thread(searchTask).start();
+        BackgroundExecutor.submitLatest(PRODUCTS_TASK_KEY, searchTask);
     }
 
     /**
      * Delayed search to avoid too many requests
      */
     private void delayedSearch() {
-        // Simple debounce implementation
-        Task<Void> delayTask = new Task<Void>() {
-            @Override
-            protected Void call() throws Exception {
-                Thread.sleep(500); // 500ms delay
-                return null;
-            }
-
-            @Override
-            protected void succeeded() {
-                Platform.runLater(() -> performSearch());
-            }
-        };
-
-        new Thread(delayTask).start();
+        BackgroundExecutor.debounce(SEARCH_DEBOUNCE_KEY, SEARCH_DEBOUNCE_MILLIS, this::performSearch);
     }
 
     /**
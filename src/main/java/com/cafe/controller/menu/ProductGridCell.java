@@ -0,0 +1,147 @@
+package com.cafe.controller.menu;
+
+import com.cafe.model.entity.Product;
+import com.cafe.util.ImageLoader;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Một hàng của lưới sản phẩm (ListView ảo hóa)
+ *
+ * ListView chỉ tạo cell cho các hàng đang hiển thị và tái sử dụng chúng khi cuộn;
+ * mỗi cell giữ một pool ProductCard cố định và chỉ gán lại product cho card.
+ * Ảnh chỉ được tải khi card được gán product (tức là khi hàng hiện trên màn hình),
+ * qua cache của ImageLoader.
+ * Toàn bộ style lấy từ stylesheet (dashboard.css), không dùng inline CSS.
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public final class ProductGridCell extends ListCell<List<Product>> {
+
+    static final double CARD_WIDTH = 200;
+    static final double CARD_HEIGHT = 280;
+    static final double GAP = 15;
+
+    private static final double IMAGE_WIDTH = 160;
+    private static final double IMAGE_HEIGHT = 120;
+
+    private final HBox row = new HBox(GAP);
+    private final List<ProductCard> cards = new ArrayList<>();
+    private final Consumer<Product> onAddToOrder;
+
+    public ProductGridCell(Consumer<Product> onAddToOrder) {
+        this.onAddToOrder = onAddToOrder;
+        row.getStyleClass().add("menu-product-row");
+        getStyleClass().add("menu-product-cell");
+        setText(null);
+    }
+
+    @Override
+    protected void updateItem(List<Product> products, boolean empty) {
+        super.updateItem(products, empty);
+
+        if (empty || products == null) {
+            for (ProductCard card : cards) {
+                card.unbind();
+            }
+            setGraphic(null);
+            return;
+        }
+
+        while (cards.size() < products.size()) {
+            cards.add(new ProductCard(onAddToOrder));
+        }
+
+        for (int i = 0; i < cards.size(); i++) {
+            ProductCard card = cards.get(i);
+            if (i < products.size()) {
+                card.bind(products.get(i));
+            } else {
+                card.unbind();
+            }
+        }
+
+        // Chỉ thay children khi số card thay đổi (hàng cuối có thể thiếu)
+        if (row.getChildren().size() != products.size()) {
+            row.getChildren().setAll(cards.subList(0, products.size()));
+        }
+        setGraphic(row);
+    }
+
+    /**
+     * Card sản phẩm tái sử dụng: node được tạo một lần, chỉ nội dung thay đổi
+     */
+    private static final class ProductCard extends VBox {
+
+        private final ImageView imageView = new ImageView();
+        private final Label nameLabel = new Label();
+        private final Label priceLabel = new Label();
+        private final Button addButton = new Button("Thêm vào đơn");
+
+        private Product product;
+        private String imageUrl;
+
+        ProductCard(Consumer<Product> onAddToOrder) {
+            super(10);
+            getStyleClass().add("menu-product-card");
+            setAlignment(Pos.CENTER);
+            setPrefSize(CARD_WIDTH, CARD_HEIGHT);
+            setMinSize(CARD_WIDTH, CARD_HEIGHT);
+            setMaxSize(CARD_WIDTH, CARD_HEIGHT);
+
+            imageView.setFitWidth(IMAGE_WIDTH);
+            imageView.setFitHeight(IMAGE_HEIGHT);
+            imageView.setPreserveRatio(true);
+            StackPane imageHolder = new StackPane(imageView);
+            imageHolder.getStyleClass().add("menu-product-image");
+            imageHolder.setPrefSize(IMAGE_WIDTH, IMAGE_HEIGHT);
+            imageHolder.setMaxSize(IMAGE_WIDTH, IMAGE_HEIGHT);
+
+            nameLabel.getStyleClass().add("menu-product-name");
+            nameLabel.setWrapText(true);
+            nameLabel.setAlignment(Pos.CENTER);
+            nameLabel.setMaxWidth(CARD_WIDTH - 30);
+
+            priceLabel.getStyleClass().add("menu-product-price");
+
+            addButton.getStyleClass().add("menu-add-button");
+            // ✅ HỦY CHECK HẾT HÀNG - Luôn cho phép order
+            addButton.setOnAction(e -> {
+                if (product != null) {
+                    onAddToOrder.accept(product);
+                }
+            });
+
+            getChildren().addAll(imageHolder, nameLabel, priceLabel, addButton);
+        }
+
+        void bind(Product product) {
+            this.product = product;
+            nameLabel.setText(product.getProductName());
+            priceLabel.setText(product.getFormattedPrice());
+
+            String url = product.getImageUrl();
+            if (!Objects.equals(url, imageUrl)) {
+                imageUrl = url;
+                // Placeholder trước, ảnh (đã cache theo kích thước card) thay thế khi tải xong
+                ImageLoader.loadInto(imageView, url, IMAGE_WIDTH, IMAGE_HEIGHT);
+            }
+        }
+
+        void unbind() {
+            product = null;
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package com.cafe.controller.order;
 
 import com.cafe.controller.base.DashboardCommunicator;
+import com.cafe.controller.base.DashboardEvent.OrderChanged;
+import com.cafe.controller.base.DashboardEvent.OrderItemsChanged;
+import com.cafe.controller.base.DashboardEvent.PaymentCompleted;
+import com.cafe.controller.base.DashboardEvent.TableStatusChanged;
+import com.cafe.controller.base.DashboardEventBus;
 import com.cafe.controller.base.DashboardHelper;
 import com.cafe.controller.payment.PaymentController;
 import com.cafe.model.entity.Order;
@@ -8,6 +13,7 @@ import com.cafe.model.entity.OrderDetail;
 import com.cafe.model.entity.Product;
 import com.cafe.service.OrderService;
 import com.cafe.util.SessionManager;
+import com.cafe.util.BackgroundExecutor;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -24,7 +30,6 @@ import javafx.concurrent.Task;
 
 import java.net.URL;
 import java.util.*;
-import java.lang.reflect.Method;
 
 /**
  * Controller cho order panel - UPDATED với Auto Table Status Updates
@@ -71,6 +76,9 @@ public class OrderPanelController implements Initializable, DashboardCommunicato
             // Setup button actions
             setupButtonActions();
 
+            // Order của bàn đang mở bị terminal khác thay đổi → tải lại
+            DashboardEventBus.subscribe(OrderChanged.class, this::onRemoteOrderChanged).bindTo(orderPanel);
+
             // Initialize UI state
             updateOrderDisplay();
 
@@ -186,10 +194,31 @@ public class OrderPanelController implements Initializable, DashboardCommunicato
         updateTableStatusBasedOnOrder();
     }
 
+    /**
+     * Order của bàn đang mở đã được terminal khác thay đổi (ChangeFeedListener).
+     * Chỉ tải lại khi panel không có món chưa lưu; không tự đổi trạng thái bàn
+     * (terminal kia đã ghi trạng thái bàn cùng transaction).
+     */
+    private void onRemoteOrderChanged(OrderChanged event) {
+        if (currentTableId <= 0 || event.tableId() != currentTableId) {
+            return;
+        }
+        boolean showingThisOrder = currentOrder != null && currentOrder.getOrderId() == event.orderId();
+        boolean panelEmpty = currentOrder == null && currentOrderDetails.isEmpty();
+        if (showingThisOrder || panelEmpty) {
+            System.out.println("🔄 Order " + event.orderId() + " changed on another terminal (" + event.orderStatus() + "), reloading");
+            loadExistingOrderForTable(false);
+        }
+    }
+
     /**
      * ✅ ENHANCED: Load existing order with automatic table status detection
      */
     private void loadExistingOrderForTable() {
+        loadExistingOrderForTable(true);
+    }
+
+    private void loadExistingOrderForTable(boolean autoUpdateTableStatus) {
         if (currentTableId <= 0) {
             System.out.println("⚠️ No valid table selected");
             return;
@@ -212,7 +241,9 @@ public class OrderPanelController implements Initializable, DashboardCommunicato
                         loadOrderDetails();
 
                         // ✅ Auto-update table status based on order existence
-                        updateTableStatusBasedOnOrder();
+                        if (autoUpdateTableStatus) {
+                            updateTableStatusBasedOnOrder();
+                        }
                     } else {
                         System.out.println("📋 No existing order for table " + currentTableId);
                         // Clear current order state
@@ -221,7 +252,9 @@ public class OrderPanelController implements Initializable, DashboardCommunicato
                         updateOrderDisplay();
 
                         // ✅ Auto-update table status based on order existence
-                        updateTableStatusBasedOnOrder();
+                        if (autoUpdateTableStatus) {
+                            updateTableStatusBasedOnOrder();
+                        }
                     }
                 });
             }
@@ -238,7 +271,7 @@ public class OrderPanelController implements Initializable, DashboardCommunicato
             }
         };
 
-        new Thread(loadOrderTask).start();
+        BackgroundExecutor.submitLatest("OrderPanelController.loadExistingOrderForTable", loadOrderTask);
     }
 
     /**
@@ -307,54 +340,48 @@ public class OrderPanelController implements Initializable, DashboardCommunicato
     }
 
     /**
-     * ✅ NEW: Get current table status from TableController
+     * ✅ NEW: Get current table status from Dashboard
      */
     private String getCurrentTableStatus() {
-        try {
-            if (dashboardController != null) {
-                Method getCurrentTableControllerMethod = dashboardController.getClass().getMethod("getCurrentTableController");
-                Object tableController = getCurrentTableControllerMethod.invoke(dashboardController);
-                
-                if (tableController != null) {
-                    Method getTableByIdMethod = tableController.getClass().getMethod("getTableById", int.class);
-                    Object table = getTableByIdMethod.invoke(tableController, currentTableId);
-                    
-                    if (table != null) {
-                        Method getStatusMethod = table.getClass().getMethod("getStatus");
-                        return (String) getStatusMethod.invoke(table);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            System.out.println("⚠️ Could not get current table status: " + e.getMessage());
-        }
-        
-        return "available"; // Default fallback
+        String status = DashboardHelper.getTableStatus(dashboardController, currentTableId);
+        return status != null ? status : "available"; // Default fallback
     }
 
     /**
-     * ✅ OPTIMIZED: Update table status only if it's different from current status
+     * ✅ OPTIMIZED: Update table status through Dashboard
+     * Dashboard so với trạng thái/version bàn đang giữ và ghi bằng compare-and-set
+     * (trạng thái giống nhau thì bỏ qua, terminal khác ghi trước thì không ghi đè),
+     * nên không cần đọc lại trạng thái bàn ở đây
      */
     private void updateTableStatusIfNeeded(String newStatus) {
         try {
-            // Get current table status using the dedicated method
-            String currentStatus = getCurrentTableStatus();
-            
-            // Only update if status is actually different
-            if (newStatus.equalsIgnoreCase(currentStatus)) {
-                System.out.println("⏭️ Table " + currentTableId + " status unchanged: " + currentStatus);
-                return;
-            }
-            
-            // Update status through Dashboard
             DashboardHelper.updateTableStatus(dashboardController, currentTableId, newStatus);
-            System.out.println("✅ Table " + currentTableId + " status updated: " + currentStatus + " → " + newStatus);
-            
         } catch (Exception e) {
             System.err.println("❌ Error updating table status: " + e.getMessage());
         }
     }
 
+    /**
+     * Đổi trạng thái bàn ngay sau khi ghi order: trigger trên orders có thể đã đổi bàn
+     * (và tăng version) trong cùng transaction, nên phát trạng thái đó trước rồi mới
+     * compare-and-set, tránh báo nhầm "máy khác vừa cập nhật" cho chính thay đổi của máy này.
+     * Sự kiện được phát trên FX thread trước lần runLater dưới đây.
+     */
+    private void updateTableStatusAfterOrderWrite(Order order, String newStatus) {
+        if (order != null && order.getTableStatus() != null) {
+            DashboardEventBus.publish(new TableStatusChanged(order.getTableId(),
+                    order.getTableStatus(), order.getTableVersion()));
+        }
+        int tableId = currentTableId;
+        Platform.runLater(() -> {
+            try {
+                DashboardHelper.updateTableStatus(dashboardController, tableId, newStatus);
+            } catch (Exception e) {
+                System.err.println("❌ Error updating table status: " + e.getMessage());
+            }
+        });
+    }
+
 
 
     /**
@@ -392,7 +419,7 @@ public class OrderPanelController implements Initializable, DashboardCommunicato
             }
         };
 
-        new Thread(loadDetailsTask).start();
+        BackgroundExecutor.submitLatest("OrderPanelController.loadOrderDetails", loadDetailsTask);
     }
 
     /**
@@ -434,7 +461,7 @@ public class OrderPanelController implements Initializable, DashboardCommunicato
                         System.out.println("✅ Created order: " + currentOrder.getOrderNumber() + " by user " + userId);
                         
                         // ✅ FIXED: When adding first item, change table status to "reserved"
-                        updateTableStatusIfNeeded("reserved");
+                        updateTableStatusAfterOrderWrite(currentOrder, "reserved");
                         System.out.println("🔄 Table " + currentTableId + " status changed to 'reserved' (first item added)");
                     }
 
@@ -485,7 +512,7 @@ public class OrderPanelController implements Initializable, DashboardCommunicato
             }
         };
 
-        new Thread(addProductTask).start();
+        BackgroundExecutor.submit(addProductTask);
     }
 
     /**
@@ -528,7 +555,7 @@ public class OrderPanelController implements Initializable, DashboardCommunicato
             }
         };
 
-        new Thread(removeProductTask).start();
+        BackgroundExecutor.submit(removeProductTask);
     }
 
     /**
@@ -564,7 +591,7 @@ public class OrderPanelController implements Initializable, DashboardCommunicato
             }
         };
 
-        new Thread(updateQuantityTask).start();
+        BackgroundExecutor.submit(updateQuantityTask);
     }
 
     // =====================================================
@@ -628,6 +655,27 @@ public class OrderPanelController implements Initializable, DashboardCommunicato
             System.out.println("  - placeOrderButton.disabled: " + placeOrderButton.isDisabled());
             System.out.println("  - paymentButton.disabled: " + paymentButton.isDisabled());
         }
+
+        publishOrderItemsChanged();
+    }
+
+    /**
+     * Thông báo danh sách món của bàn hiện tại qua DashboardEventBus
+     * (nhiều thay đổi liên tiếp được gộp thành một lần cập nhật)
+     */
+    private void publishOrderItemsChanged() {
+        if (currentTableId == -1) {
+            return;
+        }
+        int itemCount = 0;
+        for (OrderDetail orderDetail : currentOrderDetails) {
+            itemCount += orderDetail.getQuantity();
+        }
+        DashboardEventBus.publish(new OrderItemsChanged(
+                currentTableId,
+                currentOrder != null ? currentOrder.getOrderId() : 0,
+                itemCount,
+                currentOrder != null ? currentOrder.getTotalAmount() : 0.0));
     }
 
     /**
@@ -743,7 +791,7 @@ public class OrderPanelController implements Initializable, DashboardCommunicato
                         showInfo("Đã đặt hàng thành công!");
 
                         // ✅ Update table status to occupied (confirmed order)
-                        updateTableStatusIfNeeded("occupied");
+                        updateTableStatusAfterOrderWrite(currentOrder, "occupied");
 
                         // ✅ Update button states
                         placeOrderButton.setDisable(true);
@@ -755,6 +803,8 @@ public class OrderPanelController implements Initializable, DashboardCommunicato
                         System.out.println("  - paymentButton.disabled: " + paymentButton.isDisabled());
 
                         System.out.println("✅ Order placed: " + currentOrder.getOrderNumber());
+                    } else if (!orderService.getLastStockShortage().isEmpty()) {
+                        showError("Không đủ hàng: " + String.join(", ", orderService.getLastStockShortage()));
                     } else {
                         showError("Không thể đặt hàng");
                     }
@@ -769,7 +819,7 @@ public class OrderPanelController implements Initializable, DashboardCommunicato
             }
         };
 
-        new Thread(placeOrderTask).start();
+        BackgroundExecutor.submit(placeOrderTask);
     }
 
     /**
@@ -923,9 +973,12 @@ public class OrderPanelController implements Initializable, DashboardCommunicato
                     }
                 }
                 
+                DashboardEventBus.publish(new PaymentCompleted(currentTableId, order.getOrderId(),
+                        order.getOrderNumber(), paymentMethod, order.getFinalAmount()));
+
                 // 2. ✅ UPDATE TABLE STATUS TO CLEANING
                 String previousTableStatus = getCurrentTableStatus();
-                updateTableStatusIfNeeded("cleaning");
+                updateTableStatusAfterOrderWrite(order, "cleaning");
                 System.out.println("✅ Table status updated: " + previousTableStatus + " → CLEANING");
                 
                 // 3. Reset order panel state
@@ -1091,7 +1144,7 @@ public class OrderPanelController implements Initializable, DashboardCommunicato
             }
         };
 
-        new Thread(clearTask).start();
+        BackgroundExecutor.submit(clearTask);
     }
 
     // =====================================================
@@ -1152,6 +1205,13 @@ public class OrderPanelController implements Initializable, DashboardCommunicato
         return currentOrder != null ? currentOrder.getTotalAmount() : 0.0;
     }
 
+    /**
+     * Hủy order hiện tại (caller đã hỏi xác nhận); kết quả được báo trên panel
+     */
+    public void clearOrder() {
+        clearOrderCompletely();
+    }
+
     /**
      * Get current table ID
      */
@@ -1258,27 +1318,8 @@ public class OrderPanelController implements Initializable, DashboardCommunicato
      * ✅ NEW: Get current table name for display
      */
     private String getCurrentTableName() {
-        try {
-            if (dashboardController != null && currentTableId != -1) {
-                // Use reflection to get table name from TableController
-                Method getCurrentTableControllerMethod = dashboardController.getClass().getMethod("getCurrentTableController");
-                Object tableController = getCurrentTableControllerMethod.invoke(dashboardController);
-                
-                if (tableController != null) {
-                    Method getTableByIdMethod = tableController.getClass().getMethod("getTableById", int.class);
-                    Object table = getTableByIdMethod.invoke(tableController, currentTableId);
-                    
-                    if (table != null) {
-                        Method getTableNameMethod = table.getClass().getMethod("getTableName");
-                        return (String) getTableNameMethod.invoke(table);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            System.out.println("⚠️ Could not get current table name: " + e.getMessage());
-        }
-        
-        return "bàn hiện tại"; // Fallback
+        String tableName = currentTableId != -1 ? DashboardHelper.getTableName(dashboardController, currentTableId) : null;
+        return tableName != null ? tableName : "bàn hiện tại"; // Fallback
     }
     
 
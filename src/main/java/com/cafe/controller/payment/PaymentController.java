@@ -2,15 +2,18 @@ package com.cafe.controller.payment;
 
 import com.cafe.model.entity.Order;
 import com.cafe.model.entity.OrderDetail;
+import com.cafe.model.dto.PaymentRequest;
 import com.cafe.model.entity.Promotion;
 
 import com.cafe.service.OrderService;
 import com.cafe.service.PaymentService;
 import com.cafe.service.PromotionService;
 import com.cafe.service.QRCodeService;
+import com.cafe.service.ReceiptService;
 import com.cafe.service.CustomerService;
 import com.cafe.model.entity.Customer;
 import com.cafe.util.PriceFormatter;
+import com.cafe.util.PrintSpooler;
 import com.cafe.util.SessionManager;
 
 import javafx.animation.KeyFrame;
@@ -44,8 +47,10 @@ import java.net.URL;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.function.Consumer;
 import java.util.function.UnaryOperator;
 import java.util.regex.Pattern;
 
@@ -158,6 +163,9 @@ public class PaymentController implements Initializable {
     private PromotionService promotionService; // ✅ NEW
     private QRCodeService qrCodeService; // ✅ NEW
     private CustomerService customerService; // ✅ NEW
+    private ReceiptService receiptService;
+    private PrintSpooler.PrintJob lastPrintJob;
+    private boolean paymentCompleted; // Chỉ in hóa đơn sau khi đã thanh toán
     
     // Payment callback
     private PaymentCompletionCallback paymentCallback;
@@ -284,6 +292,7 @@ public class PaymentController implements Initializable {
         this.promotionService = new PromotionService(); // ✅ NEW
         this.qrCodeService = new QRCodeService(); // ✅ NEW
         this.customerService = new CustomerService(); // ✅ NEW
+        this.receiptService = new ReceiptService();
     }
     
     private void setupTableView() {
@@ -369,6 +378,9 @@ public class PaymentController implements Initializable {
     }
     
     private void setupCustomerFields() {
+        // Nạp chỉ mục số điện thoại trước khi thu ngân bắt đầu gõ
+        customerService.preloadPhoneIndex();
+
         // Bind customer properties to fields
         customerNameField.textProperty().bindBidirectional(customerNameProperty);
         
@@ -526,16 +538,11 @@ public class PaymentController implements Initializable {
     }
     
     /**
-     * Search customers by phone pattern (partial match)
+     * Search customers by phone pattern (khớp đầu số hoặc đuôi số, tra trong bộ nhớ)
      */
     private List<Customer> searchCustomersByPhonePattern(String phonePattern) {
         try {
-            List<Customer> allCustomers = customerService.getAllCustomers();
-            return allCustomers.stream()
-                    .filter(customer -> customer.getPhone() != null && 
-                            customer.getPhone().contains(phonePattern))
-                    .limit(5) // Limit to 5 results for performance
-                    .collect(java.util.stream.Collectors.toList());
+            return customerService.suggestCustomersByPhone(phonePattern, 5); // Limit to 5 results
         } catch (Exception e) {
             System.err.println("❌ Error searching customers by phone pattern: " + e.getMessage());
             return List.of();
@@ -607,6 +614,14 @@ public class PaymentController implements Initializable {
             transferRadio.setToggleGroup(paymentMethodGroup);
             cashRadio.setSelected(true); // Default selection
         }
+
+        // Chưa cấu hình cổng ví điện tử → không cho chọn (giao dịch sẽ luôn thất bại)
+        if (!PaymentService.isWalletGatewayConfigured()) {
+            for (RadioButton walletRadio : List.of(momoRadio, vnpayRadio, zalopayRadio)) {
+                walletRadio.setDisable(true);
+                walletRadio.setTooltip(new Tooltip("Chưa cấu hình cổng thanh toán (payment.gateway.url)"));
+            }
+        }
         
         // Legacy discount controls - disabled for promotion-based system
         if (discountPercentRadio != null) discountPercentRadio.setVisible(false);
@@ -673,6 +688,7 @@ public class PaymentController implements Initializable {
         payButton.setOnAction(e -> handlePayment());
         cancelButton.setOnAction(e -> handleCancel());
         printReceiptButton.setOnAction(e -> handlePrintReceipt());
+        printReceiptButton.setDisable(true); // Bật lại khi thanh toán xong
     }
     
     // =====================================================
@@ -781,7 +797,7 @@ public class PaymentController implements Initializable {
                 }
                 
                 // Note: Success message is shown by OrderPanelController
-                handlePrintReceipt();
+                printPaidReceipt();
                 
                 // Close window after delay
                 Platform.runLater(() -> {
@@ -869,21 +885,94 @@ public class PaymentController implements Initializable {
     }
     
     /**
-     * Handle print receipt button click
+     * Handle print receipt button click (chỉ sau khi đã thanh toán)
+     * In lại đúng hóa đơn đã in sau thanh toán; đang in thì bỏ qua.
      */
     private void handlePrintReceipt() {
+        if (currentOrder == null || !paymentCompleted) {
+            return;
+        }
+        if (lastPrintJob != null && !lastPrintJob.isDone()) {
+            return; // Đang in
+        }
         try {
-            // Mock receipt generation
-            String fileName = "receipt_" + currentOrder.getOrderNumber() + "_" + System.currentTimeMillis() + ".pdf";
-            String fullPath = System.getProperty("user.home") + "/Downloads/" + fileName;
-            System.out.println("✅ Receipt PDF generated at: " + fullPath);
-            // Note: Receipt generation is logged to console
+            PrintSpooler.PrintJob job = lastPrintJob != null
+                    ? receiptService.reprintReceipt(lastPrintJob.getId())
+                    : null;
+            startPrintJob(job != null ? job : queueReceipt());
         } catch (Exception e) {
             System.err.println("❌ Error generating receipt: " + e.getMessage());
             showError("Không thể tạo hóa đơn");
         }
     }
-    
+
+    /**
+     * In hóa đơn ngay sau khi thanh toán thành công: luôn tạo lệnh in mới với số tiền đã thu.
+     * Hóa đơn được đưa vào hàng đợi máy in và trả về ngay; trạng thái in hiển thị trên nút.
+     */
+    private void printPaidReceipt() {
+        paymentCompleted = true;
+        printReceiptButton.setDisable(false);
+        try {
+            startPrintJob(queueReceipt());
+        } catch (Exception e) {
+            System.err.println("❌ Error generating receipt: " + e.getMessage());
+            showError("Không thể tạo hóa đơn");
+        }
+    }
+
+    private PrintSpooler.PrintJob queueReceipt() {
+        String method = getSelectedPaymentMethod().toLowerCase();
+        double received = cashRadio.isSelected() ? customerAmountProperty.get() : grandTotalProperty.get();
+        PaymentRequest request = new PaymentRequest(currentOrder.getOrderId(), method, received)
+                .setSubtotal(subtotalProperty.get())
+                .setVatPercent(vatPercentProperty.get())
+                .setVatAmount(vatAmountProperty.get())
+                .setDiscountAmount(discountAmountProperty.get())
+                .setTotalAmount(grandTotalProperty.get());
+        return receiptService.queuePrint(currentOrder, new ArrayList<>(orderItems), request);
+    }
+
+    private void startPrintJob(PrintSpooler.PrintJob job) {
+        if (job == null) {
+            showError("Không thể tạo hóa đơn");
+            return;
+        }
+        lastPrintJob = job;
+        trackPrintJob(job);
+    }
+
+    private void trackPrintJob(PrintSpooler.PrintJob job) {
+        PrintSpooler spooler = PrintSpooler.getInstance();
+        Consumer<PrintSpooler.PrintJob> listener = new Consumer<>() {
+            @Override
+            public void accept(PrintSpooler.PrintJob update) {
+                if (update.getId() != job.getId()) {
+                    return;
+                }
+                if (update.isDone()) {
+                    spooler.removeListener(this);
+                }
+                Platform.runLater(() -> showPrintStatus(update));
+            }
+        };
+        spooler.addListener(listener);
+        if (job.isDone()) {
+            // In xong trước khi kịp đăng ký listener
+            spooler.removeListener(listener);
+        }
+        showPrintStatus(job);
+    }
+
+    private void showPrintStatus(PrintSpooler.PrintJob job) {
+        switch (job.getStatus()) {
+            case QUEUED, PRINTING -> printReceiptButton.setText("🖨️ Đang in...");
+            case RETRYING -> printReceiptButton.setText("🖨️ Đang thử lại (" + job.getAttempts() + ")...");
+            case PRINTED -> printReceiptButton.setText("🖨️ Đã in - In lại");
+            case FAILED -> printReceiptButton.setText("⚠️ In lỗi - In lại");
+        }
+    }
+
     /**
      * Handle cancel button click
      */
@@ -1167,40 +1256,51 @@ public class PaymentController implements Initializable {
                     System.out.println("🔍 DEBUG: Payment Method: " + selectedMethod);
                     System.out.println("🔍 DEBUG: Payment Amount: " + paymentAmount);
                     
-                    // Process payment using existing service
-                    boolean success = paymentService.processPayment(currentOrder, selectedMethod, paymentAmount);
-                    
-                    System.out.println("🔍 DEBUG: Payment result: " + success);
-                    
-                    if (success) {
-                        showSuccess("Thanh toán thành công!");
-                        System.out.println("✅ Payment completed successfully");
-                        
-                        // Close QR popup first
-                        qrPopup.close();
-                        
-                        // Close payment window
-                        Stage qrStage = (Stage) ((Button) e.getSource()).getScene().getWindow();
-                        Stage paymentStage = (Stage) qrStage.getOwner();
-                        if (paymentStage != null) {
-                            paymentStage.close();
-                        }
-                        
-                        // Notify callback for dashboard refresh
-                        if (paymentCallback != null) {
-                            Platform.runLater(() -> {
-                                try {
-                                    paymentCallback.onPaymentCompleted(currentOrder, selectedMethod);
-                                    System.out.println("✅ OrderPanel notified about payment completion");
-                                } catch (Exception ex) {
-                                    System.err.println("❌ Error notifying payment callback: " + ex.getMessage());
+                    // Gọi cổng thanh toán ở background, không khóa giao diện trong lúc chờ
+                    Stage qrStage = (Stage) ((Button) e.getSource()).getScene().getWindow();
+                    completeButton.setDisable(true);
+                    completeButton.setText("Đang xử lý...");
+                    paymentService.submitPayment(currentOrder, selectedMethod, paymentAmount)
+                            .whenComplete((result, error) -> Platform.runLater(() -> {
+                                boolean success = error == null && result != null && result.isSuccess();
+                                System.out.println("🔍 DEBUG: Payment result: " + success);
+
+                                if (success) {
+                                    showSuccess("Thanh toán thành công!");
+                                    System.out.println("✅ Payment completed successfully");
+                                    printPaidReceipt();
+
+                                    // Close QR popup first
+                                    qrPopup.close();
+
+                                    // Close payment window
+                                    Stage paymentStage = (Stage) qrStage.getOwner();
+                                    if (paymentStage != null) {
+                                        paymentStage.close();
+                                    }
+
+                                    // Notify callback for dashboard refresh
+                                    if (paymentCallback != null) {
+                                        try {
+                                            paymentCallback.onPaymentCompleted(currentOrder, selectedMethod);
+                                            System.out.println("✅ OrderPanel notified about payment completion");
+                                        } catch (Exception ex) {
+                                            System.err.println("❌ Error notifying payment callback: " + ex.getMessage());
+                                        }
+                                    }
+                                } else {
+                                    System.err.println("❌ Payment processing failed");
+                                    completeButton.setDisable(false);
+                                    completeButton.setText("Hoàn thành thanh toán");
+                                    if (result != null && (result.isPending() || result.isRefundRequired())) {
+                                        // Pending: cùng order + phương thức → cùng idempotency key, bấm lại chỉ hỏi lại cổng
+                                        // Refund: order đã được thanh toán ở máy khác, không bấm lại
+                                        showError(result.getMessage());
+                                    } else {
+                                        showError("Không thể xử lý thanh toán. Vui lòng thử lại.");
+                                    }
                                 }
-                            });
-                        }
-                    } else {
-                        System.err.println("❌ Payment processing failed");
-                        showError("Không thể xử lý thanh toán. Vui lòng thử lại.");
-                    }
+                            }));
                 } catch (Exception ex) {
                     System.err.println("❌ Error completing payment: " + ex.getMessage());
                     ex.printStackTrace();
@@ -5,6 +5,7 @@ import com.cafe.service.PromotionService;
 import com.cafe.model.entity.Promotion;
 import com.cafe.model.entity.Promotion.DiscountType;
 import com.cafe.util.AlertUtils;
+import com.cafe.util.BackgroundExecutor;
 
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -305,9 +306,7 @@ public class PromotionController implements Initializable, DashboardCommunicator
             });
         });
 
-        Thread loadThread = new Thread(loadTask);
-        loadThread.setDaemon(true);
-        loadThread.start();
+        BackgroundExecutor.submitLatest("PromotionController.loadData", loadTask);
     }
 
     // Event handlers
@@ -484,9 +483,7 @@ public class PromotionController implements Initializable, DashboardCommunicator
                 });
             });
 
-            Thread deleteThread = new Thread(deleteTask);
-            deleteThread.setDaemon(true);
-            deleteThread.start();
+            BackgroundExecutor.submit(deleteTask);
         }
     }
 
@@ -810,9 +807,7 @@ public class PromotionController implements Initializable, DashboardCommunicator
             });
         });
 
-        Thread addThread = new Thread(addTask);
-        addThread.setDaemon(true);
-        addThread.start();
+        BackgroundExecutor.submit(addTask);
     }
 
     private void updateExistingPromotion(Promotion promotion) {
@@ -848,9 +843,7 @@ public class PromotionController implements Initializable, DashboardCommunicator
             });
         });
 
-        Thread updateThread = new Thread(updateTask);
-        updateThread.setDaemon(true);
-        updateThread.start();
+        BackgroundExecutor.submit(updateTask);
     }
 
     private void updateStats() {
@@ -0,0 +1,180 @@
+package com.cafe.controller.table;
+
+import com.cafe.model.entity.TableCafe;
+import javafx.geometry.Insets;
+import javafx.scene.control.Label;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Card của một bàn trên sơ đồ bàn
+ *
+ * Mỗi bàn chỉ có một card, được tạo một lần và giữ lại trong TableController;
+ * khi trạng thái hoặc lựa chọn thay đổi chỉ style và label của card này
+ * được cập nhật (update), không dựng lại node nào khác trong lưới.
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+class TableCard extends VBox {
+
+    static final double CARD_WIDTH = 320;
+    static final double CARD_HEIGHT = 110;
+
+    private static final String BASE_STYLE =
+            "-fx-background-color: #d9b59b; -fx-background-radius: 14; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.08), 10, 0, 0, 2); -fx-cursor: hand;";
+    private static final String HOVER_STYLE =
+            "-fx-background-color: #d6ad90; -fx-background-radius: 14; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.12), 14, 0, 0, 3); -fx-cursor: hand;";
+    private static final String PRESSED_STYLE =
+            "-fx-background-color: #cfa582; -fx-background-radius: 14; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.18), 8, 0, 0, 1); -fx-cursor: hand;";
+    private static final String SELECTED_STYLE =
+            "-fx-background-color: #c9a876; -fx-background-radius: 14; -fx-effect: dropshadow(gaussian, rgba(0,123,255,0.3), 12, 0, 0, 3); -fx-cursor: hand; -fx-border-color: #007bff; -fx-border-width: 3; -fx-border-radius: 14;";
+    private static final String SELECTED_HOVER_STYLE =
+            "-fx-background-color: #c19d6b; -fx-background-radius: 14; -fx-effect: dropshadow(gaussian, rgba(0,123,255,0.4), 16, 0, 0, 4); -fx-cursor: hand; -fx-border-color: #007bff; -fx-border-width: 3; -fx-border-radius: 14;";
+    private static final String SELECTED_PRESSED_STYLE =
+            "-fx-background-color: #b8935f; -fx-background-radius: 14; -fx-effect: dropshadow(gaussian, rgba(0,123,255,0.5), 8, 0, 0, 1); -fx-cursor: hand; -fx-border-color: #007bff; -fx-border-width: 3; -fx-border-radius: 14;";
+
+    private final int tableId;
+    private final Label title = new Label();
+    private final Label peopleCount = new Label();
+    private final Region dot = new Region();
+    private final Label statusText = new Label();
+
+    // Giá trị đang hiển thị, để update() bỏ qua khi không có gì thay đổi
+    private String shownName;
+    private int shownCapacity = -1;
+    private String shownStatus;
+    private boolean selected;
+
+    TableCard(TableCafe table, IntConsumer onClick) {
+        this.tableId = table.getTableId();
+
+        setPadding(new Insets(16));
+        setPrefWidth(CARD_WIDTH);
+        setPrefHeight(CARD_HEIGHT);
+        setStyle(BASE_STYLE);
+
+        // Internal content layout: left info, right status pill
+        HBox row = new HBox();
+        row.setSpacing(12);
+        row.setFillHeight(true);
+
+        VBox left = new VBox();
+        left.setSpacing(8);
+
+        title.setFont(Font.font("System", FontWeight.BOLD, 20));
+        title.setStyle("-fx-text-fill: rgba(255,255,255,0.95);");
+
+        HBox people = new HBox();
+        people.setSpacing(6);
+        Label peopleIcon = new Label("\uD83D\uDC65"); // 👥
+        peopleIcon.setStyle("-fx-text-fill: rgba(255,255,255,0.9); -fx-font-size: 14px;");
+        peopleCount.setStyle("-fx-text-fill: rgba(255,255,255,0.9); -fx-font-size: 14px;");
+        people.getChildren().addAll(peopleIcon, peopleCount);
+
+        left.getChildren().addAll(title, people);
+
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+
+        // Status pill (dark background + colored dot + label)
+        HBox pill = new HBox();
+        pill.setSpacing(8);
+        pill.setPadding(new Insets(6, 12, 6, 10));
+        pill.setStyle("-fx-background-color: #1f1f1f; -fx-background-radius: 999; -fx-alignment: CENTER;");
+
+        dot.setMinSize(10, 10);
+        dot.setPrefSize(10, 10);
+        dot.setMaxSize(10, 10);
+
+        statusText.setFont(Font.font("System", FontWeight.BOLD, 12));
+
+        pill.getChildren().addAll(dot, statusText);
+
+        row.getChildren().addAll(left, spacer, pill);
+        getChildren().add(row);
+
+        // Click + hover effects (đọc trạng thái chọn hiện tại, không chụp lúc tạo card)
+        setOnMouseClicked(e -> onClick.accept(tableId));
+        setOnMouseEntered(e -> setStyle(selected ? SELECTED_HOVER_STYLE : HOVER_STYLE));
+        setOnMouseExited(e -> setStyle(restingStyle()));
+        setOnMousePressed(e -> setStyle(selected ? SELECTED_PRESSED_STYLE : PRESSED_STYLE));
+        setOnMouseReleased(e -> setStyle(isHover() ? (selected ? SELECTED_HOVER_STYLE : HOVER_STYLE) : restingStyle()));
+
+        update(table, false);
+    }
+
+    int getTableId() {
+        return tableId;
+    }
+
+    /**
+     * Cập nhật card theo dữ liệu bàn và trạng thái chọn; chỉ chạm vào
+     * những thuộc tính thực sự thay đổi
+     */
+    void update(TableCafe table, boolean selected) {
+        if (!table.getTableName().equals(shownName)) {
+            shownName = table.getTableName();
+            title.setText("# " + shownName);
+        }
+        if (table.getCapacity() != shownCapacity) {
+            shownCapacity = table.getCapacity();
+            peopleCount.setText(String.valueOf(shownCapacity));
+        }
+
+        String status = table.getStatus() != null ? table.getStatus().toLowerCase() : "";
+        if (!status.equals(shownStatus)) {
+            shownStatus = status;
+            String color = getStatusColor(status);
+            dot.setStyle("-fx-background-radius: 50%; -fx-background-color: " + color + ";");
+            statusText.setStyle("-fx-text-fill: " + color + ";");
+            statusText.setText(getStatusText(status));
+        }
+
+        if (selected != this.selected) {
+            this.selected = selected;
+            setStyle(restingStyle());
+        }
+    }
+
+    private String restingStyle() {
+        return selected ? SELECTED_STYLE : BASE_STYLE;
+    }
+
+    // ===================== Helper Methods =======================
+
+    /**
+     * Colors by status
+     */
+    private static String getStatusColor(String status) {
+        switch (status) {
+            case "available": return "#5ad15a"; // green
+            case "occupied": return "#ff3b30"; // red
+            case "cleaning": return "#f4c20d"; // yellow
+            case "reserved":
+            default: return "#ffa000"; // orange
+        }
+    }
+
+    /**
+     * Get Vietnamese text for table status
+     */
+    static String getStatusText(String status) {
+        if (status == null) {
+            return "Không xác định";
+        }
+        switch (status.toLowerCase()) {
+            case "available": return "Trống";
+            case "occupied": return "Có khách";
+            case "reserved": return "Đặt trước";
+            case "cleaning": return "Dọn dẹp";
+            default: return "Không xác định";
+        }
+    }
+}
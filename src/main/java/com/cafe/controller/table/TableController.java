@@ -1,24 +1,29 @@
 package com.cafe.controller.table;
 
 import com.cafe.controller.base.DashboardCommunicator;
+import com.cafe.controller.base.DashboardEvent.TableStatusChanged;
+import com.cafe.controller.base.DashboardEventBus;
+import com.cafe.controller.base.DashboardEventHandler;
 import com.cafe.controller.base.DashboardHelper;
+import com.cafe.model.dto.TableStatusTransition;
 import com.cafe.model.entity.Area;
 import com.cafe.model.entity.TableCafe;
 import com.cafe.service.TableService;
+import com.cafe.util.BackgroundExecutor;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
-import javafx.scene.text.Font;
-import javafx.scene.text.FontWeight;
 import javafx.concurrent.Task;
 
-import java.lang.reflect.Method;
 import java.net.URL;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.ResourceBundle;
 
 /**
@@ -47,14 +52,16 @@ public class TableController implements Initializable, DashboardCommunicator {
 
     // Current state
     private List<Area> areas;
-    private List<TableCafe> currentTables;
+    // Toàn bộ bàn đang active (theo thứ tự tải) và card tương ứng, theo tableId;
+    // lọc khu vực làm trong bộ nhớ, đổi trạng thái chỉ cập nhật đúng một card
+    private final Map<Integer, TableCafe> tablesById = new LinkedHashMap<>();
+    private final Map<Integer, TableCard> cardsById = new HashMap<>();
+    private List<TableCafe> currentTables = new ArrayList<>(); // Bàn của khu vực đang chọn
     private Integer selectedAreaId = null;
     private TableCafe selectedTable = null; // ✅ Track selected table
 
     // Grid configuration
     private static final int TABLES_PER_ROW = 4; // Reduced from 6 to accommodate larger cards
-    private static final double TABLE_CARD_WIDTH = 320;
-    private static final double TABLE_CARD_HEIGHT = 110;
 
     // ✅ Dashboard communication
     private Object dashboardController;
@@ -67,6 +74,10 @@ public class TableController implements Initializable, DashboardCommunicator {
 
             // Setup UI components
             setupLoadingIndicator();
+            setupTableGrid();
+
+            // Áp dụng thay đổi trạng thái bàn từ bất kỳ đâu (OrderPanel, terminal này...)
+            DashboardEventBus.subscribe(TableStatusChanged.class, this::applyTableStatus).bindTo(tableGrid);
 
             // Load initial data (areas first, then create dynamic buttons)
             loadInitialData();
@@ -149,25 +160,32 @@ public class TableController implements Initializable, DashboardCommunicator {
         loadingIndicator.setManaged(false);
     }
 
+    /**
+     * Setup grid spacing (configured once, cards are re-laid out on area change)
+     */
+    private void setupTableGrid() {
+        tableGrid.setHgap(20);
+        tableGrid.setVgap(20);
+        tableGrid.setPadding(new Insets(15));
+    }
+
     /**
      * Load initial data (areas and tables)
      */
     private void loadInitialData() {
         showLoading(true);
 
-        Task<Void> loadDataTask = new Task<Void>() {
+        Task<List<TableCafe>> loadDataTask = new Task<List<TableCafe>>() {
             @Override
-            protected Void call() throws Exception {
+            protected List<TableCafe> call() throws Exception {
                 try {
                     // Load areas
                     updateMessage("Đang tải khu vực...");
                     areas = tableService.getAvailableAreas();
 
-                    // Load all tables initially
+                    // Load all tables once; area filtering is done in memory
                     updateMessage("Đang tải danh sách bàn...");
-                    currentTables = tableService.getAllAvailableTables();
-
-                    return null;
+                    return tableService.getAllAvailableTables();
                 } catch (Exception e) {
                     System.err.println("Error loading initial data: " + e.getMessage());
                     throw e;
@@ -180,8 +198,8 @@ public class TableController implements Initializable, DashboardCommunicator {
                     try {
                         // Create dynamic buttons after areas are loaded
                         createDynamicAreaButtons();
-                        
-                        displayTables(currentTables);
+
+                        setTables(getValue());
                         showLoading(false);
                         updateStatus("Đã tải " + currentTables.size() + " bàn");
                     } catch (Exception e) {
@@ -201,7 +219,7 @@ public class TableController implements Initializable, DashboardCommunicator {
         };
 
         statusLabel.textProperty().bind(loadDataTask.messageProperty());
-        new Thread(loadDataTask).start();
+        BackgroundExecutor.submitLatest("TableController.loadInitialData", loadDataTask);
     }
 
     /**
@@ -210,7 +228,8 @@ public class TableController implements Initializable, DashboardCommunicator {
     private void selectArea(Integer areaId, Button selectedButton) {
         selectedAreaId = areaId;
         setActiveAreaButton(selectedButton);
-        loadTablesByArea(areaId);
+        showArea(areaId);
+        updateStatus("Đã tải " + currentTables.size() + " bàn");
     }
 
 
@@ -238,49 +257,42 @@ public class TableController implements Initializable, DashboardCommunicator {
     }
 
     /**
-     * Load tables by area
+     * Replace the table model with freshly loaded tables (FX thread).
+     * Card của bàn vẫn còn được giữ lại và chỉ cập nhật phần thay đổi.
      */
-    private void loadTablesByArea(Integer areaId) {
-        showLoading(true);
-
-        Task<List<TableCafe>> loadTablesTask = new Task<List<TableCafe>>() {
-            @Override
-            protected List<TableCafe> call() throws Exception {
-                if (areaId == null) {
-                    updateMessage("Đang tải tất cả bàn...");
-                    return tableService.getAllAvailableTables();
-                } else {
-                    updateMessage("Đang tải bàn theo khu vực...");
-                    return tableService.getTablesByArea(areaId);
-                }
-            }
-
-            @Override
-            protected void succeeded() {
-                Platform.runLater(() -> {
-                    List<TableCafe> tables = getValue();
-                    currentTables = tables;
-                    displayTables(tables);
-                    showLoading(false);
-                    updateStatus("Đã tải " + tables.size() + " bàn");
-                });
+    private void setTables(List<TableCafe> tables) {
+        tablesById.clear();
+        if (tables != null) {
+            for (TableCafe table : tables) {
+                tablesById.put(table.getTableId(), table);
             }
+        }
+        cardsById.keySet().retainAll(tablesById.keySet());
+        if (selectedTable != null) {
+            selectedTable = tablesById.get(selectedTable.getTableId());
+        }
+        for (TableCard card : cardsById.values()) {
+            refreshCard(tablesById.get(card.getTableId()));
+        }
+        showArea(selectedAreaId);
+    }
 
-            @Override
-            protected void failed() {
-                Platform.runLater(() -> {
-                    showLoading(false);
-                    showError("Không thể tải danh sách bàn");
-                });
+    /**
+     * Filter tables by area in memory (null = all areas) and lay out their cards
+     */
+    private void showArea(Integer areaId) {
+        List<TableCafe> tables = new ArrayList<>();
+        for (TableCafe table : tablesById.values()) {
+            if (areaId == null || table.getAreaId() == areaId) {
+                tables.add(table);
             }
-        };
-
-        statusLabel.textProperty().bind(loadTablesTask.messageProperty());
-        new Thread(loadTablesTask).start();
+        }
+        currentTables = tables;
+        displayTables(tables);
     }
 
     /**
-     * Display tables in grid
+     * Display tables in grid (re-uses the cached card of each table)
      */
     private void displayTables(List<TableCafe> tables) {
         tableGrid.getChildren().clear();
@@ -292,18 +304,12 @@ public class TableController implements Initializable, DashboardCommunicator {
             return;
         }
 
-        // Configure grid
-        tableGrid.setHgap(20);
-        tableGrid.setVgap(20);
-        tableGrid.setPadding(new Insets(15));
-
         // Add tables to grid
         int row = 0;
         int col = 0;
 
         for (TableCafe table : tables) {
-            VBox tableCard = createTableCard(table.getTableName(), table.getStatus(), table.getTableId(), table.getCapacity());
-            tableGrid.add(tableCard, col, row);
+            tableGrid.add(getOrCreateCard(table), col, row);
 
             col++;
             if (col >= TABLES_PER_ROW) {
@@ -314,116 +320,39 @@ public class TableController implements Initializable, DashboardCommunicator {
     }
 
     /**
-     * ✅ NEW DESIGN: Create table card UI component với improved modern design
+     * Card của bàn, tạo mới nếu chưa có
      */
-    private VBox createTableCard(String tableName, String status, int tableId, int capacity) {
-        // Card container
-        VBox card = new VBox();
-        card.setPadding(new Insets(16));
-        card.setPrefWidth(TABLE_CARD_WIDTH);
-        card.setPrefHeight(TABLE_CARD_HEIGHT);
-
-        // Check if this table is selected
-        boolean isSelected = selectedTable != null && selectedTable.getTableId() == tableId;
-
-        // Beige background with soft corners, subtle shadow
-        String baseStyle = isSelected
-                ? "-fx-background-color: #c9a876; -fx-background-radius: 14; -fx-effect: dropshadow(gaussian, rgba(0,123,255,0.3), 12, 0, 0, 3); -fx-cursor: hand; -fx-border-color: #007bff; -fx-border-width: 3; -fx-border-radius: 14;"
-                : "-fx-background-color: #d9b59b; -fx-background-radius: 14; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.08), 10, 0, 0, 2); -fx-cursor: hand;";
-        card.setStyle(baseStyle);
-
-        // Internal content layout: left info, right status pill
-        HBox row = new HBox();
-        row.setSpacing(12);
-        row.setFillHeight(true);
-
-        VBox left = new VBox();
-        left.setSpacing(8);
-
-        Label title = new Label("# " + tableName);
-        title.setFont(Font.font("System", FontWeight.BOLD, 20));
-        title.setStyle("-fx-text-fill: rgba(255,255,255,0.95);");
-
-        HBox people = new HBox();
-        people.setSpacing(6);
-        Label peopleIcon = new Label("\uD83D\uDC65"); // 👥
-        peopleIcon.setStyle("-fx-text-fill: rgba(255,255,255,0.9); -fx-font-size: 14px;");
-        Label peopleCount = new Label(String.valueOf(capacity));
-        peopleCount.setStyle("-fx-text-fill: rgba(255,255,255,0.9); -fx-font-size: 14px;");
-        people.getChildren().addAll(peopleIcon, peopleCount);
-
-        left.getChildren().addAll(title, people);
-
-        Region spacer = new Region();
-        HBox.setHgrow(spacer, Priority.ALWAYS);
-
-        // Status pill (dark background + colored dot + label)
-        HBox pill = new HBox();
-        pill.setSpacing(8);
-        pill.setPadding(new Insets(6, 12, 6, 10));
-        pill.setStyle("-fx-background-color: #1f1f1f; -fx-background-radius: 999; -fx-alignment: CENTER;");
-
-        Region dot = new Region();
-        dot.setMinSize(10, 10);
-        dot.setPrefSize(10, 10);
-        dot.setMaxSize(10, 10);
-        dot.setStyle("-fx-background-radius: 50%;");
-
-        Label statusText = new Label(getStatusText(status));
-        statusText.setFont(Font.font("System", FontWeight.BOLD, 12));
-
-        // Colors by status
-        String color;
-        switch (status.toLowerCase()) {
-            case "available":
-                color = "#5ad15a"; // green
-                break;
-            case "occupied":
-                color = "#ff3b30"; // red
-                break;
-            case "cleaning":
-                color = "#f4c20d"; // yellow
-                break;
-            case "reserved":
-            default:
-                color = "#ffa000"; // orange
+    private TableCard getOrCreateCard(TableCafe table) {
+        TableCard card = cardsById.get(table.getTableId());
+        if (card == null) {
+            card = new TableCard(table, this::selectTable);
+            card.update(table, isSelected(table.getTableId()));
+            cardsById.put(table.getTableId(), card);
         }
-        dot.setStyle(dot.getStyle() + " -fx-background-color: " + color + ";");
-        statusText.setStyle("-fx-text-fill: " + color + ";");
-
-        pill.getChildren().addAll(dot, statusText);
-
-        row.getChildren().addAll(left, spacer, pill);
-        card.getChildren().add(row);
-
-        // Click + hover effects
-        card.setOnMouseClicked(e -> selectTable(tableId, tableName, status));
-
-        card.setOnMouseEntered(e -> {
-            String hoverStyle = isSelected
-                    ? "-fx-background-color: #c19d6b; -fx-background-radius: 14; -fx-effect: dropshadow(gaussian, rgba(0,123,255,0.4), 16, 0, 0, 4); -fx-cursor: hand; -fx-border-color: #007bff; -fx-border-width: 3; -fx-border-radius: 14;"
-                    : "-fx-background-color: #d6ad90; -fx-background-radius: 14; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.12), 14, 0, 0, 3); -fx-cursor: hand;";
-            card.setStyle(hoverStyle);
-        });
-
-        card.setOnMouseExited(e -> card.setStyle(baseStyle));
-
-        card.setOnMousePressed(e -> {
-            String pressedStyle = isSelected
-                    ? "-fx-background-color: #b8935f; -fx-background-radius: 14; -fx-effect: dropshadow(gaussian, rgba(0,123,255,0.5), 8, 0, 0, 1); -fx-cursor: hand; -fx-border-color: #007bff; -fx-border-width: 3; -fx-border-radius: 14;"
-                    : "-fx-background-color: #cfa582; -fx-background-radius: 14; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.18), 8, 0, 0, 1); -fx-cursor: hand;";
-            card.setStyle(pressedStyle);
-        });
+        return card;
+    }
 
-        card.setOnMouseReleased(e -> card.setStyle(baseStyle));
+    /**
+     * Patch the card of one table in place (style + labels only)
+     */
+    private void refreshCard(TableCafe table) {
+        if (table == null) {
+            return;
+        }
+        TableCard card = cardsById.get(table.getTableId());
+        if (card != null) {
+            card.update(table, isSelected(table.getTableId()));
+        }
+    }
 
-        return card;
+    private boolean isSelected(int tableId) {
+        return selectedTable != null && selectedTable.getTableId() == tableId;
     }
 
     /**
      * ✅ Handle table selection
      */
-    private void selectTable(int tableId, String tableName, String status) {
+    private void selectTable(int tableId) {
         try {
             // Find the table object
             TableCafe table = getTableById(tableId);
@@ -436,19 +365,6 @@ public class TableController implements Initializable, DashboardCommunicator {
         }
     }
 
-    /**
-     * Get Vietnamese text for table status
-     */
-    private String getStatusText(String status) {
-        switch (status.toLowerCase()) {
-            case "available": return "Trống";
-            case "occupied": return "Có khách";
-            case "reserved": return "Đặt trước";
-            case "cleaning": return "Dọn dẹp";
-            default: return "Không xác định";
-        }
-    }
-
     /**
      * ✅ FIXED: Handle table click - Show appropriate action based on table status
      */
@@ -457,8 +373,10 @@ public class TableController implements Initializable, DashboardCommunicator {
             System.out.println("Table clicked: " + table.getTableName() + " - Status: " + table.getStatus());
 
             // For all tables, show order panel (which handles different statuses appropriately)
+            TableCafe previous = selectedTable;
             selectedTable = table;
-            displayTables(currentTables); // Refresh to show selection
+            refreshCard(previous); // Only the two affected cards change
+            refreshCard(table);
             
             DashboardHelper.notifyTableSelected(dashboardController, table);
             DashboardHelper.updateTableInfo(dashboardController, table.getTableName(), table.getStatus());
@@ -479,23 +397,12 @@ public class TableController implements Initializable, DashboardCommunicator {
         try {
             System.out.println("🔄 Switching to menu tab for table: " + table.getTableName() + " (no auto-update)");
             
-            // Use reflection to call switchToTab method on DashboardController
-            if (dashboardController != null) {
-                Method switchToTabMethod = dashboardController.getClass().getMethod("switchToTab", String.class);
-                switchToTabMethod.invoke(dashboardController, "menu");
-                
-                // Set up the order panel for the selected table - use reserved method
-                try {
-                    // Use the new method for reserved tables to preserve status
-                    Method showOrderPanelForReservedMethod = dashboardController.getClass().getMethod("showOrderPanelForReserved", int.class);
-                    showOrderPanelForReservedMethod.invoke(dashboardController, table.getTableId());
-                    System.out.println("✅ Using showOrderPanelForReserved method");
-                } catch (NoSuchMethodException e) {
-                    // Fallback to old method if new method doesn't exist yet
-                    Method oldShowOrderPanelMethod = dashboardController.getClass().getMethod("showOrderPanel", int.class);
-                    oldShowOrderPanelMethod.invoke(dashboardController, table.getTableId());
-                    System.out.println("⚠️ Using fallback showOrderPanel method");
-                }
+            if (dashboardController instanceof DashboardEventHandler) {
+                DashboardEventHandler dashboard = (DashboardEventHandler) dashboardController;
+                dashboard.switchToTab("menu");
+
+                // Set up the order panel for the selected table - use reserved method to preserve status
+                dashboard.showOrderPanelForReserved(table.getTableId());
                 
                 System.out.println("✅ Successfully switched to menu tab and set up order panel (status preserved)");
             } else {
@@ -587,31 +494,46 @@ public class TableController implements Initializable, DashboardCommunicator {
 
             String oldStatus = table.getStatus();
 
-            // Update in database
-            boolean success = tableService.updateTableStatus(tableId, normalizedStatus);
-            if (success) {
-                table.setStatus(normalizedStatus); // Update local object
+            // Compare-and-set từ trạng thái/version đang hiển thị (không đọc lại database)
+            TableStatusTransition result = tableService.transitionTableStatus(
+                    tableId, oldStatus, table.getVersion(), normalizedStatus);
+            publishTableState(tableId, result);
 
-                // Refresh display to show new status
-                displayTables(currentTables);
+            switch (result.getOutcome()) {
+                case APPLIED -> {
+                    System.out.println("✅ Table " + tableId + " status updated: " + oldStatus + " → " + normalizedStatus);
 
-                System.out.println("✅ Table " + tableId + " status updated: " + oldStatus + " → " + normalizedStatus);
+                    // ✅ Notify Dashboard about status change
+                    DashboardHelper.notifyOrderStatusChanged(dashboardController, normalizedStatus, tableId);
 
-                // ✅ Notify Dashboard about status change
-                DashboardHelper.notifyOrderStatusChanged(dashboardController, normalizedStatus, tableId);
-                
-                // Show success message to user
-                final String finalOldStatus = oldStatus;
-                final String finalNewStatus = normalizedStatus;
-                Platform.runLater(() -> {
-                    showInfo("Đã cập nhật trạng thái bàn " + table.getTableName() + 
-                           " từ " + getStatusText(finalOldStatus) + " thành " + getStatusText(finalNewStatus));
-                });
-            } else {
-                System.err.println("❌ Failed to update table status in database");
-                Platform.runLater(() -> {
-                    showError("Không thể cập nhật trạng thái bàn trong cơ sở dữ liệu");
-                });
+                    // Show success message to user
+                    final String finalNewStatus = normalizedStatus;
+                    Platform.runLater(() -> {
+                        showInfo("Đã cập nhật trạng thái bàn " + table.getTableName() +
+                               " từ " + TableCard.getStatusText(oldStatus) + " thành " + TableCard.getStatusText(finalNewStatus));
+                    });
+                }
+                case UNCHANGED -> System.out.println("⏭️ Table " + tableId + " status unchanged: " + result.getStatus());
+                case CONFLICT -> {
+                    System.err.println("⚠️ Table " + tableId + " changed by another terminal: " + result.getStatus());
+                    Platform.runLater(() -> {
+                        showError("Bàn " + table.getTableName() + " vừa được cập nhật ở máy khác (" +
+                                TableCard.getStatusText(result.getStatus()) + ")");
+                    });
+                }
+                case REJECTED -> {
+                    final String finalNewStatus = normalizedStatus;
+                    Platform.runLater(() -> {
+                        showError("Không thể chuyển bàn " + table.getTableName() + " từ " +
+                                TableCard.getStatusText(oldStatus) + " sang " + TableCard.getStatusText(finalNewStatus));
+                    });
+                }
+                case FAILED -> {
+                    System.err.println("❌ Failed to update table status in database");
+                    Platform.runLater(() -> {
+                        showError("Không thể cập nhật trạng thái bàn trong cơ sở dữ liệu");
+                    });
+                }
             }
         } catch (Exception e) {
             System.err.println("Error updating table status: " + e.getMessage());
@@ -627,11 +549,14 @@ public class TableController implements Initializable, DashboardCommunicator {
      */
     private void finishCleaning(TableCafe table) {
         try {
-            boolean success = tableService.updateTableStatus(table.getTableId(), "available");
-            if (success) {
-                table.setStatus("available"); // Update local object
+            TableStatusTransition result = tableService.transitionTableStatus(
+                    table.getTableId(), table.getStatus(), table.getVersion(), "available");
+            publishTableState(table.getTableId(), result);
+            if (result.getOutcome() == TableStatusTransition.Outcome.CONFLICT) {
+                showError("Bàn " + table.getTableName() + " vừa được cập nhật ở máy khác (" +
+                        TableCard.getStatusText(result.getStatus()) + ")");
+            } else if (result.isSuccess()) {
                 showInfo("Đã hoàn thành dọn dẹp " + table.getTableName());
-                refreshTables();
 
                 // ✅ Notify Dashboard about status change
                 DashboardHelper.notifyOrderStatusChanged(dashboardController, "available", table.getTableId());
@@ -645,10 +570,32 @@ public class TableController implements Initializable, DashboardCommunicator {
     }
 
     /**
-     * Refresh tables display
+     * Áp dụng trạng thái bàn đã lưu (từ DashboardEventBus) vào model,
+     * không tải lại từ database; chỉ card của bàn đó được cập nhật
      */
-    private void refreshTables() {
-        loadTablesByArea(selectedAreaId);
+    private void applyTableStatus(TableStatusChanged event) {
+        TableCafe table = tablesById.get(event.tableId());
+        if (table == null || (event.version() >= 0 && event.version() < table.getVersion())) {
+            return; // Không có bàn hoặc sự kiện cũ hơn bản đang giữ
+        }
+        if (event.version() >= 0) {
+            table.setVersion(event.version());
+        }
+        if (event.status().equalsIgnoreCase(table.getStatus())) {
+            return;
+        }
+        table.setStatus(event.status());
+        refreshCard(table);
+    }
+
+    /**
+     * Phát trạng thái bàn hiện tại sau một lần compare-and-set (kể cả khi bị terminal
+     * khác ghi trước) để model và các view khác cập nhật mà không đọc lại database
+     */
+    private void publishTableState(int tableId, TableStatusTransition result) {
+        if (result.getStatus() != null && result.getOutcome() != TableStatusTransition.Outcome.REJECTED) {
+            DashboardEventBus.publish(new TableStatusChanged(tableId, result.getStatus(), result.getVersion()));
+        }
     }
 
     /**
@@ -697,16 +644,10 @@ public class TableController implements Initializable, DashboardCommunicator {
     }
 
     /**
-     * Get table by ID
+     * Get table by ID (any area)
      */
     public TableCafe getTableById(int tableId) {
-        if (currentTables != null) {
-            return currentTables.stream()
-                    .filter(table -> table.getTableId() == tableId)
-                    .findFirst()
-                    .orElse(null);
-        }
-        return null;
+        return tablesById.get(tableId);
     }
 
     /**
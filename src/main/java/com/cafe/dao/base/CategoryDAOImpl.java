@@ -1,6 +1,7 @@
 package com.cafe.dao.base;
 
 import com.cafe.model.entity.Category;
+import com.cafe.service.MenuCatalog;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -20,7 +21,7 @@ public class CategoryDAOImpl implements CategoryDAO {
             stmt.setString(1, category.getCategoryName());
             stmt.setString(2, category.getDescription());
             stmt.setBoolean(3, category.isActive());
-            return stmt.executeUpdate() > 0;
+            return invalidateCatalogIf(stmt.executeUpdate() > 0);
         } catch (SQLException e) {
             e.printStackTrace(); return false;
         }
@@ -34,7 +35,7 @@ public class CategoryDAOImpl implements CategoryDAO {
             stmt.setString(2, category.getDescription());
             stmt.setBoolean(3, category.isActive());
             stmt.setInt(4, category.getCategoryId());
-            return stmt.executeUpdate() > 0;
+            return invalidateCatalogIf(stmt.executeUpdate() > 0);
         } catch (SQLException e) {
             e.printStackTrace(); return false;
         }
@@ -45,7 +46,7 @@ public class CategoryDAOImpl implements CategoryDAO {
         String sql = "DELETE FROM categories WHERE category_id = ?";
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, categoryId);
-            return stmt.executeUpdate() > 0;
+            return invalidateCatalogIf(stmt.executeUpdate() > 0);
         } catch (SQLException e) {
             e.printStackTrace(); return false;
         }
@@ -101,4 +102,12 @@ public class CategoryDAOImpl implements CategoryDAO {
     public List<Category> findAll() {
         return getAllCategories();
     }
+
+    // Báo cho MenuCatalog nạp lại snapshot khi có thay đổi
+    private boolean invalidateCatalogIf(boolean changed) {
+        if (changed) {
+            MenuCatalog.invalidate();
+        }
+        return changed;
+    }
 }
\ No newline at end of file
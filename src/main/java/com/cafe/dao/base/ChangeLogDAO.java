@@ -0,0 +1,57 @@
+package com.cafe.dao.base;
+
+import com.cafe.model.dto.ChangeLogEntry;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Bảng change_log: nhật ký append-only các thay đổi bàn/order, đánh số tăng dần (seq).
+ * Các hàm append* ghi trạng thái hiện tại của dòng (đọc lại sau trigger) và phải được
+ * gọi trong cùng transaction với lệnh ghi tương ứng.
+ */
+public interface ChangeLogDAO {
+
+    /**
+     * Ghi trạng thái hiện tại của bàn
+     */
+    boolean appendTableChange(int tableId);
+
+    /**
+     * Ghi trạng thái hiện tại của order (kèm table_id)
+     */
+    boolean appendOrderChange(int orderId);
+
+    /**
+     * Ghi trạng thái hiện tại của bàn đang gắn với order
+     * (trigger trên orders có thể đã đổi trạng thái bàn)
+     */
+    boolean appendTableChangeForOrder(int orderId);
+
+    /**
+     * Ghi order đã bị xóa
+     */
+    boolean appendOrderDeleted(int orderId, Integer tableId);
+
+    /**
+     * Các dòng có seq > afterSeq, theo thứ tự seq (range scan trên khóa chính)
+     */
+    List<ChangeLogEntry> findAfter(long afterSeq, int limit);
+
+    /**
+     * Các dòng có seq nằm trong danh sách (đọc lại lỗ hổng), theo thứ tự seq
+     */
+    List<ChangeLogEntry> findBySeqs(Collection<Long> seqs);
+
+    /**
+     * seq lớn nhất hiện có (0 nếu bảng rỗng)
+     */
+    long findLatestSeq();
+
+    /**
+     * Xóa các dòng cũ hơn mốc thời gian
+     * @return số dòng đã xóa
+     */
+    int deleteOlderThan(Timestamp cutoff);
+}
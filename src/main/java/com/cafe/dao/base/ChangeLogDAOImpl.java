@@ -0,0 +1,229 @@
+package com.cafe.dao.base;
+
+import com.cafe.config.DatabaseConfig;
+import com.cafe.model.dto.ChangeLogEntry;
+import com.cafe.util.ChangeFeedMulticast;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public class ChangeLogDAOImpl implements ChangeLogDAO {
+    private final Connection conn;
+
+    public ChangeLogDAOImpl(Connection conn) {
+        this.conn = conn;
+    }
+
+    /**
+     * Một lệnh ghi kèm append change_log
+     */
+    @FunctionalInterface
+    public interface LoggedWrite {
+        boolean run() throws SQLException;
+    }
+
+    /**
+     * Chạy lệnh ghi + append change_log trong cùng một transaction.
+     * Sau khi commit báo cho các terminal khác (chỉ có tác dụng khi changefeed.transport=multicast).
+     * Nếu connection đang nằm trong transaction của caller thì chỉ tham gia vào đó:
+     * caller commit/rollback và tự gọi ChangeFeedMulticast.announce() sau khi commit
+     * (báo trước khi commit thì terminal khác đọc change_log lúc dòng mới chưa hiện ra).
+     */
+    public static boolean runLogged(Connection conn, LoggedWrite write) throws SQLException {
+        if (!conn.getAutoCommit()) {
+            return write.run();
+        }
+
+        conn.setAutoCommit(false);
+        try {
+            if (write.run()) {
+                conn.commit();
+                ChangeFeedMulticast.announce();
+                return true;
+            }
+            conn.rollback();
+            return false;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    @Override
+    public boolean appendTableChange(int tableId) {
+        String sql = """
+            INSERT INTO change_log (entity_type, entity_id, table_id, status, version, terminal_id)
+            SELECT 'table', table_id, table_id, status, version, ?
+            FROM tables
+            WHERE table_id = ?
+            """;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, DatabaseConfig.getTerminalId());
+            ps.setInt(2, tableId);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    @Override
+    public boolean appendOrderChange(int orderId) {
+        String sql = """
+            INSERT INTO change_log (entity_type, entity_id, table_id, status, payment_status, terminal_id)
+            SELECT 'order', order_id, table_id, order_status, payment_status, ?
+            FROM orders
+            WHERE order_id = ?
+            """;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, DatabaseConfig.getTerminalId());
+            ps.setInt(2, orderId);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    @Override
+    public boolean appendTableChangeForOrder(int orderId) {
+        String sql = """
+            INSERT INTO change_log (entity_type, entity_id, table_id, status, version, terminal_id)
+            SELECT 'table', t.table_id, t.table_id, t.status, t.version, ?
+            FROM orders o
+            JOIN tables t ON t.table_id = o.table_id
+            WHERE o.order_id = ?
+            """;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, DatabaseConfig.getTerminalId());
+            ps.setInt(2, orderId);
+            ps.executeUpdate(); // Order không gắn bàn → không có dòng nào, vẫn hợp lệ
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    @Override
+    public boolean appendOrderDeleted(int orderId, Integer tableId) {
+        String sql = "INSERT INTO change_log (entity_type, entity_id, table_id, status, terminal_id) VALUES ('order', ?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, orderId);
+            if (tableId != null) {
+                ps.setInt(2, tableId);
+            } else {
+                ps.setNull(2, Types.INTEGER);
+            }
+            ps.setString(3, ChangeLogEntry.STATUS_DELETED);
+            ps.setInt(4, DatabaseConfig.getTerminalId());
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    @Override
+    public List<ChangeLogEntry> findAfter(long afterSeq, int limit) {
+        List<ChangeLogEntry> list = new ArrayList<>();
+        String sql = """
+            SELECT seq, entity_type, entity_id, table_id, status, payment_status, version, terminal_id, created_at
+            FROM change_log
+            WHERE seq > ?
+            ORDER BY seq
+            LIMIT ?
+            """;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, afterSeq);
+            ps.setInt(2, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(extractEntry(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return list;
+    }
+
+    @Override
+    public List<ChangeLogEntry> findBySeqs(Collection<Long> seqs) {
+        List<ChangeLogEntry> list = new ArrayList<>();
+        if (seqs == null || seqs.isEmpty()) {
+            return list;
+        }
+        String placeholders = String.join(",", Collections.nCopies(seqs.size(), "?"));
+        String sql = """
+            SELECT seq, entity_type, entity_id, table_id, status, payment_status, version, terminal_id, created_at
+            FROM change_log
+            WHERE seq IN (%s)
+            ORDER BY seq
+            """.formatted(placeholders);
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (Long seq : seqs) {
+                ps.setLong(index++, seq);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(extractEntry(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return list;
+    }
+
+    @Override
+    public long findLatestSeq() {
+        String sql = "SELECT COALESCE(MAX(seq), 0) FROM change_log";
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    @Override
+    public int deleteOlderThan(Timestamp cutoff) {
+        String sql = "DELETE FROM change_log WHERE created_at < ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setTimestamp(1, cutoff);
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    // ===================== Helper Methods =======================
+
+    private ChangeLogEntry extractEntry(ResultSet rs) throws SQLException {
+        int tableId = rs.getInt("table_id");
+        Integer nullableTableId = rs.wasNull() ? null : tableId;
+        int version = rs.getInt("version");
+        Integer nullableVersion = rs.wasNull() ? null : version;
+        return new ChangeLogEntry(
+                rs.getLong("seq"),
+                rs.getString("entity_type"),
+                rs.getInt("entity_id"),
+                nullableTableId,
+                rs.getString("status"),
+                rs.getString("payment_status"),
+                nullableVersion,
+                rs.getInt("terminal_id"),
+                rs.getTimestamp("created_at"));
+    }
+}
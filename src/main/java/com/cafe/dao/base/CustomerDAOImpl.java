@@ -278,7 +278,7 @@ public class CustomerDAOImpl implements CustomerDAO {
     @Override
     public boolean insertCustomer(Customer customer) throws SQLException {
         String sql = "INSERT INTO customers (full_name, phone, email, address, loyalty_points, total_spent, is_active, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, customer.getFullName());
             ps.setString(2, customer.getPhone());
             ps.setString(3, customer.getEmail());
@@ -286,7 +286,15 @@ public class CustomerDAOImpl implements CustomerDAO {
             ps.setInt(5, customer.getLoyaltyPoints());
             ps.setDouble(6, customer.getTotalSpent());
             ps.setBoolean(7, customer.isActive());
-            return ps.executeUpdate() > 0;
+            if (ps.executeUpdate() == 0) {
+                return false;
+            }
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (keys.next()) {
+                    customer.setCustomerId(keys.getInt(1));
+                }
+            }
+            return true;
         }
     }
 
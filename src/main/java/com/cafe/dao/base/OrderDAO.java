@@ -2,6 +2,7 @@ package com.cafe.dao.base;
 
 import com.cafe.model.entity.Order;
 
+import java.sql.Timestamp;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,10 +11,25 @@ public interface OrderDAO {
     Order getOrderById(int id);
     Order getOrderByNumber(String orderNumber);
     boolean insertOrder(Order order);
+    /**
+     * Ghi các cột đã đổi (Order.getDirtyFields) khi version trong database vẫn bằng order.getVersion(),
+     * sau đó tăng version
+     * @return false nếu order đã bị terminal khác ghi (version khác) hoặc không tồn tại
+     */
     boolean updateOrder(Order order);
     boolean deleteOrder(int id);
     List<Order> getOrdersByCustomerId(int customerId);
     List<Order> getOrdersByUserId(int userId);
+    Optional<Order> findActiveByTableId(int tableId);
+    /**
+     * Cộng delta vào tổng tiền của order đang pending và tăng version
+     * @return version mới, -1 nếu order không còn pending hoặc lỗi
+     */
+    int addToPendingOrderTotal(int orderId, double delta, Timestamp updatedAt);
+    int findMaxOrderSequence(String orderNumberPrefix);
+    String findPaymentStatusForUpdate(int orderId);
+    String findOrderStatusForUpdate(int orderId);
+    Order findByIdForUpdate(int orderId);
     
     // Additional methods for service layer
     boolean save(Order order);
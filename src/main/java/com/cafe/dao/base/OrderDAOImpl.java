@@ -1,9 +1,12 @@
 package com.cafe.dao.base;
 import com.cafe.model.entity.Order;
+import com.cafe.util.ChangeFeedMulticast;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 public class OrderDAOImpl implements OrderDAO {
     private final Connection conn;
@@ -64,36 +67,43 @@ public class OrderDAOImpl implements OrderDAO {
                                 payment_method, payment_status, order_status, notes, created_at, updated_at) 
             VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
             """;
-        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setString(1, order.getOrderNumber());
-            ps.setInt(2, order.getTableId());
-            if (order.getCustomerId() != null) {
-                ps.setInt(3, order.getCustomerId());
-            } else {
-                ps.setNull(3, Types.INTEGER);
-            }
-            ps.setInt(4, order.getUserId());
-            ps.setTimestamp(5, order.getOrderDate());
-            ps.setDouble(6, order.getTotalAmount());
-            ps.setDouble(7, order.getDiscountAmount());
-            ps.setDouble(8, order.getFinalAmount());
-            ps.setString(9, order.getPaymentMethod());
-            ps.setString(10, order.getPaymentStatus());
-            ps.setString(11, order.getOrderStatus());
-            ps.setString(12, order.getNotes());
-            ps.setTimestamp(13, order.getCreatedAt());
-            ps.setTimestamp(14, order.getUpdatedAt());
-            
-            int affectedRows = ps.executeUpdate();
-            if (affectedRows > 0) {
-                // Lấy generated ID
-                try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        order.setOrderId(generatedKeys.getInt(1));
+        try {
+            // Ghi change_log cùng transaction (trigger có thể đã đổi trạng thái bàn)
+            return ChangeLogDAOImpl.runLogged(conn, () -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    ps.setString(1, order.getOrderNumber());
+                    ps.setInt(2, order.getTableId());
+                    if (order.getCustomerId() != null) {
+                        ps.setInt(3, order.getCustomerId());
+                    } else {
+                        ps.setNull(3, Types.INTEGER);
+                    }
+                    ps.setInt(4, order.getUserId());
+                    ps.setTimestamp(5, order.getOrderDate());
+                    ps.setDouble(6, order.getTotalAmount());
+                    ps.setDouble(7, order.getDiscountAmount());
+                    ps.setDouble(8, order.getFinalAmount());
+                    ps.setString(9, order.getPaymentMethod());
+                    ps.setString(10, order.getPaymentStatus());
+                    ps.setString(11, order.getOrderStatus());
+                    ps.setString(12, order.getNotes());
+                    ps.setTimestamp(13, order.getCreatedAt());
+                    ps.setTimestamp(14, order.getUpdatedAt());
+
+                    if (ps.executeUpdate() == 0) {
+                        return false;
+                    }
+                    // Lấy generated ID
+                    try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            order.setOrderId(generatedKeys.getInt(1));
+                        }
                     }
                 }
-                return true;
-            }
+                order.setVersion(0);
+                order.markPersisted();
+                return appendChanges(order);
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -102,32 +112,39 @@ public class OrderDAOImpl implements OrderDAO {
 
     @Override
     public boolean updateOrder(Order order) {
-        String sql = """
-            UPDATE orders 
-            SET order_number=?, table_id=?, customer_id=?, user_id=?, order_date=?, total_amount=?, discount_amount=?, final_amount=?, 
-                payment_method=?, payment_status=?, order_status=?, notes=?, updated_at=?
-            WHERE order_id=?
-            """;
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, order.getOrderNumber());
-            ps.setInt(2, order.getTableId());
-            if (order.getCustomerId() != null) {
-                ps.setInt(3, order.getCustomerId());
-            } else {
-                ps.setNull(3, Types.INTEGER);
+        // Chỉ ghi các cột đã đổi, và chỉ khi chưa ai ghi đè từ lúc đọc (version)
+        Set<Order.Field> dirtyFields = order.getDirtyFields();
+        StringBuilder sql = new StringBuilder("UPDATE orders SET ");
+        for (Order.Field field : dirtyFields) {
+            sql.append(field.getColumn()).append(" = ?, ");
+        }
+        sql.append("version = version + 1 WHERE order_id = ? AND version = ?");
+
+        try {
+            boolean updated = ChangeLogDAOImpl.runLogged(conn, () -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+                    int index = 1;
+                    for (Order.Field field : dirtyFields) {
+                        Object value = order.getValue(field);
+                        if (value != null) {
+                            ps.setObject(index++, value);
+                        } else {
+                            ps.setNull(index++, Types.NULL);
+                        }
+                    }
+                    ps.setInt(index++, order.getOrderId());
+                    ps.setInt(index, order.getVersion());
+                    if (ps.executeUpdate() == 0) {
+                        return false; // Order đã bị thay đổi (version khác) hoặc không tồn tại
+                    }
+                }
+                return appendChanges(order);
+            });
+            if (updated) {
+                order.setVersion(order.getVersion() + 1);
+                order.markPersisted();
             }
-            ps.setInt(4, order.getUserId());
-            ps.setTimestamp(5, order.getOrderDate());
-            ps.setDouble(6, order.getTotalAmount());
-            ps.setDouble(7, order.getDiscountAmount());
-            ps.setDouble(8, order.getFinalAmount());
-            ps.setString(9, order.getPaymentMethod());
-            ps.setString(10, order.getPaymentStatus());
-            ps.setString(11, order.getOrderStatus());
-            ps.setString(12, order.getNotes());
-            ps.setTimestamp(13, order.getUpdatedAt());
-            ps.setInt(14, order.getOrderId());
-            return ps.executeUpdate() > 0;
+            return updated;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -174,11 +191,23 @@ public class OrderDAOImpl implements OrderDAO {
                 
                 if (result > 0) {
                     // 5. Cập nhật trạng thái bàn nếu cần
+                    ChangeLogDAO changeLog = new ChangeLogDAOImpl(conn);
                     if (tableId != null) {
                         updateTableStatusAfterDelete(conn, tableId);
+                        if (!changeLog.appendTableChange(tableId)) {
+                            conn.rollback();
+                            return false;
+                        }
+                    }
+
+                    // 6. Ghi change_log cho terminal khác
+                    if (!changeLog.appendOrderDeleted(id, tableId)) {
+                        conn.rollback();
+                        return false;
                     }
                     
                     conn.commit();
+                    ChangeFeedMulticast.announce();
                     return true;
                 } else {
                     conn.rollback();
@@ -263,8 +292,168 @@ public class OrderDAOImpl implements OrderDAO {
         return list;
     }
 
+    @Override
+    public Optional<Order> findActiveByTableId(int tableId) {
+        // Dùng index idx_order_table_status (table_id, order_status)
+        String sql = """
+            SELECT * FROM orders
+            WHERE table_id = ?
+            AND order_status IN ('pending', 'preparing', 'ready', 'served')
+            ORDER BY order_id
+            LIMIT 1
+            """;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, tableId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(extractOrder(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public int addToPendingOrderTotal(int orderId, double delta, Timestamp updatedAt) {
+        // Cập nhật tổng tiền tăng dần thay vì ghi lại toàn bộ dòng order
+        String sql = """
+            UPDATE orders
+            SET total_amount = total_amount + ?, final_amount = final_amount + ?, updated_at = ?, version = version + 1
+            WHERE order_id = ? AND order_status = 'pending'
+            """;
+        // Dòng đã bị UPDATE khóa đến hết transaction → version đọc lại là của chính lệnh này
+        String versionSql = "SELECT version FROM orders WHERE order_id = ?";
+        int[] newVersion = {-1};
+        try {
+            boolean updated = ChangeLogDAOImpl.runLogged(conn, () -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setDouble(1, delta);
+                    ps.setDouble(2, delta);
+                    ps.setTimestamp(3, updatedAt);
+                    ps.setInt(4, orderId);
+                    if (ps.executeUpdate() == 0) {
+                        return false;
+                    }
+                }
+                try (PreparedStatement ps = conn.prepareStatement(versionSql)) {
+                    ps.setInt(1, orderId);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next()) {
+                            newVersion[0] = rs.getInt("version");
+                        }
+                    }
+                }
+                // Không đổi trạng thái → bàn không đổi, chỉ ghi order
+                return new ChangeLogDAOImpl(conn).appendOrderChange(orderId);
+            });
+            return updated ? newVersion[0] : -1;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return -1;
+    }
+
+    @Override
+    public int findMaxOrderSequence(String orderNumberPrefix) {
+        // Range scan trên unique index của order_number (LIKE 'prefix%')
+        String sql = """
+            SELECT COALESCE(MAX(CAST(SUBSTRING(order_number, ?) AS UNSIGNED)), 0)
+            FROM orders
+            WHERE order_number LIKE ?
+            """;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, orderNumberPrefix.length() + 1);
+            ps.setString(2, orderNumberPrefix + "%");
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    @Override
+    public String findPaymentStatusForUpdate(int orderId) {
+        // Khóa dòng order đến hết transaction hiện tại
+        String sql = "SELECT payment_status FROM orders WHERE order_id = ? FOR UPDATE";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, orderId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getString("payment_status");
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    @Override
+    public Order findByIdForUpdate(int orderId) {
+        // Locking read: luôn thấy bản đã commit mới nhất, kể cả trong transaction
+        String sql = "SELECT * FROM orders WHERE order_id = ? FOR UPDATE";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, orderId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return extractOrder(rs);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    @Override
+    public String findOrderStatusForUpdate(int orderId) {
+        // Khóa dòng order đến hết transaction hiện tại
+        String sql = "SELECT order_status FROM orders WHERE order_id = ? FOR UPDATE";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, orderId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getString("order_status");
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
     // ===================== Helper Methods =======================
 
+    /**
+     * Ghi change_log cho order và cho bàn của nó
+     * (trigger update_table_status_on_* có thể đã đổi trạng thái bàn trong cùng transaction),
+     * rồi đọc lại trạng thái/version bàn vào order để terminal này cập nhật ngay
+     * thay vì chờ change feed
+     */
+    private boolean appendChanges(Order order) throws SQLException {
+        ChangeLogDAO changeLog = new ChangeLogDAOImpl(conn);
+        if (!changeLog.appendOrderChange(order.getOrderId())
+                || !changeLog.appendTableChangeForOrder(order.getOrderId())) {
+            return false;
+        }
+        String sql = "SELECT status, version FROM tables WHERE table_id = ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, order.getTableId());
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    order.setTableState(rs.getString("status"), rs.getInt("version"));
+                }
+            }
+        }
+        return true;
+    }
+
     private Order extractOrder(ResultSet rs) throws SQLException {
         Order o = new Order();
         o.setOrderId(rs.getInt("order_id"));
@@ -283,6 +472,8 @@ public class OrderDAOImpl implements OrderDAO {
         o.setNotes(rs.getString("notes"));
         o.setCreatedAt(rs.getTimestamp("created_at"));
         o.setUpdatedAt(rs.getTimestamp("updated_at"));
+        o.setVersion(rs.getInt("version"));
+        o.markPersisted();
         return o;
     }
 
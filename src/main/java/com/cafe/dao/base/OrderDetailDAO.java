@@ -1,6 +1,7 @@
 package com.cafe.dao.base;
 
 import com.cafe.model.entity.OrderDetail;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +14,9 @@ public interface OrderDetailDAO {
     boolean deleteByOrderId(Integer orderId);
     boolean deleteByOrderAndProduct(Integer orderId, Integer productId);
     boolean updateQuantity(Integer orderId, Integer productId, Integer newQuantity);
+    /**
+     * Khóa các dòng của order trong transaction hiện tại; lỗi (vd hết thời gian chờ khóa)
+     * được ném ra để caller rollback thay vì coi như order chưa có món
+     */
+    List<OrderDetail> findByOrderIdForUpdate(Integer orderId) throws SQLException;
 }
\ No newline at end of file
@@ -163,6 +163,22 @@ public class OrderDetailDAOImpl implements OrderDetailDAO {
         return false;
     }
 
+    @Override
+    public List<OrderDetail> findByOrderIdForUpdate(Integer orderId) throws SQLException {
+        // Khóa các dòng của order trong transaction hiện tại (không join products)
+        List<OrderDetail> orderDetails = new ArrayList<>();
+        String sql = "SELECT * FROM order_details WHERE order_id = ? ORDER BY order_detail_id FOR UPDATE";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, orderId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    orderDetails.add(extractOrderDetail(rs));
+                }
+            }
+        }
+        return orderDetails;
+    }
+
     private OrderDetail extractOrderDetail(ResultSet rs) throws SQLException {
         OrderDetail orderDetail = new OrderDetail();
         orderDetail.setOrderDetailId(rs.getInt("order_detail_id"));
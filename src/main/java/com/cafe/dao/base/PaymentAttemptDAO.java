@@ -0,0 +1,29 @@
+package com.cafe.dao.base;
+
+import com.cafe.model.entity.PaymentAttempt;
+
+/**
+ * Bảng payment_attempts: mỗi idempotency key một dòng (ràng buộc UNIQUE),
+ * dùng để giữ chỗ một lượt thanh toán và lưu kết quả để trả lại khi bị gửi lại.
+ */
+public interface PaymentAttemptDAO {
+
+    /**
+     * Giữ chỗ lượt thanh toán mới (status = 'in_progress')
+     * @return false nếu key đã tồn tại (hoặc lỗi ghi)
+     */
+    boolean insertInProgress(PaymentAttempt attempt);
+
+    PaymentAttempt findByKey(String idempotencyKey);
+
+    /**
+     * Lấy lại quyền chạy một lượt đã 'failed' hoặc 'in_progress' quá staleSeconds
+     * (tăng attempt_count); chỉ một caller thành công
+     */
+    boolean reclaim(String idempotencyKey, int staleSeconds);
+
+    /**
+     * Lưu kết quả cuối cùng của lượt thanh toán
+     */
+    boolean complete(PaymentAttempt attempt);
+}
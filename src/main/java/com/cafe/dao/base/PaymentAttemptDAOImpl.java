@@ -0,0 +1,127 @@
+package com.cafe.dao.base;
+
+import com.cafe.model.entity.PaymentAttempt;
+
+import java.sql.*;
+
+public class PaymentAttemptDAOImpl implements PaymentAttemptDAO {
+    private final Connection conn;
+
+    // MySQL ER_DUP_ENTRY
+    private static final int DUPLICATE_KEY_ERROR = 1062;
+
+    public PaymentAttemptDAOImpl(Connection conn) {
+        this.conn = conn;
+    }
+
+    @Override
+    public boolean insertInProgress(PaymentAttempt attempt) {
+        String sql = """
+            INSERT INTO payment_attempts (idempotency_key, order_id, payment_method, amount, status, attempt_count)
+            VALUES (?, ?, ?, ?, 'in_progress', 1)
+            """;
+        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, attempt.getIdempotencyKey());
+            ps.setInt(2, attempt.getOrderId());
+            ps.setString(3, attempt.getPaymentMethod());
+            ps.setDouble(4, attempt.getAmount());
+            if (ps.executeUpdate() == 0) {
+                return false;
+            }
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (keys.next()) {
+                    attempt.setAttemptId(keys.getLong(1));
+                }
+            }
+            attempt.setStatus(PaymentAttempt.STATUS_IN_PROGRESS);
+            attempt.setAttemptCount(1);
+            return true;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            if (e.getErrorCode() != DUPLICATE_KEY_ERROR) {
+                e.printStackTrace();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    @Override
+    public PaymentAttempt findByKey(String idempotencyKey) {
+        String sql = "SELECT * FROM payment_attempts WHERE idempotency_key = ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, idempotencyKey);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return extractAttempt(rs);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    @Override
+    public boolean reclaim(String idempotencyKey, int staleSeconds) {
+        String sql = """
+            UPDATE payment_attempts
+            SET status = 'in_progress', attempt_count = attempt_count + 1,
+                transaction_id = NULL, message = NULL, change_amount = 0, receipt_path = NULL
+            WHERE idempotency_key = ?
+              AND (status = 'failed'
+                   OR (status = 'in_progress' AND updated_at < NOW() - INTERVAL ? SECOND))
+            """;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, idempotencyKey);
+            ps.setInt(2, staleSeconds);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    @Override
+    public boolean complete(PaymentAttempt attempt) {
+        String sql = """
+            UPDATE payment_attempts
+            SET status = ?, transaction_id = ?, message = ?, change_amount = ?, receipt_path = ?
+            WHERE idempotency_key = ? AND status = 'in_progress'
+            """;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, attempt.getStatus());
+            ps.setString(2, attempt.getTransactionId());
+            ps.setString(3, truncate(attempt.getMessage(), 255));
+            ps.setDouble(4, attempt.getChangeAmount());
+            ps.setString(5, attempt.getReceiptPath());
+            ps.setString(6, attempt.getIdempotencyKey());
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    private PaymentAttempt extractAttempt(ResultSet rs) throws SQLException {
+        PaymentAttempt attempt = new PaymentAttempt();
+        attempt.setAttemptId(rs.getLong("attempt_id"));
+        attempt.setIdempotencyKey(rs.getString("idempotency_key"));
+        attempt.setOrderId(rs.getInt("order_id"));
+        attempt.setPaymentMethod(rs.getString("payment_method"));
+        attempt.setAmount(rs.getDouble("amount"));
+        attempt.setStatus(rs.getString("status"));
+        attempt.setAttemptCount(rs.getInt("attempt_count"));
+        attempt.setTransactionId(rs.getString("transaction_id"));
+        attempt.setMessage(rs.getString("message"));
+        attempt.setChangeAmount(rs.getDouble("change_amount"));
+        attempt.setReceiptPath(rs.getString("receipt_path"));
+        attempt.setCreatedAt(rs.getTimestamp("created_at"));
+        attempt.setUpdatedAt(rs.getTimestamp("updated_at"));
+        return attempt;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+}
@@ -1,5 +1,6 @@
 package com.cafe.dao.base;
 
+import com.cafe.model.entity.OrderDetail;
 import com.cafe.model.entity.Product;
 import java.util.List;
 import java.util.Optional;
@@ -26,6 +27,21 @@ public interface ProductDAO {
                                  Integer minStock, Integer maxStock);
     List<Product> findByNameContaining(String name);
     boolean updateStock(Integer productId, Integer quantity);
+    boolean updateImageUrl(int productId, String imageUrl);
+
+    // Stock reservation - gọi trong transaction của caller
+    /**
+     * Trừ tồn kho cho toàn bộ các dòng của order: khóa và đọc tồn kho các sản phẩm
+     * (một SELECT ... FOR UPDATE), rồi trừ các dòng đủ hàng trong một batch.
+     * Sản phẩm có stock_quantity NULL (không quản lý tồn kho) luôn thành công.
+     * @return kết quả từng dòng, cùng thứ tự với lines; caller rollback nếu có dòng false
+     */
+    boolean[] reserveStock(List<OrderDetail> lines);
+
+    /**
+     * Cộng lại tồn kho đã trừ bởi reserveStock (khi hủy order)
+     */
+    boolean releaseStock(List<OrderDetail> lines);
 
     // Count operations
     long countByCategoryId(Integer categoryId);
@@ -1,9 +1,16 @@
 package com.cafe.dao.base;
 
+import com.cafe.model.entity.OrderDetail;
 import com.cafe.model.entity.Product;
+import com.cafe.service.MenuCatalog;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class ProductDAOImpl implements ProductDAO {
@@ -37,6 +44,7 @@ public class ProductDAOImpl implements ProductDAO {
                         product.setProductId(generatedKeys.getInt(1));
                     }
                 }
+                MenuCatalog.invalidate();
                 return true;
             }
         } catch (SQLException e) {
@@ -63,7 +71,7 @@ public class ProductDAOImpl implements ProductDAO {
             stmt.setBoolean(8, product.isActive());
             stmt.setInt(9, product.getProductId());
 
-            return stmt.executeUpdate() > 0;
+            return invalidateCatalogIf(stmt.executeUpdate() > 0);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -75,7 +83,7 @@ public class ProductDAOImpl implements ProductDAO {
         String sql = "UPDATE products SET is_active = false WHERE product_id = ?";
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, productId);
-            return stmt.executeUpdate() > 0;
+            return invalidateCatalogIf(stmt.executeUpdate() > 0);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -235,6 +243,14 @@ public class ProductDAOImpl implements ProductDAO {
         return 0;
     }
 
+    // Báo cho MenuCatalog nạp lại snapshot khi có thay đổi
+    private boolean invalidateCatalogIf(boolean changed) {
+        if (changed) {
+            MenuCatalog.invalidate();
+        }
+        return changed;
+    }
+
     private Product extractProduct(ResultSet rs) throws SQLException {
         Product product = new Product();
         product.setProductId(rs.getInt("product_id"));
@@ -255,13 +271,126 @@ public class ProductDAOImpl implements ProductDAO {
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, quantity);
             stmt.setInt(2, productId);
-            return stmt.executeUpdate() > 0;
+            return invalidateCatalogIf(stmt.executeUpdate() > 0);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public boolean updateImageUrl(int productId, String imageUrl) {
+        String sql = "UPDATE products SET image_url = ? WHERE product_id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, imageUrl);
+            stmt.setInt(2, productId);
+            return invalidateCatalogIf(stmt.executeUpdate() > 0);
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
         }
     }
 
+    @Override
+    public boolean[] reserveStock(List<OrderDetail> lines) {
+        // Khóa rồi đọc tồn kho trước: quyết định đủ/thiếu dựa trên giá trị đọc được,
+        // không dựa vào số dòng của batch (driver có thể trả SUCCESS_NO_INFO, không biết
+        // conditional update có trừ hay không). Dòng đã khóa nên không terminal nào
+        // bán xen vào giữa SELECT và UPDATE. Sản phẩm có stock NULL: NULL - ? vẫn là NULL.
+        String updateSql = """
+            UPDATE products
+            SET stock_quantity = stock_quantity - ?
+            WHERE product_id = ? AND (stock_quantity IS NULL OR stock_quantity >= ?)
+            """;
+        boolean[] reserved = new boolean[lines.size()];
+        if (lines.isEmpty()) {
+            return reserved;
+        }
+
+        // Khóa dòng products theo thứ tự product_id để hai order không deadlock lẫn nhau
+        Integer[] order = byProductId(lines);
+        String placeholders = String.join(",", Collections.nCopies(lines.size(), "?"));
+        String lockSql = "SELECT product_id, stock_quantity FROM products WHERE product_id IN ("
+                + placeholders + ") ORDER BY product_id FOR UPDATE";
+        try {
+            Map<Integer, Integer> stockByProduct = new HashMap<>();
+            try (PreparedStatement stmt = conn.prepareStatement(lockSql)) {
+                for (int i = 0; i < order.length; i++) {
+                    stmt.setInt(i + 1, lines.get(order[i]).getProductId());
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        int stock = rs.getInt("stock_quantity");
+                        stockByProduct.put(rs.getInt("product_id"), rs.wasNull() ? null : stock);
+                    }
+                }
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+                boolean any = false;
+                for (int index : order) {
+                    OrderDetail line = lines.get(index);
+                    if (!stockByProduct.containsKey(line.getProductId())) {
+                        continue; // Sản phẩm không tồn tại
+                    }
+                    Integer stock = stockByProduct.get(line.getProductId());
+                    if (stock != null && stock < line.getQuantity()) {
+                        continue; // Không đủ hàng
+                    }
+                    stmt.setInt(1, line.getQuantity());
+                    stmt.setInt(2, line.getProductId());
+                    stmt.setInt(3, line.getQuantity());
+                    stmt.addBatch();
+                    if (stock != null) {
+                        stockByProduct.put(line.getProductId(), stock - line.getQuantity()); // Cùng món ở nhiều dòng
+                    }
+                    reserved[index] = true;
+                    any = true;
+                }
+                if (any) {
+                    stmt.executeBatch();
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            Arrays.fill(reserved, false);
+        }
+        return reserved;
+    }
+
+    @Override
+    public boolean releaseStock(List<OrderDetail> lines) {
+        String sql = "UPDATE products SET stock_quantity = stock_quantity + ? WHERE product_id = ? AND stock_quantity IS NOT NULL";
+        if (lines.isEmpty()) {
+            return true;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int index : byProductId(lines)) {
+                OrderDetail line = lines.get(index);
+                stmt.setInt(1, line.getQuantity());
+                stmt.setInt(2, line.getProductId());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Chỉ số các dòng sắp theo product_id
+     */
+    private static Integer[] byProductId(List<OrderDetail> lines) {
+        Integer[] order = new Integer[lines.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> lines.get(i).getProductId()));
+        return order;
+    }
+
     @Override
     public List<Product> findByNameContaining(String name) {
         List<Product> products = new ArrayList<>();
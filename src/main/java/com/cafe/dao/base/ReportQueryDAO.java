@@ -0,0 +1,69 @@
+package com.cafe.dao.base;
+
+import com.cafe.model.dto.OrderExportRow;
+import com.cafe.model.dto.OrderLineExportRow;
+import com.cafe.model.dto.StaffSalesSummary;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Các truy vấn tổng hợp (SUM/COUNT/GROUP BY) cho báo cáo, chạy trực tiếp trên MySQL.
+ * Khoảng thời gian luôn là nửa mở [from, to) để dùng được index idx_order_date.
+ */
+public interface ReportQueryDAO {
+
+    /**
+     * Nhận từng dòng khi đọc tuần tự; trả về false để dừng sớm (hủy)
+     */
+    @FunctionalInterface
+    interface RowHandler<T> {
+        boolean accept(T row) throws Exception;
+    }
+
+    /**
+     * Tổng doanh thu (total_amount) của các đơn đã thanh toán trong [from, to)
+     */
+    double sumPaidRevenue(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Số đơn hàng được tạo trong [from, to)
+     */
+    long countOrders(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Doanh thu đã thanh toán theo giờ (0-23) trong [from, to)
+     */
+    Map<Integer, Double> sumPaidRevenueByHour(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Số đơn hàng có order_status thuộc danh sách cho trước
+     */
+    long countOrdersByStatus(String... statuses);
+
+    /**
+     * Số đơn và doanh thu đã thanh toán theo từng nhân viên (không gồm Admin)
+     */
+    List<StaffSalesSummary> getStaffSalesSummaries();
+
+    /**
+     * Đọc tuần tự các order trong [from, to) theo order_date bằng cursor forward-only
+     * (MySQL stream từng dòng, không nạp cả kết quả vào bộ nhớ).
+     * Connection bị chiếm cho tới khi đọc xong nên dùng connection riêng.
+     * @return số dòng đã xử lý, -1 nếu lỗi (kể cả lỗi do handler ném ra)
+     */
+    long streamOrders(LocalDateTime from, LocalDateTime to, RowHandler<OrderExportRow> handler);
+
+    /**
+     * Số dòng order_details của các order được tạo trong [from, to)
+     */
+    long countOrderLines(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Đọc tuần tự orders ⨝ order_details ⨝ products trong [from, to), mỗi dòng một món,
+     * cùng cơ chế cursor với streamOrders()
+     * @return số dòng đã xử lý, -1 nếu lỗi
+     */
+    long streamOrderLines(LocalDateTime from, LocalDateTime to, RowHandler<OrderLineExportRow> handler);
+}
@@ -0,0 +1,262 @@
+package com.cafe.dao.base;
+
+import com.cafe.model.dto.OrderExportRow;
+import com.cafe.model.dto.OrderLineExportRow;
+import com.cafe.model.dto.StaffSalesSummary;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ReportQueryDAOImpl implements ReportQueryDAO {
+    private final Connection conn;
+
+    // Điều kiện chung cho doanh thu: đã thanh toán và không bị hủy
+    private static final String PAID_CONDITION = "payment_status = 'paid' AND order_status <> 'cancelled'";
+
+    public ReportQueryDAOImpl(Connection conn) {
+        this.conn = conn;
+    }
+
+    @Override
+    public double sumPaidRevenue(LocalDateTime from, LocalDateTime to) {
+        String sql = "SELECT COALESCE(SUM(total_amount), 0) FROM orders " +
+                     "WHERE order_date >= ? AND order_date < ? AND " + PAID_CONDITION;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(from));
+            ps.setTimestamp(2, Timestamp.valueOf(to));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getDouble(1);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0.0;
+    }
+
+    @Override
+    public long countOrders(LocalDateTime from, LocalDateTime to) {
+        String sql = "SELECT COUNT(*) FROM orders WHERE order_date >= ? AND order_date < ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(from));
+            ps.setTimestamp(2, Timestamp.valueOf(to));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getLong(1);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    @Override
+    public Map<Integer, Double> sumPaidRevenueByHour(LocalDateTime from, LocalDateTime to) {
+        Map<Integer, Double> result = new HashMap<>();
+        String sql = "SELECT HOUR(order_date) AS order_hour, SUM(total_amount) AS revenue FROM orders " +
+                     "WHERE order_date >= ? AND order_date < ? AND " + PAID_CONDITION + " " +
+                     "GROUP BY HOUR(order_date)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(from));
+            ps.setTimestamp(2, Timestamp.valueOf(to));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.put(rs.getInt("order_hour"), rs.getDouble("revenue"));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return result;
+    }
+
+    @Override
+    public long countOrdersByStatus(String... statuses) {
+        if (statuses == null || statuses.length == 0) {
+            return 0;
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(statuses.length, "?"));
+        String sql = "SELECT COUNT(*) FROM orders WHERE order_status IN (" + placeholders + ")";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < statuses.length; i++) {
+                ps.setString(i + 1, statuses[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getLong(1);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    @Override
+    public List<StaffSalesSummary> getStaffSalesSummaries() {
+        List<StaffSalesSummary> list = new ArrayList<>();
+        String sql = """
+            SELECT u.user_id, u.full_name, u.role,
+                   COUNT(o.order_id) AS total_orders,
+                   COALESCE(SUM(CASE WHEN o.payment_status = 'paid' AND o.order_status <> 'cancelled'
+                                     THEN o.total_amount END), 0) AS total_revenue
+            FROM users u
+            LEFT JOIN orders o ON o.user_id = u.user_id
+            WHERE u.role <> 'Admin'
+            GROUP BY u.user_id, u.full_name, u.role
+            ORDER BY u.user_id
+            """;
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                list.add(new StaffSalesSummary(
+                        rs.getInt("user_id"),
+                        rs.getString("full_name"),
+                        rs.getString("role"),
+                        rs.getInt("total_orders"),
+                        rs.getDouble("total_revenue")
+                ));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return list;
+    }
+
+    @Override
+    public long streamOrders(LocalDateTime from, LocalDateTime to, RowHandler<OrderExportRow> handler) {
+        String sql = """
+            SELECT o.order_number, o.order_date, t.table_name, u.full_name,
+                   o.order_status, o.payment_status, o.payment_method,
+                   o.total_amount, o.discount_amount, o.final_amount
+            FROM orders o
+            LEFT JOIN tables t ON t.table_id = o.table_id
+            LEFT JOIN users u ON u.user_id = o.user_id
+            WHERE o.order_date >= ? AND o.order_date < ?
+            ORDER BY o.order_date, o.order_id
+            """;
+        long count = 0;
+        boolean stopped = false;
+        try (PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Connector/J chỉ stream khi fetchSize = Integer.MIN_VALUE
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ps.setTimestamp(1, Timestamp.valueOf(from));
+            ps.setTimestamp(2, Timestamp.valueOf(to));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    OrderExportRow row = new OrderExportRow(
+                            rs.getString("order_number"),
+                            rs.getTimestamp("order_date"),
+                            rs.getString("table_name"),
+                            rs.getString("full_name"),
+                            rs.getString("order_status"),
+                            rs.getString("payment_status"),
+                            rs.getString("payment_method"),
+                            rs.getDouble("total_amount"),
+                            rs.getDouble("discount_amount"),
+                            rs.getDouble("final_amount")
+                    );
+                    count++;
+                    if (!handler.accept(row)) {
+                        // Dừng sớm: hủy query để driver không phải đọc hết phần còn lại của stream
+                        stopped = true;
+                        ps.cancel();
+                        break;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            if (stopped) {
+                return count; // Lỗi "query interrupted" khi đóng stream đã hủy
+            }
+            e.printStackTrace();
+            return -1;
+        }
+        return count;
+    }
+
+    @Override
+    public long countOrderLines(LocalDateTime from, LocalDateTime to) {
+        String sql = """
+            SELECT COUNT(*)
+            FROM orders o
+            JOIN order_details d ON d.order_id = o.order_id
+            WHERE o.order_date >= ? AND o.order_date < ?
+            """;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(from));
+            ps.setTimestamp(2, Timestamp.valueOf(to));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getLong(1);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    @Override
+    public long streamOrderLines(LocalDateTime from, LocalDateTime to, RowHandler<OrderLineExportRow> handler) {
+        String sql = """
+            SELECT o.order_number, o.order_date, t.table_name, u.full_name,
+                   o.order_status, o.payment_status, o.payment_method,
+                   d.product_id, p.product_name, d.quantity, d.unit_price, d.total_price, d.notes
+            FROM orders o
+            JOIN order_details d ON d.order_id = o.order_id
+            JOIN products p ON p.product_id = d.product_id
+            LEFT JOIN tables t ON t.table_id = o.table_id
+            LEFT JOIN users u ON u.user_id = o.user_id
+            WHERE o.order_date >= ? AND o.order_date < ?
+            ORDER BY o.order_date, o.order_id, d.order_detail_id
+            """;
+        long count = 0;
+        boolean stopped = false;
+        try (PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ps.setTimestamp(1, Timestamp.valueOf(from));
+            ps.setTimestamp(2, Timestamp.valueOf(to));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    OrderLineExportRow row = new OrderLineExportRow(
+                            rs.getString("order_number"),
+                            rs.getTimestamp("order_date"),
+                            rs.getString("table_name"),
+                            rs.getString("full_name"),
+                            rs.getString("order_status"),
+                            rs.getString("payment_status"),
+                            rs.getString("payment_method"),
+                            rs.getInt("product_id"),
+                            rs.getString("product_name"),
+                            rs.getInt("quantity"),
+                            rs.getDouble("unit_price"),
+                            rs.getDouble("total_price"),
+                            rs.getString("notes")
+                    );
+                    count++;
+                    if (!handler.accept(row)) {
+                        stopped = true;
+                        ps.cancel();
+                        break;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            if (stopped) {
+                return count;
+            }
+            e.printStackTrace();
+            return -1;
+        }
+        return count;
+    }
+}
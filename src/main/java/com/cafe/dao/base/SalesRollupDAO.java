@@ -0,0 +1,57 @@
+package com.cafe.dao.base;
+
+import com.cafe.model.dto.SalesBreakdown;
+import com.cafe.model.dto.SalesData;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Bảng tổng hợp doanh thu theo ngày (sales_daily, sales_product_daily, sales_category_daily).
+ * Khoảng ngày luôn là nửa mở [from, to).
+ */
+public interface SalesRollupDAO {
+
+    /**
+     * Cộng một order vừa thanh toán vào cả ba bảng rollup
+     * (gọi trong cùng transaction với việc cập nhật order)
+     */
+    boolean addPaidOrder(int orderId);
+
+    /**
+     * Trừ lại phần của một order đã thanh toán nay bị hủy (ngược với addPaidOrder),
+     * xóa các dòng về 0 để khớp với rebuild (gọi trong cùng transaction với việc hủy order)
+     */
+    boolean removePaidOrder(int orderId);
+
+    /**
+     * Xóa và dựng lại rollup của các ngày trong [from, to) từ orders/order_details
+     * @return số ngày có doanh thu sau khi dựng lại, -1 nếu lỗi
+     */
+    int rebuild(LocalDate from, LocalDate to);
+
+    /**
+     * Rollup chưa có dữ liệu nào
+     */
+    boolean isEmpty();
+
+    /**
+     * Ngày của đơn đã thanh toán đầu tiên (null nếu chưa có)
+     */
+    LocalDate findFirstPaidOrderDate();
+
+    /**
+     * Doanh thu từng ngày trong [from, to), sắp xếp theo ngày tăng dần
+     */
+    List<SalesData> getDailySales(LocalDate from, LocalDate to);
+
+    /**
+     * Sản phẩm bán chạy theo doanh thu trong [from, to)
+     */
+    List<SalesBreakdown> getTopProducts(LocalDate from, LocalDate to, int limit);
+
+    /**
+     * Doanh thu theo danh mục trong [from, to), sắp xếp giảm dần
+     */
+    List<SalesBreakdown> getCategorySales(LocalDate from, LocalDate to);
+}
@@ -0,0 +1,301 @@
+package com.cafe.dao.base;
+
+import com.cafe.model.dto.SalesBreakdown;
+import com.cafe.model.dto.SalesData;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SalesRollupDAOImpl implements SalesRollupDAO {
+    private final Connection conn;
+
+    // Cùng điều kiện doanh thu với ReportQueryDAOImpl
+    private static final String PAID_CONDITION = "o.payment_status = 'paid' AND o.order_status <> 'cancelled'";
+
+    public SalesRollupDAOImpl(Connection conn) {
+        this.conn = conn;
+    }
+
+    @Override
+    public boolean addPaidOrder(int orderId) {
+        String dailySql = """
+            INSERT INTO sales_daily (sales_date, total_orders, total_revenue, total_items_sold)
+            SELECT DATE(o.order_date), 1, o.total_amount,
+                   COALESCE((SELECT SUM(od.quantity) FROM order_details od WHERE od.order_id = o.order_id), 0)
+            FROM orders o
+            WHERE o.order_id = ?
+            ON DUPLICATE KEY UPDATE
+                total_orders = total_orders + VALUES(total_orders),
+                total_revenue = total_revenue + VALUES(total_revenue),
+                total_items_sold = total_items_sold + VALUES(total_items_sold)
+            """;
+        String productSql = """
+            INSERT INTO sales_product_daily (sales_date, product_id, quantity_sold, revenue)
+            SELECT DATE(o.order_date), od.product_id, SUM(od.quantity), SUM(od.quantity * od.unit_price)
+            FROM orders o
+            JOIN order_details od ON od.order_id = o.order_id
+            WHERE o.order_id = ?
+            GROUP BY DATE(o.order_date), od.product_id
+            ON DUPLICATE KEY UPDATE
+                quantity_sold = quantity_sold + VALUES(quantity_sold),
+                revenue = revenue + VALUES(revenue)
+            """;
+        String categorySql = """
+            INSERT INTO sales_category_daily (sales_date, category_id, quantity_sold, revenue)
+            SELECT DATE(o.order_date), p.category_id, SUM(od.quantity), SUM(od.quantity * od.unit_price)
+            FROM orders o
+            JOIN order_details od ON od.order_id = o.order_id
+            JOIN products p ON p.product_id = od.product_id
+            WHERE o.order_id = ?
+            GROUP BY DATE(o.order_date), p.category_id
+            ON DUPLICATE KEY UPDATE
+                quantity_sold = quantity_sold + VALUES(quantity_sold),
+                revenue = revenue + VALUES(revenue)
+            """;
+
+        try {
+            if (executeForOrder(dailySql, orderId) == 0) {
+                return false; // Order không tồn tại
+            }
+            executeForOrder(productSql, orderId);
+            executeForOrder(categorySql, orderId);
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public boolean removePaidOrder(int orderId) {
+        String dailySql = """
+            UPDATE sales_daily s
+            JOIN (SELECT DATE(o.order_date) AS sales_date, o.total_amount,
+                         COALESCE((SELECT SUM(od.quantity) FROM order_details od WHERE od.order_id = o.order_id), 0) AS items
+                  FROM orders o
+                  WHERE o.order_id = ?) x ON x.sales_date = s.sales_date
+            SET s.total_orders = s.total_orders - 1,
+                s.total_revenue = s.total_revenue - x.total_amount,
+                s.total_items_sold = s.total_items_sold - x.items
+            """;
+        String productSql = """
+            UPDATE sales_product_daily s
+            JOIN (SELECT DATE(o.order_date) AS sales_date, od.product_id,
+                         SUM(od.quantity) AS quantity, SUM(od.quantity * od.unit_price) AS revenue
+                  FROM orders o
+                  JOIN order_details od ON od.order_id = o.order_id
+                  WHERE o.order_id = ?
+                  GROUP BY DATE(o.order_date), od.product_id) x
+              ON x.sales_date = s.sales_date AND x.product_id = s.product_id
+            SET s.quantity_sold = s.quantity_sold - x.quantity,
+                s.revenue = s.revenue - x.revenue
+            """;
+        String categorySql = """
+            UPDATE sales_category_daily s
+            JOIN (SELECT DATE(o.order_date) AS sales_date, p.category_id,
+                         SUM(od.quantity) AS quantity, SUM(od.quantity * od.unit_price) AS revenue
+                  FROM orders o
+                  JOIN order_details od ON od.order_id = o.order_id
+                  JOIN products p ON p.product_id = od.product_id
+                  WHERE o.order_id = ?
+                  GROUP BY DATE(o.order_date), p.category_id) x
+              ON x.sales_date = s.sales_date AND x.category_id = s.category_id
+            SET s.quantity_sold = s.quantity_sold - x.quantity,
+                s.revenue = s.revenue - x.revenue
+            """;
+        // rebuild không tạo dòng cho ngày / món không còn doanh thu
+        String[] cleanupSqls = {
+            "DELETE s FROM sales_daily s JOIN orders o ON s.sales_date = DATE(o.order_date) "
+                + "WHERE o.order_id = ? AND s.total_orders <= 0",
+            "DELETE s FROM sales_product_daily s JOIN orders o ON s.sales_date = DATE(o.order_date) "
+                + "WHERE o.order_id = ? AND s.quantity_sold <= 0",
+            "DELETE s FROM sales_category_daily s JOIN orders o ON s.sales_date = DATE(o.order_date) "
+                + "WHERE o.order_id = ? AND s.quantity_sold <= 0"
+        };
+
+        try {
+            // Ngày chưa có rollup (chưa backfill) → không có gì để trừ
+            executeForOrder(dailySql, orderId);
+            executeForOrder(productSql, orderId);
+            executeForOrder(categorySql, orderId);
+            for (String sql : cleanupSqls) {
+                executeForOrder(sql, orderId);
+            }
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public int rebuild(LocalDate from, LocalDate to) {
+        String dailySql = """
+            INSERT INTO sales_daily (sales_date, total_orders, total_revenue, total_items_sold)
+            SELECT DATE(o.order_date), COUNT(*), SUM(o.total_amount),
+                   COALESCE(SUM((SELECT SUM(od.quantity) FROM order_details od WHERE od.order_id = o.order_id)), 0)
+            FROM orders o
+            WHERE o.order_date >= ? AND o.order_date < ? AND %s
+            GROUP BY DATE(o.order_date)
+            """.formatted(PAID_CONDITION);
+        String productSql = """
+            INSERT INTO sales_product_daily (sales_date, product_id, quantity_sold, revenue)
+            SELECT DATE(o.order_date), od.product_id, SUM(od.quantity), SUM(od.quantity * od.unit_price)
+            FROM orders o
+            JOIN order_details od ON od.order_id = o.order_id
+            WHERE o.order_date >= ? AND o.order_date < ? AND %s
+            GROUP BY DATE(o.order_date), od.product_id
+            """.formatted(PAID_CONDITION);
+        String categorySql = """
+            INSERT INTO sales_category_daily (sales_date, category_id, quantity_sold, revenue)
+            SELECT DATE(o.order_date), p.category_id, SUM(od.quantity), SUM(od.quantity * od.unit_price)
+            FROM orders o
+            JOIN order_details od ON od.order_id = o.order_id
+            JOIN products p ON p.product_id = od.product_id
+            WHERE o.order_date >= ? AND o.order_date < ? AND %s
+            GROUP BY DATE(o.order_date), p.category_id
+            """.formatted(PAID_CONDITION);
+
+        try {
+            for (String table : new String[] {"sales_daily", "sales_product_daily", "sales_category_daily"}) {
+                executeForRange("DELETE FROM " + table + " WHERE sales_date >= ? AND sales_date < ?", from, to, false);
+            }
+            int days = executeForRange(dailySql, from, to, true);
+            executeForRange(productSql, from, to, true);
+            executeForRange(categorySql, from, to, true);
+            return days;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT 1 FROM sales_daily LIMIT 1")) {
+            return !rs.next();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return true;
+        }
+    }
+
+    @Override
+    public LocalDate findFirstPaidOrderDate() {
+        String sql = "SELECT MIN(o.order_date) FROM orders o WHERE " + PAID_CONDITION;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next() && rs.getTimestamp(1) != null) {
+                return rs.getTimestamp(1).toLocalDateTime().toLocalDate();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    @Override
+    public List<SalesData> getDailySales(LocalDate from, LocalDate to) {
+        List<SalesData> result = new ArrayList<>();
+        String sql = """
+            SELECT sales_date, total_orders, total_revenue, total_items_sold
+            FROM sales_daily
+            WHERE sales_date >= ? AND sales_date < ?
+            ORDER BY sales_date
+            """;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(to));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(new SalesData(
+                            rs.getDate("sales_date").toLocalDate(),
+                            rs.getInt("total_orders"),
+                            rs.getDouble("total_revenue"),
+                            rs.getInt("total_items_sold")));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return result;
+    }
+
+    @Override
+    public List<SalesBreakdown> getTopProducts(LocalDate from, LocalDate to, int limit) {
+        String sql = """
+            SELECT s.product_id AS id, p.product_name AS name,
+                   SUM(s.quantity_sold) AS quantity_sold, SUM(s.revenue) AS revenue
+            FROM sales_product_daily s
+            JOIN products p ON p.product_id = s.product_id
+            WHERE s.sales_date >= ? AND s.sales_date < ?
+            GROUP BY s.product_id, p.product_name
+            ORDER BY revenue DESC
+            LIMIT ?
+            """;
+        return queryBreakdown(sql, from, to, limit);
+    }
+
+    @Override
+    public List<SalesBreakdown> getCategorySales(LocalDate from, LocalDate to) {
+        String sql = """
+            SELECT s.category_id AS id, c.category_name AS name,
+                   SUM(s.quantity_sold) AS quantity_sold, SUM(s.revenue) AS revenue
+            FROM sales_category_daily s
+            JOIN categories c ON c.category_id = s.category_id
+            WHERE s.sales_date >= ? AND s.sales_date < ?
+            GROUP BY s.category_id, c.category_name
+            ORDER BY revenue DESC
+            """;
+        return queryBreakdown(sql, from, to, null);
+    }
+
+    // ===================== Helper Methods =======================
+
+    private int executeForOrder(String sql, int orderId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, orderId);
+            return ps.executeUpdate();
+        }
+    }
+
+    private int executeForRange(String sql, LocalDate from, LocalDate to, boolean timestampRange) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            if (timestampRange) {
+                // So sánh trực tiếp với order_date → dùng được idx_order_date
+                ps.setTimestamp(1, Timestamp.valueOf(from.atStartOfDay()));
+                ps.setTimestamp(2, Timestamp.valueOf(to.atStartOfDay()));
+            } else {
+                ps.setDate(1, Date.valueOf(from));
+                ps.setDate(2, Date.valueOf(to));
+            }
+            return ps.executeUpdate();
+        }
+    }
+
+    private List<SalesBreakdown> queryBreakdown(String sql, LocalDate from, LocalDate to, Integer limit) {
+        List<SalesBreakdown> result = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(to));
+            if (limit != null) {
+                ps.setInt(3, limit);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(new SalesBreakdown(
+                            rs.getInt("id"),
+                            rs.getString("name"),
+                            rs.getInt("quantity_sold"),
+                            rs.getDouble("revenue")));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return result;
+    }
+}
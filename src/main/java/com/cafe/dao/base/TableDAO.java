@@ -7,6 +7,13 @@ import java.util.List;
 public interface TableDAO {
     boolean addTable(TableCafe table);
     boolean updateTable(TableCafe table);
+
+    /**
+     * Đổi trạng thái bàn chỉ khi bàn vẫn đang ở expectedStatus/expectedVersion
+     * (UPDATE ... WHERE table_id = ? AND status = ? AND version = ?), tăng version
+     * @return false nếu bàn đã bị thay đổi (hoặc không tồn tại)
+     */
+    boolean compareAndSetStatus(int tableId, String expectedStatus, int expectedVersion, String newStatus);
     boolean deleteTable(int tableId);
     TableCafe getTableById(int tableId);
     List<TableCafe> getAllTables();
@@ -30,15 +30,45 @@ public class TableDAOImpl implements TableDAO {
 
     @Override
     public boolean updateTable(TableCafe table) {
-        String sql = "UPDATE tables SET table_name = ?, area_id = ?, capacity = ?, status = ?, is_active = ? WHERE table_id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, table.getTableName());
-            stmt.setInt(2, table.getAreaId());
-            stmt.setInt(3, table.getCapacity());
-            stmt.setString(4, table.getStatus());
-            stmt.setBoolean(5, table.isActive());
-            stmt.setInt(6, table.getTableId());
-            return stmt.executeUpdate() > 0;
+        String sql = "UPDATE tables SET table_name = ?, area_id = ?, capacity = ?, version = version + (status <> ?), status = ?, is_active = ? WHERE table_id = ?";
+        try {
+            // Ghi change_log cùng transaction để terminal khác nhận được thay đổi
+            return ChangeLogDAOImpl.runLogged(conn, () -> {
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setString(1, table.getTableName());
+                    stmt.setInt(2, table.getAreaId());
+                    stmt.setInt(3, table.getCapacity());
+                    stmt.setString(4, table.getStatus());
+                    stmt.setString(5, table.getStatus());
+                    stmt.setBoolean(6, table.isActive());
+                    stmt.setInt(7, table.getTableId());
+                    if (stmt.executeUpdate() == 0) {
+                        return false;
+                    }
+                }
+                return new ChangeLogDAOImpl(conn).appendTableChange(table.getTableId());
+            });
+        } catch (SQLException e) {
+            e.printStackTrace(); return false;
+        }
+    }
+
+    @Override
+    public boolean compareAndSetStatus(int tableId, String expectedStatus, int expectedVersion, String newStatus) {
+        String sql = "UPDATE tables SET status = ?, version = version + 1 WHERE table_id = ? AND status = ? AND version = ?";
+        try {
+            return ChangeLogDAOImpl.runLogged(conn, () -> {
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setString(1, newStatus);
+                    stmt.setInt(2, tableId);
+                    stmt.setString(3, expectedStatus);
+                    stmt.setInt(4, expectedVersion);
+                    if (stmt.executeUpdate() == 0) {
+                        return false;
+                    }
+                }
+                return new ChangeLogDAOImpl(conn).appendTableChange(tableId);
+            });
         } catch (SQLException e) {
             e.printStackTrace(); return false;
         }
@@ -62,16 +92,7 @@ public class TableDAOImpl implements TableDAO {
             stmt.setInt(1, tableId);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return new TableCafe(
-                            rs.getInt("table_id"),
-                            rs.getString("table_name"),
-                            rs.getInt("area_id"),
-                            rs.getInt("capacity"),
-                            rs.getString("status"),
-                            rs.getBoolean("is_active"),
-                            rs.getTimestamp("created_at"),
-                            rs.getTimestamp("updated_at")
-                    );
+                    return extractTable(rs);
                 }
             }
         } catch (SQLException e) {
@@ -87,17 +108,7 @@ public class TableDAOImpl implements TableDAO {
         try (Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
-                TableCafe table = new TableCafe(
-                        rs.getInt("table_id"),
-                        rs.getString("table_name"),
-                        rs.getInt("area_id"),
-                        rs.getInt("capacity"),
-                        rs.getString("status"),
-                        rs.getBoolean("is_active"),
-                        rs.getTimestamp("created_at"),
-                        rs.getTimestamp("updated_at")
-                );
-                list.add(table);
+                list.add(extractTable(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -113,17 +124,7 @@ public class TableDAOImpl implements TableDAO {
             stmt.setInt(1, areaId);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    TableCafe table = new TableCafe(
-                            rs.getInt("table_id"),
-                            rs.getString("table_name"),
-                            rs.getInt("area_id"),
-                            rs.getInt("capacity"),
-                            rs.getString("status"),
-                            rs.getBoolean("is_active"),
-                            rs.getTimestamp("created_at"),
-                            rs.getTimestamp("updated_at")
-                    );
-                    list.add(table);
+                    list.add(extractTable(rs));
                 }
             }
         } catch (SQLException e) {
@@ -131,4 +132,21 @@ public class TableDAOImpl implements TableDAO {
         }
         return list;
     }
-}
+
+    // ===================== Helper Methods =======================
+
+    private TableCafe extractTable(ResultSet rs) throws SQLException {
+        TableCafe table = new TableCafe(
+                rs.getInt("table_id"),
+                rs.getString("table_name"),
+                rs.getInt("area_id"),
+                rs.getInt("capacity"),
+                rs.getString("status"),
+                rs.getBoolean("is_active"),
+                rs.getTimestamp("created_at"),
+                rs.getTimestamp("updated_at")
+        );
+        table.setVersion(rs.getInt("version"));
+        return table;
+    }
+}
\ No newline at end of file
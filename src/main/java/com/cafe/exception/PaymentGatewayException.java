@@ -0,0 +1,32 @@
+package com.cafe.exception;
+
+/**
+ * Custom exception cho lỗi khi gọi cổng thanh toán (mạng, HTTP 5xx, phản hồi sai định dạng)
+ * Giao dịch bị từ chối không phải là lỗi: cổng trả về PaymentResponse.failure
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public class PaymentGatewayException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean retryable;
+
+    public PaymentGatewayException(String message, boolean retryable) {
+        super(message);
+        this.retryable = retryable;
+    }
+
+    public PaymentGatewayException(String message, Throwable cause, boolean retryable) {
+        super(message, cause);
+        this.retryable = retryable;
+    }
+
+    /**
+     * Có thể thử lại (cổng tạm thời không phản hồi) hay không
+     */
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
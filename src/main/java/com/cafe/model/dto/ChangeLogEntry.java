@@ -0,0 +1,98 @@
+package com.cafe.model.dto;
+
+import java.sql.Timestamp;
+
+/**
+ * Change Log Entry DTO
+ * Một dòng của bảng change_log: trạng thái mới của một bàn hoặc một order
+ * do một terminal ghi
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public class ChangeLogEntry {
+
+    public static final String ENTITY_TABLE = "table";
+    public static final String ENTITY_ORDER = "order";
+
+    /** order_status ghi khi order bị xóa */
+    public static final String STATUS_DELETED = "deleted";
+
+    private final long seq;
+    private final String entityType;
+    private final int entityId;
+    private final Integer tableId;
+    private final String status;
+    private final String paymentStatus;
+    private final Integer version;
+    private final int terminalId;
+    private final Timestamp createdAt;
+
+    public ChangeLogEntry(long seq, String entityType, int entityId, Integer tableId,
+                          String status, String paymentStatus, Integer version, int terminalId,
+                          Timestamp createdAt) {
+        this.seq = seq;
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.tableId = tableId;
+        this.status = status;
+        this.paymentStatus = paymentStatus;
+        this.version = version;
+        this.terminalId = terminalId;
+        this.createdAt = createdAt;
+    }
+
+    // Getters
+    public long getSeq() {
+        return seq;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public int getEntityId() {
+        return entityId;
+    }
+
+    public Integer getTableId() {
+        return tableId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    /**
+     * tables.version (chỉ với bàn, null với order)
+     */
+    public Integer getVersion() {
+        return version;
+    }
+
+    public int getTerminalId() {
+        return terminalId;
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public boolean isTable() {
+        return ENTITY_TABLE.equals(entityType);
+    }
+
+    public boolean isOrder() {
+        return ENTITY_ORDER.equals(entityType);
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeLogEntry{seq=" + seq + ", " + entityType + "#" + entityId +
+                ", tableId=" + tableId + ", status=" + status + ", terminal=" + terminalId + "}";
+    }
+}
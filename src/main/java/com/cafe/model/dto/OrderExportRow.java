@@ -0,0 +1,89 @@
+package com.cafe.model.dto;
+
+import java.sql.Timestamp;
+
+/**
+ * Order Export Row DTO
+ * Một dòng order khi xuất báo cáo (đọc tuần tự từ cursor, không giữ lại trong bộ nhớ)
+ * 
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public class OrderExportRow {
+    
+    private final String orderNumber;
+    private final Timestamp orderDate;
+    private final String tableName;
+    private final String staffName;
+    private final String orderStatus;
+    private final String paymentStatus;
+    private final String paymentMethod;
+    private final double totalAmount;
+    private final double discountAmount;
+    private final double finalAmount;
+    
+    public OrderExportRow(String orderNumber, Timestamp orderDate, String tableName, String staffName,
+                          String orderStatus, String paymentStatus, String paymentMethod,
+                          double totalAmount, double discountAmount, double finalAmount) {
+        this.orderNumber = orderNumber;
+        this.orderDate = orderDate;
+        this.tableName = tableName;
+        this.staffName = staffName;
+        this.orderStatus = orderStatus;
+        this.paymentStatus = paymentStatus;
+        this.paymentMethod = paymentMethod;
+        this.totalAmount = totalAmount;
+        this.discountAmount = discountAmount;
+        this.finalAmount = finalAmount;
+    }
+    
+    // Getters
+    public String getOrderNumber() {
+        return orderNumber;
+    }
+    
+    public Timestamp getOrderDate() {
+        return orderDate;
+    }
+    
+    public String getTableName() {
+        return tableName;
+    }
+    
+    public String getStaffName() {
+        return staffName;
+    }
+    
+    public String getOrderStatus() {
+        return orderStatus;
+    }
+    
+    public String getPaymentStatus() {
+        return paymentStatus;
+    }
+    
+    public String getPaymentMethod() {
+        return paymentMethod;
+    }
+    
+    public double getTotalAmount() {
+        return totalAmount;
+    }
+    
+    public double getDiscountAmount() {
+        return discountAmount;
+    }
+    
+    public double getFinalAmount() {
+        return finalAmount;
+    }
+    
+    @Override
+    public String toString() {
+        return "OrderExportRow{" +
+                "orderNumber='" + orderNumber + '\'' +
+                ", orderDate=" + orderDate +
+                ", finalAmount=" + finalAmount +
+                '}';
+    }
+}
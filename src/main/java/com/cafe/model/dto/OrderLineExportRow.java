@@ -0,0 +1,110 @@
+package com.cafe.model.dto;
+
+import java.sql.Timestamp;
+
+/**
+ * Order Line Export Row DTO
+ * Một dòng order_details kèm thông tin order/sản phẩm khi xuất CSV cho kế toán
+ * (đọc tuần tự từ cursor, không giữ lại trong bộ nhớ)
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public class OrderLineExportRow {
+
+    private final String orderNumber;
+    private final Timestamp orderDate;
+    private final String tableName;
+    private final String staffName;
+    private final String orderStatus;
+    private final String paymentStatus;
+    private final String paymentMethod;
+    private final int productId;
+    private final String productName;
+    private final int quantity;
+    private final double unitPrice;
+    private final double totalPrice;
+    private final String notes;
+
+    public OrderLineExportRow(String orderNumber, Timestamp orderDate, String tableName, String staffName,
+                              String orderStatus, String paymentStatus, String paymentMethod,
+                              int productId, String productName, int quantity,
+                              double unitPrice, double totalPrice, String notes) {
+        this.orderNumber = orderNumber;
+        this.orderDate = orderDate;
+        this.tableName = tableName;
+        this.staffName = staffName;
+        this.orderStatus = orderStatus;
+        this.paymentStatus = paymentStatus;
+        this.paymentMethod = paymentMethod;
+        this.productId = productId;
+        this.productName = productName;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+        this.totalPrice = totalPrice;
+        this.notes = notes;
+    }
+
+    // Getters
+    public String getOrderNumber() {
+        return orderNumber;
+    }
+
+    public Timestamp getOrderDate() {
+        return orderDate;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getStaffName() {
+        return staffName;
+    }
+
+    public String getOrderStatus() {
+        return orderStatus;
+    }
+
+    public String getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public String getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public double getTotalPrice() {
+        return totalPrice;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderLineExportRow{" +
+                "orderNumber='" + orderNumber + '\'' +
+                ", productName='" + productName + '\'' +
+                ", quantity=" + quantity +
+                ", totalPrice=" + totalPrice +
+                '}';
+    }
+}
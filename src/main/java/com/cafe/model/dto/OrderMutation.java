@@ -0,0 +1,74 @@
+package com.cafe.model.dto;
+
+import com.cafe.model.entity.Product;
+
+/**
+ * Order Mutation DTO
+ * Một thao tác thay đổi món trong order (thêm / xóa / đổi số lượng),
+ * được OrderService.mutate() áp dụng trong cùng một transaction
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public class OrderMutation {
+
+    public enum Type {
+        ADD,
+        REMOVE,
+        SET_QUANTITY
+    }
+
+    private final Type type;
+    private final int productId;
+    private final int quantity;
+    private final double unitPrice;
+    private final String notes;
+    private final Product product;
+
+    private OrderMutation(Type type, int productId, int quantity, double unitPrice, String notes, Product product) {
+        this.type = type;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+        this.notes = notes;
+        this.product = product;
+    }
+
+    /**
+     * Thêm sản phẩm (cộng dồn nếu đã có trong order)
+     */
+    public static OrderMutation add(Product product, int quantity, String notes) {
+        return new OrderMutation(Type.ADD, product.getProductId(), quantity, product.getPrice(), notes, product);
+    }
+
+    /**
+     * Xóa sản phẩm khỏi order
+     */
+    public static OrderMutation remove(int productId) {
+        return new OrderMutation(Type.REMOVE, productId, 0, 0.0, null, null);
+    }
+
+    /**
+     * Đặt lại số lượng (0 = xóa món)
+     */
+    public static OrderMutation setQuantity(int productId, int quantity) {
+        return new OrderMutation(Type.SET_QUANTITY, productId, quantity, 0.0, null, null);
+    }
+
+    // Getters
+    public Type getType() { return type; }
+    public int getProductId() { return productId; }
+    public int getQuantity() { return quantity; }
+    public double getUnitPrice() { return unitPrice; }
+    public String getNotes() { return notes; }
+    public Product getProduct() { return product; }
+
+    @Override
+    public String toString() {
+        return "OrderMutation{" +
+                "type=" + type +
+                ", productId=" + productId +
+                ", quantity=" + quantity +
+                '}';
+    }
+}
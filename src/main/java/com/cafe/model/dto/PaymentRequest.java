@@ -15,6 +15,10 @@ public class PaymentRequest {
     private String notes;
     private double vatPercent = 8.0; // Default VAT
     private double discountAmount = 0.0;
+    private double subtotal = 0.0;     // Tạm tính trước VAT / giảm giá
+    private double vatAmount = 0.0;
+    private double totalAmount = 0.0;  // Tổng đã thu (subtotal + VAT - giảm giá); 0 = chưa tính
+    private String idempotencyKey; // Giữ nguyên khi gửi lại cùng một lần bấm thanh toán
     
     // Constructors
     public PaymentRequest() {}
@@ -67,4 +71,28 @@ public class PaymentRequest {
         this.discountAmount = discountAmount; 
         return this; 
     }
+    
+    public double getSubtotal() { return subtotal; }
+    public PaymentRequest setSubtotal(double subtotal) { 
+        this.subtotal = subtotal; 
+        return this; 
+    }
+    
+    public double getVatAmount() { return vatAmount; }
+    public PaymentRequest setVatAmount(double vatAmount) { 
+        this.vatAmount = vatAmount; 
+        return this; 
+    }
+    
+    public double getTotalAmount() { return totalAmount; }
+    public PaymentRequest setTotalAmount(double totalAmount) { 
+        this.totalAmount = totalAmount; 
+        return this; 
+    }
+    
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public PaymentRequest setIdempotencyKey(String idempotencyKey) { 
+        this.idempotencyKey = idempotencyKey; 
+        return this; 
+    }
 }
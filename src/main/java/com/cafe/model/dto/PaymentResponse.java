@@ -11,6 +11,8 @@ import com.cafe.model.entity.Order;
  */
 public class PaymentResponse {
     private boolean success;
+    private boolean pending; // Chưa biết kết quả (cổng không phản hồi), gửi lại cùng idempotency key để kiểm tra
+    private boolean refundRequired; // Đã thu tiền nhưng order đã được thanh toán bởi lượt khác
     private String message;
     private String transactionId;
     private double changeAmount;
@@ -36,6 +38,12 @@ public class PaymentResponse {
         response.message = message;
         return response;
     }
+
+    public static PaymentResponse pending(String message) {
+        PaymentResponse response = failure(message);
+        response.pending = true;
+        return response;
+    }
     
     // Getters and Setters with fluent interface
     public boolean isSuccess() { return success; }
@@ -44,6 +52,14 @@ public class PaymentResponse {
         return this; 
     }
     
+    public boolean isPending() { return pending; }
+
+    public boolean isRefundRequired() { return refundRequired; }
+    public PaymentResponse setRefundRequired(boolean refundRequired) {
+        this.refundRequired = refundRequired;
+        return this;
+    }
+
     public String getMessage() { return message; }
     public PaymentResponse setMessage(String message) { 
         this.message = message; 
@@ -0,0 +1,50 @@
+package com.cafe.model.dto;
+
+/**
+ * Sales Breakdown DTO for reporting
+ * Số lượng bán và doanh thu của một sản phẩm / danh mục trong khoảng thời gian
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public class SalesBreakdown {
+
+    private final int id;
+    private final String name;
+    private final int quantitySold;
+    private final double revenue;
+
+    public SalesBreakdown(int id, String name, int quantitySold, double revenue) {
+        this.id = id;
+        this.name = name;
+        this.quantitySold = quantitySold;
+        this.revenue = revenue;
+    }
+
+    // Getters
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQuantitySold() {
+        return quantitySold;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    @Override
+    public String toString() {
+        return "SalesBreakdown{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", quantitySold=" + quantitySold +
+                ", revenue=" + revenue +
+                '}';
+    }
+}
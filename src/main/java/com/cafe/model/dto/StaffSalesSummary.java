@@ -0,0 +1,61 @@
+package com.cafe.model.dto;
+
+/**
+ * Staff Sales Summary DTO for reporting
+ * Số đơn và doanh thu tổng hợp của một nhân viên
+ * 
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public class StaffSalesSummary {
+    
+    private final int userId;
+    private final String fullName;
+    private final String role;
+    private final int totalOrders;
+    private final double totalRevenue;
+    
+    public StaffSalesSummary(int userId, String fullName, String role, int totalOrders, double totalRevenue) {
+        this.userId = userId;
+        this.fullName = fullName;
+        this.role = role;
+        this.totalOrders = totalOrders;
+        this.totalRevenue = totalRevenue;
+    }
+    
+    // Getters
+    public int getUserId() {
+        return userId;
+    }
+    
+    public String getFullName() {
+        return fullName;
+    }
+    
+    public String getRole() {
+        return role;
+    }
+    
+    public int getTotalOrders() {
+        return totalOrders;
+    }
+    
+    public double getTotalRevenue() {
+        return totalRevenue;
+    }
+    
+    public double getAverageOrderValue() {
+        return totalOrders > 0 ? totalRevenue / totalOrders : 0.0;
+    }
+    
+    @Override
+    public String toString() {
+        return "StaffSalesSummary{" +
+                "userId=" + userId +
+                ", fullName='" + fullName + '\'' +
+                ", role='" + role + '\'' +
+                ", totalOrders=" + totalOrders +
+                ", totalRevenue=" + totalRevenue +
+                '}';
+    }
+}
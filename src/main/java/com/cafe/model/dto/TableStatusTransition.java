@@ -0,0 +1,64 @@
+package com.cafe.model.dto;
+
+/**
+ * Table Status Transition DTO
+ * Kết quả của một lần đổi trạng thái bàn bằng compare-and-set:
+ * status/version luôn là trạng thái hiện tại của bàn trong database
+ * (khi CONFLICT là trạng thái do terminal khác ghi, caller không cần đọc lại)
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public class TableStatusTransition {
+
+    public enum Outcome {
+        APPLIED,    // Đã đổi trạng thái
+        UNCHANGED,  // Bàn đã ở trạng thái đích
+        CONFLICT,   // Bàn đã bị terminal khác thay đổi
+        REJECTED,   // Bước chuyển không hợp lệ theo TableStatus
+        FAILED      // Không tìm thấy bàn / lỗi database
+    }
+
+    private final Outcome outcome;
+    private final String status;
+    private final int version;
+
+    public TableStatusTransition(Outcome outcome, String status, int version) {
+        this.outcome = outcome;
+        this.status = status;
+        this.version = version;
+    }
+
+    public static TableStatusTransition failed() {
+        return new TableStatusTransition(Outcome.FAILED, null, -1);
+    }
+
+    // Getters
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Bàn đang ở trạng thái đích (vừa đổi hoặc đã ở sẵn)
+     */
+    public boolean isSuccess() {
+        return outcome == Outcome.APPLIED || outcome == Outcome.UNCHANGED;
+    }
+
+    @Override
+    public String toString() {
+        return "TableStatusTransition{" +
+                "outcome=" + outcome +
+                ", status='" + status + '\'' +
+                ", version=" + version +
+                '}';
+    }
+}
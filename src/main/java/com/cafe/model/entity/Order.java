@@ -1,8 +1,50 @@
 package com.cafe.model.entity;
 
 import java.sql.Timestamp;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 public class Order {
+
+    /**
+     * Các cột có thể cập nhật của bảng orders (OrderDAO chỉ ghi các cột đã đổi)
+     */
+    public enum Field {
+        ORDER_NUMBER("order_number"),
+        TABLE_ID("table_id"),
+        CUSTOMER_ID("customer_id"),
+        USER_ID("user_id"),
+        ORDER_DATE("order_date"),
+        TOTAL_AMOUNT("total_amount"),
+        DISCOUNT_AMOUNT("discount_amount"),
+        FINAL_AMOUNT("final_amount"),
+        PAYMENT_METHOD("payment_method"),
+        PAYMENT_STATUS("payment_status"),
+        ORDER_STATUS("order_status"),
+        NOTES("notes"),
+        UPDATED_AT("updated_at");
+
+        private final String column;
+
+        Field(String column) {
+            this.column = column;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        /**
+         * Cột số tiền: gộp theo chênh lệch khi hai terminal cùng sửa
+         */
+        public boolean isAmount() {
+            return this == TOTAL_AMOUNT || this == DISCOUNT_AMOUNT || this == FINAL_AMOUNT;
+        }
+    }
+
     private int orderId;
     private String orderNumber;
     private int tableId;
@@ -18,6 +60,15 @@ public class Order {
     private String notes;
     private Timestamp createdAt;
     private Timestamp updatedAt;
+    private int version; // Tăng mỗi lần ghi, dùng cho optimistic locking
+
+    // Trạng thái bàn đọc lại sau lần ghi order gần nhất (trigger trên orders có thể đã đổi bàn),
+    // không phải cột của orders; null nếu chưa ghi
+    private String tableStatus;
+    private int tableVersion = -1;
+
+    // Trạng thái đã lưu gần nhất (null nếu chưa từng đọc/ghi database)
+    private Order persisted;
 
     public Order() {
     }
@@ -158,6 +209,141 @@ public class Order {
         this.updatedAt = updatedAt;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    public String getTableStatus() {
+        return tableStatus;
+    }
+
+    public int getTableVersion() {
+        return tableVersion;
+    }
+
+    /**
+     * Ghi nhận trạng thái bàn sau lần ghi order (đọc lại trong cùng transaction)
+     */
+    public void setTableState(String tableStatus, int tableVersion) {
+        this.tableStatus = tableStatus;
+        this.tableVersion = tableVersion;
+    }
+
+    // Dirty tracking / merge
+
+    /**
+     * Ghi nhận trạng thái hiện tại là trạng thái đã lưu trong database
+     */
+    public void markPersisted() {
+        persisted = snapshotOf(this);
+    }
+
+    /**
+     * Các cột đã thay đổi kể từ lần đọc/ghi database gần nhất
+     * (order chưa từng được lưu: tất cả các cột)
+     */
+    public Set<Field> getDirtyFields() {
+        if (persisted == null) {
+            return EnumSet.allOf(Field.class);
+        }
+        Set<Field> dirty = EnumSet.noneOf(Field.class);
+        for (Field field : Field.values()) {
+            if (!Objects.equals(getValue(field), persisted.getValue(field))) {
+                dirty.add(field);
+            }
+        }
+        return dirty;
+    }
+
+    /**
+     * Đặt các thay đổi chưa lưu của order này lên bản mới nhất trong database
+     * (đã bị terminal khác ghi, version lớn hơn):
+     * - Số tiền: bản mới + (giá trị hiện tại - giá trị lúc đọc), ví dụ thêm món ở
+     *   máy này và áp khuyến mãi ở máy kia đều được giữ
+     * - Cột khác: giữ giá trị của mình nếu đã đổi, ngược lại lấy giá trị mới
+     * - Hai bên cùng đổi một cột thành giá trị khác nhau → không gộp được
+     * @return false nếu có xung đột (order giữ nguyên)
+     */
+    public boolean rebaseOnto(Order latest) {
+        Order base = persisted != null ? persisted : latest;
+        Map<Field, Object> merged = new EnumMap<>(Field.class);
+        for (Field field : Field.values()) {
+            Object mine = getValue(field);
+            Object was = base.getValue(field);
+            Object theirs = latest.getValue(field);
+            if (field.isAmount()) {
+                merged.put(field, (Double) theirs + ((Double) mine - (Double) was));
+            } else if (Objects.equals(mine, was)) {
+                merged.put(field, theirs);
+            } else if (Objects.equals(theirs, was) || Objects.equals(mine, theirs) || field == Field.UPDATED_AT) {
+                merged.put(field, mine);
+            } else {
+                System.err.println("⚠️ Order " + orderId + " conflict on " + field.getColumn()
+                        + ": " + mine + " vs " + theirs);
+                return false;
+            }
+        }
+        merged.forEach(this::setValue);
+        createdAt = latest.createdAt;
+        version = latest.version;
+        persisted = snapshotOf(latest);
+        return true;
+    }
+
+    private static Order snapshotOf(Order order) {
+        Order copy = new Order();
+        for (Field field : Field.values()) {
+            copy.setValue(field, order.getValue(field));
+        }
+        copy.orderId = order.orderId;
+        copy.createdAt = order.createdAt;
+        copy.version = order.version;
+        return copy;
+    }
+
+    /**
+     * Giá trị của một cột (kiểu Java tương ứng, có thể null)
+     */
+    public Object getValue(Field field) {
+        return switch (field) {
+            case ORDER_NUMBER -> orderNumber;
+            case TABLE_ID -> tableId;
+            case CUSTOMER_ID -> customerId;
+            case USER_ID -> userId;
+            case ORDER_DATE -> orderDate;
+            case TOTAL_AMOUNT -> totalAmount;
+            case DISCOUNT_AMOUNT -> discountAmount;
+            case FINAL_AMOUNT -> finalAmount;
+            case PAYMENT_METHOD -> paymentMethod;
+            case PAYMENT_STATUS -> paymentStatus;
+            case ORDER_STATUS -> orderStatus;
+            case NOTES -> notes;
+            case UPDATED_AT -> updatedAt;
+        };
+    }
+
+    private void setValue(Field field, Object value) {
+        switch (field) {
+            case ORDER_NUMBER -> orderNumber = (String) value;
+            case TABLE_ID -> tableId = (Integer) value;
+            case CUSTOMER_ID -> customerId = (Integer) value;
+            case USER_ID -> userId = (Integer) value;
+            case ORDER_DATE -> orderDate = (Timestamp) value;
+            case TOTAL_AMOUNT -> totalAmount = (Double) value;
+            case DISCOUNT_AMOUNT -> discountAmount = (Double) value;
+            case FINAL_AMOUNT -> finalAmount = (Double) value;
+            case PAYMENT_METHOD -> paymentMethod = (String) value;
+            case PAYMENT_STATUS -> paymentStatus = (String) value;
+            case ORDER_STATUS -> orderStatus = (String) value;
+            case NOTES -> notes = (String) value;
+            case UPDATED_AT -> updatedAt = (Timestamp) value;
+        }
+    }
+
     // Business logic methods
     public boolean canBeCancelled() {
         return "pending".equals(orderStatus) || "preparing".equals(orderStatus);
@@ -223,6 +409,7 @@ public class Order {
                 ", paymentStatus='" + paymentStatus + '\'' +
                 ", orderStatus='" + orderStatus + '\'' +
                 ", notes='" + notes + '\'' +
+                ", version=" + version +
                 '}';
     }
 }
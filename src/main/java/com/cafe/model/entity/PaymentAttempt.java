@@ -0,0 +1,175 @@
+package com.cafe.model.entity;
+
+import java.sql.Timestamp;
+
+/**
+ * Entity class cho bảng payment_attempts
+ * Một lượt thanh toán theo idempotency key và kết quả đã lưu của nó
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public class PaymentAttempt {
+
+    public static final String STATUS_IN_PROGRESS = "in_progress";
+    public static final String STATUS_SUCCEEDED = "succeeded";
+    public static final String STATUS_FAILED = "failed";
+    public static final String STATUS_REFUND_REQUIRED = "refund_required"; // Thu trùng: order đã được lượt khác thanh toán
+
+    private long attemptId;
+    private String idempotencyKey;
+    private int orderId;
+    private String paymentMethod;
+    private double amount;
+    private String status;
+    private int attemptCount;
+    private String transactionId;
+    private String message;
+    private double changeAmount;
+    private String receiptPath;
+    private Timestamp createdAt;
+    private Timestamp updatedAt;
+
+    // Constructors
+    public PaymentAttempt() {
+        this.status = STATUS_IN_PROGRESS;
+        this.attemptCount = 1;
+    }
+
+    public PaymentAttempt(String idempotencyKey, int orderId, String paymentMethod, double amount) {
+        this();
+        this.idempotencyKey = idempotencyKey;
+        this.orderId = orderId;
+        this.paymentMethod = paymentMethod;
+        this.amount = amount;
+    }
+
+    // Getters and Setters
+    public long getAttemptId() {
+        return attemptId;
+    }
+
+    public void setAttemptId(long attemptId) {
+        this.attemptId = attemptId;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public int getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(int orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public void setPaymentMethod(String paymentMethod) {
+        this.paymentMethod = paymentMethod;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(double amount) {
+        this.amount = amount;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getAttemptCount() {
+        return attemptCount;
+    }
+
+    public void setAttemptCount(int attemptCount) {
+        this.attemptCount = attemptCount;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public double getChangeAmount() {
+        return changeAmount;
+    }
+
+    public void setChangeAmount(double changeAmount) {
+        this.changeAmount = changeAmount;
+    }
+
+    public String getReceiptPath() {
+        return receiptPath;
+    }
+
+    public void setReceiptPath(String receiptPath) {
+        this.receiptPath = receiptPath;
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Timestamp getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Timestamp updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    // Business methods
+    public boolean isSucceeded() {
+        return STATUS_SUCCEEDED.equals(status);
+    }
+
+    public boolean isRefundRequired() {
+        return STATUS_REFUND_REQUIRED.equals(status);
+    }
+
+    public boolean isInProgress() {
+        return STATUS_IN_PROGRESS.equals(status);
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentAttempt{" +
+                "idempotencyKey='" + idempotencyKey + '\'' +
+                ", orderId=" + orderId +
+                ", paymentMethod='" + paymentMethod + '\'' +
+                ", status='" + status + '\'' +
+                ", attemptCount=" + attemptCount +
+                '}';
+    }
+}
@@ -9,6 +9,7 @@ public class TableCafe {
     private String areaName; // Added for visual layout
     private int capacity;
     private String status; // "available", "occupied", "reserved", "cleaning"
+    private int version; // Tăng mỗi lần đổi trạng thái, dùng cho compare-and-set
     private boolean isActive;
     private Timestamp createdAt;
     private Timestamp updatedAt;
@@ -63,6 +64,9 @@ public class TableCafe {
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
 
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+
     public boolean isActive() { return isActive; }
     public void setActive(boolean active) { isActive = active; }
 
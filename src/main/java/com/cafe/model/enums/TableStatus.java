@@ -48,4 +48,36 @@ public enum TableStatus {
     public boolean needsCleaning() {
         return this == CLEANING;
     }
+    
+    /**
+     * Các bước chuyển trạng thái hợp lệ (giữ nguyên trạng thái luôn hợp lệ):
+     * available → occupied/reserved/cleaning, occupied → cleaning/available,
+     * reserved → occupied/available, cleaning → available/occupied
+     */
+    public boolean canTransitionTo(TableStatus target) {
+        if (target == null) {
+            return false;
+        }
+        if (target == this) {
+            return true;
+        }
+        return switch (this) {
+            case AVAILABLE -> target == OCCUPIED || target == RESERVED || target == CLEANING;
+            case OCCUPIED -> target == CLEANING || target == AVAILABLE;
+            case RESERVED -> target == OCCUPIED || target == AVAILABLE;
+            case CLEANING -> target == AVAILABLE || target == OCCUPIED;
+        };
+    }
+    
+    /**
+     * Như fromString nhưng trả về null nếu giá trị không hợp lệ
+     */
+    public static TableStatus fromValue(String text) {
+        for (TableStatus status : TableStatus.values()) {
+            if (status.value.equalsIgnoreCase(text)) {
+                return status;
+            }
+        }
+        return null;
+    }
 }
\ No newline at end of file
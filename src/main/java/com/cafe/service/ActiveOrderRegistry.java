@@ -0,0 +1,73 @@
+package com.cafe.service;
+
+import com.cafe.model.entity.Order;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bảng tra cứu in-memory: bàn → order đang mở
+ * Được đồng bộ bởi OrderService/PaymentService mỗi khi order được tạo,
+ * đổi trạng thái, hoàn thành, hủy hoặc thanh toán.
+ *
+ * Registry chỉ giữ orderId; dữ liệu order luôn được đọc lại bằng khóa chính
+ * nên thay đổi từ terminal khác vẫn được phát hiện.
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public final class ActiveOrderRegistry {
+
+    /** Trạng thái order được coi là "đang mở" trên bàn */
+    static final Set<String> ACTIVE_STATUSES = Set.of("pending", "preparing", "ready", "served");
+
+    private static final Map<Integer, Integer> orderIdByTable = new ConcurrentHashMap<>();
+
+    private ActiveOrderRegistry() {
+    }
+
+    /**
+     * Lấy orderId đang mở của bàn (null nếu chưa biết)
+     */
+    public static Integer getOrderId(int tableId) {
+        return orderIdByTable.get(tableId);
+    }
+
+    /**
+     * Kiểm tra order có đang mở không
+     */
+    public static boolean isActive(Order order) {
+        return order != null && ACTIVE_STATUSES.contains(order.getOrderStatus());
+    }
+
+    /**
+     * Cập nhật registry theo trạng thái hiện tại của order
+     */
+    public static void track(Order order) {
+        if (order == null || order.getTableId() <= 0 || order.getOrderId() <= 0) {
+            return;
+        }
+
+        if (isActive(order)) {
+            orderIdByTable.put(order.getTableId(), order.getOrderId());
+        } else {
+            // Chỉ xóa nếu bàn vẫn đang trỏ tới đúng order này
+            orderIdByTable.remove(order.getTableId(), order.getOrderId());
+        }
+    }
+
+    /**
+     * Xóa entry của bàn (khi dữ liệu cache không còn đúng)
+     */
+    public static void evict(int tableId) {
+        orderIdByTable.remove(tableId);
+    }
+
+    /**
+     * Xóa toàn bộ registry
+     */
+    public static void clear() {
+        orderIdByTable.clear();
+    }
+}
@@ -0,0 +1,335 @@
+package com.cafe.service;
+
+import com.cafe.config.DatabaseConfig;
+import com.cafe.dao.base.CustomerDAOImpl;
+import com.cafe.model.entity.Customer;
+import com.cafe.util.BackgroundExecutor;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Chỉ mục in-memory số điện thoại khách hàng (khách đang active)
+ *
+ * - Số điện thoại được chuẩn hóa thành chuỗi chữ số (bỏ khoảng trắng, dấu chấm,
+ *   +84 → 0) rồi lưu trong hai mảng đã sắp xếp: theo số xuôi (tìm theo đầu số)
+ *   và theo số đảo ngược (tìm theo đuôi số, ví dụ 4 số cuối)
+ * - Tra cứu bằng binary search trên snapshot bất biến, không chạm database
+ * - createCustomer/updateCustomer/deleteCustomer cập nhật snapshot ngay (copy-on-write);
+ *   toàn bộ chỉ mục được nạp lại ở background sau MAX_AGE_MILLIS
+ *   để nhận khách hàng tạo từ terminal khác
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public final class CustomerPhoneIndex {
+
+    /** Tự nạp lại sau khoảng thời gian này (thay đổi từ terminal khác) */
+    private static final long MAX_AGE_MILLIS = 5 * 60 * 1000;
+
+    private static final AtomicReference<CustomerPhoneIndex> current = new AtomicReference<>();
+    private static final AtomicBoolean loading = new AtomicBoolean(false);
+    // Tăng mỗi lần put/remove; lần nạp nào bắt đầu trước một lần ghi sẽ bị bỏ và nạp lại
+    private static final AtomicLong writeCount = new AtomicLong();
+
+    private final long loadedAtMillis;
+
+    // Sắp xếp theo số điện thoại đã chuẩn hóa
+    private final String[] phones;
+    private final Customer[] byPhone;
+
+    // Sắp xếp theo số điện thoại đảo ngược
+    private final String[] reversedPhones;
+    private final Customer[] byReversedPhone;
+
+    private CustomerPhoneIndex(long loadedAtMillis, String[] phones, Customer[] byPhone,
+                               String[] reversedPhones, Customer[] byReversedPhone) {
+        this.loadedAtMillis = loadedAtMillis;
+        this.phones = phones;
+        this.byPhone = byPhone;
+        this.reversedPhones = reversedPhones;
+        this.byReversedPhone = byReversedPhone;
+    }
+
+    static CustomerPhoneIndex build(List<Customer> customers) {
+        List<Customer> indexed = new ArrayList<>(customers.size());
+        for (Customer customer : customers) {
+            if (isIndexable(customer)) {
+                indexed.add(customer);
+            }
+        }
+
+        Customer[] byPhone = indexed.toArray(new Customer[0]);
+        Arrays.sort(byPhone, Comparator.comparing(c -> normalize(c.getPhone())));
+        String[] phones = new String[byPhone.length];
+        for (int i = 0; i < byPhone.length; i++) {
+            phones[i] = normalize(byPhone[i].getPhone());
+        }
+
+        Customer[] byReversedPhone = indexed.toArray(new Customer[0]);
+        Arrays.sort(byReversedPhone, Comparator.comparing(c -> reverse(normalize(c.getPhone()))));
+        String[] reversedPhones = new String[byReversedPhone.length];
+        for (int i = 0; i < byReversedPhone.length; i++) {
+            reversedPhones[i] = reverse(normalize(byReversedPhone[i].getPhone()));
+        }
+
+        return new CustomerPhoneIndex(System.currentTimeMillis(), phones, byPhone, reversedPhones, byReversedPhone);
+    }
+
+    // =====================================================
+    // SNAPSHOT ACCESS
+    // =====================================================
+
+    /**
+     * Snapshot hiện tại, không bao giờ chặn.
+     * @return snapshot, hoặc null nếu chưa nạp xong (khi đó việc nạp được lên lịch)
+     */
+    public static CustomerPhoneIndex getIfLoaded() {
+        CustomerPhoneIndex snapshot = current.get();
+        if (snapshot == null || snapshot.isExpired()) {
+            scheduleLoad();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Nạp chỉ mục ở background (gọi khi mở màn hình thanh toán)
+     */
+    public static void preload() {
+        if (current.get() == null) {
+            scheduleLoad();
+        }
+    }
+
+    /**
+     * Thêm hoặc cập nhật một khách hàng (sau khi đã ghi database thành công)
+     */
+    public static synchronized void put(Customer customer) {
+        writeCount.incrementAndGet();
+        CustomerPhoneIndex snapshot = current.get();
+        if (snapshot != null && customer != null) {
+            current.set(snapshot.without(customer.getCustomerId()).with(customer));
+        }
+    }
+
+    /**
+     * Bỏ một khách hàng khỏi chỉ mục (sau khi xóa)
+     */
+    public static synchronized void remove(int customerId) {
+        writeCount.incrementAndGet();
+        CustomerPhoneIndex snapshot = current.get();
+        if (snapshot != null) {
+            current.set(snapshot.without(customerId));
+        }
+    }
+
+    private static void scheduleLoad() {
+        if (!loading.compareAndSet(false, true)) {
+            return;
+        }
+
+        BackgroundExecutor.submit(() -> {
+            boolean stale = false;
+            try {
+                long writesBefore = writeCount.get();
+                CustomerPhoneIndex fresh = load();
+                if (fresh != null) {
+                    synchronized (CustomerPhoneIndex.class) {
+                        stale = writeCount.get() != writesBefore;
+                        if (!stale) {
+                            current.set(fresh);
+                            System.out.println("📇 Customer phone index loaded (" + fresh.size() + " customers)");
+                        }
+                    }
+                }
+            } finally {
+                loading.set(false);
+            }
+
+            // Có put/remove trong lúc đang nạp → nạp lại để không mất thay đổi
+            if (stale) {
+                scheduleLoad();
+            }
+        });
+    }
+
+    private static CustomerPhoneIndex load() {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            return build(new CustomerDAOImpl(conn).getAllCustomers());
+        } catch (Exception e) {
+            System.err.println("❌ Error loading customer phone index: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean isExpired() {
+        return System.currentTimeMillis() - loadedAtMillis > MAX_AGE_MILLIS;
+    }
+
+    // =====================================================
+    // QUERIES (pure in-memory)
+    // =====================================================
+
+    public int size() {
+        return byPhone.length;
+    }
+
+    /**
+     * Gợi ý khách hàng khi đang gõ số điện thoại:
+     * khớp đầu số trước, sau đó khớp đuôi số
+     * @param phoneDigits số (hoặc một phần số) đang nhập
+     * @param limit số gợi ý tối đa
+     */
+    public List<Customer> suggest(String phoneDigits, int limit) {
+        String query = normalize(phoneDigits);
+        List<Customer> result = new ArrayList<>(Math.min(limit, 16));
+        if (query.isEmpty() || limit <= 0) {
+            return result;
+        }
+
+        for (int i = lowerBound(phones, query); i < phones.length && result.size() < limit; i++) {
+            if (!phones[i].startsWith(query)) {
+                break;
+            }
+            result.add(byPhone[i]);
+        }
+
+        String reversedQuery = reverse(query);
+        for (int i = lowerBound(reversedPhones, reversedQuery);
+             i < reversedPhones.length && result.size() < limit; i++) {
+            if (!reversedPhones[i].startsWith(reversedQuery)) {
+                break;
+            }
+            Customer customer = byReversedPhone[i];
+            if (!containsCustomer(result, customer.getCustomerId())) {
+                result.add(customer);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Tìm khách hàng có đúng số điện thoại này (null nếu không có)
+     */
+    public Customer findExact(String phone) {
+        String query = normalize(phone);
+        if (query.isEmpty()) {
+            return null;
+        }
+        int index = lowerBound(phones, query);
+        return index < phones.length && phones[index].equals(query) ? byPhone[index] : null;
+    }
+
+    // =====================================================
+    // COPY-ON-WRITE UPDATES
+    // =====================================================
+
+    private CustomerPhoneIndex with(Customer customer) {
+        if (!isIndexable(customer)) {
+            return this;
+        }
+        String phone = normalize(customer.getPhone());
+        String reversedPhone = reverse(phone);
+
+        int at = lowerBound(phones, phone);
+        int reversedAt = lowerBound(reversedPhones, reversedPhone);
+        return new CustomerPhoneIndex(loadedAtMillis,
+                insert(phones, at, phone), insert(byPhone, at, customer),
+                insert(reversedPhones, reversedAt, reversedPhone), insert(byReversedPhone, reversedAt, customer));
+    }
+
+    private CustomerPhoneIndex without(int customerId) {
+        int at = indexOfCustomer(byPhone, customerId);
+        if (at < 0) {
+            return this;
+        }
+        int reversedAt = indexOfCustomer(byReversedPhone, customerId);
+        return new CustomerPhoneIndex(loadedAtMillis,
+                delete(phones, at), delete(byPhone, at),
+                delete(reversedPhones, reversedAt), delete(byReversedPhone, reversedAt));
+    }
+
+    // ===================== Helper Methods =======================
+
+    /**
+     * Chuẩn hóa số điện thoại: chỉ giữ chữ số, đổi mã quốc gia 84 thành 0
+     */
+    static String normalize(String phone) {
+        if (phone == null) {
+            return "";
+        }
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        if (digits.length() >= 11 && digits.charAt(0) == '8' && digits.charAt(1) == '4') {
+            digits.replace(0, 2, "0");
+        }
+        return digits.toString();
+    }
+
+    private static boolean isIndexable(Customer customer) {
+        return customer != null && customer.isActive() && !normalize(customer.getPhone()).isEmpty();
+    }
+
+    private static String reverse(String value) {
+        return new StringBuilder(value).reverse().toString();
+    }
+
+    /**
+     * Vị trí đầu tiên có phần tử >= key
+     */
+    private static int lowerBound(String[] keys, String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int indexOfCustomer(Customer[] customers, int customerId) {
+        for (int i = 0; i < customers.length; i++) {
+            if (customers[i].getCustomerId() == customerId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean containsCustomer(List<Customer> customers, int customerId) {
+        for (Customer customer : customers) {
+            if (customer.getCustomerId() == customerId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <T> T[] insert(T[] source, int at, T value) {
+        T[] target = Arrays.copyOf(source, source.length + 1);
+        System.arraycopy(source, at, target, at + 1, source.length - at);
+        target[at] = value;
+        return target;
+    }
+
+    private static <T> T[] delete(T[] source, int at) {
+        T[] target = Arrays.copyOf(source, source.length - 1);
+        System.arraycopy(source, at + 1, target, at, source.length - at - 1);
+        return target;
+    }
+}
@@ -64,14 +64,27 @@ public class CustomerService {
 
     /**
      * Tìm khách hàng theo số điện thoại
+     *
+     * CustomerPhoneIndex chỉ dùng để trả nhanh khi tìm thấy; chỉ mục có thể chậm vài phút
+     * so với máy khác nên khi không thấy vẫn hỏi lại database (tránh tạo trùng UNIQUE(phone)).
      */
     public Optional<Customer> findCustomerByPhone(String phone) {
+        CustomerPhoneIndex index = CustomerPhoneIndex.getIfLoaded();
+        if (index != null) {
+            Customer indexed = index.findExact(phone);
+            if (indexed != null) {
+                return Optional.of(indexed);
+            }
+        }
+
         try (Connection conn = DatabaseConfig.getConnection()) {
             CustomerDAO customerDAO = new CustomerDAOImpl(conn);
-            List<Customer> customers = customerDAO.getAllCustomers();
-            return customers.stream()
-                    .filter(c -> phone.equals(c.getPhone()))
-                    .findFirst();
+            Customer customer = customerDAO.findCustomerByPhone(phone);
+            if (customer != null && index != null) {
+                // Khách do máy khác tạo sau lần nạp chỉ mục
+                CustomerPhoneIndex.put(customer);
+            }
+            return Optional.ofNullable(customer);
         } catch (Exception e) {
             System.err.println("Error searching customer by phone: " + e.getMessage());
             return Optional.empty();
@@ -84,7 +97,11 @@ public class CustomerService {
     public boolean createCustomer(Customer customer) {
         try (Connection conn = DatabaseConfig.getConnection()) {
             CustomerDAO customerDAO = new CustomerDAOImpl(conn);
-            return customerDAO.insertCustomer(customer);
+            boolean created = customerDAO.insertCustomer(customer);
+            if (created) {
+                CustomerPhoneIndex.put(customer);
+            }
+            return created;
         } catch (Exception e) {
             System.err.println("Error creating customer: " + e.getMessage());
             return false;
@@ -97,7 +114,11 @@ public class CustomerService {
     public boolean updateCustomer(Customer customer) {
         try (Connection conn = DatabaseConfig.getConnection()) {
             CustomerDAO customerDAO = new CustomerDAOImpl(conn);
-            return customerDAO.updateCustomer(customer);
+            boolean updated = customerDAO.updateCustomer(customer);
+            if (updated) {
+                CustomerPhoneIndex.put(customer);
+            }
+            return updated;
         } catch (Exception e) {
             System.err.println("Error updating customer: " + e.getMessage());
             return false;
@@ -110,7 +131,11 @@ public class CustomerService {
     public boolean deleteCustomer(int customerId) {
         try (Connection conn = DatabaseConfig.getConnection()) {
             CustomerDAO customerDAO = new CustomerDAOImpl(conn);
-            return customerDAO.deleteCustomer(customerId);
+            boolean deleted = customerDAO.deleteCustomer(customerId);
+            if (deleted) {
+                CustomerPhoneIndex.remove(customerId);
+            }
+            return deleted;
         } catch (Exception e) {
             System.err.println("Error deleting customer: " + e.getMessage());
             return false;
@@ -126,7 +151,11 @@ public class CustomerService {
             Customer customer = customerDAO.getCustomerById(customerId);
             if (customer != null) {
                 customer.setLoyaltyPoints(customer.getLoyaltyPoints() + points);
-                return customerDAO.updateCustomer(customer);
+                boolean updated = customerDAO.updateCustomer(customer);
+                if (updated) {
+                    CustomerPhoneIndex.put(customer);
+                }
+                return updated;
             }
             return false;
         } catch (Exception e) {
@@ -153,6 +182,27 @@ public class CustomerService {
         }
     }
     
+    /**
+     * Gợi ý khách hàng khi đang gõ số điện thoại (khớp đầu số hoặc đuôi số).
+     * Dùng CustomerPhoneIndex; chỉ truy vấn database khi chỉ mục chưa nạp xong.
+     */
+    public List<Customer> suggestCustomersByPhone(String phone, int limit) {
+        CustomerPhoneIndex index = CustomerPhoneIndex.getIfLoaded();
+        if (index != null) {
+            return index.suggest(phone, limit);
+        }
+        return searchCustomersByPhone(phone).stream()
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Nạp trước chỉ mục số điện thoại ở background
+     */
+    public void preloadPhoneIndex() {
+        CustomerPhoneIndex.preload();
+    }
+
     /**
      * Search customers by phone number
      */
@@ -0,0 +1,83 @@
+package com.cafe.service;
+
+import com.cafe.exception.PaymentGatewayException;
+import com.cafe.model.dto.PaymentResponse;
+import com.cafe.model.enums.PaymentMethod;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cổng thanh toán qua HTTP (JSON)
+ *
+ * POST {baseUrl}/{method} với {"orderId", "amount", "idempotencyKey"} và header Idempotency-Key
+ * - 200 {"status": "success", "transactionId": ...} → thành công
+ * - 200 {"status": "declined", "message": ...} hoặc 4xx → bị từ chối (không thử lại)
+ * - 5xx / lỗi mạng → PaymentGatewayException có thể thử lại
+ *
+ * HttpClient gửi bất đồng bộ nên không giữ thread (hay connection database) khi chờ cổng.
+ * Chạy offline với StubPaymentGatewayServer.
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public class HttpPaymentGateway implements PaymentGateway {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String baseUrl;
+    private final HttpClient client;
+
+    public HttpPaymentGateway(String baseUrl, long connectTimeoutMillis) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .build();
+    }
+
+    @Override
+    public CompletableFuture<PaymentResponse> charge(PaymentMethod method, String idempotencyKey,
+                                                     int orderId, double amount) {
+        ObjectNode body = MAPPER.createObjectNode()
+                .put("orderId", orderId)
+                .put("amount", amount)
+                .put("idempotencyKey", idempotencyKey);
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + method.getValue()))
+                .header("Content-Type", "application/json")
+                .header("Idempotency-Key", idempotencyKey)
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> toPaymentResponse(method, response));
+    }
+
+    private PaymentResponse toPaymentResponse(PaymentMethod method, HttpResponse<String> response) {
+        int statusCode = response.statusCode();
+        if (statusCode >= 500) {
+            throw new PaymentGatewayException(method.getDisplayName() + " gateway error: HTTP " + statusCode, true);
+        }
+
+        JsonNode json;
+        try {
+            json = MAPPER.readTree(response.body());
+        } catch (Exception e) {
+            throw new PaymentGatewayException("Invalid response from " + method.getDisplayName() + " gateway", e, false);
+        }
+
+        String message = json.path("message").asText("");
+        if (statusCode == 200 && "success".equals(json.path("status").asText())) {
+            return PaymentResponse.success(message.isEmpty() ? method.getDisplayName() + " payment processed successfully" : message)
+                    .setTransactionId(json.path("transactionId").asText(null));
+        }
+        return PaymentResponse.failure(message.isEmpty() ? method.getDisplayName() + " payment declined" : message);
+    }
+}
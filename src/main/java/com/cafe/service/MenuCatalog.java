@@ -0,0 +1,239 @@
+package com.cafe.service;
+
+import com.cafe.config.DatabaseConfig;
+import com.cafe.dao.base.CategoryDAO;
+import com.cafe.dao.base.CategoryDAOImpl;
+import com.cafe.dao.base.ProductDAO;
+import com.cafe.dao.base.ProductDAOImpl;
+import com.cafe.model.entity.Category;
+import com.cafe.model.entity.Product;
+import com.cafe.util.BackgroundExecutor;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * Snapshot in-memory, bất biến của menu (categories + products đang active)
+ *
+ * - Products được nhóm sẵn theo category; tra cứu theo productId/categoryId
+ *   bằng mảng int đã sắp xếp (binary search), không boxing
+ * - Kèm chỉ mục tìm kiếm không phân biệt dấu (ProductSearchIndex)
+ * - Mỗi lần ghi qua ProductDAOImpl/CategoryDAOImpl gọi invalidate():
+ *   snapshot mới được nạp ở background rồi hoán đổi nguyên tử,
+ *   người đọc luôn dùng snapshot hiện có và không bao giờ bị chặn
+ *   (trừ lần nạp đầu tiên)
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public final class MenuCatalog {
+
+    /** Tự nạp lại sau khoảng thời gian này (thay đổi từ terminal khác) */
+    private static final long MAX_AGE_MILLIS = 5 * 60 * 1000;
+
+    private static final AtomicReference<MenuCatalog> current = new AtomicReference<>();
+    private static final AtomicLong requestedVersion = new AtomicLong(1);
+    private static final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    private static final Object initLock = new Object();
+
+    private final long version;
+    private final long loadedAtMillis;
+    private final List<Category> activeCategories;
+    private final List<Product> activeProducts;
+    private final List<Product> availableProducts;
+
+    // productId → Product (sắp xếp theo productId)
+    private final int[] productIds;
+    private final Product[] productsById;
+
+    // categoryId → products của category (sắp xếp theo categoryId)
+    private final int[] categoryIds;
+    private final List<List<Product>> productsByCategory;
+
+    private final ProductSearchIndex searchIndex;
+
+    private MenuCatalog(long version, List<Category> categories, List<Product> products, MenuCatalog previous) {
+        this.version = version;
+        this.loadedAtMillis = System.currentTimeMillis();
+
+        this.activeCategories = Collections.unmodifiableList(categories.stream()
+                .filter(Category::isActive)
+                .toList());
+        this.activeProducts = Collections.unmodifiableList(new ArrayList<>(products));
+        this.availableProducts = Collections.unmodifiableList(products.stream()
+                .filter(Product::isAvailable)
+                .toList());
+
+        Product[] sorted = products.toArray(new Product[0]);
+        Arrays.sort(sorted, (p1, p2) -> Integer.compare(p1.getProductId(), p2.getProductId()));
+        this.productsById = sorted;
+        this.productIds = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            productIds[i] = sorted[i].getProductId();
+        }
+
+        // Giữ thứ tự theo tên như khi query (ORDER BY product_name)
+        Map<Integer, List<Product>> grouped = new TreeMap<>();
+        for (Product product : products) {
+            grouped.computeIfAbsent(product.getCategoryId(), id -> new ArrayList<>()).add(product);
+        }
+        this.categoryIds = new int[grouped.size()];
+        this.productsByCategory = new ArrayList<>(grouped.size());
+        int index = 0;
+        for (Map.Entry<Integer, List<Product>> entry : grouped.entrySet()) {
+            categoryIds[index++] = entry.getKey();
+            productsByCategory.add(Collections.unmodifiableList(entry.getValue()));
+        }
+
+        this.searchIndex = ProductSearchIndex.build(activeProducts,
+                previous != null ? previous.searchIndex : null);
+    }
+
+    // =====================================================
+    // SNAPSHOT ACCESS
+    // =====================================================
+
+    /**
+     * Lấy snapshot hiện tại; chỉ chặn ở lần nạp đầu tiên.
+     * @return snapshot, hoặc null nếu chưa nạp được (lỗi database)
+     */
+    public static MenuCatalog get() {
+        MenuCatalog snapshot = current.get();
+        if (snapshot == null) {
+            synchronized (initLock) {
+                snapshot = current.get();
+                if (snapshot == null) {
+                    snapshot = load(requestedVersion.get());
+                    if (snapshot != null) {
+                        current.set(snapshot);
+                    }
+                }
+            }
+            return snapshot;
+        }
+
+        if (snapshot.version < requestedVersion.get() || snapshot.isExpired()) {
+            scheduleRebuild();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Snapshot đã được nạp chưa (đọc tiếp theo sẽ không chạm database)
+     */
+    public static boolean isLoaded() {
+        return current.get() != null;
+    }
+
+    /**
+     * Đánh dấu catalog đã thay đổi và nạp lại ở background
+     */
+    public static void invalidate() {
+        requestedVersion.incrementAndGet();
+        if (current.get() != null) {
+            scheduleRebuild();
+        }
+    }
+
+    private static void scheduleRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+
+        // Cờ rebuilding đảm bảo chỉ một lần nạp chạy tại một thời điểm
+        BackgroundExecutor.submit(() -> {
+            boolean loaded = false;
+            try {
+                MenuCatalog fresh = load(requestedVersion.get());
+                if (fresh != null) {
+                    current.set(fresh);
+                    loaded = true;
+                    System.out.println("🔄 Menu catalog reloaded (version " + fresh.version + ")");
+                }
+            } finally {
+                rebuilding.set(false);
+            }
+
+            // Có thay đổi mới trong lúc đang nạp → nạp tiếp
+            MenuCatalog snapshot = current.get();
+            if (loaded && snapshot != null && snapshot.version < requestedVersion.get()) {
+                scheduleRebuild();
+            }
+        });
+    }
+
+    private static MenuCatalog load(long version) {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            CategoryDAO categoryDAO = new CategoryDAOImpl(conn);
+            ProductDAO productDAO = new ProductDAOImpl(conn);
+            return new MenuCatalog(version, categoryDAO.getAllCategories(), productDAO.findAll(), current.get());
+        } catch (Exception e) {
+            System.err.println("❌ Error loading menu catalog: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean isExpired() {
+        return System.currentTimeMillis() - loadedAtMillis > MAX_AGE_MILLIS;
+    }
+
+    // =====================================================
+    // QUERIES (pure in-memory)
+    // =====================================================
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Category> getActiveCategories() {
+        return activeCategories;
+    }
+
+    /**
+     * Tất cả products đang active, sắp xếp theo tên
+     */
+    public List<Product> getActiveProducts() {
+        return activeProducts;
+    }
+
+    /**
+     * Products đang active và available, sắp xếp theo tên
+     */
+    public List<Product> getAvailableProducts() {
+        return availableProducts;
+    }
+
+    /**
+     * Products đang active của một category, sắp xếp theo tên
+     */
+    public List<Product> getProductsByCategory(int categoryId) {
+        int index = Arrays.binarySearch(categoryIds, categoryId);
+        return index >= 0 ? productsByCategory.get(index) : List.of();
+    }
+
+    /**
+     * Tìm product đang active theo ID (null nếu không có)
+     */
+    public Product findProduct(int productId) {
+        int index = Arrays.binarySearch(productIds, productId);
+        return index >= 0 ? productsById[index] : null;
+    }
+
+    /**
+     * Tìm products đang active theo keyword (không phân biệt dấu),
+     * sắp xếp theo mức độ liên quan
+     * @param filter lọc thêm, null = không lọc
+     */
+    public List<Product> search(String keyword, Predicate<Product> filter) {
+        return searchIndex.search(keyword, filter);
+    }
+}
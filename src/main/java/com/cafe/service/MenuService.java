@@ -16,6 +16,7 @@ import java.util.stream.Collectors;
 /**
  * Service class cho menu operations
  * Chứa business logic cho việc quản lý menu, products và categories
+ * Các truy vấn đọc được phục vụ từ MenuCatalog (in-memory), database chỉ là fallback
  */
 public class MenuService {
     
@@ -28,6 +29,11 @@ public class MenuService {
      * Lấy tất cả categories đang active
      */
     public List<Category> getAvailableCategories() {
+        MenuCatalog catalog = MenuCatalog.get();
+        if (catalog != null) {
+            return catalog.getActiveCategories();
+        }
+
         try (Connection conn = DatabaseConfig.getConnection()) {
             CategoryDAO categoryDAO = new CategoryDAOImpl(conn);
             return categoryDAO.getAllCategories().stream()
@@ -43,6 +49,11 @@ public class MenuService {
      * Lấy products theo category
      */
     public List<Product> getProductsByCategory(Integer categoryId) {
+        MenuCatalog catalog = MenuCatalog.get();
+        if (catalog != null && categoryId != null) {
+            return catalog.getProductsByCategory(categoryId);
+        }
+
         try (Connection conn = DatabaseConfig.getConnection()) {
             ProductDAO productDAO = new ProductDAOImpl(conn);
             // ✅ HỦY CHECK HẾT HÀNG - Chỉ check active
@@ -59,6 +70,15 @@ public class MenuService {
      * Lấy products theo category với phân trang
      */
     public List<Product> getProductsByCategory(Integer categoryId, int offset, int limit) {
+        MenuCatalog catalog = MenuCatalog.get();
+        if (catalog != null && categoryId != null) {
+            return catalog.getProductsByCategory(categoryId).stream()
+                    .filter(Product::isAvailable)
+                    .skip(offset)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+
         try (Connection conn = DatabaseConfig.getConnection()) {
             ProductDAO productDAO = new ProductDAOImpl(conn);
             return productDAO.findByCategoryId(categoryId).stream()
@@ -80,6 +100,11 @@ public class MenuService {
             return List.of();
         }
         
+        MenuCatalog catalog = MenuCatalog.get();
+        if (catalog != null) {
+            return catalog.search(keyword, Product::isAvailable);
+        }
+
         try (Connection conn = DatabaseConfig.getConnection()) {
             ProductDAO productDAO = new ProductDAOImpl(conn);
             return productDAO.searchProducts(keyword.trim(), null, true, null, null).stream()
@@ -99,6 +124,12 @@ public class MenuService {
             return getProductsByCategory(categoryId);
         }
         
+        MenuCatalog catalog = MenuCatalog.get();
+        if (catalog != null) {
+            return catalog.search(keyword, product -> product.isAvailable()
+                    && (categoryId == null || product.getCategoryId() == categoryId));
+        }
+
         try (Connection conn = DatabaseConfig.getConnection()) {
             ProductDAO productDAO = new ProductDAOImpl(conn);
             // ✅ HỦY CHECK HẾT HÀNG - Chỉ check active
@@ -115,6 +146,11 @@ public class MenuService {
      * Get total products count
      */
     public int getTotalProductsCount() {
+        MenuCatalog catalog = MenuCatalog.get();
+        if (catalog != null) {
+            return catalog.getActiveProducts().size();
+        }
+
         try (Connection conn = DatabaseConfig.getConnection()) {
             ProductDAO productDAO = new ProductDAOImpl(conn);
             return productDAO.getAllProducts().size();
@@ -128,6 +164,14 @@ public class MenuService {
      * Lấy product theo ID
      */
     public Optional<Product> getProductById(Integer productId) {
+        MenuCatalog catalog = MenuCatalog.get();
+        if (catalog != null && productId != null) {
+            Product product = catalog.findProduct(productId);
+            if (product != null) {
+                return Optional.of(product);
+            }
+        }
+
         try (Connection conn = DatabaseConfig.getConnection()) {
             ProductDAO productDAO = new ProductDAOImpl(conn);
             return productDAO.findById(productId);
@@ -162,6 +206,11 @@ public class MenuService {
      * Lấy tất cả available products
      */
     public List<Product> getAllAvailableProducts() {
+        MenuCatalog catalog = MenuCatalog.get();
+        if (catalog != null) {
+            return catalog.getAvailableProducts();
+        }
+
         try (Connection conn = DatabaseConfig.getConnection()) {
             ProductDAO productDAO = new ProductDAOImpl(conn);
             // ✅ HỦY CHECK HẾT HÀNG - Lấy tất cả sản phẩm active
@@ -193,6 +242,11 @@ public class MenuService {
      * Đếm số products theo category
      */
     public long countProductsByCategory(Integer categoryId) {
+        MenuCatalog catalog = MenuCatalog.get();
+        if (catalog != null && categoryId != null) {
+            return catalog.getProductsByCategory(categoryId).size();
+        }
+
         try (Connection conn = DatabaseConfig.getConnection()) {
             ProductDAO productDAO = new ProductDAOImpl(conn);
             return productDAO.countByCategoryId(categoryId);
@@ -206,6 +260,11 @@ public class MenuService {
      * Đếm số available products
      */
     public long countAvailableProducts() {
+        MenuCatalog catalog = MenuCatalog.get();
+        if (catalog != null) {
+            return catalog.getAvailableProducts().size();
+        }
+
         try (Connection conn = DatabaseConfig.getConnection()) {
             ProductDAO productDAO = new ProductDAOImpl(conn);
             return productDAO.countAvailableProducts();
@@ -214,4 +273,11 @@ public class MenuService {
             return 0;
         }
     }
+
+    /**
+     * Menu đã được nạp vào bộ nhớ chưa (đọc tiếp theo không cần database)
+     */
+    public boolean isCatalogLoaded() {
+        return MenuCatalog.isLoaded();
+    }
 }
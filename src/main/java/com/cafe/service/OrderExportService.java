@@ -0,0 +1,152 @@
+package com.cafe.service;
+
+import com.cafe.config.DatabaseConfig;
+import com.cafe.dao.base.ReportQueryDAO;
+import com.cafe.dao.base.ReportQueryDAOImpl;
+import com.cafe.util.CsvWriter;
+import com.cafe.util.ExportProgress;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Order Export Service - Xuất toàn bộ order + từng món (order_details) ra CSV cho kế toán
+ *
+ * - Đọc orders ⨝ order_details ⨝ products bằng cursor streaming của MySQL
+ *   (ReportQueryDAO.streamOrderLines) và ghi thẳng ra CsvWriter có buffer
+ *   → bộ nhớ không đổi dù khoảng ngày có hàng chục triệu dòng
+ * - Tùy chọn nén gzip (export.csv.gzip), ghi file tạm rồi đổi tên khi xong
+ * - Log tốc độ (dòng/giây) trong lúc chạy và khi kết thúc
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public class OrderExportService {
+
+    private static final String[] HEADERS = {
+            "order_number", "order_date", "table_name", "staff_name", "order_status", "payment_status",
+            "payment_method", "product_id", "product_name", "quantity", "unit_price", "total_price", "notes"
+    };
+
+    /** Số dòng giữa hai lần báo tiến độ */
+    private static final int PROGRESS_INTERVAL = 10_000;
+
+    /** Số dòng giữa hai lần log tốc độ */
+    private static final int LOG_INTERVAL = 1_000_000;
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * Kết quả xuất file
+     * @param rows số dòng (món) đã ghi, không tính dòng tiêu đề
+     */
+    public record ExportResult(Path file, long rows, long elapsedMillis) {
+
+        public double rowsPerSecond() {
+            return elapsedMillis > 0 ? rows * 1000.0 / elapsedMillis : rows;
+        }
+    }
+
+    public static boolean isGzipEnabled() {
+        return DatabaseConfig.getPropertyAsBoolean("export.csv.gzip", false);
+    }
+
+    /**
+     * Tên file mặc định: ChiTietDonHang_{từ}_{đến}.csv[.gz]
+     */
+    public static String defaultFileName(LocalDate startDate, LocalDate endDate, boolean gzip) {
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyyMMdd");
+        return "ChiTietDonHang_" + startDate.format(format) + "_" + endDate.format(format)
+                + (gzip ? ".csv.gz" : ".csv");
+    }
+
+    /**
+     * Xuất mọi món của các order tạo trong [startDate, endDate] (cả hai ngày)
+     * @param progress nhận tiến độ theo số dòng; isCancelled() = true để dừng
+     * @return kết quả, null nếu bị hủy (file dở đã bị xóa)
+     */
+    public ExportResult exportOrderLines(LocalDate startDate, LocalDate endDate, Path target,
+                                         boolean gzip, ExportProgress progress) throws IOException {
+        LocalDateTime from = startDate.atStartOfDay();
+        LocalDateTime to = endDate.plusDays(1).atStartOfDay();
+
+        Path output = target.toAbsolutePath();
+        Path temp = Files.createTempFile(output.getParent(), "export", ".csv.tmp");
+        long startNanos = System.nanoTime();
+        boolean completed = false;
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            ReportQueryDAO reportDAO = new ReportQueryDAOImpl(conn);
+            long total = reportDAO.countOrderLines(from, to);
+            progress.update(0, total);
+
+            long written;
+            boolean[] cancelled = {false};
+            try (CsvWriter csv = CsvWriter.open(temp, gzip)) {
+                csv.row(HEADERS);
+                long[] count = {0};
+                written = reportDAO.streamOrderLines(from, to, line -> {
+                    if (progress.isCancelled()) {
+                        cancelled[0] = true;
+                        return false;
+                    }
+                    csv.field(line.getOrderNumber())
+                       .field(line.getOrderDate() != null
+                               ? line.getOrderDate().toLocalDateTime().format(DATE_TIME_FORMAT) : null)
+                       .field(line.getTableName())
+                       .field(line.getStaffName())
+                       .field(line.getOrderStatus())
+                       .field(line.getPaymentStatus())
+                       .field(line.getPaymentMethod())
+                       .field(line.getProductId())
+                       .field(line.getProductName())
+                       .field(line.getQuantity())
+                       .field(line.getUnitPrice())
+                       .field(line.getTotalPrice())
+                       .field(line.getNotes())
+                       .endRow();
+
+                    long done = ++count[0];
+                    if (done % PROGRESS_INTERVAL == 0) {
+                        progress.update(done, total);
+                    }
+                    if (done % LOG_INTERVAL == 0) {
+                        System.out.printf("📤 CSV export: %,d / %,d rows (%,.0f rows/s)%n",
+                                done, total, done * 1e9 / (System.nanoTime() - startNanos));
+                    }
+                    return true;
+                });
+            }
+
+            if (cancelled[0]) {
+                System.out.println("⚠️ CSV export cancelled");
+                return null;
+            }
+            if (written < 0) {
+                throw new IOException("Lỗi đọc dữ liệu đơn hàng");
+            }
+
+            Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING);
+            completed = true;
+            progress.update(written, written);
+
+            ExportResult result = new ExportResult(output, written, (System.nanoTime() - startNanos) / 1_000_000);
+            System.out.printf("✅ Exported %,d order lines to %s in %,d ms (%,.0f rows/s)%n",
+                    result.rows(), output, result.elapsedMillis(), result.rowsPerSecond());
+            return result;
+        } catch (SQLException e) {
+            throw new IOException("Không thể kết nối cơ sở dữ liệu", e);
+        } finally {
+            if (!completed) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+}
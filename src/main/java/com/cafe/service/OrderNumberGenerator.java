@@ -0,0 +1,96 @@
+package com.cafe.service;
+
+import com.cafe.config.DatabaseConfig;
+import com.cafe.dao.base.OrderDAOImpl;
+
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sinh mã order dạng ORD-yyyyMMdd-TT-NNNN
+ * (ngày, mã terminal, số thứ tự trong ngày của terminal), ví dụ ORD-20261018-02-0042
+ *
+ * - Mỗi terminal có dải số riêng (app.terminalId) → không trùng giữa các máy
+ * - Trong một terminal: ngày + số thứ tự nằm chung trong một AtomicLong,
+ *   cấp số bằng compareAndSet, không khóa và không truy vấn database
+ * - Chỉ khi sang ngày mới (hoặc khởi động lại) mới đọc số lớn nhất đã dùng
+ *   từ database một lần để tiếp tục dãy số
+ * - Unique constraint trên orders.order_number là chốt chặn cuối cùng;
+ *   OrderService gọi resync() rồi thử lại nếu insert bị trùng
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public final class OrderNumberGenerator {
+
+    private static final String PREFIX = "ORD";
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final long SEQUENCE_MASK = 0xFFFF_FFFFL;
+
+    // (epochDay << 32) | số thứ tự cuối cùng đã cấp; 0 = chưa khởi tạo
+    private static final AtomicLong state = new AtomicLong();
+
+    private OrderNumberGenerator() {
+    }
+
+    /**
+     * Cấp mã order tiếp theo
+     * @param conn chỉ dùng khi cần đọc lại số thứ tự từ database (sang ngày mới)
+     */
+    public static String next(Connection conn) {
+        LocalDate today = LocalDate.now();
+        long epochDay = today.toEpochDay();
+
+        while (true) {
+            long current = state.get();
+            if ((current >>> 32) != epochDay) {
+                seed(conn, today, false);
+                continue;
+            }
+            if (state.compareAndSet(current, current + 1)) {
+                return format(today, (int) ((current + 1) & SEQUENCE_MASK));
+            }
+        }
+    }
+
+    /**
+     * Đọc lại số thứ tự lớn nhất từ database (sau khi insert bị trùng mã,
+     * ví dụ hai máy cấu hình cùng terminalId)
+     */
+    public static void resync(Connection conn) {
+        seed(conn, LocalDate.now(), true);
+    }
+
+    /**
+     * Mã terminal của máy hiện tại (1-99)
+     */
+    public static int getTerminalId() {
+        return DatabaseConfig.getTerminalId();
+    }
+
+    private static synchronized void seed(Connection conn, LocalDate day, boolean force) {
+        long epochDay = day.toEpochDay();
+        long current = state.get();
+        if (!force && (current >>> 32) == epochDay) {
+            return; // Thread khác đã khởi tạo
+        }
+
+        int maxSequence = new OrderDAOImpl(conn).findMaxOrderSequence(prefixFor(day));
+        // Không lùi số thứ tự đã cấp trong cùng ngày
+        long lastIssued = (current >>> 32) == epochDay ? (current & SEQUENCE_MASK) : 0;
+        long sequence = Math.max(maxSequence, lastIssued);
+
+        state.set((epochDay << 32) | sequence);
+        System.out.println("🔢 Order numbers for " + prefixFor(day) + " continue from " + (sequence + 1));
+    }
+
+    private static String prefixFor(LocalDate day) {
+        return String.format("%s-%s-%02d-", PREFIX, day.format(DAY_FORMAT), getTerminalId());
+    }
+
+    private static String format(LocalDate day, int sequence) {
+        return prefixFor(day) + String.format("%04d", sequence);
+    }
+}
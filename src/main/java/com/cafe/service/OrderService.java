@@ -5,9 +5,13 @@ import com.cafe.dao.base.OrderDAO;
 import com.cafe.dao.base.OrderDAOImpl;
 import com.cafe.dao.base.OrderDetailDAO;
 import com.cafe.dao.base.OrderDetailDAOImpl;
+import com.cafe.dao.base.ProductDAOImpl;
+import com.cafe.dao.base.SalesRollupDAOImpl;
+import com.cafe.model.dto.OrderMutation;
 import com.cafe.model.entity.Order;
 import com.cafe.model.entity.OrderDetail;
 import com.cafe.model.entity.Product;
+import com.cafe.util.ChangeFeedMulticast;
 
 import java.sql.Connection;
 import java.sql.Timestamp;
@@ -20,22 +24,32 @@ import java.util.stream.Collectors;
  *
  * Flow xử lý đơn hàng:
  * 1. Khách vào bàn → createOrder() (pending)
- * 2. Thêm món → addProductToOrder() (kiểm tra stock)
- * 3. Xác nhận đơn → placeOrder() (preparing)
+ * 2. Thêm món → addProductToOrder() / mutate()
+ * 3. Xác nhận đơn → placeOrder() (preparing, trừ tồn kho có điều kiện cho cả order)
  * 4. Hoàn thành → completeOrder() (completed)
  * 5. Thanh toán → processPayment() (paid)
+ * Hủy đơn đã xác nhận → cancelOrder() cộng lại tồn kho đã trừ
  *
  * @author Team 2_C2406L
  * @version 2.0.0 (Complete Integration)
  */
 public class OrderService {
 
+    /** Số lần thử cấp mã order mới khi insert bị trùng mã */
+    private static final int MAX_ORDER_NUMBER_ATTEMPTS = 3;
+    private static final int MAX_MERGE_ATTEMPTS = 3;
+
     private final MenuService menuService;
+    private final SalesRollupService salesRollupService;
+
+    // Các món thiếu hàng ở lần placeOrder() gần nhất
+    private List<String> lastStockShortage = List.of();
 
     public OrderService() {
         // ✅ REMOVED: No longer getting connection in constructor
         // Connections will be managed per operation using try-with-resources
             this.menuService = new MenuService();
+        this.salesRollupService = new SalesRollupService();
         System.out.println("✅ OrderService initialized with proper connection management");
     }
 
@@ -67,7 +81,7 @@ public class OrderService {
             }
 
             Order order = new Order();
-            order.setOrderNumber(generateOrderNumber());
+            order.setOrderNumber(OrderNumberGenerator.next(conn));
             order.setTableId(tableId);
             order.setUserId(userId);
             order.setCustomerId(customerId);
@@ -80,13 +94,24 @@ public class OrderService {
             order.setCreatedAt(new Timestamp(System.currentTimeMillis()));
             order.setUpdatedAt(new Timestamp(System.currentTimeMillis()));
 
-            if (orderDAO.save(order)) {
-                System.out.println("✅ Order created successfully: " + order.getOrderNumber());
-                return order;
-            } else {
-                System.err.println("❌ Failed to save order to database");
-                return null;
+            for (int attempt = 1; attempt <= MAX_ORDER_NUMBER_ATTEMPTS; attempt++) {
+                if (orderDAO.save(order)) {
+                    ActiveOrderRegistry.track(order);
+                    System.out.println("✅ Order created successfully: " + order.getOrderNumber());
+                    return order;
+                }
+
+                // Trùng mã order (unique constraint) → đồng bộ lại dãy số và thử mã mới
+                if (orderDAO.getOrderByNumber(order.getOrderNumber()) == null) {
+                    break;
+                }
+                System.err.println("⚠️ Duplicate order number " + order.getOrderNumber() + ", resyncing sequence");
+                OrderNumberGenerator.resync(conn);
+                order.setOrderNumber(OrderNumberGenerator.next(conn));
             }
+
+            System.err.println("❌ Failed to save order to database");
+            return null;
         } catch (Exception e) {
             System.err.println("❌ Error creating order: " + e.getMessage());
             e.printStackTrace();
@@ -103,164 +128,230 @@ public class OrderService {
             return false;
         }
 
-        // Kiểm tra trạng thái order
-        if (!"pending".equals(order.getOrderStatus())) {
-            System.err.println("❌ Cannot add product to order with status: " + order.getOrderStatus());
-            return false;
-        }
+        return mutate(order, OrderMutation.add(product, quantity, notes));
+    }
 
-        // Kiểm tra stock availability
-        if (!menuService.canOrderProduct(product, quantity)) {
-            System.err.println("❌ Insufficient stock for product: " + product.getProductName());
+    /**
+     * ✅ COMPLETE: Xóa sản phẩm khỏi order
+     */
+    public boolean removeProductFromOrder(Order order, int productId) {
+        if (order == null) {
+            System.err.println("❌ Cannot remove product from null order");
             return false;
         }
 
-        try (Connection conn = DatabaseConfig.getConnection()) {
-            OrderDetailDAO orderDetailDAO = new OrderDetailDAOImpl(conn); // ✅ Initialize OrderDetailDAO
-
-            // Check if product already exists in order
-            List<OrderDetail> existingDetails = orderDetailDAO.findByOrderId(order.getOrderId());
-            Optional<OrderDetail> existingDetail = existingDetails.stream()
-                    .filter(detail -> detail.getProductId() == product.getProductId())
-                    .findFirst();
-
-            if (existingDetail.isPresent()) {
-                // Update existing order detail quantity
-                OrderDetail detail = existingDetail.get();
-                int newQuantity = detail.getQuantity() + quantity;
-                detail.setQuantity(newQuantity);
-                detail.calculateTotalPrice();
-
-                if (!orderDetailDAO.update(detail)) {
-                    System.err.println("❌ Failed to update existing order detail");
-                    return false;
-                }
-
-                System.out.println("✅ Updated existing order detail: " + product.getProductName() + " (+" + quantity + " = " + newQuantity + ")");
-            } else {
-                // Create new order detail
-                OrderDetail orderDetail = new OrderDetail(
-                        order.getOrderId(),
-                        product.getProductId(),
-                        quantity,
-                        product.getPrice(),
-                        notes
-                );
-
-                if (!orderDetailDAO.save(orderDetail)) {
-                    System.err.println("❌ Failed to save order detail");
-                    return false;
-                }
-
-                System.out.println("✅ Added new order detail: " + product.getProductName() + " x" + quantity);
-            }
-
-            // Recalculate and update order total
-            if (!recalculateOrderTotal(order, conn)) {
-                System.err.println("❌ Failed to recalculate order total");
-                return false;
-            }
+        return mutate(order, OrderMutation.remove(productId));
+    }
 
-            return true;
-        } catch (Exception e) {
-            System.err.println("❌ Error adding product to order: " + e.getMessage());
-            e.printStackTrace();
+    /**
+     * ✅ COMPLETE: Cập nhật số lượng sản phẩm trong order
+     */
+    public boolean updateProductQuantity(Order order, int productId, int newQuantity) {
+        if (order == null || newQuantity < 0) {
+            System.err.println("❌ Invalid parameters for quantity update");
             return false;
         }
+
+        return mutate(order, OrderMutation.setQuantity(productId, newQuantity));
     }
 
     /**
-     * ✅ COMPLETE: Xóa sản phẩm khỏi order
+     * ✅ NEW: Áp dụng nhiều thao tác thêm/xóa/đổi số lượng trong một transaction
+     *
+     * Chỉ dùng một connection: khóa dòng order (kể cả khi order chưa có món, để hai
+     * terminal không cùng thêm món đầu tiên) rồi các dòng order_details của order,
+     * ghi từng thay đổi, rồi cộng chênh lệch vào total_amount bằng
+     * "total_amount = total_amount + ?" thay vì tính lại toàn bộ order.
+     *
+     * @param order Order đang ở trạng thái pending
+     * @param mutations Danh sách thao tác, áp dụng theo thứ tự
+     * @return true nếu toàn bộ thao tác thành công (ngược lại rollback tất cả)
      */
-    public boolean removeProductFromOrder(Order order, int productId) {
-        if (order == null || !"pending".equals(order.getOrderStatus())) {
-            System.err.println("❌ Cannot remove product from order with status: " + order.getOrderStatus());
+    public boolean mutate(Order order, OrderMutation... mutations) {
+        if (order == null || mutations == null || mutations.length == 0) {
+            System.err.println("❌ Invalid parameters for order mutation");
             return false;
         }
 
-        try (Connection conn = DatabaseConfig.getConnection()) {
-            OrderDetailDAO orderDetailDAO = new OrderDetailDAOImpl(conn); // ✅ Initialize OrderDetailDAO
+        // Kiểm tra trạng thái order
+        if (!"pending".equals(order.getOrderStatus())) {
+            System.err.println("❌ Cannot modify order with status: " + order.getOrderStatus());
+            return false;
+        }
 
-            if (!orderDetailDAO.deleteByOrderAndProduct(order.getOrderId(), productId)) {
-                System.err.println("❌ Failed to delete order detail");
+        // Kiểm tra stock availability trước khi lấy connection
+        for (OrderMutation mutation : mutations) {
+            if (mutation.getType() == OrderMutation.Type.ADD) {
+                if (mutation.getQuantity() <= 0 || !menuService.canOrderProduct(mutation.getProduct(), mutation.getQuantity())) {
+                    System.err.println("❌ Insufficient stock for product: " + mutation.getProductId());
+                    return false;
+                }
+            } else if (mutation.getType() == OrderMutation.Type.SET_QUANTITY && mutation.getQuantity() < 0) {
+                System.err.println("❌ Invalid quantity for product: " + mutation.getProductId());
                 return false;
             }
+        }
 
-            System.out.println("✅ Removed product " + productId + " from order " + order.getOrderNumber());
+        Connection conn = null;
+        try {
+            conn = DatabaseConfig.getConnection();
+            conn.setAutoCommit(false);
 
-            // Recalculate order total
-            return recalculateOrderTotal(order, conn);
-        } catch (Exception e) {
-            System.err.println("❌ Error removing product from order: " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        }
-    }
+            OrderDAO orderDAO = new OrderDAOImpl(conn);
+            OrderDetailDAO orderDetailDAO = new OrderDetailDAOImpl(conn);
 
-    /**
-     * ✅ COMPLETE: Cập nhật số lượng sản phẩm trong order
-     */
-    public boolean updateProductQuantity(Order order, int productId, int newQuantity) {
-        if (order == null || newQuantity < 0 || !"pending".equals(order.getOrderStatus())) {
-            System.err.println("❌ Invalid parameters for quantity update");
-            return false;
-        }
+            // Khóa order trước (như placeOrder): order chưa có dòng nào thì khóa dòng chi tiết không chặn được ai
+            String lockedStatus = orderDAO.findOrderStatusForUpdate(order.getOrderId());
+            if (!"pending".equals(lockedStatus)) {
+                System.err.println("❌ Cannot modify order with current status: " + lockedStatus);
+                conn.rollback();
+                return false;
+            }
 
-        try (Connection conn = DatabaseConfig.getConnection()) {
-            OrderDetailDAO orderDetailDAO = new OrderDetailDAOImpl(conn); // ✅ Initialize OrderDetailDAO
+            Map<Integer, OrderDetail> linesByProduct = new HashMap<>();
+            for (OrderDetail detail : orderDetailDAO.findByOrderIdForUpdate(order.getOrderId())) {
+                linesByProduct.put(detail.getProductId(), detail);
+            }
 
-            if (newQuantity == 0) {
-                // Remove product if quantity is 0
-                return removeProductFromOrder(order, productId);
+            double totalDelta = 0.0;
+            for (OrderMutation mutation : mutations) {
+                double delta = applyMutation(order, mutation, linesByProduct, orderDetailDAO);
+                if (Double.isNaN(delta)) {
+                    conn.rollback();
+                    return false;
+                }
+                totalDelta += delta;
             }
 
-            if (!orderDetailDAO.updateQuantity(order.getOrderId(), productId, newQuantity)) {
-                System.err.println("❌ Failed to update product quantity");
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            int newVersion = orderDAO.addToPendingOrderTotal(order.getOrderId(), totalDelta, now);
+            if (newVersion < 0) {
+                System.err.println("❌ Failed to update order total (order no longer pending?)");
+                conn.rollback();
                 return false;
             }
 
-            System.out.println("✅ Updated product " + productId + " quantity to " + newQuantity);
+            conn.commit();
+            ChangeFeedMulticast.announce();
 
-            // Recalculate order total
-            return recalculateOrderTotal(order, conn);
+            order.setTotalAmount(order.getTotalAmount() + totalDelta);
+            order.calculateFinalAmount();
+            order.setUpdatedAt(now);
+            // Chỉ nhận version mới khi không có terminal nào ghi xen giữa; nếu có, giữ version cũ
+            // để lần ghi sau đi qua nhánh đọc lại và gộp như bình thường
+            if (newVersion == order.getVersion() + 1) {
+                order.setVersion(newVersion);
+            }
+            // Tổng tiền đã ghi trực tiếp → không còn là thay đổi chưa lưu khi gộp
+            order.markPersisted();
+
+            System.out.println("✅ Applied " + mutations.length + " change(s) to order " + order.getOrderNumber()
+                    + ", total: " + String.format("%.0f VND", order.getTotalAmount()));
+            return true;
         } catch (Exception e) {
-            System.err.println("❌ Error updating product quantity: " + e.getMessage());
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            }
+            System.err.println("❌ Error mutating order: " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
         }
     }
 
     /**
-     * ✅ NEW: Recalculate order total from order details
+     * Tên món để báo thiếu hàng (qua MenuCatalog, không truy vấn thêm)
      */
-    private boolean recalculateOrderTotal(Order order, Connection conn) {
-        try {
-            OrderDAO orderDAO = new OrderDAOImpl(conn);
-            OrderDetailDAO orderDetailDAO = new OrderDetailDAOImpl(conn); // ✅ Initialize OrderDetailDAO
-
-            List<OrderDetail> orderDetails = orderDetailDAO.findByOrderId(order.getOrderId());
-
-            double totalAmount = orderDetails.stream()
-                    .mapToDouble(OrderDetail::getTotalPrice)
-                    .sum();
+    private String getProductName(int productId) {
+        MenuCatalog catalog = MenuCatalog.get();
+        Product product = catalog != null ? catalog.findProduct(productId) : null;
+        return product != null ? product.getProductName() : "#" + productId;
+    }
 
-            order.setTotalAmount(totalAmount);
-            order.calculateFinalAmount();
-            order.setUpdatedAt(new Timestamp(System.currentTimeMillis()));
+    /**
+     * Ghi một thao tác xuống DB và trả về chênh lệch tổng tiền (NaN nếu thất bại)
+     */
+    private double applyMutation(Order order, OrderMutation mutation,
+                                 Map<Integer, OrderDetail> linesByProduct, OrderDetailDAO orderDetailDAO) {
+        int productId = mutation.getProductId();
+        OrderDetail existing = linesByProduct.get(productId);
+
+        switch (mutation.getType()) {
+            case ADD: {
+                if (existing != null) {
+                    int newQuantity = existing.getQuantity() + mutation.getQuantity();
+                    if (!orderDetailDAO.updateQuantity(order.getOrderId(), productId, newQuantity)) {
+                        System.err.println("❌ Failed to update existing order detail");
+                        return Double.NaN;
+                    }
+                    double oldTotal = existing.getTotalPrice();
+                    existing.setQuantity(newQuantity);
+                    System.out.println("✅ Updated existing order detail: " + productId + " (+" + mutation.getQuantity() + " = " + newQuantity + ")");
+                    return existing.getTotalPrice() - oldTotal;
+                }
 
-            if (!orderDAO.update(order)) {
-                System.err.println("❌ Failed to update order total");
-                return false;
+                OrderDetail orderDetail = new OrderDetail(
+                        order.getOrderId(),
+                        productId,
+                        mutation.getQuantity(),
+                        mutation.getUnitPrice(),
+                        mutation.getNotes()
+                );
+                if (!orderDetailDAO.save(orderDetail)) {
+                    System.err.println("❌ Failed to save order detail");
+                    return Double.NaN;
+                }
+                linesByProduct.put(productId, orderDetail);
+                System.out.println("✅ Added new order detail: " + productId + " x" + mutation.getQuantity());
+                return orderDetail.getTotalPrice();
             }
-
-            System.out.println("✅ Order total recalculated: " + String.format("%.0f VND", totalAmount));
-            return true;
-        } catch (Exception e) {
-            System.err.println("❌ Error recalculating order total: " + e.getMessage());
-            return false;
+            case SET_QUANTITY: {
+                if (mutation.getQuantity() == 0) {
+                    return removeLine(order, productId, linesByProduct, orderDetailDAO); // Quantity 0 → xóa món
+                }
+                if (existing == null || !orderDetailDAO.updateQuantity(order.getOrderId(), productId, mutation.getQuantity())) {
+                    System.err.println("❌ Failed to update product quantity");
+                    return Double.NaN;
+                }
+                double oldTotal = existing.getTotalPrice();
+                existing.setQuantity(mutation.getQuantity());
+                System.out.println("✅ Updated product " + productId + " quantity to " + mutation.getQuantity());
+                return existing.getTotalPrice() - oldTotal;
+            }
+            case REMOVE:
+                return removeLine(order, productId, linesByProduct, orderDetailDAO);
+            default:
+                return Double.NaN;
         }
     }
 
+    /**
+     * Xóa một món khỏi order, trả về chênh lệch tổng tiền (NaN nếu thất bại)
+     */
+    private double removeLine(Order order, int productId,
+                              Map<Integer, OrderDetail> linesByProduct, OrderDetailDAO orderDetailDAO) {
+        OrderDetail existing = linesByProduct.get(productId);
+        if (existing == null || !orderDetailDAO.deleteByOrderAndProduct(order.getOrderId(), productId)) {
+            System.err.println("❌ Failed to delete order detail");
+            return Double.NaN;
+        }
+        linesByProduct.remove(productId);
+        System.out.println("✅ Removed product " + productId + " from order " + order.getOrderNumber());
+        return -existing.getTotalPrice();
+    }
+
     // =====================================================
     // ✅ ORDER STATUS MANAGEMENT
     // =====================================================
@@ -283,21 +374,108 @@ public class OrderService {
             return false;
         }
 
-        try (Connection conn = DatabaseConfig.getConnection()) {
+        lastStockShortage = List.of();
+        Connection conn = null;
+        try {
+            conn = DatabaseConfig.getConnection();
+            conn.setAutoCommit(false);
+
             OrderDAO orderDAO = new OrderDAOImpl(conn);
 
+            // Khóa order: chỉ một terminal được xác nhận (và trừ kho) một lần
+            String lockedStatus = orderDAO.findOrderStatusForUpdate(order.getOrderId());
+            if (!"pending".equals(lockedStatus)) {
+                System.err.println("❌ Cannot place order with status: " + lockedStatus);
+                conn.rollback();
+                return false;
+            }
+
+            // Giữ hàng cho toàn bộ các dòng trong một batch conditional update
+            List<OrderDetail> lines = new OrderDetailDAOImpl(conn).findByOrderIdForUpdate(order.getOrderId());
+            boolean[] reserved = new ProductDAOImpl(conn).reserveStock(lines);
+            List<Integer> shortProductIds = new ArrayList<>();
+            for (int i = 0; i < reserved.length; i++) {
+                if (!reserved[i]) {
+                    shortProductIds.add(lines.get(i).getProductId());
+                }
+            }
+            if (!shortProductIds.isEmpty()) {
+                conn.rollback();
+                List<String> shortage = new ArrayList<>();
+                for (int productId : shortProductIds) {
+                    shortage.add(getProductName(productId));
+                }
+                lastStockShortage = shortage;
+                System.err.println("❌ Insufficient stock for: " + String.join(", ", shortage));
+                return false;
+            }
+
             order.setOrderStatus("preparing");
             order.setUpdatedAt(new Timestamp(System.currentTimeMillis()));
 
-            if (orderDAO.update(order)) {
-                System.out.println("✅ Order placed successfully: " + order.getOrderNumber());
+            if (updateWithMerge(orderDAO, order)) {
+                conn.commit();
+                ChangeFeedMulticast.announce();
+                ActiveOrderRegistry.track(order);
+                System.out.println("✅ Order placed successfully: " + order.getOrderNumber()
+                        + " (" + lines.size() + " line(s) reserved)");
                 return true;
             }
+            conn.rollback();
+            order.setOrderStatus("pending");
             return false;
         } catch (Exception e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            }
+            order.setOrderStatus("pending");
             System.err.println("❌ Error placing order: " + e.getMessage());
             return false;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Lưu các cột đã đổi của order với kiểm tra version. Nếu terminal khác đã ghi trước,
+     * đọc lại bản mới nhất (khóa dòng), gộp thay đổi của mình lên đó (Order.rebaseOnto)
+     * rồi ghi lại; chỉ thất bại khi hai bên cùng sửa một cột thành giá trị khác nhau.
+     * Dùng được trong transaction của caller (thay cho khóa bi quan cả order).
+     */
+    static boolean updateWithMerge(OrderDAO orderDAO, Order order) {
+        for (int attempt = 1; attempt <= MAX_MERGE_ATTEMPTS; attempt++) {
+            if (orderDAO.updateOrder(order)) {
+                return true;
+            }
+            Order latest = orderDAO.findByIdForUpdate(order.getOrderId());
+            if (latest == null || latest.getVersion() == order.getVersion()) {
+                return false; // Không phải xung đột version (order bị xóa hoặc lỗi database)
+            }
+            if (!order.rebaseOnto(latest)) {
+                System.err.println("❌ Order " + order.getOrderNumber() + " was changed by another terminal, cannot merge");
+                return false;
+            }
+            System.out.println("🔀 Order " + order.getOrderNumber() + " merged onto version " + latest.getVersion());
         }
+        return false;
+    }
+
+    /**
+     * Tên các món không đủ hàng ở lần placeOrder() gần nhất (rỗng nếu không thiếu)
+     */
+    public List<String> getLastStockShortage() {
+        return lastStockShortage;
     }
 
     /**
@@ -313,7 +491,11 @@ public class OrderService {
 
             order.setOrderStatus("ready");
             order.setUpdatedAt(new Timestamp(System.currentTimeMillis()));
-            return orderDAO.update(order);
+            boolean updated = updateWithMerge(orderDAO, order);
+            if (updated) {
+                ActiveOrderRegistry.track(order);
+            }
+            return updated;
         } catch (Exception e) {
             System.err.println("❌ Error marking order ready: " + e.getMessage());
             return false;
@@ -333,7 +515,11 @@ public class OrderService {
 
             order.setOrderStatus("served");
             order.setUpdatedAt(new Timestamp(System.currentTimeMillis()));
-            return orderDAO.update(order);
+            boolean updated = updateWithMerge(orderDAO, order);
+            if (updated) {
+                ActiveOrderRegistry.track(order);
+            }
+            return updated;
         } catch (Exception e) {
             System.err.println("❌ Error marking as served: " + e.getMessage());
             return false;
@@ -359,7 +545,8 @@ public class OrderService {
             order.setOrderStatus("completed");
             order.setUpdatedAt(new Timestamp(System.currentTimeMillis()));
 
-            if (orderDAO.update(order)) {
+            if (updateWithMerge(orderDAO, order)) {
+                ActiveOrderRegistry.track(order);
                 System.out.println("✅ Order completed: " + order.getOrderNumber());
                 return true;
             }
@@ -383,23 +570,80 @@ public class OrderService {
             return false;
         }
 
-        try (Connection conn = DatabaseConfig.getConnection()) {
+        String previousOrderStatus = order.getOrderStatus();
+        String previousPaymentStatus = order.getPaymentStatus();
+        Connection conn = null;
+        try {
+            conn = DatabaseConfig.getConnection();
+            conn.setAutoCommit(false);
+
             OrderDAO orderDAO = new OrderDAOImpl(conn);
 
+            // Khóa order rồi kiểm tra lại: trạng thái trong bộ nhớ có thể đã cũ
+            // (vd order đã được thanh toán/hoàn thành ở terminal khác)
+            String lockedStatus = orderDAO.findOrderStatusForUpdate(order.getOrderId());
+            if (!"pending".equals(lockedStatus) && !"preparing".equals(lockedStatus)) {
+                System.err.println("❌ Cannot cancel order " + order.getOrderNumber() + " with current status: " + lockedStatus);
+                conn.rollback();
+                return false;
+            }
+            // Order đã thanh toán (trả trước) đã được cộng vào sales rollup → phải trừ lại khi hủy
+            boolean wasPaid = "paid".equals(orderDAO.findPaymentStatusForUpdate(order.getOrderId()));
+            // Hàng chỉ được giữ khi order đã qua placeOrder()
+            if ("preparing".equals(lockedStatus)) {
+                List<OrderDetail> lines = new OrderDetailDAOImpl(conn).findByOrderIdForUpdate(order.getOrderId());
+                if (!new ProductDAOImpl(conn).releaseStock(lines)) {
+                    System.err.println("❌ Failed to release reserved stock");
+                    conn.rollback();
+                    return false;
+                }
+            }
+
             // ✅ FIXED: Set both order_status and payment_status to 'cancelled' to satisfy constraint
             order.setOrderStatus("cancelled");
             order.setPaymentStatus("cancelled");
             order.setNotes(reason != null ? reason : "Order cancelled");
             order.setUpdatedAt(new Timestamp(System.currentTimeMillis()));
 
-            if (orderDAO.update(order)) {
+            if (wasPaid && !new SalesRollupDAOImpl(conn).removePaidOrder(order.getOrderId())) {
+                System.err.println("❌ Failed to remove cancelled order from sales rollup");
+                conn.rollback();
+                order.setOrderStatus(previousOrderStatus);
+                order.setPaymentStatus(previousPaymentStatus);
+                return false;
+            }
+            if (updateWithMerge(orderDAO, order)) {
+                conn.commit();
+                ChangeFeedMulticast.announce();
+                ActiveOrderRegistry.track(order);
                 System.out.println("✅ Order cancelled: " + order.getOrderNumber() + " - " + reason);
                 return true;
             }
+            conn.rollback();
+            order.setOrderStatus(previousOrderStatus);
+            order.setPaymentStatus(previousPaymentStatus);
             return false;
         } catch (Exception e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            }
+            order.setOrderStatus(previousOrderStatus);
+            order.setPaymentStatus(previousPaymentStatus);
             System.err.println("❌ Error cancelling order: " + e.getMessage());
             return false;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
         }
     }
 
@@ -432,7 +676,8 @@ public class OrderService {
             order.setPaymentStatus("paid");
             order.setUpdatedAt(new Timestamp(System.currentTimeMillis()));
 
-            if (orderDAO.update(order)) {
+            if (salesRollupService.savePayment(conn, order.getOrderId(), () -> updateWithMerge(orderDAO, order))) {
+                ActiveOrderRegistry.track(order);
                 System.out.println("✅ Payment processed successfully for order: " + order.getOrderNumber());
                 System.out.println("💰 Amount: " + order.getFinalAmount() + " VND, Method: " + paymentMethod);
 
@@ -521,16 +766,26 @@ public class OrderService {
 
     /**
      * ✅ NEW: Overloaded method for internal use with existing connection
+     * Tra registry trước (1 lần đọc theo khóa chính), nếu chưa có thì
+     * dùng query theo index (table_id, order_status)
      */
     private Optional<Order> getActiveOrderByTable(int tableId, Connection conn) {
         try {
             OrderDAO orderDAO = new OrderDAOImpl(conn);
-            List<String> activeStatuses = Arrays.asList("pending", "preparing", "ready", "served");
 
-            return orderDAO.getAllOrders().stream()
-                    .filter(order -> order.getTableId() == tableId)
-                    .filter(order -> activeStatuses.contains(order.getOrderStatus()))
-                    .findFirst();
+            Integer cachedOrderId = ActiveOrderRegistry.getOrderId(tableId);
+            if (cachedOrderId != null) {
+                Order cached = orderDAO.getOrderById(cachedOrderId);
+                if (cached != null && cached.getTableId() == tableId && ActiveOrderRegistry.isActive(cached)) {
+                    return Optional.of(cached);
+                }
+                // Order đã bị đóng/xóa (có thể từ terminal khác)
+                ActiveOrderRegistry.evict(tableId);
+            }
+
+            Optional<Order> activeOrder = orderDAO.findActiveByTableId(tableId);
+            activeOrder.ifPresent(ActiveOrderRegistry::track);
+            return activeOrder;
         } catch (Exception e) {
             System.err.println("❌ Error getting active order by table: " + e.getMessage());
             return Optional.empty();
@@ -582,13 +837,6 @@ public class OrderService {
     // ✅ UTILITY METHODS
     // =====================================================
 
-    /**
-     * Generate unique order number
-     */
-    private String generateOrderNumber() {
-        return "ORD" + System.currentTimeMillis();
-    }
-
     /**
      * Tính total amount từ list products
      */
@@ -635,7 +883,14 @@ public class OrderService {
             OrderDAO orderDAO = new OrderDAOImpl(conn);
 
             order.setUpdatedAt(new Timestamp(System.currentTimeMillis()));
-            return orderDAO.update(order);
+            // Lưu order đã thanh toán phải đi qua sales rollup (chỉ cộng lần đầu chuyển sang 'paid')
+            boolean updated = "paid".equals(order.getPaymentStatus())
+                    ? salesRollupService.savePayment(conn, order.getOrderId(), () -> updateWithMerge(orderDAO, order))
+                    : updateWithMerge(orderDAO, order);
+            if (updated) {
+                ActiveOrderRegistry.track(order);
+            }
+            return updated;
         } catch (Exception e) {
             System.err.println("❌ Error updating order: " + e.getMessage());
             return false;
@@ -0,0 +1,25 @@
+package com.cafe.service;
+
+import com.cafe.model.dto.PaymentResponse;
+import com.cafe.model.enums.PaymentMethod;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cổng thanh toán (MoMo, VNPay, ZaloPay, ...)
+ *
+ * - Không chặn thread gọi: kết quả trả về qua CompletableFuture
+ * - Giao dịch bị từ chối → future hoàn thành với PaymentResponse.failure
+ * - Lỗi mạng / cổng không phản hồi → future lỗi (PaymentGatewayException, TimeoutException, ...)
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public interface PaymentGateway {
+
+    /**
+     * Gửi yêu cầu trừ tiền
+     * @param idempotencyKey giữ nguyên giữa các lần thử lại để cổng không trừ tiền hai lần
+     */
+    CompletableFuture<PaymentResponse> charge(PaymentMethod method, String idempotencyKey, int orderId, double amount);
+}
@@ -1,23 +1,39 @@
 package com.cafe.service;
 
 import com.cafe.config.DatabaseConfig;
+import com.cafe.dao.base.ChangeLogDAO;
+import com.cafe.dao.base.ChangeLogDAOImpl;
 import com.cafe.dao.base.OrderDAO;
 import com.cafe.dao.base.OrderDAOImpl;
+import com.cafe.dao.base.OrderDetailDAOImpl;
+import com.cafe.dao.base.PaymentAttemptDAO;
+import com.cafe.dao.base.PaymentAttemptDAOImpl;
 import com.cafe.model.entity.Order;
+import com.cafe.model.entity.OrderDetail;
+import com.cafe.model.entity.PaymentAttempt;
 import com.cafe.model.enums.PaymentMethod;
 import com.cafe.model.enums.PaymentStatus;
 import com.cafe.model.dto.PaymentRequest;
 import com.cafe.model.dto.PaymentResponse;
+import com.cafe.service.SalesRollupService.PaymentSave;
+import com.cafe.util.BackgroundExecutor;
 import com.cafe.util.PaymentValidator;
+import com.cafe.util.StubPaymentGatewayServer;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
 
 /**
  * Payment Service - Complete Payment Processing System
@@ -30,10 +46,42 @@ public class PaymentService {
     
     private final ReceiptService receiptService;
     private final PaymentValidator validator;
+    private final SalesRollupService salesRollupService;
+
+    private static PaymentGateway walletGateway;
+
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+    private static final int RECENT_KEYS = Math.max(1, DatabaseConfig.getPropertyAsInt("payment.idempotency.recentKeys", 256));
+
+    // Idempotency key → kết quả (đang chờ hoặc đã thành công) của các lượt gần đây (LRU).
+    // Bấm thanh toán hai lần trên cùng máy nhận lại đúng future đầu tiên, không cần hỏi database.
+    private static final Map<String, CompletableFuture<PaymentResponse>> recentAttempts =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<PaymentResponse>> eldest) {
+                    return size() > RECENT_KEYS;
+                }
+            };
+
+    /**
+     * Kết quả giữ chỗ payment_attempts: hoặc được chạy (attempt), hoặc trả lại kết quả có sẵn (replay)
+     */
+    private record AttemptClaim(PaymentAttempt attempt, PaymentResponse replay) {
+    }
+
+    /**
+     * Order đủ điều kiện thanh toán (kèm chi tiết để in hóa đơn), hoặc lý do từ chối
+     */
+    private record PayableOrder(Order order, List<OrderDetail> details, PaymentResponse rejection) {
+        static PayableOrder rejected(String message) {
+            return new PayableOrder(null, null, PaymentResponse.failure(message));
+        }
+    }
     
     public PaymentService() {
         this.receiptService = new ReceiptService();
         this.validator = new PaymentValidator();
+        this.salesRollupService = new SalesRollupService();
     }
 
     // =====================================================
@@ -42,19 +90,157 @@ public class PaymentService {
     
     /**
      * Process payment with complete validation and business logic
+     * (đồng bộ, chờ processPaymentAsync)
      */
     public PaymentResponse processPayment(PaymentRequest request) {
-        System.out.println("🔍 PaymentService.processPayment(request) called");
+        return processPaymentAsync(request).join();
+    }
+
+    /**
+     * Xử lý thanh toán không chặn thread gọi, idempotent theo request.getIdempotencyKey()
+     * (tự sinh nếu trống):
+     * 0. Giữ chỗ payment_attempts theo key; key đã thành công → trả lại kết quả đã lưu,
+     *    đang chạy ở nơi khác → từ chối, đã thất bại → chạy lại
+     * 1. Kiểm tra request + đọc order (mượn connection rồi trả ngay)
+     * 2. Gọi cổng thanh toán (không giữ connection trong lúc chờ cổng)
+     * 3. Lưu trạng thái thanh toán + kết quả lượt thanh toán với connection mới; order đã được
+     *    lượt khác thanh toán (key khác, máy khác) → lượt này bị đánh dấu refund_required, không báo thành công
+     */
+    public CompletableFuture<PaymentResponse> processPaymentAsync(PaymentRequest request) {
+        System.out.println("🔍 PaymentService.processPaymentAsync(request) called");
         System.out.println("🔍 Request Order ID: " + request.getOrderId());
         System.out.println("🔍 Request Payment Method: " + request.getPaymentMethod());
         System.out.println("🔍 Request Amount: " + request.getAmountReceived());
-        
+
+        if (request.getIdempotencyKey() == null || request.getIdempotencyKey().isBlank()) {
+            request.setIdempotencyKey(UUID.randomUUID().toString());
+        }
+        String key = request.getIdempotencyKey();
+
+        CompletableFuture<PaymentResponse> result = new CompletableFuture<>();
+        synchronized (recentAttempts) {
+            CompletableFuture<PaymentResponse> previous = recentAttempts.get(key);
+            if (previous != null) {
+                System.out.println("🔁 Payment " + key + " already submitted, returning original result");
+                return previous;
+            }
+            recentAttempts.put(key, result);
+        }
+
+        CompletableFuture.supplyAsync(() -> claimAttempt(request), BackgroundExecutor.executor())
+                .thenCompose(claim -> claim.replay() != null
+                        ? CompletableFuture.completedFuture(claim.replay())
+                        : executePayment(request, claim.attempt()))
+                .exceptionally(e -> {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    System.err.println("❌ Payment processing error: " + cause.getMessage());
+                    return PaymentResponse.failure("Payment processing failed: " + cause.getMessage());
+                })
+                .thenAccept(response -> {
+                    // Lượt thất bại được phép thử lại → không giữ trong cache
+                    if (!response.isSuccess()) {
+                        synchronized (recentAttempts) {
+                            recentAttempts.remove(key, result);
+                        }
+                    }
+                    result.complete(response);
+                });
+        return result;
+    }
+
+    /**
+     * Bước 0: giữ chỗ lượt thanh toán theo idempotency key (UNIQUE trên payment_attempts)
+     */
+    private AttemptClaim claimAttempt(PaymentRequest request) {
+        String key = request.getIdempotencyKey();
+        if (key.length() > MAX_IDEMPOTENCY_KEY_LENGTH || request.getOrderId() == null) {
+            return new AttemptClaim(null, PaymentResponse.failure("Invalid payment request"));
+        }
+
+        try (Connection connection = DatabaseConfig.getConnection()) {
+            PaymentAttemptDAO attemptDAO = new PaymentAttemptDAOImpl(connection);
+            PaymentAttempt attempt = new PaymentAttempt(key, request.getOrderId(),
+                    request.getPaymentMethod(), request.getAmountReceived());
+            if (attemptDAO.insertInProgress(attempt)) {
+                return new AttemptClaim(attempt, null);
+            }
+
+            PaymentAttempt existing = attemptDAO.findByKey(key);
+            if (existing == null) {
+                return new AttemptClaim(null, PaymentResponse.failure("Order not found"));
+            }
+            if (existing.getOrderId() != request.getOrderId()) {
+                System.err.println("❌ Idempotency key " + key + " already used for order " + existing.getOrderId());
+                return new AttemptClaim(null, PaymentResponse.failure("Invalid payment request"));
+            }
+            if (existing.isSucceeded()) {
+                System.out.println("🔁 Payment " + key + " already succeeded, returning stored result");
+                PaymentResponse stored = PaymentResponse.success(existing.getMessage())
+                        .setTransactionId(existing.getTransactionId())
+                        .setChangeAmount(existing.getChangeAmount())
+                        .setReceiptPath(existing.getReceiptPath());
+                new OrderDAOImpl(connection).findById(existing.getOrderId()).ifPresent(stored::setOrder);
+                return new AttemptClaim(null, stored);
+            }
+            if (existing.isRefundRequired()) {
+                return new AttemptClaim(null, PaymentResponse.failure(existing.getMessage())
+                        .setTransactionId(existing.getTransactionId())
+                        .setRefundRequired(true));
+            }
+            if (attemptDAO.reclaim(key, DatabaseConfig.getPropertyAsInt("payment.idempotency.staleSeconds", 300))) {
+                existing.setStatus(PaymentAttempt.STATUS_IN_PROGRESS);
+                existing.setAttemptCount(existing.getAttemptCount() + 1);
+                return new AttemptClaim(existing, null);
+            }
+            return new AttemptClaim(null, PaymentResponse.failure("Thanh toán cho đơn này đang được xử lý, vui lòng chờ"));
+        } catch (Exception e) {
+            System.err.println("❌ Payment processing error: " + e.getMessage());
+            return new AttemptClaim(null, PaymentResponse.failure("Payment processing failed: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Bước 1-6 cho lượt đã giữ chỗ; lượt thất bại được ghi lại để có thể chạy lại
+     */
+    private CompletableFuture<PaymentResponse> executePayment(PaymentRequest request, PaymentAttempt attempt) {
+        return CompletableFuture.supplyAsync(() -> loadPayableOrder(request), BackgroundExecutor.executor())
+                .thenCompose(payable -> {
+                    if (payable.rejection() != null) {
+                        return CompletableFuture.completedFuture(payable.rejection());
+                    }
+                    Order order = payable.order();
+
+                    // 5. Process payment by method
+                    System.out.println("🔍 Step 5: Processing payment by method...");
+                    return processPaymentByMethod(order, request)
+                            .thenApplyAsync(response -> completePayment(payable, request, attempt, response),
+                                    BackgroundExecutor.executor());
+                })
+                .exceptionally(e -> {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    System.err.println("❌ Payment processing error: " + cause.getMessage());
+                    return PaymentResponse.failure("Payment processing failed: " + cause.getMessage());
+                })
+                .thenApply(response -> {
+                    // Lượt thu trùng đã được ghi refund_required trong completePayment
+                    if (!response.isSuccess() && !attempt.isRefundRequired()) {
+                        recordAttemptFailure(attempt, response);
+                    }
+                    return response;
+                });
+    }
+
+    /**
+     * Bước 1-4: kiểm tra request và order
+     * @return order + chi tiết đọc từ database, hoặc lý do từ chối (rejection)
+     */
+    private PayableOrder loadPayableOrder(PaymentRequest request) {
         try (Connection connection = DatabaseConfig.getConnection()) {
             // 1. Validate payment request
             System.out.println("🔍 Step 1: Validating payment request...");
             if (!validator.validatePaymentRequest(request)) {
                 System.out.println("🔍 ❌ Payment request validation failed");
-                return PaymentResponse.failure("Invalid payment request");
+                return PayableOrder.rejected("Invalid payment request");
             }
             System.out.println("🔍 ✅ Payment request validation passed");
             
@@ -64,7 +250,7 @@ public class PaymentService {
             Optional<Order> orderOpt = orderDAO.findById(request.getOrderId());
             if (!orderOpt.isPresent()) {
                 System.out.println("🔍 ❌ Order not found: " + request.getOrderId());
-                return PaymentResponse.failure("Order not found");
+                return PayableOrder.rejected("Order not found");
             }
             System.out.println("🔍 ✅ Order found: " + orderOpt.get().getOrderNumber());
             
@@ -76,7 +262,7 @@ public class PaymentService {
             System.out.println("🔍 Order can be paid: " + order.canBePaid());
             if (!order.canBePaid()) {
                 System.out.println("🔍 ❌ Order cannot be paid. Status: " + order.getOrderStatus());
-                return PaymentResponse.failure("Order cannot be paid. Status: " + order.getOrderStatus());
+                return PayableOrder.rejected("Order cannot be paid. Status: " + order.getOrderStatus());
             }
             System.out.println("🔍 ✅ Order can be paid");
             
@@ -96,56 +282,121 @@ public class PaymentService {
                 // For cash, validate against order amount (customer can pay more)
                 if (!validator.validateAmount(amountToValidate, requiredAmount, request.getPaymentMethod())) {
                     System.out.println("🔍 ❌ Payment amount validation failed");
-                    return PaymentResponse.failure("Insufficient payment amount");
+                    return PayableOrder.rejected("Insufficient payment amount");
                 }
             } else {
                 // For electronic payments, amountReceived is already the final amount
                 // Just validate it's reasonable (not negative, not zero)
                 if (amountToValidate <= 0) {
                     System.out.println("🔍 ❌ Invalid payment amount: " + amountToValidate);
-                    return PaymentResponse.failure("Invalid payment amount");
+                    return PayableOrder.rejected("Invalid payment amount");
                 }
             }
             System.out.println("🔍 ✅ Payment amount validation passed");
-            
-            // 5. Process payment by method
-            System.out.println("🔍 Step 5: Processing payment by method...");
-            PaymentResponse response = processPaymentByMethod(order, request);
-            
-            // 6. Update order if successful
-            if (response.isSuccess()) {
-                updateOrderAfterPayment(order, request, orderDAO);
-                response.setOrder(order);
-                response.setReceiptPath(receiptService.generateReceipt(order, request));
-            }
-            
-            return response;
-            
+
+            // Chi tiết đọc cùng connection để in hóa đơn sau khi thanh toán (không mở connection mới)
+            List<OrderDetail> details = new OrderDetailDAOImpl(connection).findByOrderId(order.getOrderId());
+            return new PayableOrder(order, details, null);
         } catch (Exception e) {
             System.err.println("❌ Payment processing error: " + e.getMessage());
-            return PaymentResponse.failure("Payment processing failed: " + e.getMessage());
+            return PayableOrder.rejected("Payment processing failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Bước 6: lưu thanh toán thành công (connection mới, order được gộp nếu đã bị sửa trong lúc chờ cổng)
+     * Kết quả lượt thanh toán (kèm tham chiếu hóa đơn) được lưu cùng transaction với order;
+     * hóa đơn được tạo từ dữ liệu đã đọc và ghi file ở thread nền
+     */
+    private PaymentResponse completePayment(PayableOrder payable, PaymentRequest request, PaymentAttempt attempt,
+                                            PaymentResponse response) {
+        if (!response.isSuccess()) {
+            return response;
+        }
+        Order order = payable.order();
+        String receiptReference = receiptService.receiptReference(order);
+        attempt.setStatus(PaymentAttempt.STATUS_SUCCEEDED);
+        attempt.setTransactionId(response.getTransactionId());
+        attempt.setMessage(response.getMessage());
+        attempt.setChangeAmount(response.getChangeAmount());
+        attempt.setReceiptPath(receiptReference);
+        try (Connection connection = DatabaseConfig.getConnection()) {
+            OrderDAO orderDAO = new OrderDAOImpl(connection);
+            PaymentAttemptDAO attemptDAO = new PaymentAttemptDAOImpl(connection);
+            PaymentSave saved = updateOrderAfterPayment(order, request, connection, orderDAO,
+                    () -> attemptDAO.complete(attempt));
+            if (saved == PaymentSave.ALREADY_PAID) {
+                return recordDuplicatePayment(attemptDAO, attempt, order, request, response);
+            }
+            if (saved != PaymentSave.SAVED) {
+                return PaymentResponse.failure("Failed to save payment for order " + order.getOrderNumber());
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Error saving payment: " + e.getMessage());
+            return PaymentResponse.failure("Failed to save payment for order " + order.getOrderNumber());
+        }
+        response.setOrder(order);
+        response.setReceiptPath(receiptService.generateReceipt(receiptReference, order, payable.details(), request));
+        return response;
+    }
+
+    /**
+     * Order đã được thanh toán bởi lượt khác trong lúc lượt này chờ cổng: tiền của lượt này đã thu
+     * (ví/thẻ/chuyển khoản) → ghi refund_required kèm mã giao dịch để hoàn tiền, không báo thành công
+     */
+    private PaymentResponse recordDuplicatePayment(PaymentAttemptDAO attemptDAO, PaymentAttempt attempt, Order order,
+                                                   PaymentRequest request, PaymentResponse response) {
+        boolean cash = PaymentMethod.fromString(request.getPaymentMethod()) == PaymentMethod.CASH;
+        String message = cash
+                ? "Đơn " + order.getOrderNumber() + " đã được thanh toán trước đó, không thu tiền mặt lần này"
+                : "Đơn " + order.getOrderNumber() + " đã được thanh toán trước đó; giao dịch "
+                        + (response.getTransactionId() != null ? response.getTransactionId() + " " : "")
+                        + "cần hoàn tiền cho khách";
+        attempt.setStatus(cash ? PaymentAttempt.STATUS_FAILED : PaymentAttempt.STATUS_REFUND_REQUIRED);
+        attempt.setMessage(message);
+        attempt.setReceiptPath(null);
+        if (!attemptDAO.complete(attempt)) {
+            System.err.println("⚠️ Failed to record duplicate payment " + attempt.getIdempotencyKey());
+        }
+        System.err.println("❌ Duplicate payment for order " + order.getOrderNumber() + " (" + attempt.getIdempotencyKey()
+                + ", transaction " + response.getTransactionId() + ")");
+        return PaymentResponse.failure(message)
+                .setTransactionId(response.getTransactionId())
+                .setRefundRequired(!cash);
+    }
+
+    /**
+     * Ghi lượt thanh toán thất bại (lần gửi lại cùng key sẽ chạy lại)
+     */
+    private void recordAttemptFailure(PaymentAttempt attempt, PaymentResponse response) {
+        attempt.setStatus(PaymentAttempt.STATUS_FAILED);
+        attempt.setMessage(response.getMessage());
+        try (Connection connection = DatabaseConfig.getConnection()) {
+            new PaymentAttemptDAOImpl(connection).complete(attempt);
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to record payment attempt " + attempt.getIdempotencyKey() + ": " + e.getMessage());
         }
     }
     
     /**
      * Process payment based on method type
      */
-    private PaymentResponse processPaymentByMethod(Order order, PaymentRequest request) {
+    private CompletableFuture<PaymentResponse> processPaymentByMethod(Order order, PaymentRequest request) {
         PaymentMethod method = PaymentMethod.fromString(request.getPaymentMethod());
         
         switch (method) {
             case CASH:
-                return processCashPayment(order, request);
+                return CompletableFuture.completedFuture(processCashPayment(order, request));
             case CARD:
-                return processCardPayment(order, request);
+                return CompletableFuture.completedFuture(processCardPayment(order, request));
             case MOMO:
             case VNPAY:
             case ZALOPAY:
-                return processElectronicPayment(order, request);
+                return processElectronicPayment(order, request, method);
             case BANK_TRANSFER:
-                return processBankTransferPayment(order, request);
+                return CompletableFuture.completedFuture(processBankTransferPayment(order, request));
             default:
-                return PaymentResponse.failure("Unsupported payment method");
+                return CompletableFuture.completedFuture(PaymentResponse.failure("Unsupported payment method"));
         }
     }
     
@@ -160,7 +411,7 @@ public class PaymentService {
         
         return PaymentResponse.success("Cash payment processed successfully")
                 .setChangeAmount(change)
-                .setTransactionId("CASH_" + System.currentTimeMillis());
+                .setTransactionId("CASH_" + request.getIdempotencyKey());
     }
     
     /**
@@ -168,7 +419,7 @@ public class PaymentService {
      */
     private PaymentResponse processCardPayment(Order order, PaymentRequest request) {
         // For educational project - no transaction code validation needed
-        String transactionId = "EDU_CARD_" + System.currentTimeMillis();
+        String transactionId = "EDU_CARD_" + request.getIdempotencyKey();
         
         // Simulate card processing
         boolean processed = simulateCardProcessing(transactionId, order.getFinalAmount());
@@ -182,22 +433,49 @@ public class PaymentService {
     }
     
     /**
-     * Process electronic wallet payment
+     * Process electronic wallet payment qua cổng thanh toán (không chặn thread)
+     * Cổng nhận cùng idempotency key với lượt thanh toán: gửi lại (hoặc thử lại sau timeout)
+     * không bị trừ tiền hai lần
      */
-    private PaymentResponse processElectronicPayment(Order order, PaymentRequest request) {
-        // For educational project - no transaction code validation needed
-        String transactionId = "EDU_" + request.getPaymentMethod() + "_" + System.currentTimeMillis();
-        
-        // Simulate e-wallet processing
-        boolean processed = simulateEWalletProcessing(request.getPaymentMethod(), 
-                transactionId, order.getFinalAmount());
-        
-        if (processed) {
-            return PaymentResponse.success("Electronic payment processed successfully")
-                    .setTransactionId(transactionId);
-        } else {
-            return PaymentResponse.failure("Electronic payment failed");
+    private CompletableFuture<PaymentResponse> processElectronicPayment(Order order, PaymentRequest request,
+                                                                        PaymentMethod method) {
+        String idempotencyKey = request.getTransactionCode() != null && !request.getTransactionCode().isBlank()
+                ? request.getTransactionCode()
+                : request.getIdempotencyKey();
+        if (!isWalletGatewayConfigured()) {
+            return CompletableFuture.completedFuture(PaymentResponse.failure(
+                    "Chưa cấu hình cổng thanh toán " + method.getDisplayName()));
+        }
+        return getWalletGateway().charge(method, idempotencyKey, order.getOrderId(), request.getAmountReceived());
+    }
+
+    /**
+     * Có cổng ví điện tử để gửi giao dịch không: payment.gateway.url đã cấu hình
+     * hoặc bật cổng giả lập (payment.stub.enabled); không có thì màn hình thanh toán ẩn MoMo/VNPay/ZaloPay
+     */
+    public static boolean isWalletGatewayConfigured() {
+        return !getWalletGatewayUrl().isBlank();
+    }
+
+    private static String getWalletGatewayUrl() {
+        String url = DatabaseConfig.getProperty("payment.gateway.url", "").trim();
+        if (url.isEmpty() && DatabaseConfig.getPropertyAsBoolean("payment.stub.enabled", false)) {
+            return "http://127.0.0.1:" + DatabaseConfig.getPropertyAsInt("payment.stub.port", 8089) + "/pay";
+        }
+        return url;
+    }
+
+    /**
+     * Cổng ví điện tử dùng chung (HTTP + timeout/retry/circuit breaker)
+     */
+    private static synchronized PaymentGateway getWalletGateway() {
+        if (walletGateway == null) {
+            StubPaymentGatewayServer.startIfEnabled();
+            String url = getWalletGatewayUrl();
+            long connectTimeout = DatabaseConfig.getPropertyAsInt("payment.gateway.connectTimeoutMs", 2_000);
+            walletGateway = new ResilientPaymentGateway(new HttpPaymentGateway(url, connectTimeout));
         }
+        return walletGateway;
     }
     
     /**
@@ -205,7 +483,7 @@ public class PaymentService {
      */
     private PaymentResponse processBankTransferPayment(Order order, PaymentRequest request) {
         // For educational project - no transaction code validation needed
-        String transactionId = "EDU_BANK_" + System.currentTimeMillis();
+        String transactionId = "EDU_BANK_" + request.getIdempotencyKey();
         
         // Simulate bank transfer processing
         boolean processed = simulateBankTransferProcessing(transactionId, order.getFinalAmount());
@@ -219,9 +497,11 @@ public class PaymentService {
     }
     
     /**
-     * Update order after successful payment
+     * Update order after successful payment (cùng transaction với sales rollup)
+     * @return ALREADY_PAID nếu order đã 'paid' khi khóa dòng (không ghi gì)
      */
-    private void updateOrderAfterPayment(Order order, PaymentRequest request, OrderDAO orderDAO) {
+    private PaymentSave updateOrderAfterPayment(Order order, PaymentRequest request, Connection connection,
+                                                OrderDAO orderDAO, BooleanSupplier recordAttempt) throws SQLException {
         order.setPaymentMethod(request.getPaymentMethod());
         order.setPaymentStatus("paid");
         order.setUpdatedAt(new Timestamp(System.currentTimeMillis()));
@@ -231,7 +511,12 @@ public class PaymentService {
             order.setNotes(existingNotes + "\nPayment: " + request.getNotes());
         }
         
-        orderDAO.update(order);
+        PaymentSave saved = salesRollupService.savePaymentOnce(connection, order.getOrderId(),
+                () -> OrderService.updateWithMerge(orderDAO, order) && recordAttempt.getAsBoolean());
+        if (saved == PaymentSave.SAVED) {
+            ActiveOrderRegistry.track(order);
+        }
+        return saved;
     }
     
     // Simulation methods (replace with real integrations in production)
@@ -239,10 +524,6 @@ public class PaymentService {
         return transactionCode.length() >= 6; // Simple simulation
     }
     
-    private boolean simulateEWalletProcessing(String method, String transactionCode, double amount) {
-        return transactionCode.length() >= 8; // Simple simulation
-    }
-    
     
     private boolean simulateBankTransferProcessing(String transactionId, double amount) {
         return transactionId.length() >= 8; // Simple simulation for educational project
@@ -256,7 +537,30 @@ public class PaymentService {
      * Legacy method for backward compatibility
      */
     public boolean processPayment(Order order, String paymentMethod, double amountReceived) {
-        System.out.println("🔍 PaymentService.processPayment() called");
+        return processPaymentAsync(order, paymentMethod, amountReceived).join();
+    }
+
+    /**
+     * Như processPayment(Order, String, double) nhưng không chặn thread gọi
+     * Idempotency key = order + version + phương thức: bấm lại với cùng order
+     * (chưa tải lại) trả về kết quả lần đầu
+     */
+    public CompletableFuture<Boolean> processPaymentAsync(Order order, String paymentMethod, double amountReceived) {
+        return submitPayment(order, paymentMethod, amountReceived).thenApply(response -> {
+            System.out.println("🔍 PaymentResponse received: " + response.isSuccess());
+            if (!response.isSuccess()) {
+                System.out.println("🔍 Payment failed: " + response.getMessage());
+            }
+            return response.isSuccess();
+        });
+    }
+
+    /**
+     * Như processPaymentAsync(Order, String, double) nhưng trả về PaymentResponse đầy đủ
+     * (để UI phân biệt thất bại với kết quả chưa rõ - PaymentResponse.isPending)
+     */
+    public CompletableFuture<PaymentResponse> submitPayment(Order order, String paymentMethod, double amountReceived) {
+        System.out.println("🔍 PaymentService.submitPayment() called");
         System.out.println("🔍 Order ID: " + order.getOrderId());
         System.out.println("🔍 Payment Method: " + paymentMethod);
         System.out.println("🔍 Amount Received: " + amountReceived);
@@ -265,17 +569,12 @@ public class PaymentService {
                 .setOrderId(order.getOrderId())
                 .setPaymentMethod(paymentMethod)
                 .setAmountReceived(amountReceived)
-                .setTransactionCode(null); // For educational project
+                .setTransactionCode(null) // For educational project
+                .setIdempotencyKey(order.getOrderNumber() + "-v" + order.getVersion() + "-" + paymentMethod);
         
-        System.out.println("🔍 PaymentRequest created, calling processPayment(request)...");
-        PaymentResponse response = processPayment(request);
-        System.out.println("🔍 PaymentResponse received: " + response.isSuccess());
-        if (!response.isSuccess()) {
-            System.out.println("🔍 Payment failed: " + response.getMessage());
-        }
-        return response.isSuccess();
+        return processPaymentAsync(request);
     }
-    
+
     /**
      * Legacy method - Process payment for an order (Original implementation)
      * @param order Order to process payment for
@@ -296,30 +595,49 @@ public class PaymentService {
                 SET payment_method = ?, 
                     payment_status = 'paid',
                     order_status = 'completed',
-                    updated_at = CURRENT_TIMESTAMP 
+                    updated_at = CURRENT_TIMESTAMP,
+                    version = version + 1
                 WHERE order_id = ?
             """;
 
-            try (PreparedStatement stmt = connection.prepareStatement(updateOrderSQL)) {
-                stmt.setString(1, paymentMethod);
-                stmt.setInt(2, order.getOrderId());
-                
-                int rowsUpdated = stmt.executeUpdate();
-                if (rowsUpdated > 0) {
-                    // Update local order object
-                    order.setPaymentMethod(paymentMethod);
-                    order.setPaymentStatus("paid");
-                    order.setOrderStatus("completed");
-                    
-                    // Log payment transaction
-                    logPaymentTransaction(order, paymentMethod, amountReceived);
-                    
-                    System.out.println("✅ Payment processed successfully for order: " + order.getOrderNumber());
-                    return true;
-                } else {
-                    System.err.println("❌ Failed to update order payment status");
+            PaymentSave saved = salesRollupService.savePaymentOnce(connection, order.getOrderId(), () -> {
+                try {
+                    return ChangeLogDAOImpl.runLogged(connection, () -> {
+                        try (PreparedStatement stmt = connection.prepareStatement(updateOrderSQL)) {
+                            stmt.setString(1, paymentMethod);
+                            stmt.setInt(2, order.getOrderId());
+                            if (stmt.executeUpdate() == 0) {
+                                return false;
+                            }
+                        }
+                        ChangeLogDAO changeLog = new ChangeLogDAOImpl(connection);
+                        return changeLog.appendOrderChange(order.getOrderId())
+                                && changeLog.appendTableChangeForOrder(order.getOrderId());
+                    });
+                } catch (SQLException e) {
+                    e.printStackTrace();
                     return false;
                 }
+            });
+            if (saved == PaymentSave.ALREADY_PAID) {
+                System.err.println("❌ Order " + order.getOrderNumber() + " was already paid");
+                return false;
+            }
+            if (saved == PaymentSave.SAVED) {
+                // Update local order object
+                order.setPaymentMethod(paymentMethod);
+                order.setPaymentStatus("paid");
+                order.setOrderStatus("completed");
+                ActiveOrderRegistry.track(order);
+                
+                // Log payment transaction
+                logPaymentTransaction(order, paymentMethod, amountReceived);
+                
+                System.out.println("✅ Payment processed successfully for order: " + order.getOrderNumber());
+                return true;
+            } else {
+                System.err.println("❌ Failed to update order payment status");
+                return false;
             }
             
         } catch (Exception e) {
@@ -469,31 +787,12 @@ public class PaymentService {
     // =====================================================
 
     /**
-     * Process electronic payment (MoMo, VNPay, ZaloPay)
-     * This is a simulation - in real implementation, integrate with actual payment gateways
+     * Process electronic payment (MoMo, VNPay, ZaloPay) qua cổng thanh toán
+     * Không chặn thread gọi; kết quả true nếu đã thanh toán và lưu thành công
      */
-    public boolean processElectronicPayment(Order order, PaymentMethod method, double amount) {
+    public CompletableFuture<Boolean> processElectronicPayment(Order order, PaymentMethod method, double amount) {
         System.out.println("🔄 Processing " + method.getDisplayName() + " payment for: " + amount);
-        
-        try {
-            // Simulate payment gateway call
-            Thread.sleep(1000); // Simulate network delay
-            
-            // Simulate success/failure (90% success rate)
-            boolean success = Math.random() > 0.1;
-            
-            if (success) {
-                System.out.println("✅ " + method.getDisplayName() + " payment successful");
-                return processPayment(order, method.getValue(), amount);
-            } else {
-                System.err.println("❌ " + method.getDisplayName() + " payment failed");
-                return false;
-            }
-            
-        } catch (Exception e) {
-            System.err.println("❌ Error processing electronic payment: " + e.getMessage());
-            return false;
-        }
+        return processPaymentAsync(order, method.getValue(), amount);
     }
 
     // =====================================================
@@ -0,0 +1,286 @@
+package com.cafe.service;
+
+import com.cafe.model.entity.Product;
+import com.cafe.util.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Chỉ mục tìm kiếm product in-memory, không phân biệt dấu
+ * "ca phe" → "Cà phê sữa", "sua" → "Sữa tươi", "phe" → "Cà phê"
+ *
+ * - Tên/mô tả được fold (bỏ dấu, chữ thường) qua TextNormalizer
+ * - Khớp tiền tố từ: mảng từ đã sắp xếp + binary search
+ * - Khớp giữa từ: chỉ mục trigram, sau đó kiểm tra lại bằng contains
+ * - Xếp hạng: trùng tên > tên bắt đầu bằng từ khóa > khớp tiền tố từ trong tên
+ *   > khớp trong tên > chỉ khớp mô tả
+ *
+ * Chỉ mục được dựng lại cùng MenuCatalog; phần fold của product không đổi
+ * tên/mô tả được dùng lại từ chỉ mục trước.
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+final class ProductSearchIndex {
+
+    private static final int GRAM = 3;
+    private static final int[] NO_DOCS = new int[0];
+
+    /** Dữ liệu đã fold của một product */
+    private static final class Entry {
+        final Product product;
+        final String rawName;
+        final String rawDescription;
+        final String name;
+        final String description;
+        final String[] nameWords;
+        final String[] descriptionWords;
+
+        Entry(Product product, Entry previous) {
+            this.product = product;
+            this.rawName = product.getProductName();
+            this.rawDescription = product.getDescription();
+            if (previous != null && previous.hasSameText(product)) {
+                this.name = previous.name;
+                this.description = previous.description;
+                this.nameWords = previous.nameWords;
+                this.descriptionWords = previous.descriptionWords;
+            } else {
+                this.name = TextNormalizer.fold(rawName);
+                this.description = TextNormalizer.fold(rawDescription);
+                this.nameWords = TextNormalizer.tokenize(rawName);
+                this.descriptionWords = TextNormalizer.tokenize(rawDescription);
+            }
+        }
+
+        boolean hasSameText(Product product) {
+            return Objects.equals(rawName, product.getProductName())
+                    && Objects.equals(rawDescription, product.getDescription());
+        }
+    }
+
+    private final Entry[] entries;
+
+    // Từ (đã fold, sắp xếp) → các doc chứa từ đó
+    private final String[] terms;
+    private final int[][] termDocs;
+
+    // Trigram → các doc chứa trigram trong tên hoặc mô tả
+    private final Map<String, int[]> gramDocs;
+
+    private ProductSearchIndex(Entry[] entries) {
+        this.entries = entries;
+
+        Map<String, BitSet> termMap = new TreeMap<>();
+        Map<String, BitSet> gramMap = new HashMap<>();
+        for (int doc = 0; doc < entries.length; doc++) {
+            Entry entry = entries[doc];
+            addTerms(termMap, entry.nameWords, doc);
+            addTerms(termMap, entry.descriptionWords, doc);
+            addGrams(gramMap, entry.name, doc);
+            addGrams(gramMap, entry.description, doc);
+        }
+
+        this.terms = termMap.keySet().toArray(new String[0]);
+        this.termDocs = new int[terms.length][];
+        int index = 0;
+        for (BitSet docs : termMap.values()) {
+            termDocs[index++] = docs.stream().toArray();
+        }
+
+        this.gramDocs = new HashMap<>(gramMap.size() * 2);
+        gramMap.forEach((gram, docs) -> gramDocs.put(gram, docs.stream().toArray()));
+    }
+
+    /**
+     * Dựng chỉ mục, dùng lại phần đã fold từ chỉ mục trước (có thể null)
+     */
+    static ProductSearchIndex build(List<Product> products, ProductSearchIndex previous) {
+        Map<Integer, Entry> previousEntries = new HashMap<>();
+        if (previous != null) {
+            for (Entry entry : previous.entries) {
+                previousEntries.put(entry.product.getProductId(), entry);
+            }
+        }
+
+        Entry[] entries = new Entry[products.size()];
+        for (int i = 0; i < entries.length; i++) {
+            Product product = products.get(i);
+            entries[i] = new Entry(product, previousEntries.get(product.getProductId()));
+        }
+        return new ProductSearchIndex(entries);
+    }
+
+    /**
+     * Tìm products khớp tất cả các từ của keyword, sắp xếp theo mức độ liên quan
+     * @param filter lọc thêm (category, available...), null = không lọc
+     */
+    List<Product> search(String keyword, Predicate<Product> filter) {
+        String[] queryWords = TextNormalizer.tokenize(keyword);
+        if (queryWords.length == 0) {
+            return List.of();
+        }
+
+        BitSet matches = null;
+        for (String word : queryWords) {
+            BitSet docs = docsMatching(word);
+            if (matches == null) {
+                matches = docs;
+            } else {
+                matches.and(docs);
+            }
+            if (matches.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        String query = String.join(" ", queryWords);
+        List<Entry> hits = new ArrayList<>();
+        List<Integer> scores = new ArrayList<>();
+        for (int doc = matches.nextSetBit(0); doc >= 0; doc = matches.nextSetBit(doc + 1)) {
+            Entry entry = entries[doc];
+            if (filter != null && !filter.test(entry.product)) {
+                continue;
+            }
+            hits.add(entry);
+            scores.add(score(entry, query, queryWords));
+        }
+
+        // Thứ tự gốc (theo tên) được giữ khi điểm và độ dài tên bằng nhau
+        Integer[] order = new Integer[hits.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int byScore = Integer.compare(scores.get(b), scores.get(a));
+            if (byScore != 0) {
+                return byScore;
+            }
+            return Integer.compare(hits.get(a).name.length(), hits.get(b).name.length());
+        });
+
+        List<Product> result = new ArrayList<>(order.length);
+        for (Integer i : order) {
+            result.add(hits.get(i).product);
+        }
+        return result;
+    }
+
+    // =====================================================
+    // MATCHING
+    // =====================================================
+
+    private BitSet docsMatching(String word) {
+        BitSet docs = new BitSet(entries.length);
+
+        // Tiền tố từ: các term >= word liên tiếp nhau trong mảng đã sắp xếp
+        int start = Arrays.binarySearch(terms, word);
+        if (start < 0) {
+            start = -start - 1;
+        }
+        for (int i = start; i < terms.length && terms[i].startsWith(word); i++) {
+            for (int doc : termDocs[i]) {
+                docs.set(doc);
+            }
+        }
+
+        // Khớp giữa từ ("phe" trong "caphe")
+        for (int doc : infixCandidates(word)) {
+            if (!docs.get(doc) && (entries[doc].name.contains(word) || entries[doc].description.contains(word))) {
+                docs.set(doc);
+            }
+        }
+        return docs;
+    }
+
+    private int[] infixCandidates(String word) {
+        if (word.length() < GRAM) {
+            // Từ quá ngắn cho trigram → kiểm tra toàn bộ
+            int[] all = new int[entries.length];
+            Arrays.setAll(all, i -> i);
+            return all;
+        }
+
+        int[] candidates = null;
+        for (int i = 0; i + GRAM <= word.length(); i++) {
+            int[] docs = gramDocs.getOrDefault(word.substring(i, i + GRAM), NO_DOCS);
+            candidates = candidates == null ? docs : intersect(candidates, docs);
+            if (candidates.length == 0) {
+                break;
+            }
+        }
+        return candidates;
+    }
+
+    private static int score(Entry entry, String query, String[] queryWords) {
+        int score = 0;
+        if (entry.name.equals(query)) {
+            score += 1000;
+        } else if (entry.name.startsWith(query)) {
+            score += 500;
+        } else if (entry.name.contains(query)) {
+            score += 300;
+        }
+
+        for (String word : queryWords) {
+            if (hasWordWithPrefix(entry.nameWords, word)) {
+                score += 50;
+            } else if (entry.name.contains(word)) {
+                score += 20;
+            } else {
+                score += 5;
+            }
+        }
+        return score;
+    }
+
+    private static boolean hasWordWithPrefix(String[] words, String prefix) {
+        for (String word : words) {
+            if (word.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // =====================================================
+    // BUILD HELPERS
+    // =====================================================
+
+    private static void addTerms(Map<String, BitSet> termMap, String[] words, int doc) {
+        for (String word : words) {
+            termMap.computeIfAbsent(word, w -> new BitSet()).set(doc);
+        }
+    }
+
+    private static void addGrams(Map<String, BitSet> gramMap, String text, int doc) {
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            gramMap.computeIfAbsent(text.substring(i, i + GRAM), g -> new BitSet()).set(doc);
+        }
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, size = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                result[size++] = a[i];
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+}
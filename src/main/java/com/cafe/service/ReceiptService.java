@@ -1,22 +1,29 @@
 package com.cafe.service;
 
-import com.cafe.config.DatabaseConfig;
-import com.cafe.dao.base.OrderDetailDAO;
-import com.cafe.dao.base.OrderDetailDAOImpl;
 import com.cafe.model.entity.Order;
 import com.cafe.model.entity.OrderDetail;
 import com.cafe.model.dto.PaymentRequest;
+import com.cafe.util.EscPosBuffer;
+import com.cafe.util.ExportProgress;
 import com.cafe.util.PriceFormatter;
 import com.cafe.util.PDFExporter;
+import com.cafe.util.PdfRenderer;
+import com.cafe.util.PrintSpooler;
+import com.cafe.util.ReceiptJournal;
+import com.cafe.util.ReceiptTemplate;
 import com.cafe.util.SessionManager;
+import com.itextpdf.text.PageSize;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.sql.Connection;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Receipt Service - Complete Receipt Generation System
@@ -27,7 +34,10 @@ import java.util.List;
  */
 public class ReceiptService {
     
-    private final String RECEIPT_DIR = System.getProperty("user.home") + "/Downloads/receipts/";
+    private static final String RECEIPT_DIR = System.getProperty("user.home") + "/Downloads/receipts/";
+
+    // Hóa đơn đã thanh toán được ghi nền vào nhật ký theo ngày (không tạo file riêng)
+    private static final ReceiptJournal JOURNAL = new ReceiptJournal(Paths.get(RECEIPT_DIR));
 
     private static final String RECEIPT_HEADER = "CAFE PROJECT2";
     private static final String RECEIPT_SUBTITLE = "Hệ thống quản lý quán cà phê";
@@ -35,105 +45,116 @@ public class ReceiptService {
     private static final String RECEIPT_GOODBYE = "Hẹn gặp lại quý khách!";
     
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+    // Mẫu hóa đơn máy in nhiệt dựng một lần; mỗi thread dùng lại buffer của mình
+    private static final ReceiptTemplate THERMAL_TEMPLATE = ReceiptTemplate.fromConfig(RECEIPT_HEADER, RECEIPT_SUBTITLE);
+    private static final ThreadLocal<EscPosBuffer> PRINT_BUFFER = ThreadLocal.withInitial(() -> new EscPosBuffer(2048, true));
+    private static final ThreadLocal<EscPosBuffer> PREVIEW_BUFFER = ThreadLocal.withInitial(() -> new EscPosBuffer(2048, false));
     
     public ReceiptService() {
         createReceiptDirectory();
     }
     
     /**
-     * Generate receipt and return file path (Enhanced version)
+     * Tham chiếu hóa đơn của order trong nhật ký hôm nay (biết trước khi ghi,
+     * để lưu cùng transaction thanh toán)
      */
-    public String generateReceipt(Order order, PaymentRequest payment) {
-        try (Connection connection = DatabaseConfig.getConnection()) {
-            OrderDetailDAO orderDetailDAO = new OrderDetailDAOImpl(connection);
-            List<OrderDetail> details = orderDetailDAO.findByOrderId(order.getOrderId());
-            
-            String fileName = String.format("receipt_%s_%s.txt", 
-                    order.getOrderNumber(), 
-                    LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")));
-            
-            String filePath = RECEIPT_DIR + fileName;
-            
-            generateTextReceipt(order, details, payment, filePath);
-            
-            System.out.println("✅ Receipt generated: " + filePath);
-            return filePath;
-            
+    public String receiptReference(Order order) {
+        return JOURNAL.referenceFor(LocalDate.now(), order.getOrderNumber());
+    }
+
+    /**
+     * Tạo hóa đơn từ order + chi tiết đã có sẵn và đưa vào hàng đợi ghi nhật ký
+     * (không mở connection, không chờ I/O file)
+     * @param reference tham chiếu từ receiptReference()
+     * @return reference, hoặc null nếu lỗi
+     */
+    public String generateReceipt(String reference, Order order, List<OrderDetail> details, PaymentRequest payment) {
+        try {
+            JOURNAL.append(reference, renderTextReceipt(order, details, payment));
+            System.out.println("✅ Receipt queued: " + reference);
+            return reference;
         } catch (Exception e) {
             System.err.println("❌ Receipt generation failed: " + e.getMessage());
             return null;
         }
     }
+
+    /**
+     * Đọc lại hóa đơn đã tạo (in lại) theo tham chiếu
+     */
+    public Optional<String> findReceipt(String reference) {
+        return JOURNAL.read(reference);
+    }
     
     /**
-     * Generate text format receipt (Enhanced version)
+     * Render text format receipt (Enhanced version)
      */
-    private void generateTextReceipt(Order order, List<OrderDetail> details, PaymentRequest payment, String filePath) 
-            throws IOException {
+    private String renderTextReceipt(Order order, List<OrderDetail> details, PaymentRequest payment) {
+        StringBuilder writer = new StringBuilder(1024);
         
-        try (FileWriter writer = new FileWriter(filePath)) {
-            // Header
-            writer.write("=====================================\n");
-            writer.write("          CAFE PROJECT2\n");
-            writer.write("      123 Đường ABC, Quận XYZ\n");
-            writer.write("         Tel: 0123456789\n");
-            writer.write("=====================================\n\n");
-            
-            // Order info
-            writer.write("Hóa đơn: " + order.getOrderNumber() + "\n");
-            writer.write("Bàn: " + order.getTableId() + "\n");
-            writer.write("Ngày: " + order.getOrderDate().toString() + "\n");
-            // Get cashier info from session
-            String cashierName = getCashierNameFromSession();
-            writer.write("Thu ngân: " + cashierName + "\n");
-            writer.write("-------------------------------------\n\n");
-            
-            // Items
-            writer.write("STT  Tên món                   SL    Đơn giá      Thành tiền\n");
-            writer.write("-------------------------------------\n");
-            
-            int stt = 1;
-            for (OrderDetail detail : details) {
-                writer.write(String.format("%-3d  %-20s  %3d  %10s  %12s\n",
-                        stt++,
-                        detail.getProductName() != null ? detail.getProductName() : "Sản phẩm " + detail.getProductId(),
-                        detail.getQuantity(),
-                        PriceFormatter.formatVND(detail.getUnitPrice()),
-                        PriceFormatter.formatVND(detail.getTotalPrice())
-                ));
-            }
-            
-            writer.write("-------------------------------------\n");
-            
-            // Totals
-            writer.write(String.format("Tạm tính:               %15s\n", PriceFormatter.formatVND(order.getTotalAmount())));
-            writer.write(String.format("VAT (8%%):               %15s\n", PriceFormatter.formatVND(order.getTotalAmount() * 0.08)));
-            if (order.getDiscountAmount() > 0) {
-                writer.write(String.format("Giảm giá:              -%15s\n", PriceFormatter.formatVND(order.getDiscountAmount())));
-            }
-            writer.write("-------------------------------------\n");
-            writer.write(String.format("TỔNG CỘNG:              %15s\n", PriceFormatter.formatVND(order.getFinalAmount())));
-            
-            // Payment info
-            writer.write("\n");
-            writer.write("Phương thức: " + getPaymentMethodDisplay(payment.getPaymentMethod()) + "\n");
-            
-            if ("cash".equals(payment.getPaymentMethod())) {
-                writer.write(String.format("Tiền nhận:              %15s\n", PriceFormatter.formatVND(payment.getAmountReceived())));
-                double change = payment.getAmountReceived() - order.getFinalAmount();
-                if (change > 0) {
-                    writer.write(String.format("Tiền thối:              %15s\n", PriceFormatter.formatVND(change)));
-                }
-            } else if (payment.getTransactionCode() != null) {
-                writer.write("Mã GD: " + payment.getTransactionCode() + "\n");
+        // Header
+        writer.append("=====================================\n");
+        writer.append("          CAFE PROJECT2\n");
+        writer.append("      123 Đường ABC, Quận XYZ\n");
+        writer.append("         Tel: 0123456789\n");
+        writer.append("=====================================\n\n");
+        
+        // Order info
+        writer.append("Hóa đơn: " + order.getOrderNumber() + "\n");
+        writer.append("Bàn: " + order.getTableId() + "\n");
+        writer.append("Ngày: " + order.getOrderDate().toString() + "\n");
+        // Get cashier info from session
+        String cashierName = getCashierNameFromSession();
+        writer.append("Thu ngân: " + cashierName + "\n");
+        writer.append("-------------------------------------\n\n");
+        
+        // Items
+        writer.append("STT  Tên món                   SL    Đơn giá      Thành tiền\n");
+        writer.append("-------------------------------------\n");
+        
+        int stt = 1;
+        for (OrderDetail detail : details) {
+            writer.append(String.format("%-3d  %-20s  %3d  %10s  %12s\n",
+                    stt++,
+                    detail.getProductName() != null ? detail.getProductName() : "Sản phẩm " + detail.getProductId(),
+                    detail.getQuantity(),
+                    PriceFormatter.formatVND(detail.getUnitPrice()),
+                    PriceFormatter.formatVND(detail.getTotalPrice())
+            ));
+        }
+        
+        writer.append("-------------------------------------\n");
+        
+        // Totals
+        writer.append(String.format("Tạm tính:               %15s\n", PriceFormatter.formatVND(order.getTotalAmount())));
+        writer.append(String.format("VAT (8%%):               %15s\n", PriceFormatter.formatVND(order.getTotalAmount() * 0.08)));
+        if (order.getDiscountAmount() > 0) {
+            writer.append(String.format("Giảm giá:              -%15s\n", PriceFormatter.formatVND(order.getDiscountAmount())));
+        }
+        writer.append("-------------------------------------\n");
+        writer.append(String.format("TỔNG CỘNG:              %15s\n", PriceFormatter.formatVND(order.getFinalAmount())));
+        
+        // Payment info
+        writer.append("\n");
+        writer.append("Phương thức: " + getPaymentMethodDisplay(payment.getPaymentMethod()) + "\n");
+        
+        if ("cash".equalsIgnoreCase(payment.getPaymentMethod())) {
+            writer.append(String.format("Tiền nhận:              %15s\n", PriceFormatter.formatVND(payment.getAmountReceived())));
+            double change = payment.getAmountReceived() - order.getFinalAmount();
+            if (change > 0) {
+                writer.append(String.format("Tiền thối:              %15s\n", PriceFormatter.formatVND(change)));
             }
-            
-            // Footer
-            writer.write("\n=====================================\n");
-            writer.write("     Cảm ơn quý khách đã sử dụng\n");
-            writer.write("         dịch vụ của chúng tôi!\n");
-            writer.write("=====================================\n");
+        } else if (payment.getTransactionCode() != null) {
+            writer.append("Mã GD: " + payment.getTransactionCode() + "\n");
         }
+        
+        // Footer
+        writer.append("\n=====================================\n");
+        writer.append("     Cảm ơn quý khách đã sử dụng\n");
+        writer.append("         dịch vụ của chúng tôi!\n");
+        writer.append("=====================================\n");
+        return writer.toString();
     }
     
     private String getPaymentMethodDisplay(String method) {
@@ -323,77 +344,84 @@ public class ReceiptService {
     }
 
     /**
-     * Generate simple receipt for thermal printer (58mm width)
+     * Gộp mọi hóa đơn trong nhật ký của ngày day thành một file PDF (mỗi hóa đơn một trang),
+     * render song song bằng PdfRenderer
+     * @param progress tiến độ theo số hóa đơn đã ghép; isCancelled() = true để dừng
+     * @return số hóa đơn đã xuất, -1 nếu bị hủy
+     */
+    public int exportDailyReceiptBundle(LocalDate day, Path target, ExportProgress progress) throws IOException {
+        List<String> receipts = loadDailyReceipts(day);
+        return PdfRenderer.getInstance().renderBundle(receipts, PageSize.A4, PDFExporter::writeReceipt, target, progress);
+    }
+
+    private List<String> loadDailyReceipts(LocalDate day) {
+        List<String> receipts = new ArrayList<>();
+        for (String reference : JOURNAL.referencesForDay(day)) {
+            JOURNAL.read(reference).ifPresent(receipts::add);
+        }
+        return receipts;
+    }
+
+    /**
+     * Generate simple receipt for thermal printer (bản xem trước dạng text, cùng mẫu với lệnh in)
      * @param order Paid order
      * @param orderDetails Order details
      * @return Thermal printer formatted string
      */
     public String generateThermalReceipt(Order order, List<OrderDetail> orderDetails) {
-        StringBuilder receipt = new StringBuilder();
-        
-        // Thermal printer header (32 chars width)
-        receipt.append("================================\n");
-        receipt.append("        CAFE PROJECT2\n");
-        receipt.append("   He thong quan ly quan ca phe\n");
-        receipt.append("================================\n\n");
-        
-        // Order info (shortened for thermal)
-        receipt.append("Order: ").append(order.getOrderNumber()).append("\n");
-        receipt.append("Ban: ").append(order.getTableId()).append("\n");
-        receipt.append("Time: ").append(LocalDateTime.now().format(
-            DateTimeFormatter.ofPattern("dd/MM HH:mm"))).append("\n\n");
-        
-        // Items (compact format)
-        receipt.append("--------------------------------\n");
-        if (orderDetails != null && !orderDetails.isEmpty()) {
-            for (OrderDetail detail : orderDetails) {
-                String productName = detail.getProductName() != null ? 
-                    detail.getProductName() : "SP" + detail.getProductId();
-                
-                receipt.append(String.format("%-15s x%d %8s\n", 
-                    truncateString(productName, 15),
-                    detail.getQuantity(),
-                    PriceFormatter.formatNumber(detail.getTotalPrice())
-                ));
-            }
-        }
-        
-        // Totals (compact)
-        receipt.append("--------------------------------\n");
-        receipt.append(String.format("TONG: %22s d\n", 
-            PriceFormatter.formatNumber(order.getFinalAmount())));
-        receipt.append("================================\n");
-        receipt.append("TT: ").append(getPaymentMethodDisplayName(order.getPaymentMethod())).append("\n");
-        receipt.append("================================\n");
-        receipt.append("    Cam on quy khach!\n");
-        receipt.append("   Hen gap lai quy khach!\n");
-        receipt.append("================================\n\n\n");
-        
-        return receipt.toString();
+        EscPosBuffer buffer = PREVIEW_BUFFER.get().reset();
+        THERMAL_TEMPLATE.render(buffer, order, orderDetails, getCashierNameFromSession(), thermalPayment(order, null));
+        return buffer.toText();
     }
 
     /**
-     * Print receipt to default printer (simulation)
-     * In real implementation, this would send to actual printer
+     * Đưa hóa đơn vào hàng đợi máy in (không chờ in xong)
+     * @return true nếu đã vào hàng đợi
      */
     public boolean printReceipt(Order order, List<OrderDetail> orderDetails) {
+        return queuePrint(order, orderDetails, null) != null;
+    }
+
+    /**
+     * Render hóa đơn thành lệnh ESC/POS và đưa vào PrintSpooler
+     * @param payment thông tin tiền nhận / mã giao dịch / tổng đã thu gồm VAT (null = chỉ in phương thức của order)
+     * @return lệnh in để theo dõi trạng thái, null nếu lỗi render
+     */
+    public PrintSpooler.PrintJob queuePrint(Order order, List<OrderDetail> orderDetails, PaymentRequest payment) {
         try {
-            String receiptContent = generateThermalReceipt(order, orderDetails);
-            
-            // Simulate printing (in real implementation, send to printer)
-            System.out.println("🖨️ Printing receipt for order: " + order.getOrderNumber());
-            System.out.println("Receipt content:");
-            System.out.println(receiptContent);
-            
-            // In real implementation:
-            // PrintService printService = PrintServiceLookup.lookupDefaultPrintService();
-            // Send receiptContent to printer...
-            
-            return true;
+            EscPosBuffer buffer = PRINT_BUFFER.get().reset();
+            THERMAL_TEMPLATE.render(buffer, order, orderDetails, getCashierNameFromSession(),
+                    thermalPayment(order, payment));
+            PrintSpooler.PrintJob job = PrintSpooler.getInstance().submit(order.getOrderNumber(), buffer.toByteArray());
+            System.out.println("🖨️ Receipt queued for printing: " + order.getOrderNumber() + " (job " + job.getId() + ")");
+            return job;
         } catch (Exception e) {
             System.err.println("❌ Error printing receipt: " + e.getMessage());
-            return false;
+            return null;
+        }
+    }
+
+    /**
+     * In lại một hóa đơn đã gửi máy in
+     * @return lệnh in mới, null nếu lệnh cũ không còn trong lịch sử
+     */
+    public PrintSpooler.PrintJob reprintReceipt(long jobId) {
+        return PrintSpooler.getInstance().reprint(jobId);
+    }
+
+    private ReceiptTemplate.Payment thermalPayment(Order order, PaymentRequest payment) {
+        if (payment == null || payment.getPaymentMethod() == null) {
+            return new ReceiptTemplate.Payment(getPaymentMethodDisplayName(order.getPaymentMethod()), false, 0, null);
         }
+        return new ReceiptTemplate.Payment(
+                getPaymentMethodDisplay(payment.getPaymentMethod()),
+                "cash".equalsIgnoreCase(payment.getPaymentMethod()),
+                payment.getAmountReceived(),
+                payment.getTransactionCode(),
+                payment.getSubtotal(),
+                payment.getVatAmount(),
+                payment.getDiscountAmount(),
+                payment.getTotalAmount());
     }
 
     // =====================================================
@@ -1,18 +1,14 @@
 package com.cafe.service;
 
 import com.cafe.config.DatabaseConfig;
-import com.cafe.dao.base.OrderDAO;
-import com.cafe.dao.base.OrderDAOImpl;
 import com.cafe.dao.base.ProductDAO;
 import com.cafe.dao.base.ProductDAOImpl;
-import com.cafe.dao.base.UserDAO;
-import com.cafe.dao.base.UserDAOImpl;
-import com.cafe.model.entity.Order;
-
-import com.cafe.model.entity.User;
+import com.cafe.dao.base.ReportQueryDAO;
+import com.cafe.dao.base.ReportQueryDAOImpl;
 
 import java.sql.Connection;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 import java.util.List;
 import java.util.Map;
@@ -36,16 +32,8 @@ public class ReportService {
      */
     public double getRevenueByDateRange(LocalDate fromDate, LocalDate toDate) {
         try (Connection conn = DatabaseConfig.getConnection()) {
-            OrderDAO orderDAO = new OrderDAOImpl(conn);
-            return orderDAO.getAllOrders().stream()
-                    .filter(order -> order.getOrderDate() != null)
-                    .filter(order -> {
-                        LocalDate orderDate = order.getOrderDate().toLocalDateTime().toLocalDate();
-                        return !orderDate.isBefore(fromDate) && !orderDate.isAfter(toDate);
-                    })
-                    .filter(order -> "paid".equals(order.getOrderStatus()))
-                    .mapToDouble(Order::getTotalAmount)
-                    .sum();
+            ReportQueryDAO reportQueryDAO = new ReportQueryDAOImpl(conn);
+            return reportQueryDAO.sumPaidRevenue(startOf(fromDate), startOf(toDate.plusDays(1)));
         } catch (Exception e) {
             System.err.println("Error calculating revenue: " + e.getMessage());
             return 0.0;
@@ -57,14 +45,8 @@ public class ReportService {
      */
     public long getOrderCountByDateRange(LocalDate fromDate, LocalDate toDate) {
         try (Connection conn = DatabaseConfig.getConnection()) {
-            OrderDAO orderDAO = new OrderDAOImpl(conn);
-            return orderDAO.getAllOrders().stream()
-                    .filter(order -> order.getOrderDate() != null)
-                    .filter(order -> {
-                        LocalDate orderDate = order.getOrderDate().toLocalDateTime().toLocalDate();
-                        return !orderDate.isBefore(fromDate) && !orderDate.isAfter(toDate);
-                    })
-                    .count();
+            ReportQueryDAO reportQueryDAO = new ReportQueryDAOImpl(conn);
+            return reportQueryDAO.countOrders(startOf(fromDate), startOf(toDate.plusDays(1)));
         } catch (Exception e) {
             System.err.println("Error counting orders: " + e.getMessage());
             return 0;
@@ -115,32 +97,15 @@ public class ReportService {
      */
     public List<StaffPerformanceReport> getStaffPerformance() {
         try (Connection conn = DatabaseConfig.getConnection()) {
-            UserDAO userDAO = new UserDAOImpl(conn);
-            OrderDAO orderDAO = new OrderDAOImpl(conn);
-            
-            List<User> staff = userDAO.getAllUsers();
-            List<Order> orders = orderDAO.getAllOrders();
-            
-            return staff.stream()
-                    .filter(user -> !"Admin".equals(user.getRole()))
-                    .map(user -> {
-                        long userOrders = orders.stream()
-                                .filter(order -> order.getUserId() == user.getUserId())
-                                .count();
-                        double userRevenue = orders.stream()
-                                .filter(order -> order.getUserId() == user.getUserId())
-                                .filter(order -> "paid".equals(order.getOrderStatus()))
-                                .mapToDouble(Order::getTotalAmount)
-                                .sum();
-                        
-                        return new StaffPerformanceReport(
-                            user.getFullName(),
-                            user.getRole(),
-                            (int)userOrders,
-                            userRevenue,
-                            userOrders > 0 ? userRevenue / userOrders : 0
-                        );
-                    })
+            ReportQueryDAO reportQueryDAO = new ReportQueryDAOImpl(conn);
+            return reportQueryDAO.getStaffSalesSummaries().stream()
+                    .map(summary -> new StaffPerformanceReport(
+                        summary.getFullName(),
+                        summary.getRole(),
+                        summary.getTotalOrders(),
+                        summary.getTotalRevenue(),
+                        summary.getAverageOrderValue()
+                    ))
                     .collect(Collectors.toList());
         } catch (Exception e) {
             System.err.println("Error getting staff performance: " + e.getMessage());
@@ -153,18 +118,8 @@ public class ReportService {
      */
     public Map<Integer, Double> getHourlyRevenue(LocalDate date) {
         try (Connection conn = DatabaseConfig.getConnection()) {
-            OrderDAO orderDAO = new OrderDAOImpl(conn);
-            return orderDAO.getAllOrders().stream()
-                    .filter(order -> order.getOrderDate() != null)
-                    .filter(order -> {
-                        LocalDate orderDate = order.getOrderDate().toLocalDateTime().toLocalDate();
-                        return orderDate.equals(date);
-                    })
-                    .filter(order -> "paid".equals(order.getOrderStatus()))
-                    .collect(Collectors.groupingBy(
-                        order -> order.getOrderDate().toLocalDateTime().getHour(),
-                        Collectors.summingDouble(Order::getTotalAmount)
-                    ));
+            ReportQueryDAO reportQueryDAO = new ReportQueryDAOImpl(conn);
+            return reportQueryDAO.sumPaidRevenueByHour(startOf(date), startOf(date.plusDays(1)));
         } catch (Exception e) {
             System.err.println("Error getting hourly revenue: " + e.getMessage());
             return Map.of();
@@ -175,20 +130,8 @@ public class ReportService {
      * Get today's orders count
      */
     public int getTodayOrdersCount() {
-        try (Connection conn = DatabaseConfig.getConnection()) {
-            OrderDAO orderDAO = new OrderDAOImpl(conn);
-            LocalDate today = LocalDate.now();
-            return (int) orderDAO.getAllOrders().stream()
-                    .filter(order -> order.getOrderDate() != null)
-                    .filter(order -> {
-                        LocalDate orderDate = order.getOrderDate().toLocalDateTime().toLocalDate();
-                        return orderDate.equals(today);
-                    })
-                    .count();
-        } catch (Exception e) {
-            System.err.println("Error getting today's orders count: " + e.getMessage());
-            return 0;
-        }
+        LocalDate today = LocalDate.now();
+        return (int) getOrderCountByDateRange(today, today);
     }
 
     /**
@@ -196,17 +139,21 @@ public class ReportService {
      */
     public int getPendingOrdersCount() {
         try (Connection conn = DatabaseConfig.getConnection()) {
-            OrderDAO orderDAO = new OrderDAOImpl(conn);
-            return (int) orderDAO.getAllOrders().stream()
-                    .filter(order -> "pending".equals(order.getOrderStatus()) || 
-                                   "preparing".equals(order.getOrderStatus()))
-                    .count();
+            ReportQueryDAO reportQueryDAO = new ReportQueryDAOImpl(conn);
+            return (int) reportQueryDAO.countOrdersByStatus("pending", "preparing");
         } catch (Exception e) {
             System.err.println("Error getting pending orders count: " + e.getMessage());
             return 0;
         }
     }
 
+    /**
+     * Mốc đầu ngày, dùng làm biên cho khoảng nửa mở [from, to)
+     */
+    private static LocalDateTime startOf(LocalDate date) {
+        return date.atStartOfDay();
+    }
+
     // Data Transfer Objects for reports
     public static class ProductSalesReport {
         private String productName;
@@ -258,47 +205,13 @@ public class ReportService {
      * @return List of sales data
      */
     public java.util.List<com.cafe.model.dto.SalesData> getSalesDataByDateRange(java.time.LocalDate startDate, java.time.LocalDate endDate) {
-        try (Connection conn = DatabaseConfig.getConnection()) {
-            String sql = """
-                SELECT 
-                    DATE(o.order_date) as order_date,
-                    COUNT(o.order_id) as total_orders,
-                    COALESCE(SUM(o.total_amount), 0) as total_revenue,
-                    COALESCE(SUM(od.quantity), 0) as total_items_sold
-                FROM orders o
-                LEFT JOIN order_details od ON o.order_id = od.order_id
-                WHERE o.payment_status = 'paid'
-                AND DATE(o.order_date) BETWEEN ? AND ?
-                GROUP BY DATE(o.order_date)
-                ORDER BY order_date DESC
-                """;
-            
-            java.util.List<com.cafe.model.dto.SalesData> salesDataList = new java.util.ArrayList<>();
-            
-            try (var stmt = conn.prepareStatement(sql)) {
-                stmt.setDate(1, java.sql.Date.valueOf(startDate));
-                stmt.setDate(2, java.sql.Date.valueOf(endDate));
-                
-                try (var rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        java.time.LocalDate date = rs.getDate("order_date").toLocalDate();
-                        int totalOrders = rs.getInt("total_orders");
-                        double totalRevenue = rs.getDouble("total_revenue");
-                        int totalItemsSold = rs.getInt("total_items_sold");
-                        
-                        salesDataList.add(new com.cafe.model.dto.SalesData(date, totalOrders, totalRevenue, totalItemsSold));
-                    }
-                }
-            }
-            
-            System.out.println("📊 Retrieved " + salesDataList.size() + " sales data records for date range: " + startDate + " to " + endDate);
-            return salesDataList;
-            
-        } catch (Exception e) {
-            System.err.println("❌ Error getting sales data by date range: " + e.getMessage());
-            e.printStackTrace();
-            return java.util.List.of();
-        }
+        // Đọc từ bảng rollup sales_daily (một dòng/ngày), mới nhất trước
+        java.util.List<com.cafe.model.dto.SalesData> salesDataList =
+                new java.util.ArrayList<>(new SalesRollupService().getDailySales(startDate, endDate));
+        java.util.Collections.reverse(salesDataList);
+
+        System.out.println("📊 Retrieved " + salesDataList.size() + " sales data records for date range: " + startDate + " to " + endDate);
+        return salesDataList;
     }
 }
 
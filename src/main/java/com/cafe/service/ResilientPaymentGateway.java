@@ -0,0 +1,177 @@
+package com.cafe.service;
+
+import com.cafe.config.DatabaseConfig;
+import com.cafe.exception.PaymentGatewayException;
+import com.cafe.model.dto.PaymentResponse;
+import com.cafe.model.enums.PaymentMethod;
+import com.cafe.util.CircuitBreaker;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Bọc một PaymentGateway với timeout, thử lại và circuit breaker theo từng phương thức
+ *
+ * - Timeout: payment.gateway.{method}.timeoutMs (mặc định payment.gateway.timeoutMs)
+ * - Thử lại khi timeout / lỗi mạng / HTTP 5xx, tối đa payment.gateway.maxAttempts lần,
+ *   chờ payment.gateway.backoffMs × 2^(lần-1) (+ jitter) giữa các lần; cùng idempotencyKey
+ *   nên cổng không trừ tiền hai lần
+ * - Giao dịch bị từ chối không thử lại và không tính là lỗi của cổng
+ * - Hết lượt thử mà có lần đã gửi được yêu cầu (timeout, HTTP 5xx, mất kết nối giữa chừng) →
+ *   PaymentResponse.pending: tiền có thể đã bị trừ; gửi lại cùng idempotencyKey để cổng trả kết quả
+ *   thật thay vì coi là thất bại rồi thu tiền lần nữa. Chỉ lỗi chắc chắn chưa gửi (không kết nối được)
+ *   mới là failure
+ * - Circuit breaker: payment.gateway.breaker.failureThreshold lỗi liên tiếp → từ chối ngay
+ *   trong payment.gateway.breaker.openMs (không bắt thu ngân chờ timeout lặp lại)
+ * - Việc chờ (backoff, timeout) dùng timer của CompletableFuture, không chiếm thread
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public class ResilientPaymentGateway implements PaymentGateway {
+
+    private final PaymentGateway delegate;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final Map<PaymentMethod, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public ResilientPaymentGateway(PaymentGateway delegate) {
+        this.delegate = delegate;
+        this.maxAttempts = Math.max(1, DatabaseConfig.getPropertyAsInt("payment.gateway.maxAttempts", 3));
+        this.backoffMillis = Math.max(0, DatabaseConfig.getPropertyAsInt("payment.gateway.backoffMs", 200));
+    }
+
+    @Override
+    public CompletableFuture<PaymentResponse> charge(PaymentMethod method, String idempotencyKey,
+                                                     int orderId, double amount) {
+        CompletableFuture<PaymentResponse> result = new CompletableFuture<>();
+        attempt(method, idempotencyKey, orderId, amount, 1, false, result);
+        return result;
+    }
+
+    /**
+     * Trạng thái circuit breaker của một phương thức (để hiển thị / theo dõi)
+     */
+    public CircuitBreaker.State getCircuitState(PaymentMethod method) {
+        return getBreaker(method).getState();
+    }
+
+    /**
+     * @param uncertain một lần thử trước đã có thể tới được cổng (kết quả chưa rõ)
+     */
+    private void attempt(PaymentMethod method, String idempotencyKey, int orderId, double amount,
+                         int attempt, boolean uncertain, CompletableFuture<PaymentResponse> result) {
+        CircuitBreaker breaker = getBreaker(method);
+        if (!breaker.tryAcquire()) {
+            result.complete(uncertain
+                    ? pending(method)
+                    : PaymentResponse.failure(method.getDisplayName()
+                            + " tạm thời không khả dụng, vui lòng chọn phương thức khác"));
+            return;
+        }
+
+        CompletableFuture<PaymentResponse> call;
+        try {
+            call = delegate.charge(method, idempotencyKey, orderId, amount);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+
+        call.orTimeout(getTimeoutMillis(method), TimeUnit.MILLISECONDS)
+                .whenComplete((response, error) -> {
+                    if (error == null) {
+                        breaker.recordSuccess();
+                        result.complete(response);
+                        return;
+                    }
+
+                    breaker.recordFailure();
+                    Throwable cause = unwrap(error);
+                    boolean stillUncertain = uncertain || mayHaveReachedGateway(cause);
+                    if (attempt < maxAttempts && isRetryable(cause)) {
+                        long delay = backoffDelay(attempt);
+                        System.err.println("⚠️ " + method.getDisplayName() + " attempt " + attempt + " failed ("
+                                + describe(cause) + "), retrying in " + delay + "ms");
+                        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                                .execute(() -> attempt(method, idempotencyKey, orderId, amount, attempt + 1,
+                                        stillUncertain, result));
+                    } else if (stillUncertain) {
+                        System.err.println("⚠️ " + method.getDisplayName() + " payment " + idempotencyKey
+                                + " unresolved after " + attempt + " attempt(s): " + describe(cause));
+                        result.complete(pending(method));
+                    } else {
+                        System.err.println("❌ " + method.getDisplayName() + " payment failed after " + attempt
+                                + " attempt(s): " + describe(cause));
+                        result.complete(PaymentResponse.failure(method.getDisplayName()
+                                + " không phản hồi: " + describe(cause)));
+                    }
+                });
+    }
+
+    // ===================== Helper Methods =======================
+
+    private CircuitBreaker getBreaker(PaymentMethod method) {
+        return breakers.computeIfAbsent(method, m -> new CircuitBreaker(
+                "payment-" + m.getValue(),
+                DatabaseConfig.getPropertyAsInt("payment.gateway.breaker.failureThreshold", 5),
+                DatabaseConfig.getPropertyAsInt("payment.gateway.breaker.openMs", 30_000)));
+    }
+
+    private long getTimeoutMillis(PaymentMethod method) {
+        int defaultTimeout = DatabaseConfig.getPropertyAsInt("payment.gateway.timeoutMs", 5_000);
+        return DatabaseConfig.getPropertyAsInt("payment.gateway." + method.getValue() + ".timeoutMs", defaultTimeout);
+    }
+
+    private long backoffDelay(int attempt) {
+        long base = backoffMillis << (attempt - 1);
+        return base + (base > 0 ? ThreadLocalRandom.current().nextLong(base / 2 + 1) : 0);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static PaymentResponse pending(PaymentMethod method) {
+        return PaymentResponse.pending("Chưa xác nhận được kết quả từ " + method.getDisplayName()
+                + ". Bấm thanh toán lại để kiểm tra (không bị trừ tiền hai lần)");
+    }
+
+    /**
+     * Lỗi sau khi yêu cầu có thể đã tới cổng (khác với không kết nối được)
+     */
+    private static boolean mayHaveReachedGateway(Throwable cause) {
+        if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException) {
+            return false;
+        }
+        if (cause instanceof PaymentGatewayException) {
+            return true; // Cổng đã nhận yêu cầu (HTTP 5xx hoặc phản hồi sai định dạng)
+        }
+        return cause instanceof TimeoutException || cause instanceof IOException;
+    }
+
+    private static boolean isRetryable(Throwable cause) {
+        if (cause instanceof PaymentGatewayException gatewayException) {
+            return gatewayException.isRetryable();
+        }
+        return cause instanceof TimeoutException || cause instanceof IOException;
+    }
+
+    private static String describe(Throwable cause) {
+        if (cause instanceof TimeoutException) {
+            return "timeout";
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+}
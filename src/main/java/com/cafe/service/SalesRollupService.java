@@ -0,0 +1,202 @@
+package com.cafe.service;
+
+import com.cafe.config.DatabaseConfig;
+import com.cafe.dao.base.OrderDAOImpl;
+import com.cafe.dao.base.SalesRollupDAO;
+import com.cafe.dao.base.SalesRollupDAOImpl;
+import com.cafe.model.dto.SalesBreakdown;
+import com.cafe.model.dto.SalesData;
+import com.cafe.util.ChangeFeedMulticast;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Sales Rollup Service - Tổng hợp doanh thu theo ngày
+ *
+ * - Khi order chuyển sang 'paid', savePayment() cộng order vào sales_daily,
+ *   sales_product_daily, sales_category_daily trong cùng transaction
+ * - Dòng order bị khóa (SELECT ... FOR UPDATE) trước khi ghi nên một order
+ *   chỉ được cộng một lần dù nhiều luồng/máy cùng lưu trạng thái 'paid'
+ * - savePaymentOnce() dùng cho lượt thu tiền mới: order đã 'paid' khi khóa → không ghi,
+ *   trả ALREADY_PAID để caller xử lý thu trùng
+ * - Báo cáo đọc từ các bảng rollup (một dòng/ngày) thay vì quét orders + order_details
+ * - backfill() dựng lại rollup từ dữ liệu gốc, từng tháng một transaction
+ *
+ * Ngày = DATE(order_date), doanh thu = total_amount của đơn đã thanh toán, chưa hủy.
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public class SalesRollupService {
+
+    private static final AtomicBoolean initialBackfillDone = new AtomicBoolean(false);
+
+    /**
+     * Kết quả savePaymentOnce
+     */
+    public enum PaymentSave {
+        SAVED, ALREADY_PAID, FAILED
+    }
+
+    /**
+     * Ghi trạng thái thanh toán của order và cập nhật rollup trong một transaction
+     * @param conn connection của caller (autoCommit sẽ được khôi phục)
+     * @param orderId order đang được thanh toán
+     * @param writeOrder thao tác ghi order (trả về false nếu thất bại)
+     * @return true nếu đã commit
+     */
+    public boolean savePayment(Connection conn, int orderId, BooleanSupplier writeOrder) throws SQLException {
+        return save(conn, orderId, false, writeOrder) == PaymentSave.SAVED;
+    }
+
+    /**
+     * Như savePayment nhưng cho một lượt thu tiền mới: nếu order đã 'paid' (lượt khác,
+     * máy khác đã thanh toán trước) thì rollback và trả ALREADY_PAID thay vì ghi đè
+     */
+    public PaymentSave savePaymentOnce(Connection conn, int orderId, BooleanSupplier writeOrder) throws SQLException {
+        return save(conn, orderId, true, writeOrder);
+    }
+
+    private PaymentSave save(Connection conn, int orderId, boolean rejectIfPaid, BooleanSupplier writeOrder)
+            throws SQLException {
+        boolean previousAutoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            String previousStatus = new OrderDAOImpl(conn).findPaymentStatusForUpdate(orderId);
+            if (rejectIfPaid && "paid".equals(previousStatus)) {
+                conn.rollback();
+                return PaymentSave.ALREADY_PAID;
+            }
+            if (previousStatus == null || !writeOrder.getAsBoolean()) {
+                conn.rollback();
+                return PaymentSave.FAILED;
+            }
+
+            // Chỉ cộng khi thực sự chuyển sang 'paid' (lưu lại order đã paid thì bỏ qua)
+            if (!"paid".equals(previousStatus)
+                    && !new SalesRollupDAOImpl(conn).addPaidOrder(orderId)) {
+                conn.rollback();
+                System.err.println("❌ Failed to update sales rollup for order " + orderId);
+                return PaymentSave.FAILED;
+            }
+
+            conn.commit();
+            ChangeFeedMulticast.announce(); // writeOrder đã ghi change_log trong transaction này
+            return PaymentSave.SAVED;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(previousAutoCommit);
+        }
+    }
+
+    /**
+     * Dựng lại rollup cho các ngày trong [fromDate, toDate] (bao gồm cả hai đầu)
+     * @return số ngày có doanh thu, -1 nếu lỗi
+     */
+    public int backfill(LocalDate fromDate, LocalDate toDate) {
+        int totalDays = 0;
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            SalesRollupDAO rollupDAO = new SalesRollupDAOImpl(conn);
+            conn.setAutoCommit(false);
+            try {
+                // Từng tháng một transaction để không giữ khóa quá lâu
+                LocalDate chunkStart = fromDate;
+                LocalDate end = toDate.plusDays(1);
+                while (chunkStart.isBefore(end)) {
+                    LocalDate chunkEnd = chunkStart.withDayOfMonth(1).plusMonths(1);
+                    if (chunkEnd.isAfter(end)) {
+                        chunkEnd = end;
+                    }
+
+                    int days = rollupDAO.rebuild(chunkStart, chunkEnd);
+                    if (days < 0) {
+                        conn.rollback();
+                        return -1;
+                    }
+                    conn.commit();
+                    totalDays += days;
+                    chunkStart = chunkEnd;
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            System.out.println("✅ Sales rollup rebuilt for " + fromDate + " → " + toDate + " (" + totalDays + " days)");
+            return totalDays;
+        } catch (Exception e) {
+            System.err.println("❌ Error rebuilding sales rollup: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Dựng rollup từ toàn bộ lịch sử nếu bảng còn trống (chạy một lần mỗi process,
+     * ví dụ lần đầu mở báo cáo sau khi nâng cấp database)
+     */
+    public void backfillIfEmpty() {
+        if (!initialBackfillDone.compareAndSet(false, true)) {
+            return;
+        }
+        LocalDate firstDate;
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            SalesRollupDAO rollupDAO = new SalesRollupDAOImpl(conn);
+            if (!rollupDAO.isEmpty()) {
+                return;
+            }
+            firstDate = rollupDAO.findFirstPaidOrderDate();
+        } catch (Exception e) {
+            System.err.println("❌ Error checking sales rollup: " + e.getMessage());
+            initialBackfillDone.set(false);
+            return;
+        }
+        if (firstDate != null && backfill(firstDate, LocalDate.now()) < 0) {
+            initialBackfillDone.set(false);
+        }
+    }
+
+    /**
+     * Doanh thu từng ngày trong [fromDate, toDate], sắp xếp theo ngày tăng dần
+     */
+    public List<SalesData> getDailySales(LocalDate fromDate, LocalDate toDate) {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            return new SalesRollupDAOImpl(conn).getDailySales(fromDate, toDate.plusDays(1));
+        } catch (Exception e) {
+            System.err.println("❌ Error getting daily sales: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Sản phẩm bán chạy theo doanh thu trong [fromDate, toDate]
+     */
+    public List<SalesBreakdown> getTopProducts(LocalDate fromDate, LocalDate toDate, int limit) {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            return new SalesRollupDAOImpl(conn).getTopProducts(fromDate, toDate.plusDays(1), limit);
+        } catch (Exception e) {
+            System.err.println("❌ Error getting product sales: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Doanh thu theo danh mục trong [fromDate, toDate]
+     */
+    public List<SalesBreakdown> getCategorySales(LocalDate fromDate, LocalDate toDate) {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            return new SalesRollupDAOImpl(conn).getCategorySales(fromDate, toDate.plusDays(1));
+        } catch (Exception e) {
+            System.err.println("❌ Error getting category sales: " + e.getMessage());
+            return List.of();
+        }
+    }
+}
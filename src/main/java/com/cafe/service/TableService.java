@@ -5,8 +5,11 @@ import com.cafe.dao.base.TableDAO;
 import com.cafe.dao.base.TableDAOImpl;
 import com.cafe.dao.base.AreaDAO;
 import com.cafe.dao.base.AreaDAOImpl;
+import com.cafe.model.dto.TableStatusTransition;
+import com.cafe.model.dto.TableStatusTransition.Outcome;
 import com.cafe.model.entity.TableCafe;
 import com.cafe.model.entity.Area;
+import com.cafe.model.enums.TableStatus;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -97,22 +100,69 @@ public class TableService {
     }
 
     /**
-     * Cập nhật trạng thái bàn
+     * Cập nhật trạng thái bàn khi caller không giữ sẵn trạng thái/version của bàn:
+     * đọc bàn rồi đổi bằng compare-and-set (xem transitionTableStatus)
      */
     public boolean updateTableStatus(int tableId, String newStatus) {
+        return transitionTableStatus(tableId, newStatus).isSuccess();
+    }
+
+    /**
+     * Như updateTableStatus nhưng trả về kết quả chi tiết (trạng thái/version hiện tại)
+     */
+    public TableStatusTransition transitionTableStatus(int tableId, String newStatus) {
         try (Connection conn = DatabaseConfig.getConnection()) {
             TableDAO tableDAO = new TableDAOImpl(conn);
-            Optional<TableCafe> tableOpt = Optional.ofNullable(tableDAO.getTableById(tableId));
-            if (tableOpt.isPresent()) {
-                TableCafe table = tableOpt.get();
-                table.setStatus(newStatus);
-                return tableDAO.updateTable(table);
+            TableCafe table = tableDAO.getTableById(tableId);
+            if (table == null) {
+                return TableStatusTransition.failed();
             }
-            return false;
+            return transition(tableDAO, tableId, table.getStatus(), table.getVersion(), newStatus);
         } catch (Exception e) {
             System.err.println("Error updating table status: " + e.getMessage());
-            return false;
+            return TableStatusTransition.failed();
+        }
+    }
+
+    /**
+     * Đổi trạng thái bàn từ trạng thái caller đang thấy (expectedStatus/expectedVersion)
+     * - Bước chuyển được kiểm tra theo TableStatus.canTransitionTo trước khi ghi
+     * - Chỉ ghi nếu bàn chưa bị terminal khác thay đổi; nếu đã bị đổi thì trả về
+     *   CONFLICT kèm trạng thái hiện tại để caller cập nhật lại, không ghi đè
+     */
+    public TableStatusTransition transitionTableStatus(int tableId, String expectedStatus, int expectedVersion,
+                                                       String newStatus) {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            return transition(new TableDAOImpl(conn), tableId, expectedStatus, expectedVersion, newStatus);
+        } catch (Exception e) {
+            System.err.println("Error updating table status: " + e.getMessage());
+            return TableStatusTransition.failed();
+        }
+    }
+
+    private TableStatusTransition transition(TableDAO tableDAO, int tableId, String expectedStatus,
+                                             int expectedVersion, String newStatus) {
+        TableStatus from = TableStatus.fromValue(expectedStatus);
+        TableStatus to = TableStatus.fromValue(newStatus);
+        if (to == null || from == null || !from.canTransitionTo(to)) {
+            System.err.println("❌ Invalid table status transition: " + expectedStatus + " → " + newStatus);
+            return new TableStatusTransition(Outcome.REJECTED, expectedStatus, expectedVersion);
+        }
+        if (from == to) {
+            return new TableStatusTransition(Outcome.UNCHANGED, expectedStatus, expectedVersion);
+        }
+
+        if (tableDAO.compareAndSetStatus(tableId, from.getValue(), expectedVersion, to.getValue())) {
+            return new TableStatusTransition(Outcome.APPLIED, to.getValue(), expectedVersion + 1);
+        }
+
+        // Bàn đã bị thay đổi từ lúc caller đọc → trả về trạng thái hiện tại
+        TableCafe current = tableDAO.getTableById(tableId);
+        if (current == null) {
+            return TableStatusTransition.failed();
         }
+        Outcome outcome = to.getValue().equalsIgnoreCase(current.getStatus()) ? Outcome.UNCHANGED : Outcome.CONFLICT;
+        return new TableStatusTransition(outcome, current.getStatus(), current.getVersion());
     }
 
     /**
@@ -167,6 +217,7 @@ public class TableService {
                         rs.getTimestamp("created_at"),
                         rs.getTimestamp("updated_at")
                     );
+                    table.setVersion(rs.getInt("version"));
                     table.setAreaName(rs.getString("area_name"));
                     tables.add(table);
                 }
@@ -0,0 +1,205 @@
+package com.cafe.util;
+
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor dùng chung cho các tác vụ nền của ứng dụng (load, save, search, ảnh)
+ *
+ * - Pool giới hạn số thread → không tạo thread/connection mới cho mỗi thao tác
+ * - submitLatest(key, task): task mới hủy task cũ cùng key (latest wins)
+ * - debounce(key, delay, action): chỉ chạy action cuối cùng sau khoảng lặng
+ * - Số liệu: queue depth, active, completed, cancelled
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public class BackgroundExecutor {
+
+    /** Không vượt quá một phần nhỏ connection pool (maxActive = 50) */
+    private static final int WORKER_COUNT = Math.max(4, Math.min(8, Runtime.getRuntime().availableProcessors() * 2));
+
+    private static final ThreadPoolExecutor workers = new ThreadPoolExecutor(
+            WORKER_COUNT, WORKER_COUNT,
+            30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            daemonThreads("app-worker"));
+
+    private static final ScheduledExecutorService scheduler = createScheduler();
+
+    // key → tác vụ đang chạy / đang chờ debounce
+    private static final Map<String, Future<?>> latestByKey = new ConcurrentHashMap<>();
+    private static final Map<String, ScheduledFuture<?>> pendingByKey = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicLong> debounceGenerations = new ConcurrentHashMap<>();
+
+    private static final AtomicLong cancelledCount = new AtomicLong();
+
+    static {
+        workers.allowCoreThreadTimeOut(true);
+    }
+
+    private BackgroundExecutor() {
+    }
+
+    // =====================================================
+    // SUBMIT
+    // =====================================================
+
+    /**
+     * Chạy tác vụ trên pool dùng chung
+     */
+    public static Future<?> submit(Runnable task) {
+        return workers.submit(task);
+    }
+
+    /**
+     * Pool dùng chung dưới dạng Executor (cho CompletableFuture.*Async)
+     */
+    public static Executor executor() {
+        return workers;
+    }
+
+    /**
+     * Chạy JavaFX Task trên pool dùng chung
+     */
+    public static <T> Task<T> submit(Task<T> task) {
+        workers.execute(task);
+        return task;
+    }
+
+    /**
+     * Chạy tác vụ theo key: tác vụ trước đó cùng key (nếu chưa xong) bị hủy
+     * Dùng cho search, load theo tab/category... nơi chỉ kết quả mới nhất có ý nghĩa
+     */
+    public static <T> Task<T> submitLatest(String key, Task<T> task) {
+        Future<?> previous = latestByKey.put(key, task);
+        if (previous != null && previous != task && previous.cancel(true)) {
+            cancelledCount.incrementAndGet();
+        }
+
+        workers.execute(() -> {
+            try {
+                task.run();
+            } finally {
+                latestByKey.remove(key, task);
+            }
+        });
+        return task;
+    }
+
+    /**
+     * Hủy tác vụ đang chạy và debounce đang chờ của key
+     */
+    public static void cancel(String key) {
+        AtomicLong generation = debounceGenerations.get(key);
+        if (generation != null) {
+            generation.incrementAndGet();
+        }
+        ScheduledFuture<?> pending = pendingByKey.remove(key);
+        if (pending != null && pending.cancel(false)) {
+            cancelledCount.incrementAndGet();
+        }
+        Future<?> running = latestByKey.remove(key);
+        if (running != null && running.cancel(true)) {
+            cancelledCount.incrementAndGet();
+        }
+    }
+
+    // =====================================================
+    // SCHEDULING
+    // =====================================================
+
+    /**
+     * Chạy action trên FX thread sau delayMillis; lần gọi mới cùng key
+     * trong khoảng chờ sẽ thay thế lần gọi trước
+     */
+    public static void debounce(String key, long delayMillis, Runnable fxAction) {
+        AtomicLong generation = debounceGenerations.computeIfAbsent(key, k -> new AtomicLong());
+        long scheduledGeneration = generation.incrementAndGet();
+
+        ScheduledFuture<?> scheduled = scheduler.schedule(() -> {
+            // Chỉ lần gọi cuối cùng được chạy
+            if (generation.get() == scheduledGeneration) {
+                pendingByKey.remove(key);
+                Platform.runLater(fxAction);
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+
+        ScheduledFuture<?> previous = pendingByKey.put(key, scheduled);
+        if (previous != null && previous.cancel(false)) {
+            cancelledCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Chạy action trên FX thread sau delayMillis (không thay thế)
+     */
+    public static ScheduledFuture<?> runLater(long delayMillis, Runnable fxAction) {
+        return scheduler.schedule(() -> Platform.runLater(fxAction), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // =====================================================
+    // METRICS
+    // =====================================================
+
+    /**
+     * Số tác vụ đang chờ trong hàng đợi
+     */
+    public static int getQueueDepth() {
+        return workers.getQueue().size();
+    }
+
+    /**
+     * Số thread đang chạy tác vụ
+     */
+    public static int getActiveCount() {
+        return workers.getActiveCount();
+    }
+
+    public static long getCompletedCount() {
+        return workers.getCompletedTaskCount();
+    }
+
+    public static long getCancelledCount() {
+        return cancelledCount.get();
+    }
+
+    public static String getStats() {
+        return String.format("BackgroundExecutor{workers=%d, active=%d, queued=%d, completed=%d, cancelled=%d}",
+                WORKER_COUNT, getActiveCount(), getQueueDepth(), getCompletedCount(), getCancelledCount());
+    }
+
+    // =====================================================
+    // HELPERS
+    // =====================================================
+
+    private static ScheduledExecutorService createScheduler() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, daemonThreads("app-scheduler"));
+        // Debounce bị hủy không nằm lại trong hàng đợi
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
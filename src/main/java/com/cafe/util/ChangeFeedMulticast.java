@@ -0,0 +1,157 @@
+package com.cafe.util;
+
+import com.cafe.config.DatabaseConfig;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+
+/**
+ * Tín hiệu UDP multicast cho change feed (changefeed.transport=multicast)
+ *
+ * - Terminal vừa ghi change_log gửi một datagram 1 byte (mã terminal) tới group;
+ *   các terminal khác thức dậy và đọc change_log ngay thay vì chờ tới lượt poll
+ * - Datagram chỉ là tín hiệu đánh thức, dữ liệu luôn đọc từ change_log nên mất gói
+ *   không làm mất thay đổi (poll chậm vẫn chạy làm dự phòng)
+ * - changefeed.multicast.ttl=0: chỉ gửi trên loopback, dùng để chạy thử
+ *   nhiều terminal trên cùng một máy
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public final class ChangeFeedMulticast {
+
+    private static MulticastSocket sender;
+    private static boolean senderFailed = false;
+
+    private ChangeFeedMulticast() {
+    }
+
+    /**
+     * Đang dùng transport multicast
+     */
+    public static boolean isEnabled() {
+        return DatabaseConfig.getPropertyAsBoolean("changefeed.enabled", true)
+                && "multicast".equalsIgnoreCase(DatabaseConfig.getProperty("changefeed.transport", "poll"));
+    }
+
+    /**
+     * Báo cho các terminal khác là change_log vừa có dòng mới (không chặn, bỏ qua lỗi)
+     */
+    public static void announce() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            MulticastSocket socket = getSender();
+            if (socket != null) {
+                byte[] payload = {(byte) DatabaseConfig.getTerminalId()};
+                socket.send(new DatagramPacket(payload, payload.length, getGroup(), getPort()));
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Change feed announce failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Mở socket nhận tín hiệu (một cho mỗi terminal)
+     */
+    public static Receiver openReceiver() throws IOException {
+        MulticastSocket socket = new MulticastSocket(getPort());
+        NetworkInterface networkInterface = getNetworkInterface();
+        if (networkInterface != null) {
+            socket.setNetworkInterface(networkInterface);
+        }
+        socket.setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true);
+        socket.joinGroup(new InetSocketAddress(getGroup(), 0), networkInterface);
+        System.out.println("📡 Change feed listening on multicast " + getGroup().getHostAddress() + ":" + getPort());
+        return new Receiver(socket);
+    }
+
+    private static synchronized MulticastSocket getSender() {
+        if (sender == null && !senderFailed) {
+            try {
+                MulticastSocket socket = new MulticastSocket();
+                NetworkInterface networkInterface = getNetworkInterface();
+                if (networkInterface != null) {
+                    socket.setNetworkInterface(networkInterface);
+                }
+                socket.setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true);
+                socket.setTimeToLive(Math.max(getTtl(), 1));
+                sender = socket;
+            } catch (IOException e) {
+                senderFailed = true;
+                System.err.println("❌ Cannot open change feed multicast sender: " + e.getMessage());
+            }
+        }
+        return sender;
+    }
+
+    // ===================== Helper Methods =======================
+
+    private static InetAddress getGroup() throws IOException {
+        return InetAddress.getByName(DatabaseConfig.getProperty("changefeed.multicast.group", "239.255.42.42"));
+    }
+
+    private static int getPort() {
+        return DatabaseConfig.getPropertyAsInt("changefeed.multicast.port", 4446);
+    }
+
+    private static int getTtl() {
+        return DatabaseConfig.getPropertyAsInt("changefeed.multicast.ttl", 0);
+    }
+
+    /**
+     * ttl=0 → loopback (chỉ trong máy), ngược lại để hệ điều hành chọn interface
+     */
+    private static NetworkInterface getNetworkInterface() throws IOException {
+        return getTtl() == 0 ? NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress()) : null;
+    }
+
+    /**
+     * Socket nhận tín hiệu của một terminal
+     */
+    public static final class Receiver implements AutoCloseable {
+        private final MulticastSocket socket;
+        private final byte[] buffer = new byte[16];
+
+        private Receiver(MulticastSocket socket) {
+            this.socket = socket;
+        }
+
+        /**
+         * Chờ tín hiệu từ terminal khác
+         * @return true nếu có tín hiệu, false nếu hết thời gian chờ
+         */
+        public boolean await(long timeoutMillis) throws IOException {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            int ownTerminal = DatabaseConfig.getTerminalId();
+            while (true) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                socket.setSoTimeout((int) remaining);
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                try {
+                    socket.receive(packet);
+                } catch (SocketTimeoutException e) {
+                    return false;
+                }
+                if (packet.getLength() > 0 && (buffer[0] & 0xFF) != ownTerminal) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            socket.close();
+        }
+    }
+}
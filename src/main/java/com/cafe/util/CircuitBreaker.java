@@ -0,0 +1,85 @@
+package com.cafe.util;
+
+/**
+ * Circuit breaker đơn giản cho lời gọi ra hệ thống ngoài (cổng thanh toán)
+ *
+ * - CLOSED: cho phép gọi; failureThreshold lỗi liên tiếp → OPEN
+ * - OPEN: từ chối ngay (không chờ timeout) trong openMillis
+ * - HALF_OPEN: cho đúng một lời gọi thử; thành công → CLOSED, lỗi → OPEN lại
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt = 0;
+    private boolean trialInFlight = false;
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = Math.max(0, openMillis);
+    }
+
+    /**
+     * Xin phép thực hiện một lời gọi
+     * @return false nếu mạch đang mở (caller trả lỗi ngay)
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMillis) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            System.out.println("✅ Circuit " + name + " closed");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        trialInFlight = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                System.err.println("⚠️ Circuit " + name + " opened after " + consecutiveFailures + " failure(s)");
+            }
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
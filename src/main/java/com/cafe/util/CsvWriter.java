@@ -0,0 +1,127 @@
+package com.cafe.util;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ghi CSV (RFC 4180) tuần tự, theo từng ô, không giữ dòng nào trong bộ nhớ
+ *
+ * - UTF-8 có BOM để Excel nhận đúng tiếng Việt, xuống dòng CRLF
+ * - Ô chứa dấu phẩy / nháy kép / xuống dòng được bọc nháy kép
+ * - Ô chữ bắt đầu bằng = + - @ được thêm ' phía trước (tránh Excel hiểu là công thức)
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public final class CsvWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer out;
+    private boolean firstField = true;
+
+    private CsvWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * @param gzip nén gzip (file .csv.gz)
+     */
+    public static CsvWriter open(Path file, boolean gzip) throws IOException {
+        OutputStream stream = Files.newOutputStream(file);
+        try {
+            if (gzip) {
+                stream = new GZIPOutputStream(stream, BUFFER_SIZE);
+            }
+            Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+            writer.write('\uFEFF');
+            return new CsvWriter(writer);
+        } catch (IOException e) {
+            stream.close();
+            throw e;
+        }
+    }
+
+    public CsvWriter row(String... values) throws IOException {
+        for (String value : values) {
+            field(value);
+        }
+        endRow();
+        return this;
+    }
+
+    public CsvWriter field(String value) throws IOException {
+        separator();
+        if (value == null || value.isEmpty()) {
+            return this;
+        }
+
+        char first = value.charAt(0);
+        boolean formulaLike = first == '=' || first == '+' || first == '-' || first == '@';
+        boolean needsQuotes = formulaLike || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!needsQuotes) {
+            out.write(value);
+            return this;
+        }
+
+        out.write('"');
+        if (formulaLike) {
+            out.write('\'');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+        return this;
+    }
+
+    public CsvWriter field(long value) throws IOException {
+        separator();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    /**
+     * Số tiền ghi dạng thập phân thuần (không phân cách hàng nghìn, không số mũ)
+     */
+    public CsvWriter field(double value) throws IOException {
+        separator();
+        if (value == Math.rint(value) && Math.abs(value) < Long.MAX_VALUE) {
+            out.write(Long.toString((long) value));
+        } else {
+            out.write(BigDecimal.valueOf(value).toPlainString());
+        }
+        return this;
+    }
+
+    public void endRow() throws IOException {
+        out.write("\r\n");
+        firstField = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void separator() throws IOException {
+        if (!firstField) {
+            out.write(',');
+        }
+        firstField = false;
+    }
+}
@@ -0,0 +1,263 @@
+package com.cafe.util;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.Arrays;
+
+/**
+ * Bộ đệm byte dùng lại được cho máy in nhiệt ESC/POS
+ *
+ * - Ghi thẳng byte (không String.format / không tạo chuỗi trung gian cho số tiền)
+ * - Chữ được bỏ dấu tiếng Việt qua bảng tra dựng một lần: đa số máy in nhiệt không có bảng mã tiếng Việt
+ * - commands = false: bỏ qua lệnh ESC/POS → cùng một layout cho ra bản xem trước dạng text
+ * - reset() giữ nguyên mảng đã cấp phát → mỗi thread dùng lại một buffer cho mọi hóa đơn
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public final class EscPosBuffer {
+
+    // ===================== ESC/POS Commands =======================
+
+    public static final byte[] INIT = {0x1B, 0x40};                 // ESC @
+    public static final byte[] ALIGN_LEFT = {0x1B, 0x61, 0};         // ESC a 0
+    public static final byte[] ALIGN_CENTER = {0x1B, 0x61, 1};       // ESC a 1
+    public static final byte[] BOLD_ON = {0x1B, 0x45, 1};            // ESC E 1
+    public static final byte[] BOLD_OFF = {0x1B, 0x45, 0};           // ESC E 0
+    public static final byte[] DOUBLE_SIZE_ON = {0x1D, 0x21, 0x11};  // GS ! 0x11
+    public static final byte[] DOUBLE_SIZE_OFF = {0x1D, 0x21, 0};    // GS ! 0
+    public static final byte[] PARTIAL_CUT = {0x1D, 0x56, 0x42, 0};  // GS V 66 0 (đẩy giấy rồi cắt)
+
+    // Bảng bỏ dấu cho các ký tự tới hết khối Latin Extended Additional (U+1EFF)
+    private static final char[] ASCII_FOLD = buildFoldTable();
+
+    private final boolean commands;
+    private final byte[] digits = new byte[24];
+    private byte[] bytes;
+    private int size;
+
+    /**
+     * @param commands false = chỉ ghi chữ (bản xem trước), bỏ qua lệnh ESC/POS
+     */
+    public EscPosBuffer(int initialCapacity, boolean commands) {
+        this.bytes = new byte[Math.max(64, initialCapacity)];
+        this.commands = commands;
+    }
+
+    public EscPosBuffer reset() {
+        size = 0;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Bản sao nội dung hiện tại (buffer vẫn được dùng lại)
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    public String toText() {
+        return new String(bytes, 0, size, StandardCharsets.US_ASCII);
+    }
+
+    // ===================== Writing =======================
+
+    /**
+     * Lệnh ESC/POS (bỏ qua ở chế độ text)
+     */
+    public EscPosBuffer command(byte[] command) {
+        if (commands) {
+            write(command);
+        }
+        return this;
+    }
+
+    /**
+     * Byte đã mã hóa sẵn (nhãn, dòng kẻ của template)
+     */
+    public EscPosBuffer write(byte[] data) {
+        ensureCapacity(data.length);
+        System.arraycopy(data, 0, bytes, size, data.length);
+        size += data.length;
+        return this;
+    }
+
+    public EscPosBuffer newline() {
+        return writeByte('\n');
+    }
+
+    public EscPosBuffer feed(int lines) {
+        ensureCapacity(lines);
+        for (int i = 0; i < lines; i++) {
+            bytes[size++] = '\n';
+        }
+        return this;
+    }
+
+    public EscPosBuffer text(String value) {
+        return text(value, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Ghi chữ đã bỏ dấu, tối đa maxChars ký tự
+     * @return số ký tự đã ghi
+     */
+    public int textCount(String value, int maxChars) {
+        if (value == null) {
+            return 0;
+        }
+        int count = Math.min(value.length(), maxChars);
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            bytes[size++] = (byte) fold(value.charAt(i));
+        }
+        return count;
+    }
+
+    public EscPosBuffer text(String value, int maxChars) {
+        textCount(value, maxChars);
+        return this;
+    }
+
+    /**
+     * Chữ căn trái trong cột width (cắt bớt nếu dài hơn)
+     */
+    public EscPosBuffer padRight(String value, int width) {
+        int written = textCount(value, width);
+        return spaces(width - written);
+    }
+
+    public EscPosBuffer spaces(int count) {
+        if (count <= 0) {
+            return this;
+        }
+        ensureCapacity(count);
+        Arrays.fill(bytes, size, size + count, (byte) ' ');
+        size += count;
+        return this;
+    }
+
+    public EscPosBuffer repeat(char c, int count) {
+        ensureCapacity(count);
+        Arrays.fill(bytes, size, size + count, (byte) fold(c));
+        size += count;
+        return this;
+    }
+
+    /**
+     * Số nguyên căn phải trong cột width
+     */
+    public EscPosBuffer numberRight(long value, int width) {
+        int length = formatDigits(value, false);
+        spaces(width - length);
+        return writeDigits(length);
+    }
+
+    /**
+     * Số tiền (làm tròn, phân cách hàng nghìn bằng dấu chấm như PriceFormatter) căn phải trong cột width
+     */
+    public EscPosBuffer moneyRight(double amount, int width) {
+        int length = formatDigits(Math.round(amount), true);
+        spaces(width - length);
+        return writeDigits(length);
+    }
+
+    public EscPosBuffer money(double amount) {
+        return writeDigits(formatDigits(Math.round(amount), true));
+    }
+
+    /**
+     * Hai chữ số (ngày/giờ)
+     */
+    public EscPosBuffer twoDigits(int value) {
+        ensureCapacity(2);
+        bytes[size++] = (byte) ('0' + (value / 10) % 10);
+        bytes[size++] = (byte) ('0' + value % 10);
+        return this;
+    }
+
+    public EscPosBuffer writeByte(int value) {
+        ensureCapacity(1);
+        bytes[size++] = (byte) value;
+        return this;
+    }
+
+    /**
+     * Chuỗi bỏ dấu tiếng Việt (dùng khi dựng template)
+     */
+    public static byte[] encode(String value) {
+        byte[] encoded = new byte[value.length()];
+        for (int i = 0; i < value.length(); i++) {
+            encoded[i] = (byte) fold(value.charAt(i));
+        }
+        return encoded;
+    }
+
+    // ===================== Helper Methods =======================
+
+    /**
+     * Ghi các chữ số của value (đảo ngược) vào digits
+     * @return số byte
+     */
+    private int formatDigits(long value, boolean grouped) {
+        boolean negative = value < 0;
+        long remaining = Math.abs(value);
+        int length = 0;
+        int inGroup = 0;
+        do {
+            if (grouped && inGroup == 3) {
+                digits[length++] = '.';
+                inGroup = 0;
+            }
+            digits[length++] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+            inGroup++;
+        } while (remaining > 0);
+        if (negative) {
+            digits[length++] = '-';
+        }
+        return length;
+    }
+
+    private EscPosBuffer writeDigits(int length) {
+        ensureCapacity(length);
+        for (int i = length - 1; i >= 0; i--) {
+            bytes[size++] = digits[i];
+        }
+        return this;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+
+    private static char fold(char c) {
+        if (c < 0x80) {
+            return c;
+        }
+        return c < ASCII_FOLD.length ? ASCII_FOLD[c] : '?';
+    }
+
+    private static char[] buildFoldTable() {
+        char[] table = new char[0x1F00];
+        for (char c = 0; c < table.length; c++) {
+            if (c < 0x80) {
+                table[c] = c;
+                continue;
+            }
+            String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            char base = decomposed.charAt(0);
+            table[c] = base < 0x80 && Character.isLetterOrDigit(base) ? base : '?';
+        }
+        table['đ'] = 'd';
+        table['Đ'] = 'D';
+        table['\u00A0'] = ' '; // khoảng trắng không ngắt dòng (NumberFormat vi-VN)
+        return table;
+    }
+}
@@ -1,24 +1,50 @@
 package com.cafe.util;
 
 
+import com.cafe.config.DatabaseConfig;
 import com.cafe.controller.admin.AdminReportController.ProductReportData;
 import com.cafe.controller.admin.AdminReportController.CustomerData;
+import com.cafe.controller.admin.AdminReportController.ReportData;
+import com.cafe.dao.base.ReportQueryDAO;
+import com.cafe.dao.base.ReportQueryDAOImpl;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 /**
  * Utility class for exporting reports to Excel
+ *
+ * - SXSSFWorkbook: chỉ giữ ROW_WINDOW dòng gần nhất trong bộ nhớ, phần còn lại
+ *   được ghi ra file tạm (nén) → bộ nhớ không tăng theo số dòng
+ * - Độ rộng cột ước lượng từ độ dài nội dung khi ghi (không dùng autoSizeColumn,
+ *   vốn phải đo lại toàn bộ cột bằng font)
+ * - exportOrderReport(): đọc order tuần tự từ cursor JDBC, có tiến độ và hủy
  */
 public class ExcelExporter {
 
+    /** Số dòng SXSSF giữ trong bộ nhớ cho mỗi sheet */
+    public static final int ROW_WINDOW = 100;
+
+    /** Số dòng giữa hai lần báo tiến độ */
+    private static final int PROGRESS_INTERVAL = 500;
+
+    private static final int MAX_COLUMN_CHARS = 60;
+
     public void exportSalesReport(List<Object> salesList, LocalDate startDate, LocalDate endDate) throws IOException {
-        Workbook workbook = new XSSFWorkbook();
+        SXSSFWorkbook workbook = newWorkbook();
         Sheet sheet = workbook.createSheet("Báo cáo doanh thu");
 
         // Create header style
@@ -44,10 +70,12 @@ public class ExcelExporter {
         // Create headers
         Row headerRow = sheet.createRow(3);
         String[] headers = {"Ngày", "Doanh thu", "Số đơn hàng", "Trung bình/đơn", "Tăng trưởng"};
+        ColumnWidths widths = new ColumnWidths(headers.length);
         for (int i = 0; i < headers.length; i++) {
             Cell cell = headerRow.createCell(i);
             cell.setCellValue(headers[i]);
             cell.setCellStyle(headerStyle);
+            widths.track(i, headers[i]);
         }
 
         // Fill data - using actual SalesData implementation
@@ -58,11 +86,11 @@ public class ExcelExporter {
             if (salesDataList != null && !salesDataList.isEmpty()) {
                 for (com.cafe.model.dto.SalesData data : salesDataList) {
                     Row row = sheet.createRow(rowNum++);
-                    row.createCell(0).setCellValue(data.getDate().toString());
-                    row.createCell(1).setCellValue(data.getTotalRevenue());
-                    row.createCell(2).setCellValue(data.getTotalOrders());
-                    row.createCell(3).setCellValue(data.getAverageOrderValue());
-                    row.createCell(4).setCellValue(data.getTotalItemsSold());
+                    widths.track(0, setCell(row, 0, data.getDate().toString()));
+                    widths.track(1, setCell(row, 1, data.getTotalRevenue()));
+                    widths.track(2, setCell(row, 2, data.getTotalOrders()));
+                    widths.track(3, setCell(row, 3, data.getAverageOrderValue()));
+                    widths.track(4, setCell(row, 4, data.getTotalItemsSold()));
                 }
             } else {
                 // No data available
@@ -84,21 +112,16 @@ public class ExcelExporter {
             row.createCell(4).setCellValue(0);
         }
 
-        // Auto-size columns
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
-        }
+        // Column widths (ước lượng, không autoSizeColumn)
+        widths.apply(sheet);
 
         // Save file
         String fileName = "BaoCaoDanhThu_" + LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + ".xlsx";
-        try (FileOutputStream fileOut = new FileOutputStream(fileName)) {
-            workbook.write(fileOut);
-        }
-        workbook.close();
+        writeAndDispose(workbook, new File(fileName));
     }
 
     public void exportProductReport(List<ProductReportData> productList, LocalDate startDate, LocalDate endDate) throws IOException {
-        Workbook workbook = new XSSFWorkbook();
+        SXSSFWorkbook workbook = newWorkbook();
         Sheet sheet = workbook.createSheet("Báo cáo sản phẩm");
 
         // Create header style
@@ -124,37 +147,34 @@ public class ExcelExporter {
         // Create headers
         Row headerRow = sheet.createRow(3);
         String[] headers = {"Sản phẩm", "Số lượng bán", "Doanh thu", "% Tổng doanh thu"};
+        ColumnWidths widths = new ColumnWidths(headers.length);
         for (int i = 0; i < headers.length; i++) {
             Cell cell = headerRow.createCell(i);
             cell.setCellValue(headers[i]);
             cell.setCellStyle(headerStyle);
+            widths.track(i, headers[i]);
         }
 
         // Fill data
         int rowNum = 4;
         for (ProductReportData data : productList) {
             Row row = sheet.createRow(rowNum++);
-            row.createCell(0).setCellValue(data.getProductName());
-            row.createCell(1).setCellValue(data.getQuantitySold());
-            row.createCell(2).setCellValue(data.getRevenue());
-            row.createCell(3).setCellValue(data.getPercentage());
+            widths.track(0, setCell(row, 0, data.getProductName()));
+            widths.track(1, setCell(row, 1, data.getQuantitySold()));
+            widths.track(2, setCell(row, 2, data.getRevenue()));
+            widths.track(3, setCell(row, 3, data.getPercentage()));
         }
 
-        // Auto-size columns
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
-        }
+        // Column widths (ước lượng, không autoSizeColumn)
+        widths.apply(sheet);
 
         // Save file
         String fileName = "BaoCaoSanPham_" + LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + ".xlsx";
-        try (FileOutputStream fileOut = new FileOutputStream(fileName)) {
-            workbook.write(fileOut);
-        }
-        workbook.close();
+        writeAndDispose(workbook, new File(fileName));
     }
 
     public void exportCustomerReport(List<CustomerData> customerList, LocalDate startDate, LocalDate endDate) throws IOException {
-        Workbook workbook = new XSSFWorkbook();
+        SXSSFWorkbook workbook = newWorkbook();
         Sheet sheet = workbook.createSheet("Báo cáo khách hàng");
 
         // Create header style
@@ -180,38 +200,35 @@ public class ExcelExporter {
         // Create headers
         Row headerRow = sheet.createRow(3);
         String[] headers = {"Khách hàng", "Số đơn hàng", "Tổng chi tiêu", "Đơn hàng cuối"};
+        ColumnWidths widths = new ColumnWidths(headers.length);
         for (int i = 0; i < headers.length; i++) {
             Cell cell = headerRow.createCell(i);
             cell.setCellValue(headers[i]);
             cell.setCellStyle(headerStyle);
+            widths.track(i, headers[i]);
         }
 
         // Fill data
         int rowNum = 4;
         for (CustomerData data : customerList) {
             Row row = sheet.createRow(rowNum++);
-            row.createCell(0).setCellValue(data.getCustomerName());
-            row.createCell(1).setCellValue(data.getOrderCount());
-            row.createCell(2).setCellValue(data.getTotalSpent());
-            row.createCell(3).setCellValue(data.getLastVisit());
+            widths.track(0, setCell(row, 0, data.getCustomerName()));
+            widths.track(1, setCell(row, 1, data.getOrderCount()));
+            widths.track(2, setCell(row, 2, data.getTotalSpent()));
+            widths.track(3, setCell(row, 3, data.getLastVisit()));
         }
 
-        // Auto-size columns
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
-        }
+        // Column widths (ước lượng, không autoSizeColumn)
+        widths.apply(sheet);
 
         // Save file
         String fileName = "BaoCaoKhachHang_" + LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + ".xlsx";
-        try (FileOutputStream fileOut = new FileOutputStream(fileName)) {
-            workbook.write(fileOut);
-        }
-        workbook.close();
+        writeAndDispose(workbook, new File(fileName));
     }
 
     public void exportAllReports(List<Object> salesList, List<ProductReportData> productList,
                                  List<CustomerData> customerList, LocalDate startDate, LocalDate endDate) throws IOException {
-        Workbook workbook = new XSSFWorkbook();
+        SXSSFWorkbook workbook = newWorkbook();
 
         // Create sales sheet
         createSalesSheet(workbook, salesList, startDate, endDate);
@@ -224,10 +241,7 @@ public class ExcelExporter {
 
         // Save file
         String fileName = "BaoCaoTongHop_" + LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + ".xlsx";
-        try (FileOutputStream fileOut = new FileOutputStream(fileName)) {
-            workbook.write(fileOut);
-        }
-        workbook.close();
+        writeAndDispose(workbook, new File(fileName));
     }
     
 
@@ -250,6 +264,224 @@ public class ExcelExporter {
         // ... (similar implementation)
     }
     
+    /**
+     * Xuất báo cáo chi tiết đơn hàng cho khoảng ngày lớn
+     *
+     * Sheet "Đơn hàng" đọc trực tiếp từ cursor JDBC (ReportQueryDAO.streamOrders) và ghi qua
+     * SXSSF, nên chỉ khoảng ROW_WINDOW dòng nằm trong heap dù khoảng ngày có bao nhiêu đơn.
+     * Ghi vào file tạm cạnh target rồi đổi tên → hủy giữa chừng không để lại file dở.
+     *
+     * @param dailyRows tổng hợp theo ngày (đã có sẵn trên màn hình báo cáo)
+     * @param progress  nhận tiến độ theo số đơn; isCancelled() = true để dừng
+     * @return số đơn đã ghi, -1 nếu bị hủy
+     */
+    public long exportOrderReport(List<ReportData> dailyRows, LocalDate startDate, LocalDate endDate,
+                                  File target, ExportProgress progress) throws IOException {
+        LocalDateTime from = startDate.atStartOfDay();
+        LocalDateTime to = endDate.plusDays(1).atStartOfDay();
+
+        Path output = target.toPath().toAbsolutePath();
+        Path temp = Files.createTempFile(output.getParent(), "export", ".xlsx.tmp");
+        SXSSFWorkbook workbook = newWorkbook();
+        boolean completed = false;
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            ReportQueryDAO reportDAO = new ReportQueryDAOImpl(conn);
+            long total = reportDAO.countOrders(from, to);
+            progress.update(0, total);
+
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerStyle.setFont(headerFont);
+            headerStyle.setFillForegroundColor(IndexedColors.LIGHT_BLUE.getIndex());
+            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+            writeDailySheet(workbook.createSheet("Doanh thu theo ngày"), headerStyle, dailyRows, startDate, endDate);
+
+            long written = writeOrderSheet(workbook, workbook.createSheet("Đơn hàng"), headerStyle,
+                    reportDAO, from, to, total, progress);
+            if (written < 0) {
+                System.out.println("⚠️ Order export cancelled");
+                return -1;
+            }
+
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                workbook.write(out);
+            }
+            Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING);
+            completed = true;
+            progress.update(written, written);
+            System.out.println("✅ Exported " + written + " orders to " + output);
+            return written;
+        } catch (SQLException e) {
+            throw new IOException("Không thể kết nối cơ sở dữ liệu", e);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+            if (!completed) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private void writeDailySheet(Sheet sheet, CellStyle headerStyle, List<ReportData> dailyRows,
+                                 LocalDate startDate, LocalDate endDate) {
+        Row titleRow = sheet.createRow(0);
+        Cell titleCell = titleRow.createCell(0);
+        titleCell.setCellValue("BÁO CÁO DOANH THU");
+        titleCell.setCellStyle(headerStyle);
+
+        Row dateRow = sheet.createRow(1);
+        dateRow.createCell(0).setCellValue("Từ ngày: " + startDate.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")) +
+                " - Đến ngày: " + endDate.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")));
+
+        Row headerRow = sheet.createRow(3);
+        String[] headers = {"Ngày", "Số đơn", "Doanh thu", "Giá trị TB"};
+        ColumnWidths widths = new ColumnWidths(headers.length);
+        for (int i = 0; i < headers.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(headers[i]);
+            cell.setCellStyle(headerStyle);
+            widths.track(i, headers[i]);
+        }
+
+        int rowNum = 4;
+        for (ReportData data : dailyRows) {
+            Row row = sheet.createRow(rowNum++);
+            widths.track(0, setCell(row, 0, data.getDate()));
+            widths.track(1, setCell(row, 1, data.getOrders()));
+            widths.track(2, setCell(row, 2, data.getRevenue()));
+            widths.track(3, setCell(row, 3, data.getAvgValue()));
+        }
+        widths.apply(sheet);
+    }
+
+    /**
+     * @return số dòng đã ghi, -1 nếu bị hủy
+     */
+    private long writeOrderSheet(SXSSFWorkbook workbook, Sheet sheet, CellStyle headerStyle, ReportQueryDAO reportDAO,
+                                 LocalDateTime from, LocalDateTime to, long total,
+                                 ExportProgress progress) throws IOException {
+        Row headerRow = sheet.createRow(0);
+        String[] headers = {"Mã đơn", "Thời gian", "Bàn", "Nhân viên", "Trạng thái", "Thanh toán",
+                "Phương thức", "Tổng tiền", "Giảm giá", "Thành tiền"};
+        ColumnWidths widths = new ColumnWidths(headers.length);
+        for (int i = 0; i < headers.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(headers[i]);
+            cell.setCellStyle(headerStyle);
+            widths.track(i, headers[i]);
+        }
+        sheet.createFreezePane(0, 1);
+
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.createDataFormat().getFormat("dd/mm/yyyy hh:mm"));
+        widths.track(1, "dd/mm/yyyy hh:mm");
+        CellStyle moneyStyle = workbook.createCellStyle();
+        moneyStyle.setDataFormat(workbook.createDataFormat().getFormat("#,##0"));
+
+        int[] rowNum = {1};
+        boolean[] cancelled = {false};
+        long written = reportDAO.streamOrders(from, to, order -> {
+            if (progress.isCancelled()) {
+                cancelled[0] = true;
+                return false;
+            }
+            Row row = sheet.createRow(rowNum[0]++);
+            widths.track(0, setCell(row, 0, order.getOrderNumber()));
+            if (order.getOrderDate() != null) {
+                Cell dateCell = row.createCell(1);
+                dateCell.setCellValue(order.getOrderDate().toLocalDateTime());
+                dateCell.setCellStyle(dateStyle);
+            }
+            widths.track(2, setCell(row, 2, order.getTableName()));
+            widths.track(3, setCell(row, 3, order.getStaffName()));
+            widths.track(4, setCell(row, 4, order.getOrderStatus()));
+            widths.track(5, setCell(row, 5, order.getPaymentStatus()));
+            widths.track(6, setCell(row, 6, order.getPaymentMethod()));
+            widths.track(7, setMoneyCell(row, 7, order.getTotalAmount(), moneyStyle));
+            widths.track(8, setMoneyCell(row, 8, order.getDiscountAmount(), moneyStyle));
+            widths.track(9, setMoneyCell(row, 9, order.getFinalAmount(), moneyStyle));
+
+            long done = rowNum[0] - 1;
+            if (done % PROGRESS_INTERVAL == 0) {
+                progress.update(done, total);
+            }
+            return true;
+        });
+
+        if (cancelled[0]) {
+            return -1;
+        }
+        if (written < 0) {
+            throw new IOException("Lỗi đọc dữ liệu đơn hàng");
+        }
+        widths.apply(sheet);
+        return written;
+    }
+
+    // ===================== Helper Methods =======================
+
+    private static SXSSFWorkbook newWorkbook() {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        // Dòng đã flush ra file tạm được nén (gzip) → file tạm nhỏ hơn nhiều lần
+        workbook.setCompressTempFiles(true);
+        return workbook;
+    }
+
+    private static void writeAndDispose(SXSSFWorkbook workbook, File file) throws IOException {
+        try (FileOutputStream fileOut = new FileOutputStream(file)) {
+            workbook.write(fileOut);
+        } finally {
+            // Xóa file tạm của SXSSF
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static String setCell(Row row, int column, String value) {
+        String text = value != null ? value : "";
+        row.createCell(column).setCellValue(text);
+        return text;
+    }
+
+    private static String setCell(Row row, int column, double value) {
+        row.createCell(column).setCellValue(value);
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+
+    private static String setMoneyCell(Row row, int column, double value, CellStyle moneyStyle) {
+        Cell cell = row.createCell(column);
+        cell.setCellValue(value);
+        cell.setCellStyle(moneyStyle);
+        return String.format("%,.0f", value);
+    }
+
+    /**
+     * Ước lượng độ rộng cột theo số ký tự dài nhất đã ghi; autoSizeColumn của SXSSF chỉ
+     * thấy các dòng còn trong cửa sổ và phải đo bằng font nên vừa chậm vừa sai
+     */
+    private static final class ColumnWidths {
+        private final int[] maxChars;
+
+        ColumnWidths(int columns) {
+            this.maxChars = new int[columns];
+        }
+
+        void track(int column, String text) {
+            if (text != null && text.length() > maxChars[column]) {
+                maxChars[column] = Math.min(text.length(), MAX_COLUMN_CHARS);
+            }
+        }
+
+        void apply(Sheet sheet) {
+            for (int i = 0; i < maxChars.length; i++) {
+                // Đơn vị 1/256 ký tự, cộng 2 ký tự lề
+                sheet.setColumnWidth(i, (maxChars[i] + 2) * 256);
+            }
+        }
+    }
+
     /**
      * Get sales data for reporting
      */
@@ -0,0 +1,31 @@
+package com.cafe.util;
+
+/**
+ * Tiến độ + hủy cho các tác vụ xuất file chạy nền (Excel, CSV)
+ *
+ * Exporter gọi update() định kỳ và dừng (xóa file dở) khi isCancelled() = true;
+ * controller thường nối vào updateProgress()/isCancelled() của JavaFX Task.
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public interface ExportProgress {
+
+    ExportProgress NONE = new ExportProgress() {
+        @Override
+        public void update(long done, long total) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    /**
+     * @param total tổng số dòng dự kiến (-1 nếu không biết)
+     */
+    void update(long done, long total);
+
+    boolean isCancelled();
+}
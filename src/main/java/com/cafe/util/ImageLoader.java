@@ -1,20 +1,63 @@
 package com.cafe.util;
 
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
 import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+
 import java.io.File;
 import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Utility class for loading images
- * 
+ *
+ * - Cache LRU giới hạn theo dung lượng (byte), giữ Image bằng SoftReference
+ *   nên GC vẫn thu hồi được khi thiếu bộ nhớ
+ * - Key = (url, chiều rộng, chiều cao yêu cầu): ảnh được decode ở kích thước hiển thị
+ * - loadInto(): hiện placeholder trước, ảnh thật được tải ở background
+ * - Đếm hit/miss/eviction để theo dõi hiệu quả cache
+ * - Key "store:..." (ImageStore) đọc thumbnail có sẵn vừa khung thay vì ảnh gốc
+ *
  * @author Team 2_C2406L
- * @version 1.0.0
+ * @version 1.1.0
  */
 public class ImageLoader {
-    
+
     private static final String DEFAULT_PRODUCT_IMAGE = "/images/placeholders/no-image.png";
     private static final String PRODUCT_IMAGES_PATH = "/images/products/";
-    
+
+    /** Dung lượng tối đa của cache (ước tính 4 byte/pixel) */
+    private static final long MAX_CACHE_BYTES = 64L * 1024 * 1024;
+    /** Ước tính cho ảnh full-size tải ở background (chưa biết kích thước) */
+    private static final long UNKNOWN_IMAGE_BYTES = 512L * 512 * 4;
+
+    /** Key của ảnh mà ImageView đang chờ (tránh gán ảnh cũ khi view đã được dùng lại) */
+    private static final String VIEW_IMAGE_KEY = "ImageLoader.key";
+
+    private static final class CacheEntry {
+        final SoftReference<Image> image;
+        final long bytes;
+
+        CacheEntry(Image image, long bytes) {
+            this.image = new SoftReference<>(image);
+            this.bytes = bytes;
+        }
+    }
+
+    // Access-order → phần tử đầu tiên là phần tử ít được dùng nhất
+    private static final LinkedHashMap<String, CacheEntry> cache = new LinkedHashMap<>(256, 0.75f, true);
+    private static long cachedBytes = 0;
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+
     /**
      * Load product image by URL
      */
@@ -22,55 +65,64 @@ public class ImageLoader {
         if (imageUrl == null || imageUrl.trim().isEmpty()) {
             return loadDefaultProductImage();
         }
-        
-        try {
-            // Try to load from resources first
-            if (imageUrl.startsWith("/")) {
-                InputStream stream = ImageLoader.class.getResourceAsStream(imageUrl);
-                if (stream != null) {
-                    return new Image(stream);
-                }
-            }
-            
-            // Try to load from file system
-            File imageFile = new File(imageUrl);
-            if (imageFile.exists()) {
-                return new Image(imageFile.toURI().toString());
-            }
-            
-            // Try to load from product images directory
-            String resourcePath = PRODUCT_IMAGES_PATH + imageUrl;
-            InputStream stream = ImageLoader.class.getResourceAsStream(resourcePath);
-            if (stream != null) {
-                return new Image(stream);
-            }
-            
-            // If all fails, return default image
-            return loadDefaultProductImage();
-            
-        } catch (Exception e) {
-            System.err.println("Error loading image: " + imageUrl + " - " + e.getMessage());
-            return loadDefaultProductImage();
+
+        Image image = getImage(imageUrl.trim(), 0, 0, false);
+        return image != null && !image.isError() ? image : loadDefaultProductImage();
+    }
+
+    /**
+     * Load product image decode ở kích thước hiển thị, tải ở background
+     * @return Image (có thể chưa tải xong), null nếu không tìm thấy ảnh
+     */
+    public static Image loadProductImage(String imageUrl, double width, double height) {
+        if (imageUrl == null || imageUrl.trim().isEmpty()) {
+            return null;
+        }
+        return getImage(imageUrl.trim(), width, height, true);
+    }
+
+    /**
+     * Gán ảnh product cho ImageView: placeholder hiện ngay,
+     * ảnh thật thay thế khi tải xong (nếu view vẫn đang hiển thị ảnh này)
+     */
+    public static void loadInto(ImageView view, String imageUrl, double width, double height) {
+        Image image = loadProductImage(imageUrl, width, height);
+        if (image == null || image.isError()) {
+            view.getProperties().remove(VIEW_IMAGE_KEY);
+            view.setImage(loadDefaultProductImage(width, height));
+            return;
         }
+
+        String key = cacheKey(imageUrl.trim(), width, height);
+        view.getProperties().put(VIEW_IMAGE_KEY, key);
+        if (image.getProgress() >= 1.0) {
+            view.setImage(image);
+            return;
+        }
+
+        view.setImage(loadDefaultProductImage(width, height));
+        whenLoaded(image, () -> {
+            if (key.equals(view.getProperties().get(VIEW_IMAGE_KEY))) {
+                view.setImage(image.isError() ? loadDefaultProductImage(width, height) : image);
+            }
+        });
     }
-    
+
     /**
      * Load default product image
      */
     public static Image loadDefaultProductImage() {
-        try {
-            InputStream stream = ImageLoader.class.getResourceAsStream(DEFAULT_PRODUCT_IMAGE);
-            if (stream != null) {
-                return new Image(stream);
-            } else {
-                // Create a simple placeholder if default image is not found
-                return createPlaceholderImage();
-            }
-        } catch (Exception e) {
-            return createPlaceholderImage();
-        }
+        return loadDefaultProductImage(0, 0);
     }
-    
+
+    /**
+     * Load default product image ở kích thước cho trước (0 = kích thước gốc)
+     */
+    public static Image loadDefaultProductImage(double width, double height) {
+        Image image = getImage(DEFAULT_PRODUCT_IMAGE, width, height, false);
+        return image != null && !image.isError() ? image : createPlaceholderImage();
+    }
+
     /**
      * Create a simple placeholder image
      */
@@ -87,7 +139,7 @@ public class ImageLoader {
         }
         return null;
     }
-    
+
     /**
      * Load icon image
      */
@@ -103,4 +155,177 @@ public class ImageLoader {
         }
         return null;
     }
+
+    // =====================================================
+    // CACHE
+    // =====================================================
+
+    private static Image getImage(String imageUrl, double width, double height, boolean backgroundLoading) {
+        String key = cacheKey(imageUrl, width, height);
+
+        synchronized (cache) {
+            CacheEntry entry = cache.get(key);
+            if (entry != null) {
+                Image cached = entry.image.get();
+                if (cached != null) {
+                    hits.incrementAndGet();
+                    return cached;
+                }
+                // Đã bị GC thu hồi
+                cache.remove(key);
+                cachedBytes -= entry.bytes;
+            }
+        }
+        misses.incrementAndGet();
+
+        String resolvedUrl = resolveUrl(imageUrl, width, height);
+        if (resolvedUrl == null) {
+            return null;
+        }
+
+        Image image;
+        try {
+            image = new Image(resolvedUrl, width, height, true, true, backgroundLoading);
+        } catch (Exception e) {
+            System.err.println("Error loading image: " + imageUrl + " - " + e.getMessage());
+            return null;
+        }
+        if (image.isError()) {
+            return image;
+        }
+
+        put(key, image, estimateBytes(image, width, height));
+        // Ảnh lỗi khi tải ở background không được giữ lại trong cache
+        image.errorProperty().addListener((obs, wasError, isError) -> {
+            if (isError) {
+                evict(key);
+            }
+        });
+        return image;
+    }
+
+    private static void put(String key, Image image, long bytes) {
+        synchronized (cache) {
+            CacheEntry previous = cache.put(key, new CacheEntry(image, bytes));
+            if (previous != null) {
+                cachedBytes -= previous.bytes;
+            }
+            cachedBytes += bytes;
+
+            Iterator<Map.Entry<String, CacheEntry>> eldest = cache.entrySet().iterator();
+            while (cachedBytes > MAX_CACHE_BYTES && eldest.hasNext()) {
+                Map.Entry<String, CacheEntry> entry = eldest.next();
+                if (entry.getKey().equals(key)) {
+                    continue;
+                }
+                cachedBytes -= entry.getValue().bytes;
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static void evict(String key) {
+        synchronized (cache) {
+            CacheEntry entry = cache.remove(key);
+            if (entry != null) {
+                cachedBytes -= entry.bytes;
+            }
+        }
+    }
+
+    /**
+     * Xóa toàn bộ cache (ví dụ sau khi đổi ảnh sản phẩm)
+     */
+    public static void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+            cachedBytes = 0;
+        }
+    }
+
+    public static long getCacheHits() {
+        return hits.get();
+    }
+
+    public static long getCacheMisses() {
+        return misses.get();
+    }
+
+    public static String getCacheStats() {
+        synchronized (cache) {
+            return String.format("ImageCache{entries=%d, bytes=%d/%d, hits=%d, misses=%d, evictions=%d}",
+                    cache.size(), cachedBytes, MAX_CACHE_BYTES, hits.get(), misses.get(), evictions.get());
+        }
+    }
+
+    // =====================================================
+    // HELPERS
+    // =====================================================
+
+    /**
+     * Chuyển đường dẫn ảnh (kho ảnh, classpath, file, http, tên file trong thư mục products)
+     * thành URL mà JavaFX Image đọc được
+     */
+    private static String resolveUrl(String imageUrl, double width, double height) {
+        if (ImageStore.isStoreKey(imageUrl)) {
+            return ImageStore.resolve(imageUrl, ImageStore.Variant.forDisplaySize(width, height));
+        }
+
+        if (imageUrl.startsWith("http://") || imageUrl.startsWith("https://")
+                || imageUrl.startsWith("file:") || imageUrl.startsWith("jar:")) {
+            return imageUrl;
+        }
+
+        // Try to load from resources first
+        if (imageUrl.startsWith("/")) {
+            URL resource = ImageLoader.class.getResource(imageUrl);
+            if (resource != null) {
+                return resource.toExternalForm();
+            }
+        }
+
+        // Try to load from file system
+        File imageFile = new File(imageUrl);
+        if (imageFile.exists()) {
+            return imageFile.toURI().toString();
+        }
+
+        // Try to load from product images directory
+        URL resource = ImageLoader.class.getResource(PRODUCT_IMAGES_PATH + imageUrl);
+        return resource != null ? resource.toExternalForm() : null;
+    }
+
+    private static String cacheKey(String imageUrl, double width, double height) {
+        return imageUrl + '|' + (int) width + 'x' + (int) height;
+    }
+
+    private static long estimateBytes(Image image, double width, double height) {
+        if (width > 0 && height > 0) {
+            return (long) (width * height * 4);
+        }
+        if (image.getProgress() >= 1.0 && image.getWidth() > 0) {
+            return (long) (image.getWidth() * image.getHeight() * 4);
+        }
+        return UNKNOWN_IMAGE_BYTES;
+    }
+
+    private static void whenLoaded(Image image, Runnable action) {
+        ChangeListener<Number> progressListener = new ChangeListener<>() {
+            @Override
+            public void changed(ObservableValue<? extends Number> obs, Number oldValue, Number newValue) {
+                if (newValue.doubleValue() >= 1.0) {
+                    image.progressProperty().removeListener(this);
+                    action.run();
+                }
+            }
+        };
+        image.progressProperty().addListener(progressListener);
+        image.errorProperty().addListener((obs, wasError, isError) -> {
+            if (isError) {
+                image.progressProperty().removeListener(progressListener);
+                action.run();
+            }
+        });
+    }
 }
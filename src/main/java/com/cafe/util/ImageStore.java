@@ -0,0 +1,282 @@
+package com.cafe.util;
+
+import com.cafe.config.DatabaseConfig;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Kho ảnh sản phẩm dùng chung, đánh địa chỉ theo nội dung (SHA-256)
+ *
+ * - ingest(file): băm file, chép vào kho (ảnh trùng nội dung chỉ lưu một lần) và tạo sẵn
+ *   thumbnail card / preview một lần duy nhất, chạy trên BackgroundExecutor
+ * - products.image_url lưu key "store:{sha256}.{ext}" thay vì đường dẫn file trên máy admin
+ * - image.store.dir nên là thư mục dùng chung (ổ mạng) để mọi terminal đều thấy ảnh
+ *
+ * Bố cục: {dir}/{2 ký tự đầu}/{sha256}/original.{ext}, card.jpg, preview.jpg
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public final class ImageStore {
+
+    public static final String KEY_PREFIX = "store:";
+
+    /**
+     * Các kích thước lưu trong kho; card = 2× ô sản phẩm (160×120) cho màn hình HiDPI
+     */
+    public enum Variant {
+        CARD("card.jpg", 320, 240),
+        PREVIEW("preview.jpg", 800, 800),
+        ORIGINAL(null, 0, 0);
+
+        private final String fileName;
+        private final int maxWidth;
+        private final int maxHeight;
+
+        Variant(String fileName, int maxWidth, int maxHeight) {
+            this.fileName = fileName;
+            this.maxWidth = maxWidth;
+            this.maxHeight = maxHeight;
+        }
+
+        /**
+         * Biến thể nhỏ nhất đủ nét cho khung hiển thị width×height (0 = kích thước gốc)
+         */
+        public static Variant forDisplaySize(double width, double height) {
+            if (width <= 0 && height <= 0) {
+                return ORIGINAL;
+            }
+            for (Variant variant : new Variant[]{CARD, PREVIEW}) {
+                if (width <= variant.maxWidth / 2.0 && height <= variant.maxHeight / 2.0) {
+                    return variant;
+                }
+            }
+            return ORIGINAL;
+        }
+    }
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private ImageStore() {
+    }
+
+    /**
+     * Đưa ảnh vào kho (chạy nền)
+     * @return future hoàn thành với key lưu vào image_url sau khi đã có thumbnail
+     */
+    public static CompletableFuture<String> ingest(File file) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return ingestNow(file.toPath());
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, BackgroundExecutor.executor());
+    }
+
+    /**
+     * Đưa ảnh vào kho trên thread hiện tại
+     */
+    public static String ingestNow(Path source) throws IOException {
+        String hash = sha256(source);
+        String key = KEY_PREFIX + hash + "." + extensionOf(source);
+        Path entryDir = entryDir(hash);
+        Path original = entryDir.resolve("original." + extensionOf(source));
+
+        Files.createDirectories(entryDir);
+        if (!Files.exists(original)) {
+            // Chép vào file tạm rồi đổi tên → terminal khác không đọc phải file ghi dở
+            Path temp = Files.createTempFile(entryDir, "original", ".tmp");
+            Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+            moveIntoPlace(temp, original);
+        }
+
+        if (!Files.exists(entryDir.resolve(Variant.CARD.fileName))
+                || !Files.exists(entryDir.resolve(Variant.PREVIEW.fileName))) {
+            BufferedImage image = ImageIO.read(original.toFile());
+            if (image == null) {
+                throw new IOException("Unsupported image format: " + source.getFileName());
+            }
+            writeThumbnail(image, entryDir, Variant.CARD);
+            writeThumbnail(image, entryDir, Variant.PREVIEW);
+        }
+
+        System.out.println("🖼️ Image stored: " + key + " (" + Files.size(original) / 1024 + " KB original)");
+        return key;
+    }
+
+    /**
+     * Cảnh báo khi kho ảnh không dùng chung: để trống image.store.dir thì mỗi máy
+     * lưu vào ~/CafeImages của riêng nó và terminal khác không thấy ảnh admin vừa đổi
+     */
+    public static void warnIfNotShared() {
+        String configured = DatabaseConfig.getProperty("image.store.dir", "");
+        if (configured.isBlank()) {
+            System.err.println("⚠️ image.store.dir is not set: product images are stored in " + getStoreDir()
+                    + " on this machine only; point it to a shared folder so other terminals see them");
+        } else if (!Files.isDirectory(getStoreDir())) {
+            System.err.println("⚠️ Image store " + getStoreDir() + " is not reachable; product images will not load");
+        }
+    }
+
+    public static boolean isStoreKey(String imageUrl) {
+        return imageUrl != null && imageUrl.startsWith(KEY_PREFIX);
+    }
+
+    /**
+     * URL (file:) của biến thể ảnh; thiếu thumbnail thì dùng ảnh gốc
+     * @return null nếu key không hợp lệ hoặc ảnh không có trong kho
+     */
+    public static String resolve(String key, Variant variant) {
+        if (!isStoreKey(key)) {
+            return null;
+        }
+        String name = key.substring(KEY_PREFIX.length());
+        int dot = name.lastIndexOf('.');
+        String hash = dot > 0 ? name.substring(0, dot) : name;
+        if (hash.length() < 2 || !hash.chars().allMatch(c -> Character.digit(c, 16) >= 0)) {
+            return null;
+        }
+
+        Path entryDir = entryDir(hash);
+        if (variant != Variant.ORIGINAL) {
+            Path thumbnail = entryDir.resolve(variant.fileName);
+            if (Files.exists(thumbnail)) {
+                return thumbnail.toUri().toString();
+            }
+        }
+        Path original = entryDir.resolve("original." + (dot > 0 ? name.substring(dot + 1) : "img"));
+        return Files.exists(original) ? original.toUri().toString() : null;
+    }
+
+    // ===================== Helper Methods =======================
+
+    private static Path getStoreDir() {
+        String configured = DatabaseConfig.getProperty("image.store.dir", "");
+        return configured.isBlank()
+                ? Paths.get(System.getProperty("user.home"), "CafeImages")
+                : Paths.get(configured.trim());
+    }
+
+    private static Path entryDir(String hash) {
+        return getStoreDir().resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static String sha256(Path file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String extensionOf(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String extension = dot >= 0 ? name.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+        return extension.matches("[a-z0-9]{1,5}") ? extension : "img";
+    }
+
+    private static void writeThumbnail(BufferedImage source, Path entryDir, Variant variant) throws IOException {
+        Path target = entryDir.resolve(variant.fileName);
+        if (Files.exists(target)) {
+            return;
+        }
+
+        double scale = Math.min(1.0, Math.min((double) variant.maxWidth / source.getWidth(),
+                (double) variant.maxHeight / source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        // JPEG không có kênh alpha → nền trắng cho ảnh PNG trong suốt
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = thumbnail.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(downscale(source, width, height), 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+
+        Path temp = Files.createTempFile(entryDir, variant.name().toLowerCase(Locale.ROOT), ".tmp");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(thumbnail, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        moveIntoPlace(temp, target);
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            // File tạm chỉ chủ sở hữu đọc được; terminal khác cần đọc ảnh trong kho dùng chung
+            Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-r--r--"));
+        } catch (UnsupportedOperationException e) {
+            // Windows: quyền theo thư mục
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Một số ổ mạng không hỗ trợ đổi tên nguyên tử
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Thu nhỏ từng nửa một cho tới gần kích thước đích (bicubic một bước làm răng cưa ảnh lớn)
+     */
+    private static BufferedImage downscale(BufferedImage source, int width, int height) {
+        BufferedImage current = source;
+        while (current.getWidth() / 2 >= width && current.getHeight() / 2 >= height) {
+            int halfWidth = current.getWidth() / 2;
+            int halfHeight = current.getHeight() / 2;
+            BufferedImage half = new BufferedImage(halfWidth, halfHeight, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = half.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(current, 0, 0, halfWidth, halfHeight, null);
+            } finally {
+                g.dispose();
+            }
+            current = half;
+        }
+        return current;
+    }
+}
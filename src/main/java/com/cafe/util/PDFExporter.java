@@ -3,330 +3,151 @@ package com.cafe.util;
 
 import com.cafe.controller.admin.AdminReportController.ProductReportData;
 import com.cafe.controller.admin.AdminReportController.CustomerData;
+import com.cafe.model.dto.SalesBreakdown;
+import com.cafe.model.dto.SalesData;
+import com.cafe.service.SalesRollupService;
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.*;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Utility class for exporting reports to PDF
+ *
+ * Font, kiểu chữ và mẫu bảng lấy từ PdfRenderer (dựng một lần); mỗi lần xuất chỉ đổ dữ liệu.
  */
 public class PDFExporter {
 
-    private static final Font TITLE_FONT = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD);
-    private static final Font HEADER_FONT = new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD);
-    private static final Font NORMAL_FONT = new Font(Font.FontFamily.HELVETICA, 10);
-    private static final Font RECEIPT_FONT = new Font(Font.FontFamily.COURIER, 9);
+    private static final DateTimeFormatter DISPLAY_DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
 
-    public void exportSalesReport(List<Object> salesList, LocalDate startDate, LocalDate endDate) throws IOException, DocumentException {
-        Document document = new Document();
-        String fileName = "BaoCaoDanhThu_" + LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + ".pdf";
-
-        PdfWriter.getInstance(document, new FileOutputStream(fileName));
-        document.open();
-
-        // Title
-        Paragraph title = new Paragraph("BÁO CÁO DOANH THU", TITLE_FONT);
-        title.setAlignment(Element.ALIGN_CENTER);
-        document.add(title);
-        document.add(new Paragraph(" "));
-
-        // Date range
-        Paragraph dateRange = new Paragraph("Từ ngày: " + startDate.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")) +
-                " - Đến ngày: " + endDate.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")), NORMAL_FONT);
-        dateRange.setAlignment(Element.ALIGN_CENTER);
-        document.add(dateRange);
-        document.add(new Paragraph(" "));
-
-        // Create table
-        PdfPTable table = new PdfPTable(5);
-        table.setWidthPercentage(100);
-        table.setSpacingBefore(10f);
-        table.setSpacingAfter(10f);
-
-        // Table headers
-        String[] headers = {"Ngày", "Doanh thu", "Số đơn hàng", "Trung bình/đơn", "Tăng trưởng"};
-        for (String header : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, HEADER_FONT));
-            cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            cell.setPadding(10);
-            table.addCell(cell);
-        }
+    private static final int TOP_PRODUCTS_PER_DAY = 10;
 
-        // Table data - using actual SalesData implementation
-        try {
-            java.util.List<com.cafe.model.dto.SalesData> salesDataList = getSalesData();
-            
-            if (salesDataList != null && !salesDataList.isEmpty()) {
-                for (com.cafe.model.dto.SalesData data : salesDataList) {
-                    table.addCell(new PdfPCell(new Phrase(data.getDate().toString(), NORMAL_FONT)));
-                    table.addCell(new PdfPCell(new Phrase(String.format("%.0f", data.getTotalRevenue()), NORMAL_FONT)));
-                    table.addCell(new PdfPCell(new Phrase(String.valueOf(data.getTotalOrders()), NORMAL_FONT)));
-                    table.addCell(new PdfPCell(new Phrase(String.format("%.0f", data.getAverageOrderValue()), NORMAL_FONT)));
-                    table.addCell(new PdfPCell(new Phrase(String.valueOf(data.getTotalItemsSold()), NORMAL_FONT)));
-                }
-            } else {
-                // No data available
-                table.addCell(new PdfPCell(new Phrase("Không có dữ liệu", NORMAL_FONT)));
-                table.addCell(new PdfPCell(new Phrase("", NORMAL_FONT)));
-                table.addCell(new PdfPCell(new Phrase("", NORMAL_FONT)));
-                table.addCell(new PdfPCell(new Phrase("", NORMAL_FONT)));
-                table.addCell(new PdfPCell(new Phrase("", NORMAL_FONT)));
-            }
-        } catch (Exception e) {
-            System.err.println("❌ Error loading sales data: " + e.getMessage());
-            // Fallback to placeholder
-            table.addCell(new PdfPCell(new Phrase("Đang cập nhật...", NORMAL_FONT)));
-            table.addCell(new PdfPCell(new Phrase("0", NORMAL_FONT)));
-            table.addCell(new PdfPCell(new Phrase("0", NORMAL_FONT)));
-            table.addCell(new PdfPCell(new Phrase("0", NORMAL_FONT)));
-            table.addCell(new PdfPCell(new Phrase("0", NORMAL_FONT)));
-        }
+    /**
+     * Mẫu bảng dựng lần đầu dùng tới (nạp font của PdfRenderer)
+     */
+    private static final class Templates {
+        private static final PdfRenderer RENDERER = PdfRenderer.getInstance();
+
+        private static final String[] SALES_HEADERS = {"Ngày", "Doanh thu", "Số đơn hàng", "Trung bình/đơn", "Số món bán"};
+        private static final String[] PRODUCT_HEADERS = {"Sản phẩm", "Số lượng bán", "Doanh thu", "% Tổng doanh thu"};
+        private static final String[] CUSTOMER_HEADERS = {"Khách hàng", "Số đơn hàng", "Tổng chi tiêu", "Đơn hàng cuối"};
+
+        private static final int[] SALES_ALIGN = {Element.ALIGN_LEFT, Element.ALIGN_RIGHT, Element.ALIGN_RIGHT,
+                Element.ALIGN_RIGHT, Element.ALIGN_RIGHT};
+        private static final int[] PRODUCT_ALIGN = {Element.ALIGN_LEFT, Element.ALIGN_RIGHT, Element.ALIGN_RIGHT,
+                Element.ALIGN_RIGHT};
+        private static final int[] CUSTOMER_ALIGN = {Element.ALIGN_LEFT, Element.ALIGN_RIGHT, Element.ALIGN_RIGHT,
+                Element.ALIGN_LEFT};
+
+        private static final float[] SALES_WIDTHS = {2, 2, 1.5f, 2, 1.5f};
+        private static final float[] PRODUCT_WIDTHS = {4, 2, 2, 2};
+        private static final float[] CUSTOMER_WIDTHS = {4, 2, 2, 2};
+
+        // Báo cáo riêng lẻ (padding tiêu đề 10) và báo cáo tổng hợp (padding 5)
+        static final PdfRenderer.TableTemplate SALES = RENDERER.table(SALES_HEADERS, SALES_WIDTHS, SALES_ALIGN, 10);
+        static final PdfRenderer.TableTemplate PRODUCTS = RENDERER.table(PRODUCT_HEADERS, PRODUCT_WIDTHS, PRODUCT_ALIGN, 10);
+        static final PdfRenderer.TableTemplate CUSTOMERS = RENDERER.table(CUSTOMER_HEADERS, CUSTOMER_WIDTHS, CUSTOMER_ALIGN, 10);
+        static final PdfRenderer.TableTemplate SALES_COMPACT = RENDERER.table(SALES_HEADERS, SALES_WIDTHS, SALES_ALIGN, 5);
+        static final PdfRenderer.TableTemplate PRODUCTS_COMPACT = RENDERER.table(PRODUCT_HEADERS, PRODUCT_WIDTHS, PRODUCT_ALIGN, 5);
+        static final PdfRenderer.TableTemplate CUSTOMERS_COMPACT = RENDERER.table(CUSTOMER_HEADERS, CUSTOMER_WIDTHS, CUSTOMER_ALIGN, 5);
+    }
 
-        document.add(table);
-        document.close();
+    /**
+     * Dữ liệu một trang báo cáo ngày (nạp sẵn trước khi render song song)
+     */
+    private record DailyReport(SalesData sales, List<SalesBreakdown> topProducts) {
     }
 
-    public void exportProductReport(List<ProductReportData> productList, LocalDate startDate, LocalDate endDate) throws IOException, DocumentException {
-        Document document = new Document();
-        String fileName = "BaoCaoSanPham_" + LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + ".pdf";
-
-        PdfWriter.getInstance(document, new FileOutputStream(fileName));
-        document.open();
-
-        // Title
-        Paragraph title = new Paragraph("BÁO CÁO SẢN PHẨM", TITLE_FONT);
-        title.setAlignment(Element.ALIGN_CENTER);
-        document.add(title);
-        document.add(new Paragraph(" "));
-
-        // Date range
-        Paragraph dateRange = new Paragraph("Từ ngày: " + startDate.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")) +
-                " - Đến ngày: " + endDate.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")), NORMAL_FONT);
-        dateRange.setAlignment(Element.ALIGN_CENTER);
-        document.add(dateRange);
-        document.add(new Paragraph(" "));
-
-        // Create table
-        PdfPTable table = new PdfPTable(4);
-        table.setWidthPercentage(100);
-        table.setSpacingBefore(10f);
-        table.setSpacingAfter(10f);
-
-        // Table headers
-        String[] headers = {"Sản phẩm", "Số lượng bán", "Doanh thu", "% Tổng doanh thu"};
-        for (String header : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, HEADER_FONT));
-            cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            cell.setPadding(10);
-            table.addCell(cell);
-        }
+    public void exportSalesReport(List<Object> salesList, LocalDate startDate, LocalDate endDate) throws IOException, DocumentException {
+        String fileName = "BaoCaoDanhThu_" + LocalDate.now().format(FILE_DATE) + ".pdf";
+        List<SalesData> salesDataList = getSalesData();
 
-        // Table data
-        for (ProductReportData data : productList) {
-            table.addCell(new PdfPCell(new Phrase(data.getProductName(), NORMAL_FONT)));
-            table.addCell(new PdfPCell(new Phrase(String.valueOf(data.getQuantitySold()), NORMAL_FONT)));
-            table.addCell(new PdfPCell(new Phrase(String.format("%.0f", data.getRevenue()), NORMAL_FONT)));
-            table.addCell(new PdfPCell(new Phrase(String.format("%.1f%%", data.getPercentage()), NORMAL_FONT)));
-        }
+        PdfRenderer.getInstance().render(Paths.get(fileName), PageSize.A4, document -> {
+            PdfRenderer.getInstance().addTitle(document, "BÁO CÁO DOANH THU", dateRange(startDate, endDate));
+            document.add(salesTable(Templates.SALES, salesDataList));
+        });
+    }
 
-        document.add(table);
-        document.close();
+    public void exportProductReport(List<ProductReportData> productList, LocalDate startDate, LocalDate endDate) throws IOException, DocumentException {
+        String fileName = "BaoCaoSanPham_" + LocalDate.now().format(FILE_DATE) + ".pdf";
+
+        PdfRenderer.getInstance().render(Paths.get(fileName), PageSize.A4, document -> {
+            PdfRenderer.getInstance().addTitle(document, "BÁO CÁO SẢN PHẨM", dateRange(startDate, endDate));
+            document.add(productTable(Templates.PRODUCTS, productList));
+        });
     }
 
     public void exportCustomerReport(List<CustomerData> customerList, LocalDate startDate, LocalDate endDate) throws IOException, DocumentException {
-        Document document = new Document();
-        String fileName = "BaoCaoKhachHang_" + LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + ".pdf";
-
-        PdfWriter.getInstance(document, new FileOutputStream(fileName));
-        document.open();
-
-        // Title
-        Paragraph title = new Paragraph("BÁO CÁO KHÁCH HÀNG", TITLE_FONT);
-        title.setAlignment(Element.ALIGN_CENTER);
-        document.add(title);
-        document.add(new Paragraph(" "));
-
-        // Date range
-        Paragraph dateRange = new Paragraph("Từ ngày: " + startDate.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")) +
-                " - Đến ngày: " + endDate.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")), NORMAL_FONT);
-        dateRange.setAlignment(Element.ALIGN_CENTER);
-        document.add(dateRange);
-        document.add(new Paragraph(" "));
-
-        // Create table
-        PdfPTable table = new PdfPTable(4);
-        table.setWidthPercentage(100);
-        table.setSpacingBefore(10f);
-        table.setSpacingAfter(10f);
-
-        // Table headers
-        String[] headers = {"Khách hàng", "Số đơn hàng", "Tổng chi tiêu", "Đơn hàng cuối"};
-        for (String header : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, HEADER_FONT));
-            cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            cell.setPadding(10);
-            table.addCell(cell);
-        }
+        String fileName = "BaoCaoKhachHang_" + LocalDate.now().format(FILE_DATE) + ".pdf";
 
-        // Table data
-        for (CustomerData data : customerList) {
-            table.addCell(new PdfPCell(new Phrase(data.getCustomerName(), NORMAL_FONT)));
-            table.addCell(new PdfPCell(new Phrase(String.valueOf(data.getOrderCount()), NORMAL_FONT)));
-            table.addCell(new PdfPCell(new Phrase(String.format("%.0f", data.getTotalSpent()), NORMAL_FONT)));
-            table.addCell(new PdfPCell(new Phrase(data.getLastVisit(), NORMAL_FONT)));
-        }
-
-        document.add(table);
-        document.close();
+        PdfRenderer.getInstance().render(Paths.get(fileName), PageSize.A4, document -> {
+            PdfRenderer.getInstance().addTitle(document, "BÁO CÁO KHÁCH HÀNG", dateRange(startDate, endDate));
+            document.add(customerTable(Templates.CUSTOMERS, customerList));
+        });
     }
 
     public void exportAllReports(List<Object> salesList, List<ProductReportData> productList,
                                  List<CustomerData> customerList, LocalDate startDate, LocalDate endDate) throws IOException, DocumentException {
-        Document document = new Document();
-        String fileName = "BaoCaoTongHop_" + LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + ".pdf";
-
-        PdfWriter.getInstance(document, new FileOutputStream(fileName));
-        document.open();
-
-        // Main title
-        Paragraph mainTitle = new Paragraph("BÁO CÁO TỔNG HỢP", TITLE_FONT);
-        mainTitle.setAlignment(Element.ALIGN_CENTER);
-        document.add(mainTitle);
-        document.add(new Paragraph(" "));
-
-        // Date range
-        Paragraph dateRange = new Paragraph("Từ ngày: " + startDate.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")) +
-                " - Đến ngày: " + endDate.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")), NORMAL_FONT);
-        dateRange.setAlignment(Element.ALIGN_CENTER);
-        document.add(dateRange);
-        document.add(new Paragraph(" "));
-
-        // Sales Report Section
-        document.add(new Paragraph("1. BÁO CÁO DOANH THU", HEADER_FONT));
-        document.add(new Paragraph(" "));
-
-        PdfPTable salesTable = new PdfPTable(5);
-        salesTable.setWidthPercentage(100);
-        salesTable.setSpacingBefore(10f);
-        salesTable.setSpacingAfter(10f);
-
-        // Sales headers
-        String[] salesHeaders = {"Ngày", "Doanh thu", "Số đơn hàng", "Trung bình/đơn", "Tăng trưởng"};
-        for (String header : salesHeaders) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, HEADER_FONT));
-            cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            cell.setPadding(5);
-            salesTable.addCell(cell);
-        }
+        String fileName = "BaoCaoTongHop_" + LocalDate.now().format(FILE_DATE) + ".pdf";
+        List<SalesData> salesDataList = getSalesData();
+        PdfRenderer renderer = PdfRenderer.getInstance();
+
+        renderer.render(Paths.get(fileName), PageSize.A4, document -> {
+            renderer.addTitle(document, "BÁO CÁO TỔNG HỢP", dateRange(startDate, endDate));
+
+            // Sales Report Section
+            document.add(new Paragraph("1. BÁO CÁO DOANH THU", renderer.getHeaderFont()));
+            document.add(new Paragraph(" "));
+            document.add(salesTable(Templates.SALES_COMPACT, salesDataList));
+            document.newPage();
+
+            // Product Report Section
+            document.add(new Paragraph("2. BÁO CÁO SẢN PHẨM", renderer.getHeaderFont()));
+            document.add(new Paragraph(" "));
+            document.add(productTable(Templates.PRODUCTS_COMPACT, productList));
+            document.newPage();
+
+            // Customer Report Section
+            document.add(new Paragraph("3. BÁO CÁO KHÁCH HÀNG", renderer.getHeaderFont()));
+            document.add(new Paragraph(" "));
+            document.add(customerTable(Templates.CUSTOMERS_COMPACT, customerList));
+
+            // Footer
+            document.add(new Paragraph(" "));
+            Paragraph footer = new Paragraph("Báo cáo được tạo vào: "
+                    + LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")), renderer.getNormalFont());
+            footer.setAlignment(Element.ALIGN_RIGHT);
+            document.add(footer);
+        });
+    }
 
-        // Sales data - using actual SalesData implementation
-        try {
-            java.util.List<com.cafe.model.dto.SalesData> salesDataList = getSalesData();
-            
-            if (salesDataList != null && !salesDataList.isEmpty()) {
-                for (com.cafe.model.dto.SalesData data : salesDataList) {
-                    salesTable.addCell(new PdfPCell(new Phrase(data.getDate().toString(), NORMAL_FONT)));
-                    salesTable.addCell(new PdfPCell(new Phrase(String.format("%.0f", data.getTotalRevenue()), NORMAL_FONT)));
-                    salesTable.addCell(new PdfPCell(new Phrase(String.valueOf(data.getTotalOrders()), NORMAL_FONT)));
-                    salesTable.addCell(new PdfPCell(new Phrase(String.format("%.0f", data.getAverageOrderValue()), NORMAL_FONT)));
-                    salesTable.addCell(new PdfPCell(new Phrase(String.valueOf(data.getTotalItemsSold()), NORMAL_FONT)));
-                }
-            } else {
-                // No data available
-                salesTable.addCell(new PdfPCell(new Phrase("Không có dữ liệu", NORMAL_FONT)));
-                salesTable.addCell(new PdfPCell(new Phrase("", NORMAL_FONT)));
-                salesTable.addCell(new PdfPCell(new Phrase("", NORMAL_FONT)));
-                salesTable.addCell(new PdfPCell(new Phrase("", NORMAL_FONT)));
-                salesTable.addCell(new PdfPCell(new Phrase("", NORMAL_FONT)));
+    /**
+     * Xuất báo cáo từng ngày trong [startDate, endDate] thành một file PDF (mỗi ngày một trang).
+     * Dữ liệu đọc từ sales rollup trước, các trang được render song song rồi ghép theo thứ tự ngày.
+     * @param progress tiến độ theo số trang đã ghép; isCancelled() = true để dừng
+     * @return số ngày có doanh thu đã xuất, -1 nếu bị hủy
+     */
+    public int exportDailyReportBundle(LocalDate startDate, LocalDate endDate, Path target,
+                                       ExportProgress progress) throws IOException {
+        SalesRollupService rollupService = new SalesRollupService();
+        List<DailyReport> reports = new ArrayList<>();
+        for (SalesData day : rollupService.getDailySales(startDate, endDate)) {
+            if (progress.isCancelled()) {
+                return -1;
             }
-        } catch (Exception e) {
-            System.err.println("❌ Error loading sales data: " + e.getMessage());
-            // Fallback to placeholder
-            salesTable.addCell(new PdfPCell(new Phrase("Đang cập nhật...", NORMAL_FONT)));
-            salesTable.addCell(new PdfPCell(new Phrase("0", NORMAL_FONT)));
-            salesTable.addCell(new PdfPCell(new Phrase("0", NORMAL_FONT)));
-            salesTable.addCell(new PdfPCell(new Phrase("0", NORMAL_FONT)));
-            salesTable.addCell(new PdfPCell(new Phrase("0", NORMAL_FONT)));
-        }
-
-        document.add(salesTable);
-        document.newPage();
-
-        // Product Report Section
-        document.add(new Paragraph("2. BÁO CÁO SẢN PHẨM", HEADER_FONT));
-        document.add(new Paragraph(" "));
-
-        PdfPTable productTable = new PdfPTable(4);
-        productTable.setWidthPercentage(100);
-        productTable.setSpacingBefore(10f);
-        productTable.setSpacingAfter(10f);
-
-        // Product headers
-        String[] productHeaders = {"Sản phẩm", "Số lượng bán", "Doanh thu", "% Tổng doanh thu"};
-        for (String header : productHeaders) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, HEADER_FONT));
-            cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            cell.setPadding(5);
-            productTable.addCell(cell);
+            reports.add(new DailyReport(day,
+                    rollupService.getTopProducts(day.getDate(), day.getDate(), TOP_PRODUCTS_PER_DAY)));
         }
 
-        // Product data
-        for (ProductReportData data : productList) {
-            productTable.addCell(new PdfPCell(new Phrase(data.getProductName(), NORMAL_FONT)));
-            productTable.addCell(new PdfPCell(new Phrase(String.valueOf(data.getQuantitySold()), NORMAL_FONT)));
-            productTable.addCell(new PdfPCell(new Phrase(String.format("%.0f", data.getRevenue()), NORMAL_FONT)));
-            productTable.addCell(new PdfPCell(new Phrase(String.format("%.1f%%", data.getPercentage()), NORMAL_FONT)));
-        }
-
-        document.add(productTable);
-        document.newPage();
-
-        // Customer Report Section
-        document.add(new Paragraph("3. BÁO CÁO KHÁCH HÀNG", HEADER_FONT));
-        document.add(new Paragraph(" "));
-
-        PdfPTable customerTable = new PdfPTable(4);
-        customerTable.setWidthPercentage(100);
-        customerTable.setSpacingBefore(10f);
-        customerTable.setSpacingAfter(10f);
-
-        // Customer headers
-        String[] customerHeaders = {"Khách hàng", "Số đơn hàng", "Tổng chi tiêu", "Đơn hàng cuối"};
-        for (String header : customerHeaders) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, HEADER_FONT));
-            cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            cell.setPadding(5);
-            customerTable.addCell(cell);
-        }
-
-        // Customer data
-        for (CustomerData data : customerList) {
-            customerTable.addCell(new PdfPCell(new Phrase(data.getCustomerName(), NORMAL_FONT)));
-            customerTable.addCell(new PdfPCell(new Phrase(String.valueOf(data.getOrderCount()), NORMAL_FONT)));
-            customerTable.addCell(new PdfPCell(new Phrase(String.format("%.0f", data.getTotalSpent()), NORMAL_FONT)));
-            customerTable.addCell(new PdfPCell(new Phrase(data.getLastVisit(), NORMAL_FONT)));
-        }
-
-        document.add(customerTable);
-
-        // Footer
-        document.add(new Paragraph(" "));
-        Paragraph footer = new Paragraph("Báo cáo được tạo vào: " + LocalDate.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")), NORMAL_FONT);
-        footer.setAlignment(Element.ALIGN_RIGHT);
-        document.add(footer);
-
-        document.close();
+        return PdfRenderer.getInstance().renderBundle(reports, PageSize.A4, this::writeDailyReport, target, progress);
     }
 
     /**
@@ -335,20 +156,85 @@ public class PDFExporter {
      * @param filePath Output file path
      */
     public static void exportReceiptToPDF(String receiptContent, String filePath) throws DocumentException, IOException {
-        Document document = new Document(PageSize.A4);
-        PdfWriter.getInstance(document, new FileOutputStream(filePath));
-        document.open();
+        PdfRenderer.getInstance().render(Paths.get(filePath), PageSize.A4,
+                document -> writeReceipt(document, receiptContent));
+    }
 
-        // Add receipt content as preformatted text
-        Paragraph receiptPara = new Paragraph(receiptContent, RECEIPT_FONT);
+    /**
+     * Nội dung hóa đơn dạng văn bản giữ nguyên khoảng trắng (font đơn cách)
+     */
+    public static void writeReceipt(Document document, String receiptContent) throws DocumentException {
+        Paragraph receiptPara = new Paragraph(receiptContent, PdfRenderer.getInstance().getMonoFont());
         receiptPara.setAlignment(Element.ALIGN_LEFT);
         document.add(receiptPara);
+    }
 
-        document.close();
+    // ===================== Helper Methods =======================
+
+    private void writeDailyReport(Document document, DailyReport report) throws DocumentException {
+        PdfRenderer renderer = PdfRenderer.getInstance();
+        SalesData sales = report.sales();
+        renderer.addTitle(document, "BÁO CÁO NGÀY " + sales.getDate().format(DISPLAY_DATE), null);
+        document.add(salesTable(Templates.SALES_COMPACT, List.of(sales)));
+
+        document.add(new Paragraph("Sản phẩm bán chạy", renderer.getHeaderFont()));
+        PdfPTable table = Templates.PRODUCTS_COMPACT.newTable();
+        for (SalesBreakdown product : report.topProducts()) {
+            double share = sales.getTotalRevenue() > 0 ? product.getRevenue() * 100 / sales.getTotalRevenue() : 0;
+            Templates.PRODUCTS_COMPACT.addRow(table,
+                    product.getName(),
+                    String.valueOf(product.getQuantitySold()),
+                    String.format("%.0f", product.getRevenue()),
+                    String.format("%.1f%%", share));
+        }
+        document.add(table);
+    }
+
+    private static PdfPTable salesTable(PdfRenderer.TableTemplate template, List<SalesData> salesDataList) throws DocumentException {
+        PdfPTable table = template.newTable();
+        if (salesDataList == null || salesDataList.isEmpty()) {
+            template.addRow(table, "Không có dữ liệu");
+            return table;
+        }
+        for (SalesData data : salesDataList) {
+            template.addRow(table,
+                    data.getDate().toString(),
+                    String.format("%.0f", data.getTotalRevenue()),
+                    String.valueOf(data.getTotalOrders()),
+                    String.format("%.0f", data.getAverageOrderValue()),
+                    String.valueOf(data.getTotalItemsSold()));
+        }
+        return table;
+    }
+
+    private static PdfPTable productTable(PdfRenderer.TableTemplate template, List<ProductReportData> productList) throws DocumentException {
+        PdfPTable table = template.newTable();
+        for (ProductReportData data : productList) {
+            template.addRow(table,
+                    data.getProductName(),
+                    String.valueOf(data.getQuantitySold()),
+                    String.format("%.0f", data.getRevenue()),
+                    String.format("%.1f%%", data.getPercentage()));
+        }
+        return table;
+    }
+
+    private static PdfPTable customerTable(PdfRenderer.TableTemplate template, List<CustomerData> customerList) throws DocumentException {
+        PdfPTable table = template.newTable();
+        for (CustomerData data : customerList) {
+            template.addRow(table,
+                    data.getCustomerName(),
+                    String.valueOf(data.getOrderCount()),
+                    String.format("%.0f", data.getTotalSpent()),
+                    data.getLastVisit());
+        }
+        return table;
+    }
+
+    private static String dateRange(LocalDate startDate, LocalDate endDate) {
+        return "Từ ngày: " + startDate.format(DISPLAY_DATE) + " - Đến ngày: " + endDate.format(DISPLAY_DATE);
     }
-    
 
-    
     /**
      * Get sales data for reporting
      */
@@ -356,16 +242,16 @@ public class PDFExporter {
         try {
             // Use ReportService to get sales data
             com.cafe.service.ReportService reportService = new com.cafe.service.ReportService();
-            
+
             // Get sales data for the last 30 days
             java.time.LocalDate endDate = java.time.LocalDate.now();
             java.time.LocalDate startDate = endDate.minusDays(30);
-            
+
             return reportService.getSalesDataByDateRange(startDate, endDate);
-            
+
         } catch (Exception e) {
             System.err.println("❌ Error getting sales data: " + e.getMessage());
             return java.util.List.of();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,386 @@
+package com.cafe.util;
+
+import com.cafe.config.DatabaseConfig;
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.PdfCopy;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bộ render PDF dùng chung (iText 5) cho báo cáo và hóa đơn
+ *
+ * - Font TrueType có dấu tiếng Việt (IDENTITY_H, nhúng subset) được nạp một lần cho cả ứng dụng;
+ *   Helvetica/Courier có sẵn của iText không có các ký tự như "ạ", "ế", "ữ"
+ * - TableTemplate: cột, độ rộng, căn lề và ô tiêu đề được dựng sẵn một lần, mỗi lần render chỉ
+ *   sao chép ô mẫu (PdfPTable.addCell vốn đã sao chép ô)
+ * - render(out, ...) ghi thẳng ra OutputStream (không đóng stream của caller)
+ * - renderBundle(): render nhiều tài liệu song song trên pool riêng theo số CPU rồi ghép thành một file
+ *   (không dùng BackgroundExecutor: caller thường đã chạy trên pool đó và chờ kết quả)
+ *
+ * Font cấu hình bằng pdf.font.regular / pdf.font.bold / pdf.font.mono (để trống = tự tìm font hệ thống).
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public final class PdfRenderer {
+
+    /**
+     * Nội dung của một tài liệu
+     */
+    @FunctionalInterface
+    public interface DocumentBody {
+        void write(Document document) throws DocumentException;
+    }
+
+    /**
+     * Nội dung tài liệu cho một phần tử khi render hàng loạt
+     */
+    @FunctionalInterface
+    public interface ItemRenderer<T> {
+        void write(Document document, T item) throws DocumentException;
+    }
+
+    private static final String[] REGULAR_FONT_CANDIDATES = {
+            "C:/Windows/Fonts/arial.ttf",
+            "/usr/share/fonts/truetype/dejavu/DejaVuSans.ttf",
+            "/usr/share/fonts/dejavu/DejaVuSans.ttf",
+            "/System/Library/Fonts/Supplemental/Arial.ttf",
+            "/Library/Fonts/Arial.ttf"
+    };
+    private static final String[] BOLD_FONT_CANDIDATES = {
+            "C:/Windows/Fonts/arialbd.ttf",
+            "/usr/share/fonts/truetype/dejavu/DejaVuSans-Bold.ttf",
+            "/usr/share/fonts/dejavu/DejaVuSans-Bold.ttf",
+            "/System/Library/Fonts/Supplemental/Arial Bold.ttf",
+            "/Library/Fonts/Arial Bold.ttf"
+    };
+    private static final String[] MONO_FONT_CANDIDATES = {
+            "C:/Windows/Fonts/cour.ttf",
+            "/usr/share/fonts/truetype/dejavu/DejaVuSansMono.ttf",
+            "/usr/share/fonts/dejavu/DejaVuSansMono.ttf",
+            "/System/Library/Fonts/Supplemental/Courier New.ttf",
+            "/Library/Fonts/Courier New.ttf"
+    };
+
+    private static final int RENDER_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private static volatile PdfRenderer instance;
+
+    private final Font titleFont;
+    private final Font headerFont;
+    private final Font normalFont;
+    private final Font monoFont;
+    private final ExecutorService renderPool;
+
+    private PdfRenderer() {
+        BaseFont regular = loadFont("pdf.font.regular", REGULAR_FONT_CANDIDATES, BaseFont.HELVETICA);
+        BaseFont bold = loadFont("pdf.font.bold", BOLD_FONT_CANDIDATES, BaseFont.HELVETICA_BOLD);
+        BaseFont mono = loadFont("pdf.font.mono", MONO_FONT_CANDIDATES, BaseFont.COURIER);
+
+        this.titleFont = new Font(bold, 18);
+        this.headerFont = new Font(bold, 12);
+        this.normalFont = new Font(regular, 10);
+        this.monoFont = new Font(mono, 9);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.renderPool = Executors.newFixedThreadPool(RENDER_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "pdf-render-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static PdfRenderer getInstance() {
+        PdfRenderer result = instance;
+        if (result == null) {
+            synchronized (PdfRenderer.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new PdfRenderer();
+                }
+            }
+        }
+        return result;
+    }
+
+    public Font getTitleFont() {
+        return titleFont;
+    }
+
+    public Font getHeaderFont() {
+        return headerFont;
+    }
+
+    public Font getNormalFont() {
+        return normalFont;
+    }
+
+    public Font getMonoFont() {
+        return monoFont;
+    }
+
+    // =====================================================
+    // RENDER
+    // =====================================================
+
+    /**
+     * Render một tài liệu ra out (out không bị đóng)
+     */
+    public void render(OutputStream out, Rectangle pageSize, DocumentBody body) throws IOException {
+        Document document = new Document(pageSize);
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
+            document.open();
+            body.write(document);
+        } catch (DocumentException e) {
+            throw new IOException("Cannot render PDF: " + e.getMessage(), e);
+        } finally {
+            if (document.isOpen()) {
+                document.close();
+            }
+        }
+    }
+
+    public void render(Path target, Rectangle pageSize, DocumentBody body) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target))) {
+            render(out, pageSize, body);
+        }
+    }
+
+    /**
+     * Như renderBundle(..., OutputStream, ...) nhưng ghi vào file tạm cạnh target rồi đổi tên
+     * → hủy giữa chừng hoặc lỗi không để lại file dở
+     * @return số phần tử đã ghép, -1 nếu bị hủy
+     */
+    public <T> int renderBundle(List<T> items, Rectangle pageSize, ItemRenderer<T> renderer,
+                                Path target, ExportProgress progress) throws IOException {
+        Path output = target.toAbsolutePath();
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        Path temp = Files.createTempFile(output.getParent(), "export", ".pdf.tmp");
+        boolean completed = false;
+        try {
+            int rendered;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                rendered = renderBundle(items, pageSize, renderer, out, progress);
+            }
+            if (rendered < 0) {
+                return -1;
+            }
+            Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING);
+            completed = true;
+            return rendered;
+        } finally {
+            if (!completed) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Render các phần tử song song rồi ghép theo đúng thứ tự thành một PDF duy nhất (out không bị đóng)
+     * @param progress tiến độ theo số phần tử đã ghép; isCancelled() = true để dừng
+     * @return số phần tử đã ghép, -1 nếu bị hủy
+     */
+    public <T> int renderBundle(List<T> items, Rectangle pageSize, ItemRenderer<T> renderer,
+                                OutputStream out, ExportProgress progress) throws IOException {
+        long start = System.nanoTime();
+        List<CompletableFuture<byte[]>> parts = new ArrayList<>(items.size());
+        for (T item : items) {
+            parts.add(CompletableFuture.supplyAsync(() -> {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream(16 * 1024);
+                try {
+                    render(buffer, pageSize, document -> renderer.write(document, item));
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+                return buffer.toByteArray();
+            }, renderPool));
+        }
+
+        if (parts.isEmpty()) {
+            render(out, pageSize, document -> document.add(new Paragraph("Không có dữ liệu", normalFont)));
+            return 0;
+        }
+
+        Document bundle = new Document(pageSize);
+        progress.update(0, parts.size());
+        boolean mergedAll = false;
+        try {
+            PdfCopy copy = new PdfCopy(bundle, out);
+            copy.setCloseStream(false);
+            bundle.open();
+            int merged = 0;
+            for (CompletableFuture<byte[]> part : parts) {
+                if (progress.isCancelled()) {
+                    parts.forEach(pending -> pending.cancel(false));
+                    System.out.println("⚠️ PDF bundle cancelled");
+                    return -1;
+                }
+                // Ghép tuần tự trong lúc các phần sau vẫn đang render
+                PdfReader reader = new PdfReader(part.join());
+                copy.addDocument(reader);
+                reader.close();
+                progress.update(++merged, parts.size());
+            }
+            mergedAll = true;
+        } catch (DocumentException e) {
+            throw new IOException("Cannot merge PDF bundle: " + e.getMessage(), e);
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        } finally {
+            if (bundle.isOpen()) {
+                try {
+                    bundle.close();
+                } catch (RuntimeException e) {
+                    // Hủy / lỗi trước trang đầu: iText báo "no pages" khi đóng; file tạm sẽ bị xóa
+                    if (mergedAll) {
+                        throw e;
+                    }
+                }
+            }
+        }
+
+        System.out.printf("✅ Rendered PDF bundle: %d documents in %d ms%n",
+                parts.size(), (System.nanoTime() - start) / 1_000_000);
+        return parts.size();
+    }
+
+    // =====================================================
+    // BUILDING BLOCKS
+    // =====================================================
+
+    /**
+     * Tiêu đề căn giữa + dòng phụ (khoảng ngày...) + dòng trống
+     */
+    public void addTitle(Document document, String title, String subtitle) throws DocumentException {
+        Paragraph titleParagraph = new Paragraph(title, titleFont);
+        titleParagraph.setAlignment(Element.ALIGN_CENTER);
+        document.add(titleParagraph);
+        document.add(new Paragraph(" "));
+
+        if (subtitle != null) {
+            Paragraph subtitleParagraph = new Paragraph(subtitle, normalFont);
+            subtitleParagraph.setAlignment(Element.ALIGN_CENTER);
+            document.add(subtitleParagraph);
+            document.add(new Paragraph(" "));
+        }
+    }
+
+    public TableTemplate table(String[] headers, float[] relativeWidths, int[] alignments, float headerPadding) {
+        return new TableTemplate(headers, relativeWidths, alignments, headerPadding);
+    }
+
+    /**
+     * Mẫu bảng dựng sẵn: ô tiêu đề và ô dữ liệu theo từng cột (chỉ đọc sau khi tạo → dùng chung giữa các thread)
+     */
+    public final class TableTemplate {
+        private final float[] relativeWidths;
+        private final PdfPCell[] headerCells;
+        private final PdfPCell[] dataCells;
+
+        private TableTemplate(String[] headers, float[] relativeWidths, int[] alignments, float headerPadding) {
+            this.relativeWidths = relativeWidths.clone();
+            this.headerCells = new PdfPCell[headers.length];
+            this.dataCells = new PdfPCell[headers.length];
+            for (int i = 0; i < headers.length; i++) {
+                PdfPCell header = new PdfPCell(new Phrase(headers[i], headerFont));
+                header.setBackgroundColor(BaseColor.LIGHT_GRAY);
+                header.setHorizontalAlignment(Element.ALIGN_CENTER);
+                header.setPadding(headerPadding);
+                headerCells[i] = header;
+
+                PdfPCell data = new PdfPCell();
+                data.setHorizontalAlignment(alignments[i]);
+                data.setPadding(4);
+                dataCells[i] = data;
+            }
+        }
+
+        /**
+         * Bảng mới đã có dòng tiêu đề (lặp lại khi sang trang)
+         */
+        public PdfPTable newTable() throws DocumentException {
+            PdfPTable table = new PdfPTable(relativeWidths);
+            table.setWidthPercentage(100);
+            table.setSpacingBefore(10f);
+            table.setSpacingAfter(10f);
+            for (PdfPCell header : headerCells) {
+                table.addCell(header);
+            }
+            table.setHeaderRows(1);
+            return table;
+        }
+
+        public void addRow(PdfPTable table, String... values) {
+            for (int i = 0; i < dataCells.length; i++) {
+                PdfPCell cell = new PdfPCell(dataCells[i]);
+                cell.setPhrase(new Phrase(i < values.length && values[i] != null ? values[i] : "", normalFont));
+                table.addCell(cell);
+            }
+        }
+    }
+
+    // ===================== Helper Methods =======================
+
+    private static BaseFont loadFont(String configKey, String[] candidates, String builtIn) {
+        List<String> paths = new ArrayList<>();
+        String configured = DatabaseConfig.getProperty(configKey, "");
+        if (!configured.isBlank()) {
+            paths.add(configured.trim());
+        }
+        paths.addAll(List.of(candidates));
+
+        for (String path : paths) {
+            if (Files.isReadable(Paths.get(path))) {
+                try {
+                    BaseFont font = BaseFont.createFont(path, BaseFont.IDENTITY_H, BaseFont.EMBEDDED);
+                    System.out.println("✅ PDF font loaded: " + path);
+                    return font;
+                } catch (DocumentException | IOException e) {
+                    System.err.println("⚠️ Cannot load PDF font " + path + ": " + e.getMessage());
+                }
+            }
+        }
+
+        System.err.println("⚠️ No Vietnamese font found for " + configKey + ", using " + builtIn
+                + " (dấu tiếng Việt có thể bị mất)");
+        try {
+            return BaseFont.createFont(builtIn, BaseFont.CP1252, BaseFont.NOT_EMBEDDED);
+        } catch (DocumentException | IOException e) {
+            throw new IllegalStateException("Cannot load built-in font " + builtIn, e);
+        }
+    }
+}
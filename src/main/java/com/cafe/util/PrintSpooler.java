@@ -0,0 +1,255 @@
+package com.cafe.util;
+
+import com.cafe.config.DatabaseConfig;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Hàng đợi in hóa đơn chạy nền
+ *
+ * - submit() chỉ đưa lệnh in vào hàng đợi và trả về ngay → màn hình thanh toán không chờ máy in
+ * - Một thread in lần lượt theo thứ tự nhận; lỗi (máy in tắt, hết giấy, mất mạng) được thử lại
+ *   printer.maxAttempts lần với thời gian chờ tăng dần, sau đó đánh dấu FAILED
+ * - reprint(jobId) in lại đúng nội dung đã gửi
+ * - Trạng thái: getJob(), getRecentJobs(), getQueueDepth() và listener nhận mỗi lần đổi trạng thái
+ *   (listener chạy trên thread in, UI cần Platform.runLater)
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public final class PrintSpooler {
+
+    public enum Status {
+        QUEUED, PRINTING, RETRYING, PRINTED, FAILED
+    }
+
+    /**
+     * Một lệnh in; nội dung không đổi, trạng thái do thread in cập nhật
+     */
+    public static final class PrintJob {
+        private final long id;
+        private final String label;
+        private final byte[] data;
+        private final long createdAt = System.currentTimeMillis();
+        private volatile Status status = Status.QUEUED;
+        private volatile int attempts;
+        private volatile String lastError;
+        private volatile long completedAt;
+
+        private PrintJob(long id, String label, byte[] data) {
+            this.id = id;
+            this.label = label;
+            this.data = data;
+        }
+
+        public long getId() { return id; }
+        public String getLabel() { return label; }
+        public int getSize() { return data.length; }
+        public Status getStatus() { return status; }
+        public int getAttempts() { return attempts; }
+        public String getLastError() { return lastError; }
+        public long getCreatedAt() { return createdAt; }
+        public long getCompletedAt() { return completedAt; }
+
+        public boolean isDone() {
+            return status == Status.PRINTED || status == Status.FAILED;
+        }
+
+        @Override
+        public String toString() {
+            return "PrintJob{id=" + id + ", label='" + label + "', status=" + status + ", attempts=" + attempts + '}';
+        }
+    }
+
+    private static final int HISTORY_SIZE = 200;
+    private static final long RETRY_BASE_DELAY_MILLIS = 1_000;
+    private static final long SHUTDOWN_WAIT_MILLIS = 3_000;
+
+    private static volatile PrintSpooler instance;
+
+    private final ReceiptPrinter printer;
+    private final int maxAttempts;
+    private final BlockingQueue<PrintJob> queue = new LinkedBlockingQueue<>();
+    private final List<Consumer<PrintJob>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final Map<Long, PrintJob> history = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, PrintJob> eldest) {
+            return size() > HISTORY_SIZE && eldest.getValue().isDone();
+        }
+    };
+    private final Thread worker;
+
+    public PrintSpooler(ReceiptPrinter printer, int maxAttempts) {
+        this.printer = printer;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.worker = new Thread(this::printLoop, "print-spooler");
+        this.worker.setDaemon(true);
+        this.worker.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::drainOnShutdown, "print-spooler-shutdown"));
+    }
+
+    /**
+     * Spooler dùng chung theo cấu hình printer.* (tạo khi in lần đầu)
+     */
+    public static PrintSpooler getInstance() {
+        PrintSpooler result = instance;
+        if (result == null) {
+            synchronized (PrintSpooler.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new PrintSpooler(ReceiptPrinter.fromConfig(),
+                            DatabaseConfig.getPropertyAsInt("printer.maxAttempts", 3));
+                    System.out.println("🖨️ Print spooler started → " + result.printer.describe());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Đưa lệnh in vào hàng đợi (không chặn)
+     * @param label mô tả để hiển thị (số hóa đơn...)
+     */
+    public PrintJob submit(String label, byte[] data) {
+        PrintJob job = new PrintJob(nextId.getAndIncrement(), label, data);
+        synchronized (history) {
+            history.put(job.getId(), job);
+        }
+        queue.add(job);
+        notifyListeners(job);
+        return job;
+    }
+
+    /**
+     * In lại nội dung của một lệnh in trước đó
+     * @return lệnh in mới, null nếu không còn trong lịch sử
+     */
+    public PrintJob reprint(long jobId) {
+        PrintJob original = getJob(jobId);
+        return original != null ? submit(original.getLabel() + " (in lại)", original.data) : null;
+    }
+
+    public PrintJob getJob(long jobId) {
+        synchronized (history) {
+            return history.get(jobId);
+        }
+    }
+
+    /**
+     * Các lệnh in gần đây, mới nhất trước
+     */
+    public List<PrintJob> getRecentJobs() {
+        List<PrintJob> jobs;
+        synchronized (history) {
+            jobs = new ArrayList<>(history.values());
+        }
+        Collections.reverse(jobs);
+        return jobs;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public String getPrinterDescription() {
+        return printer.describe();
+    }
+
+    public void addListener(Consumer<PrintJob> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<PrintJob> listener) {
+        listeners.remove(listener);
+    }
+
+    // ===================== Print Thread =======================
+
+    private void printLoop() {
+        while (true) {
+            PrintJob job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            print(job);
+        }
+    }
+
+    private void print(PrintJob job) {
+        while (true) {
+            job.attempts++;
+            job.status = Status.PRINTING;
+            notifyListeners(job);
+            try {
+                printer.print(job.data);
+                job.status = Status.PRINTED;
+                job.completedAt = System.currentTimeMillis();
+                job.lastError = null;
+                notifyListeners(job);
+                System.out.println("✅ Printed " + job.getLabel() + " (" + job.getSize() + " bytes)");
+                return;
+            } catch (IOException | RuntimeException e) {
+                job.lastError = e.getMessage();
+                if (job.attempts >= maxAttempts) {
+                    job.status = Status.FAILED;
+                    job.completedAt = System.currentTimeMillis();
+                    notifyListeners(job);
+                    System.err.println("❌ Print failed after " + job.attempts + " attempts: " + job.getLabel()
+                            + " → " + printer.describe() + ": " + e.getMessage());
+                    return;
+                }
+                job.status = Status.RETRYING;
+                notifyListeners(job);
+                System.err.println("⚠️ Print attempt " + job.attempts + " failed for " + job.getLabel()
+                        + ": " + e.getMessage());
+                try {
+                    // Giữ thứ tự in: các lệnh sau chờ lệnh này thử lại xong
+                    Thread.sleep(RETRY_BASE_DELAY_MILLIS << (job.attempts - 1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void notifyListeners(PrintJob job) {
+        for (Consumer<PrintJob> listener : listeners) {
+            try {
+                listener.accept(job);
+            } catch (RuntimeException e) {
+                System.err.println("⚠️ Print listener error: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Chờ hàng đợi in hết (tối đa SHUTDOWN_WAIT_MILLIS) khi tắt ứng dụng
+     */
+    private void drainOnShutdown() {
+        long deadline = System.currentTimeMillis() + SHUTDOWN_WAIT_MILLIS;
+        while (!queue.isEmpty() && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+        if (!queue.isEmpty()) {
+            System.err.println("⚠️ " + queue.size() + " print jobs not printed before shutdown");
+        }
+    }
+}
@@ -0,0 +1,459 @@
+package com.cafe.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Nhật ký hóa đơn theo ngày (append-only) thay cho mỗi hóa đơn một file
+ *
+ * - receipts-yyyyMMdd.journal: các bản ghi "### {id} {số byte}\n{nội dung}\n" nối tiếp nhau
+ * - receipts-yyyyMMdd.idx: mỗi dòng "{id}\t{offset}\t{số byte}" trỏ vào nội dung trong journal
+ *   (in lại hóa đơn đọc đúng đoạn đó, không quét file)
+ * - append() chỉ đưa vào hàng đợi và trả về ngay; một thread nền gom các bản ghi đang chờ
+ *   và ghi một lần (FileChannel) → thanh toán không chờ I/O file
+ * - Bản ghi chưa ghi xong vẫn đọc được (lấy từ bộ nhớ); tắt ứng dụng sẽ ghi nốt hàng đợi
+ * - Ghi lỗi (đầy ổ, mất ổ mạng): cắt phần journal ghi dở, mở lại file và thử lại cả lô với thời gian
+ *   chờ tăng dần; các bản ghi vẫn nằm trong bộ nhớ cho đến khi ghi được
+ * - journal được ghi trước .idx: khi mở, nếu dòng cuối của .idx không khớp cuối journal
+ *   (tắt máy giữa hai lần ghi) thì .idx được dựng lại từ journal
+ *
+ * Tham chiếu hóa đơn: "{đường dẫn journal}#{id}"
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public final class ReceiptJournal {
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final String JOURNAL_PREFIX = "receipts-";
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String RECORD_MARKER = "### ";
+    private static final int MAX_BATCH = 256;
+    private static final long RETRY_BASE_DELAY_MILLIS = 500;
+    private static final long RETRY_MAX_DELAY_MILLIS = 30_000;
+    private static final int INDEX_TAIL_BYTES = 512;
+    private static final long SHUTDOWN_WAIT_MILLIS = 3_000;
+
+    private record Entry(LocalDate day, String id, byte[] content) {
+    }
+
+    private record Location(long offset, int length) {
+    }
+
+    private final Path directory;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Map<String, Entry> pending = new ConcurrentHashMap<>();
+    // Ngày → (id → vị trí); chỉ nạp khi cần đọc
+    private final Map<LocalDate, Map<String, Location>> indexes = new ConcurrentHashMap<>();
+    private final Thread writer;
+
+    // Chỉ thread writer dùng
+    private LocalDate openDay;
+    private FileChannel journalChannel;
+    private BufferedWriter indexWriter;
+
+    public ReceiptJournal(Path directory) {
+        this.directory = directory;
+        this.writer = new Thread(this::writeLoop, "receipt-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::drainOnShutdown, "receipt-writer-shutdown"));
+    }
+
+    /**
+     * Đưa hóa đơn vào hàng đợi ghi (không chặn)
+     * @param reference tham chiếu từ referenceFor()
+     */
+    public void append(String reference, String content) {
+        LocalDate day = dayOf(reference);
+        String id = idOf(reference);
+        if (day == null || id == null) {
+            throw new IllegalArgumentException("Invalid receipt reference: " + reference);
+        }
+        Entry entry = new Entry(day, id, content.getBytes(StandardCharsets.UTF_8));
+        pending.put(referenceFor(day, id), entry);
+        queue.add(entry);
+    }
+
+    /**
+     * Tham chiếu của hóa đơn id trong journal của ngày day (biết trước khi ghi)
+     */
+    public String referenceFor(LocalDate day, String id) {
+        return journalPath(day) + "#" + id;
+    }
+
+    /**
+     * Đọc lại nội dung hóa đơn (in lại)
+     */
+    public Optional<String> read(String reference) {
+        LocalDate day = dayOf(reference);
+        String id = idOf(reference);
+        if (day == null || id == null) {
+            return Optional.empty();
+        }
+
+        Entry queued = pending.get(referenceFor(day, id));
+        if (queued != null) {
+            return Optional.of(new String(queued.content(), StandardCharsets.UTF_8));
+        }
+        Location location = getIndex(day).get(id);
+        if (location == null) {
+            // Index trong bộ nhớ có thể được nạp ngay lúc writer đang ghi → nạp lại một lần
+            indexes.remove(day);
+            location = getIndex(day).get(id);
+        }
+        if (location == null) {
+            return Optional.empty();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(location.length());
+        try (FileChannel channel = FileChannel.open(journalPath(day), StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, location.offset() + buffer.position()) < 0) {
+                    return Optional.empty();
+                }
+            }
+            return Optional.of(new String(buffer.array(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("❌ Cannot read receipt " + reference + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Tham chiếu mọi hóa đơn của ngày day theo thứ tự ghi (hóa đơn còn trong hàng đợi ở cuối)
+     */
+    public List<String> referencesForDay(LocalDate day) {
+        indexes.remove(day); // Nạp lại để thấy cả các bản ghi vừa ghi xong
+        List<String> references = new ArrayList<>();
+        getIndex(day).entrySet().stream()
+                .sorted(Map.Entry.comparingByValue(java.util.Comparator.comparingLong(Location::offset)))
+                .forEach(entry -> references.add(referenceFor(day, entry.getKey())));
+        for (Entry entry : pending.values()) {
+            String reference = referenceFor(entry.day(), entry.id());
+            if (entry.day().equals(day) && !references.contains(reference)) {
+                references.add(reference);
+            }
+        }
+        return references;
+    }
+
+    /**
+     * Số hóa đơn đang chờ ghi
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    // ===================== Writer Thread =======================
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>();
+        long retryDelay = 0;
+        while (true) {
+            try {
+                if (batch.isEmpty()) {
+                    batch.add(queue.take());
+                } else {
+                    // Lô trước ghi lỗi: chờ rồi ghi lại (giữ thứ tự, kèm các bản ghi mới)
+                    Thread.sleep(retryDelay);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, Math.max(0, MAX_BATCH - batch.size()));
+            List<Entry> failed = writeBatch(batch);
+            batch.clear();
+            batch.addAll(failed);
+            retryDelay = failed.isEmpty() ? 0
+                    : Math.min(RETRY_MAX_DELAY_MILLIS, retryDelay == 0 ? RETRY_BASE_DELAY_MILLIS : retryDelay * 2);
+        }
+    }
+
+    /**
+     * @return các bản ghi chưa ghi được (sẽ được thử lại)
+     */
+    private synchronized List<Entry> writeBatch(List<Entry> batch) {
+        List<Entry> failed = new ArrayList<>();
+        int start = 0;
+        while (start < batch.size()) {
+            // Gom các bản ghi liên tiếp cùng ngày thành một lần ghi
+            LocalDate day = batch.get(start).day();
+            int end = start;
+            while (end < batch.size() && batch.get(end).day().equals(day)) {
+                end++;
+            }
+            List<Entry> sameDay = batch.subList(start, end);
+            try {
+                writeDay(day, sameDay);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("❌ Receipt journal write failed (" + sameDay.size() + " receipt(s), will retry): "
+                        + e.getMessage());
+                closeFiles();
+                failed.addAll(sameDay);
+            }
+            start = end;
+        }
+        return failed;
+    }
+
+    private void writeDay(LocalDate day, List<Entry> entries) throws IOException {
+        openFor(day);
+
+        long start = journalChannel.size();
+        long position = start;
+        ByteBuffer[] buffers = new ByteBuffer[entries.size()];
+        List<Location> locations = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            byte[] header = (RECORD_MARKER + entry.id() + " " + entry.content().length + "\n")
+                    .getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.allocate(header.length + entry.content().length + 1);
+            buffer.put(header).put(entry.content()).put((byte) '\n').flip();
+            buffers[i] = buffer;
+
+            locations.add(new Location(position + header.length, entry.content().length));
+            position += buffer.remaining();
+        }
+
+        try {
+            long remaining = position - start;
+            while (remaining > 0) {
+                remaining -= journalChannel.write(buffers);
+            }
+
+            for (int i = 0; i < entries.size(); i++) {
+                Location location = locations.get(i);
+                indexWriter.write(entries.get(i).id() + "\t" + location.offset() + "\t" + location.length() + "\n");
+            }
+            indexWriter.flush();
+        } catch (IOException e) {
+            // Bỏ phần đã ghi dở để lần thử lại nối tiếp từ cuối bản ghi hợp lệ
+            try {
+                journalChannel.truncate(start);
+            } catch (IOException truncateError) {
+                System.err.println("⚠️ Cannot truncate receipt journal: " + truncateError.getMessage());
+            }
+            throw e;
+        }
+
+        Map<String, Location> index = indexes.get(day);
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            if (index != null) {
+                index.put(entry.id(), locations.get(i));
+            }
+            pending.remove(referenceFor(day, entry.id()), entry);
+        }
+    }
+
+    private void openFor(LocalDate day) throws IOException {
+        if (day.equals(openDay) && journalChannel != null) {
+            return;
+        }
+        closeFiles();
+        Files.createDirectories(directory);
+        repairIndexFile(day);
+        journalChannel = FileChannel.open(journalPath(day),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        indexWriter = Files.newBufferedWriter(indexPath(day), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        openDay = day;
+    }
+
+    /**
+     * Mất file .idx (xóa nhầm) hoặc .idx không khớp journal (tắt máy giữa hai lần ghi, lần ghi lỗi)
+     * → dựng lại từ journal trước khi ghi tiếp
+     */
+    private void repairIndexFile(LocalDate day) throws IOException {
+        Path journal = journalPath(day);
+        if (!Files.exists(journal) || Files.size(journal) == 0 || indexMatchesJournal(day)) {
+            return;
+        }
+        StringBuilder lines = new StringBuilder();
+        scanJournal(journal).forEach((id, location) ->
+                lines.append(id).append('\t').append(location.offset()).append('\t').append(location.length()).append('\n'));
+        Files.writeString(indexPath(day), lines, StandardCharsets.UTF_8);
+        System.out.println("🔧 Rebuilt receipt index " + indexPath(day));
+    }
+
+    private void closeFiles() {
+        try {
+            if (indexWriter != null) {
+                indexWriter.close();
+            }
+            if (journalChannel != null) {
+                journalChannel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Error closing receipt journal: " + e.getMessage());
+        }
+        indexWriter = null;
+        journalChannel = null;
+        openDay = null;
+    }
+
+    private void drainOnShutdown() {
+        long deadline = System.currentTimeMillis() + SHUTDOWN_WAIT_MILLIS;
+        while (!pending.isEmpty() && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        synchronized (this) {
+            closeFiles();
+        }
+        if (!pending.isEmpty()) {
+            System.err.println("⚠️ " + pending.size() + " receipt(s) not written to journal before shutdown");
+        }
+    }
+
+    // ===================== Index =======================
+
+    private Map<String, Location> getIndex(LocalDate day) {
+        return indexes.computeIfAbsent(day, this::loadIndex);
+    }
+
+    /**
+     * Nạp file .idx; nếu thiếu thì dựng lại bằng cách quét journal
+     */
+    private Map<String, Location> loadIndex(LocalDate day) {
+        Map<String, Location> index = new ConcurrentHashMap<>();
+        Path indexFile = indexPath(day);
+        try {
+            if (Files.exists(indexFile) && indexMatchesJournal(day)) {
+                for (String line : Files.readAllLines(indexFile, StandardCharsets.UTF_8)) {
+                    String[] parts = line.split("\t");
+                    if (parts.length == 3) {
+                        index.put(parts[0], new Location(Long.parseLong(parts[1]), Integer.parseInt(parts[2])));
+                    }
+                }
+            } else if (Files.exists(journalPath(day))) {
+                // Không có .idx hoặc .idx chưa theo kịp journal → quét journal
+                index.putAll(scanJournal(journalPath(day)));
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("⚠️ Cannot load receipt index " + indexFile + ": " + e.getMessage());
+        }
+        return index;
+    }
+
+    /**
+     * Dòng cuối của .idx phải trỏ tới bản ghi kết thúc đúng ở cuối journal
+     * (chỉ đọc INDEX_TAIL_BYTES cuối file .idx)
+     */
+    private boolean indexMatchesJournal(LocalDate day) throws IOException {
+        Path indexFile = indexPath(day);
+        Path journal = journalPath(day);
+        long journalSize = Files.exists(journal) ? Files.size(journal) : 0;
+        if (!Files.exists(indexFile)) {
+            return journalSize == 0;
+        }
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return journalSize == 0;
+            }
+            int tailLength = (int) Math.min(size, INDEX_TAIL_BYTES);
+            ByteBuffer tail = ByteBuffer.allocate(tailLength);
+            while (tail.hasRemaining()) {
+                if (channel.read(tail, size - tailLength + tail.position()) < 0) {
+                    return false;
+                }
+            }
+            String text = new String(tail.array(), StandardCharsets.UTF_8);
+            if (!text.endsWith("\n")) {
+                return false; // Dòng cuối ghi dở
+            }
+            String[] parts = text.substring(text.lastIndexOf('\n', text.length() - 2) + 1, text.length() - 1).split("\t");
+            if (parts.length != 3) {
+                return false;
+            }
+            // Bản ghi = nội dung + '\n'
+            return Long.parseLong(parts[1]) + Integer.parseInt(parts[2]) + 1 == journalSize;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static Map<String, Location> scanJournal(Path journal) throws IOException {
+        Map<String, Location> index = new HashMap<>();
+        byte[] data = Files.readAllBytes(journal);
+        int position = 0;
+        while (position < data.length) {
+            int lineEnd = position;
+            while (lineEnd < data.length && data[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            String header = new String(data, position, lineEnd - position, StandardCharsets.UTF_8);
+            int split = header.lastIndexOf(' ');
+            if (!header.startsWith(RECORD_MARKER) || split <= RECORD_MARKER.length()) {
+                break; // Bản ghi hỏng (ghi dở) → dừng
+            }
+            int length;
+            try {
+                length = Integer.parseInt(header.substring(split + 1));
+            } catch (NumberFormatException e) {
+                break;
+            }
+            long offset = lineEnd + 1L;
+            if (offset + length + 1 > data.length) {
+                break; // Nội dung ghi dở
+            }
+            index.put(header.substring(RECORD_MARKER.length(), split), new Location(offset, length));
+            position = (int) (offset + length + 1);
+        }
+        return index;
+    }
+
+    // ===================== Paths =======================
+
+    private Path journalPath(LocalDate day) {
+        return directory.resolve(JOURNAL_PREFIX + day.format(DAY_FORMAT) + JOURNAL_SUFFIX);
+    }
+
+    private Path indexPath(LocalDate day) {
+        return directory.resolve(JOURNAL_PREFIX + day.format(DAY_FORMAT) + INDEX_SUFFIX);
+    }
+
+    private static LocalDate dayOf(String reference) {
+        if (reference == null) {
+            return null;
+        }
+        int hash = reference.lastIndexOf('#');
+        int suffix = reference.lastIndexOf(JOURNAL_SUFFIX, hash);
+        int prefix = reference.lastIndexOf(JOURNAL_PREFIX, suffix);
+        if (hash < 0 || suffix < 0 || prefix < 0) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(reference.substring(prefix + JOURNAL_PREFIX.length(), suffix), DAY_FORMAT);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String idOf(String reference) {
+        int hash = reference != null ? reference.lastIndexOf('#') : -1;
+        return hash >= 0 && hash < reference.length() - 1 ? reference.substring(hash + 1) : null;
+    }
+}
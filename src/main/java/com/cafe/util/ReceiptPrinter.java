@@ -0,0 +1,108 @@
+package com.cafe.util;
+
+import com.cafe.config.DatabaseConfig;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Đích nhận byte ESC/POS của PrintSpooler
+ *
+ * - file: ghi nối vào file hoặc thiết bị (vd /dev/usb/lp0, \\.\COM3); mặc định là file giả lập
+ *   ~/Downloads/receipts/printer-out.bin để chạy thử không cần máy in
+ * - socket: máy in mạng cổng RAW (9100); chạy thử với một listener bất kỳ (vd nc -l 9100 > out.bin)
+ *
+ * Cấu hình: printer.type, printer.file, printer.host, printer.port, printer.timeoutMillis
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public interface ReceiptPrinter {
+
+    /**
+     * Gửi toàn bộ dữ liệu của một lệnh in; ném IOException nếu máy in không nhận (spooler sẽ thử lại)
+     */
+    void print(byte[] data) throws IOException;
+
+    String describe();
+
+    static ReceiptPrinter fromConfig() {
+        String type = DatabaseConfig.getProperty("printer.type", "file").trim();
+        if ("socket".equalsIgnoreCase(type)) {
+            return new SocketPrinter(
+                    DatabaseConfig.getProperty("printer.host", "127.0.0.1").trim(),
+                    DatabaseConfig.getPropertyAsInt("printer.port", 9100),
+                    DatabaseConfig.getPropertyAsInt("printer.timeoutMillis", 3000));
+        }
+
+        String file = DatabaseConfig.getProperty("printer.file", "").trim();
+        return new FilePrinter(file.isEmpty()
+                ? Paths.get(System.getProperty("user.home"), "Downloads", "receipts", "printer-out.bin")
+                : Paths.get(file));
+    }
+
+    /**
+     * Ghi nối byte vào file / thiết bị
+     */
+    final class FilePrinter implements ReceiptPrinter {
+        private final Path target;
+
+        public FilePrinter(Path target) {
+            this.target = target;
+        }
+
+        @Override
+        public void print(byte[] data) throws IOException {
+            Path parent = target.toAbsolutePath().getParent();
+            if (parent != null && !Files.exists(target)) {
+                Files.createDirectories(parent);
+            }
+            try (OutputStream out = Files.newOutputStream(target,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                out.write(data);
+            }
+        }
+
+        @Override
+        public String describe() {
+            return "file:" + target;
+        }
+    }
+
+    /**
+     * Máy in mạng (RAW/JetDirect); mỗi lệnh in một kết nối
+     */
+    final class SocketPrinter implements ReceiptPrinter {
+        private final String host;
+        private final int port;
+        private final int timeoutMillis;
+
+        public SocketPrinter(String host, int port, int timeoutMillis) {
+            this.host = host;
+            this.port = port;
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        @Override
+        public void print(byte[] data) throws IOException {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+                socket.setSoTimeout(timeoutMillis);
+                OutputStream out = socket.getOutputStream();
+                out.write(data);
+                out.flush();
+            }
+        }
+
+        @Override
+        public String describe() {
+            return "socket:" + host + ":" + port;
+        }
+    }
+}
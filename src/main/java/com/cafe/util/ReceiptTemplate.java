@@ -0,0 +1,226 @@
+package com.cafe.util;
+
+import com.cafe.config.DatabaseConfig;
+import com.cafe.model.entity.Order;
+import com.cafe.model.entity.OrderDetail;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Mẫu hóa đơn máy in nhiệt, dựng (biên dịch) một lần theo khổ giấy
+ *
+ * - Độ rộng cột, dòng kẻ, tiêu đề, nhãn (đã bỏ dấu và căn lề sẵn) được mã hóa thành byte khi tạo mẫu
+ * - render() chỉ ghi dữ liệu của order vào EscPosBuffer: không String.format, không chuỗi trung gian
+ * - Cùng mẫu cho ra lệnh ESC/POS (buffer có lệnh) hoặc bản xem trước dạng text (buffer không lệnh)
+ *
+ * Khổ giấy: printer.receipt.width = 32 (58mm) hoặc 48 (80mm) ký tự mỗi dòng.
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public final class ReceiptTemplate {
+
+    /**
+     * Thông tin thanh toán in trên hóa đơn (receivedAmount chỉ dùng cho tiền mặt)
+     *
+     * subtotal / vatAmount / discountAmount / grandTotal là số tiền đã thu thực tế (màn hình thanh toán
+     * cộng VAT, Order.getFinalAmount() thì không); grandTotal <= 0 = chưa có, lấy theo order
+     */
+    public record Payment(String methodName, boolean cash, double receivedAmount, String transactionCode,
+                          double subtotal, double vatAmount, double discountAmount, double grandTotal) {
+
+        public Payment(String methodName, boolean cash, double receivedAmount, String transactionCode) {
+            this(methodName, cash, receivedAmount, transactionCode, 0, 0, 0, 0);
+        }
+
+        public boolean hasCharge() {
+            return grandTotal > 0;
+        }
+    }
+
+    private static final int QUANTITY_WIDTH = 4;
+
+    private final int lineWidth;
+    private final int amountWidth;
+    private final int nameWidth;
+
+    private final byte[] shopName;
+    private final byte[] subtitle;
+    private final byte[] doubleLine;
+    private final byte[] singleLine;
+    private final byte[] columnHeader;
+    private final byte[] orderLabel;
+    private final byte[] tableLabel;
+    private final byte[] timeLabel;
+    private final byte[] cashierLabel;
+    private final byte[] unitPricePrefix;
+    private final byte[] unitPriceSuffix;
+    private final byte[] subtotalLabel;
+    private final byte[] vatLabel;
+    private final byte[] discountLabel;
+    private final byte[] totalLabel;
+    private final byte[] methodLabel;
+    private final byte[] receivedLabel;
+    private final byte[] changeLabel;
+    private final byte[] transactionLabel;
+    private final byte[] thanks;
+    private final byte[] goodbye;
+
+    public ReceiptTemplate(int lineWidth, String shopName, String subtitle) {
+        this.lineWidth = Math.max(24, lineWidth);
+        this.amountWidth = this.lineWidth >= 42 ? 12 : 10;
+        this.nameWidth = this.lineWidth - QUANTITY_WIDTH - amountWidth;
+
+        this.shopName = line(shopName);
+        this.subtitle = line(subtitle);
+        this.doubleLine = ruler('=');
+        this.singleLine = ruler('-');
+        this.columnHeader = line(pad("Món", nameWidth) + padLeft("SL", QUANTITY_WIDTH) + padLeft("T.Tiền", amountWidth));
+        this.orderLabel = EscPosBuffer.encode("Hóa đơn: ");
+        this.tableLabel = EscPosBuffer.encode("Bàn: ");
+        this.timeLabel = EscPosBuffer.encode("Thời gian: ");
+        this.cashierLabel = EscPosBuffer.encode("Thu ngân: ");
+        this.unitPricePrefix = EscPosBuffer.encode("  @");
+        this.unitPriceSuffix = EscPosBuffer.encode("/món\n");
+        this.subtotalLabel = totalsLabel("Tạm tính:");
+        this.vatLabel = totalsLabel("Thuế VAT:");
+        this.discountLabel = totalsLabel("Giảm giá:");
+        this.totalLabel = totalsLabel("TỔNG CỘNG:");
+        this.methodLabel = EscPosBuffer.encode("Thanh toán: ");
+        this.receivedLabel = totalsLabel("Tiền nhận:");
+        this.changeLabel = totalsLabel("Tiền thối:");
+        this.transactionLabel = EscPosBuffer.encode("Mã GD: ");
+        this.thanks = line("Cảm ơn quý khách!");
+        this.goodbye = line("Hẹn gặp lại quý khách!");
+    }
+
+    /**
+     * Mẫu theo khổ giấy cấu hình (printer.receipt.width)
+     */
+    public static ReceiptTemplate fromConfig(String shopName, String subtitle) {
+        return new ReceiptTemplate(DatabaseConfig.getPropertyAsInt("printer.receipt.width", 32), shopName, subtitle);
+    }
+
+    public int getLineWidth() {
+        return lineWidth;
+    }
+
+    /**
+     * Ghi hóa đơn vào out (không reset out)
+     * @param payment null = lấy phương thức từ order
+     */
+    public void render(EscPosBuffer out, Order order, List<OrderDetail> details, String cashierName, Payment payment) {
+        // Header
+        out.command(EscPosBuffer.INIT)
+           .command(EscPosBuffer.ALIGN_CENTER)
+           .command(EscPosBuffer.DOUBLE_SIZE_ON).write(shopName).command(EscPosBuffer.DOUBLE_SIZE_OFF)
+           .write(subtitle)
+           .command(EscPosBuffer.ALIGN_LEFT)
+           .write(doubleLine);
+
+        // Order info
+        out.write(orderLabel).text(order.getOrderNumber(), lineWidth - orderLabel.length).newline();
+        out.write(tableLabel).numberRight(order.getTableId(), 0).newline();
+        LocalDateTime time = order.getOrderDate() != null ? order.getOrderDate().toLocalDateTime() : LocalDateTime.now();
+        out.write(timeLabel)
+           .twoDigits(time.getDayOfMonth()).writeByte('/').twoDigits(time.getMonthValue()).writeByte('/')
+           .numberRight(time.getYear(), 4).writeByte(' ')
+           .twoDigits(time.getHour()).writeByte(':').twoDigits(time.getMinute()).newline();
+        if (cashierName != null) {
+            out.write(cashierLabel).text(cashierName, lineWidth - cashierLabel.length).newline();
+        }
+
+        // Items
+        out.write(singleLine).write(columnHeader).write(singleLine);
+        if (details != null) {
+            for (OrderDetail detail : details) {
+                String productName = detail.getProductName() != null
+                        ? detail.getProductName() : "SP" + detail.getProductId();
+                out.padRight(productName, nameWidth - 1).spaces(1)
+                   .numberRight(detail.getQuantity(), QUANTITY_WIDTH)
+                   .moneyRight(detail.getTotalPrice(), amountWidth)
+                   .newline();
+                if (detail.getQuantity() > 1) {
+                    out.write(unitPricePrefix).money(detail.getUnitPrice()).write(unitPriceSuffix);
+                }
+            }
+        }
+
+        // Totals
+        boolean charged = payment != null && payment.hasCharge();
+        double subtotal = charged ? payment.subtotal() : order.getTotalAmount();
+        double vatAmount = charged ? payment.vatAmount() : 0;
+        double discountAmount = charged ? payment.discountAmount() : order.getDiscountAmount();
+        double grandTotal = charged ? payment.grandTotal() : order.getFinalAmount();
+        out.write(singleLine);
+        out.write(subtotalLabel).moneyRight(subtotal, amountWidth).newline();
+        if (vatAmount > 0) {
+            out.write(vatLabel).moneyRight(vatAmount, amountWidth).newline();
+        }
+        if (discountAmount > 0) {
+            out.write(discountLabel).moneyRight(discountAmount, amountWidth).newline();
+        }
+        out.command(EscPosBuffer.BOLD_ON)
+           .write(totalLabel).moneyRight(grandTotal, amountWidth).newline()
+           .command(EscPosBuffer.BOLD_OFF)
+           .write(doubleLine);
+
+        // Payment
+        String methodName = payment != null ? payment.methodName() : order.getPaymentMethod();
+        out.write(methodLabel).text(methodName, lineWidth - methodLabel.length).newline();
+        if (payment != null && payment.cash() && payment.receivedAmount() > 0) {
+            out.write(receivedLabel).moneyRight(payment.receivedAmount(), amountWidth).newline();
+            double change = payment.receivedAmount() - grandTotal;
+            if (change > 0) {
+                out.write(changeLabel).moneyRight(change, amountWidth).newline();
+            }
+        } else if (payment != null && payment.transactionCode() != null) {
+            out.write(transactionLabel).text(payment.transactionCode(), lineWidth - transactionLabel.length).newline();
+        }
+
+        // Footer
+        out.write(doubleLine)
+           .command(EscPosBuffer.ALIGN_CENTER)
+           .write(thanks)
+           .write(goodbye)
+           .command(EscPosBuffer.ALIGN_LEFT)
+           .feed(3)
+           .command(EscPosBuffer.PARTIAL_CUT);
+    }
+
+    // ===================== Helper Methods =======================
+
+    private byte[] ruler(char c) {
+        byte[] ruler = new byte[lineWidth + 1];
+        Arrays.fill(ruler, (byte) c);
+        ruler[lineWidth] = '\n';
+        return ruler;
+    }
+
+    private byte[] line(String text) {
+        return EscPosBuffer.encode(truncate(text, lineWidth) + "\n");
+    }
+
+    /**
+     * Nhãn căn trái, chiếm phần dòng còn lại trước cột số tiền
+     */
+    private byte[] totalsLabel(String label) {
+        return EscPosBuffer.encode(pad(label, lineWidth - amountWidth));
+    }
+
+    private static String pad(String text, int width) {
+        String value = truncate(text, width);
+        return value + " ".repeat(width - value.length());
+    }
+
+    private static String padLeft(String text, int width) {
+        String value = truncate(text, width);
+        return " ".repeat(width - value.length()) + value;
+    }
+
+    private static String truncate(String text, int width) {
+        return text.length() > width ? text.substring(0, width) : text;
+    }
+}
@@ -0,0 +1,202 @@
+package com.cafe.util;
+
+import com.cafe.config.DatabaseConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cổng thanh toán giả lập MoMo / VNPay / ZaloPay qua HTTP (chỉ nghe trên loopback)
+ * để chạy thử và load test HttpPaymentGateway khi không có mạng
+ *
+ * - POST /pay/{momo|vnpay|zalopay}, cùng định dạng với HttpPaymentGateway
+ * - payment.stub.latencyMs: độ trễ phản hồi (không chiếm thread, dùng scheduler)
+ * - payment.stub.errorRate: tỷ lệ trả HTTP 503 (kiểm tra retry / circuit breaker)
+ * - payment.stub.declineRate: tỷ lệ từ chối giao dịch
+ * - Cùng Idempotency-Key → trả lại đúng kết quả lần đầu (thử lại không trừ tiền hai lần)
+ *
+ * Chạy riêng: java com.cafe.util.StubPaymentGatewayServer [port]
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public final class StubPaymentGatewayServer {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int MAX_REMEMBERED_KEYS = 10_000;
+    private static final String[] METHODS = {"momo", "vnpay", "zalopay"};
+
+    private static StubPaymentGatewayServer instance;
+
+    private final HttpServer server;
+    private final ScheduledExecutorService scheduler;
+    private final long latencyMillis;
+    private final double errorRate;
+    private final double declineRate;
+    private final AtomicLong transactionCounter = new AtomicLong();
+    private final AtomicLong requestCount = new AtomicLong();
+
+    // Idempotency-Key → body phản hồi (LRU)
+    private final Map<String, String> responsesByKey = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_REMEMBERED_KEYS;
+        }
+    };
+
+    private StubPaymentGatewayServer(int port, long latencyMillis, double errorRate, double declineRate) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.errorRate = errorRate;
+        this.declineRate = declineRate;
+        this.scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "payment-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        for (String method : METHODS) {
+            server.createContext("/pay/" + method, exchange -> handle(method, exchange));
+        }
+        server.setExecutor(scheduler);
+    }
+
+    /**
+     * Khởi động stub nếu payment.stub.enabled=true (gọi nhiều lần không sao)
+     */
+    public static synchronized void startIfEnabled() {
+        if (instance != null || !DatabaseConfig.getPropertyAsBoolean("payment.stub.enabled", false)) {
+            return;
+        }
+        try {
+            instance = start(DatabaseConfig.getPropertyAsInt("payment.stub.port", 8089));
+        } catch (IOException e) {
+            System.err.println("❌ Cannot start stub payment gateway: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Khởi động stub trên port (latency / tỷ lệ lỗi lấy từ cấu hình)
+     */
+    public static StubPaymentGatewayServer start(int port) throws IOException {
+        StubPaymentGatewayServer stub = new StubPaymentGatewayServer(port,
+                DatabaseConfig.getPropertyAsInt("payment.stub.latencyMs", 300),
+                parseRate(DatabaseConfig.getProperty("payment.stub.errorRate", "0")),
+                parseRate(DatabaseConfig.getProperty("payment.stub.declineRate", "0")));
+        stub.server.start();
+        System.out.println("🧪 Stub payment gateway listening on http://127.0.0.1:" + port + "/pay");
+        return stub;
+    }
+
+    public void stop() {
+        server.stop(0);
+        scheduler.shutdownNow();
+        System.out.println("🔒 Stub payment gateway stopped (" + requestCount.get() + " request(s))");
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DatabaseConfig.getPropertyAsInt("payment.stub.port", 8089);
+        start(port);
+    }
+
+    // ===================== Request Handling =======================
+
+    private void handle(String method, HttpExchange exchange) {
+        requestCount.incrementAndGet();
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "{\"status\":\"error\",\"message\":\"Method not allowed\"}");
+                return;
+            }
+
+            JsonNode request;
+            try (InputStream body = exchange.getRequestBody()) {
+                request = MAPPER.readTree(body);
+            }
+            String key = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+            if (key == null) {
+                key = request.path("idempotencyKey").asText(null);
+            }
+
+            String cached = key != null ? getCachedResponse(key) : null;
+            if (cached != null) {
+                scheduleResponse(exchange, 200, cached);
+                return;
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < errorRate) {
+                scheduleResponse(exchange, 503, "{\"status\":\"error\",\"message\":\"Gateway temporarily unavailable\"}");
+                return;
+            }
+
+            ObjectNode response = MAPPER.createObjectNode();
+            if (random.nextDouble() < declineRate || request.path("amount").asDouble() <= 0) {
+                response.put("status", "declined").put("message", "Giao dịch bị từ chối");
+            } else {
+                response.put("status", "success")
+                        .put("transactionId", method.toUpperCase() + "_STUB_" + transactionCounter.incrementAndGet())
+                        .put("message", "Thanh toán " + method.toUpperCase() + " thành công");
+            }
+            String body = response.toString();
+            if (key != null) {
+                rememberResponse(key, body);
+            }
+            scheduleResponse(exchange, 200, body);
+        } catch (Exception e) {
+            respond(exchange, 400, "{\"status\":\"error\",\"message\":\"Bad request\"}");
+        }
+    }
+
+    private synchronized String getCachedResponse(String key) {
+        return responsesByKey.get(key);
+    }
+
+    private synchronized void rememberResponse(String key, String body) {
+        responsesByKey.put(key, body);
+    }
+
+    private void scheduleResponse(HttpExchange exchange, int status, String body) {
+        if (latencyMillis <= 0) {
+            respond(exchange, status, body);
+        } else {
+            scheduler.schedule(() -> respond(exchange, status, body), latencyMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            out.write(bytes);
+        } catch (IOException e) {
+            // Client đã ngắt (timeout phía client)
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static double parseRate(String value) {
+        try {
+            return Math.max(0.0, Math.min(1.0, Double.parseDouble(value.trim())));
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+}
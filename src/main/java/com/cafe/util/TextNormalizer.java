@@ -0,0 +1,46 @@
+package com.cafe.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Chuẩn hóa chuỗi tiếng Việt cho tìm kiếm
+ * "Cà Phê Sữa Đá" → "ca phe sua da"
+ *
+ * @author Team 2_C2406L
+ * @version 1.0.0
+ */
+public class TextNormalizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+    private static final String[] EMPTY = new String[0];
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Bỏ dấu, chuyển chữ thường và gộp ký tự phân cách thành một khoảng trắng
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("")
+                .replace('đ', 'd')
+                .replace('Đ', 'D')
+                .toLowerCase(Locale.ROOT);
+        return NON_ALPHANUMERIC.matcher(stripped).replaceAll(" ").trim();
+    }
+
+    /**
+     * Tách chuỗi đã fold thành các từ
+     */
+    public static String[] tokenize(String text) {
+        String folded = fold(text);
+        return folded.isEmpty() ? EMPTY : folded.split(" ");
+    }
+}
@@ -0,0 +1,114 @@
+package com.cafe.model.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderTest {
+
+    private static final Timestamp ORDER_DATE = Timestamp.valueOf("2026-10-18 09:30:00");
+
+    @Test
+    void rebaseKeepsAmountDeltasFromBothTerminals() {
+        Order mine = loaded(3);
+        mine.setTotalAmount(mine.getTotalAmount() + 50_000);
+        mine.setFinalAmount(mine.getFinalAmount() + 50_000);
+
+        Order theirs = loaded(4);
+        theirs.setDiscountAmount(10_000);
+        theirs.setFinalAmount(theirs.getFinalAmount() - 10_000);
+
+        assertTrue(mine.rebaseOnto(theirs));
+
+        assertEquals(150_000, mine.getTotalAmount());
+        assertEquals(10_000, mine.getDiscountAmount());
+        assertEquals(140_000, mine.getFinalAmount());
+        assertEquals(4, mine.getVersion());
+    }
+
+    @Test
+    void rebaseTakesTheirColumnsAndKeepsMine() {
+        Order mine = loaded(3);
+        mine.setNotes("Ít đá");
+
+        Order theirs = loaded(4);
+        theirs.setPaymentMethod("momo");
+
+        assertTrue(mine.rebaseOnto(theirs));
+
+        assertEquals("Ít đá", mine.getNotes());
+        assertEquals("momo", mine.getPaymentMethod());
+    }
+
+    @Test
+    void rebaseLeavesOnlyOwnChangesDirty() {
+        Order mine = loaded(3);
+        mine.setNotes("Ít đá");
+        mine.setTotalAmount(120_000);
+
+        Order theirs = loaded(4);
+        theirs.setOrderStatus("preparing");
+
+        assertTrue(mine.rebaseOnto(theirs));
+
+        assertEquals(EnumSet.of(Order.Field.NOTES, Order.Field.TOTAL_AMOUNT), mine.getDirtyFields());
+    }
+
+    @Test
+    void sameChangeOnBothSidesIsNotAConflict() {
+        Order mine = loaded(3);
+        mine.setOrderStatus("preparing");
+
+        Order theirs = loaded(4);
+        theirs.setOrderStatus("preparing");
+
+        assertTrue(mine.rebaseOnto(theirs));
+        assertEquals("preparing", mine.getOrderStatus());
+    }
+
+    @Test
+    void conflictingChangesLeaveOrderUntouched() {
+        Order mine = loaded(3);
+        mine.setNotes("Ít đá");
+        mine.setTotalAmount(120_000);
+
+        Order theirs = loaded(4);
+        theirs.setNotes("Không đường");
+        theirs.setDiscountAmount(5_000);
+
+        assertFalse(mine.rebaseOnto(theirs));
+
+        assertEquals("Ít đá", mine.getNotes());
+        assertEquals(120_000, mine.getTotalAmount());
+        assertEquals(0, mine.getDiscountAmount());
+        assertEquals(3, mine.getVersion());
+    }
+
+    @Test
+    void dirtyFieldsTrackChangesSinceLastLoad() {
+        Order order = new Order();
+        assertEquals(EnumSet.allOf(Order.Field.class), order.getDirtyFields());
+
+        order = loaded(1);
+        assertTrue(order.getDirtyFields().isEmpty());
+
+        order.setPaymentMethod("cash");
+        assertEquals(EnumSet.of(Order.Field.PAYMENT_METHOD), order.getDirtyFields());
+    }
+
+    /**
+     * Order như vừa đọc từ database (tổng 100.000, chưa giảm giá)
+     */
+    private static Order loaded(int version) {
+        Order order = new Order(7, "ORD-20261018-01-0007", 5, null, 2, ORDER_DATE,
+                100_000, 0, 100_000, null, "unpaid", "pending", null);
+        order.setVersion(version);
+        order.markPersisted();
+        return order;
+    }
+}
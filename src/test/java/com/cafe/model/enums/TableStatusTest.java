@@ -0,0 +1,59 @@
+package com.cafe.model.enums;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TableStatusTest {
+
+    @Test
+    void keepingTheSameStatusIsAlwaysAllowed() {
+        for (TableStatus status : TableStatus.values()) {
+            assertTrue(status.canTransitionTo(status), status.name());
+        }
+    }
+
+    @Test
+    void availableTableCanBeTakenReservedOrCleaned() {
+        assertTrue(TableStatus.AVAILABLE.canTransitionTo(TableStatus.OCCUPIED));
+        assertTrue(TableStatus.AVAILABLE.canTransitionTo(TableStatus.RESERVED));
+        assertTrue(TableStatus.AVAILABLE.canTransitionTo(TableStatus.CLEANING));
+    }
+
+    @Test
+    void occupiedTableIsCleanedOrFreedButNotReserved() {
+        assertTrue(TableStatus.OCCUPIED.canTransitionTo(TableStatus.CLEANING));
+        assertTrue(TableStatus.OCCUPIED.canTransitionTo(TableStatus.AVAILABLE));
+        assertFalse(TableStatus.OCCUPIED.canTransitionTo(TableStatus.RESERVED));
+    }
+
+    @Test
+    void reservedTableIsSeatedOrReleasedButNotCleaned() {
+        assertTrue(TableStatus.RESERVED.canTransitionTo(TableStatus.OCCUPIED));
+        assertTrue(TableStatus.RESERVED.canTransitionTo(TableStatus.AVAILABLE));
+        assertFalse(TableStatus.RESERVED.canTransitionTo(TableStatus.CLEANING));
+    }
+
+    @Test
+    void cleaningTableCannotBeReserved() {
+        assertTrue(TableStatus.CLEANING.canTransitionTo(TableStatus.AVAILABLE));
+        assertTrue(TableStatus.CLEANING.canTransitionTo(TableStatus.OCCUPIED));
+        assertFalse(TableStatus.CLEANING.canTransitionTo(TableStatus.RESERVED));
+    }
+
+    @Test
+    void nullTargetIsRejected() {
+        assertFalse(TableStatus.AVAILABLE.canTransitionTo(null));
+    }
+
+    @Test
+    void fromValueRejectsUnknownValues() {
+        assertEquals(TableStatus.CLEANING, TableStatus.fromValue("Cleaning"));
+        assertNull(TableStatus.fromValue("broken"));
+        assertNull(TableStatus.fromValue(null));
+        assertEquals(TableStatus.AVAILABLE, TableStatus.fromString("broken"));
+    }
+}
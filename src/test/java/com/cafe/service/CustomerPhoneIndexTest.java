@@ -0,0 +1,87 @@
+package com.cafe.service;
+
+import com.cafe.model.entity.Customer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomerPhoneIndexTest {
+
+    private static final Customer AN = customer(1, "0901 234 567", true);
+    private static final Customer BINH = customer(2, "+84 902.111.567", true);
+    private static final Customer CHI = customer(3, "0911222333", true);
+    private static final Customer INACTIVE = customer(4, "0901999999", false);
+    private static final Customer NO_PHONE = customer(5, null, true);
+
+    @Test
+    void normalizeKeepsDigitsAndReplacesCountryCode() {
+        assertEquals("0901234567", CustomerPhoneIndex.normalize("0901 234 567"));
+        assertEquals("0902111567", CustomerPhoneIndex.normalize("+84 902.111.567"));
+        assertEquals("84", CustomerPhoneIndex.normalize("84"));
+        assertEquals("", CustomerPhoneIndex.normalize(null));
+    }
+
+    @Test
+    void indexesOnlyActiveCustomersWithPhone() {
+        CustomerPhoneIndex index = CustomerPhoneIndex.build(List.of(AN, BINH, CHI, INACTIVE, NO_PHONE));
+
+        assertEquals(3, index.size());
+        assertNull(index.findExact("0901999999"));
+    }
+
+    @Test
+    void findExactMatchesNormalizedPhone() {
+        CustomerPhoneIndex index = CustomerPhoneIndex.build(List.of(AN, BINH, CHI));
+
+        assertSame(BINH, index.findExact("0902111567"));
+        assertSame(AN, index.findExact("+84901234567"));
+        assertNull(index.findExact("090123456"));
+        assertNull(index.findExact(""));
+    }
+
+    @Test
+    void suggestMatchesLeadingDigitsFirst() {
+        CustomerPhoneIndex index = CustomerPhoneIndex.build(List.of(CHI, BINH, AN));
+
+        assertEquals(List.of(AN, BINH), index.suggest("090", 10));
+        assertEquals(List.of(AN), index.suggest("090", 1));
+    }
+
+    @Test
+    void suggestMatchesTrailingDigits() {
+        CustomerPhoneIndex index = CustomerPhoneIndex.build(List.of(AN, BINH, CHI));
+
+        List<Customer> byLastDigits = index.suggest("567", 10);
+        assertEquals(2, byLastDigits.size());
+        assertTrue(byLastDigits.containsAll(List.of(AN, BINH)));
+        assertEquals(List.of(CHI), index.suggest("2333", 10));
+    }
+
+    @Test
+    void suggestDoesNotRepeatCustomerMatchingBothEnds() {
+        Customer palindrome = customer(6, "0990", true);
+        CustomerPhoneIndex index = CustomerPhoneIndex.build(List.of(palindrome));
+
+        assertEquals(List.of(palindrome), index.suggest("0", 10));
+    }
+
+    @Test
+    void suggestIgnoresEmptyQueryAndLimit() {
+        CustomerPhoneIndex index = CustomerPhoneIndex.build(List.of(AN, BINH, CHI));
+
+        assertTrue(index.suggest(" ", 10).isEmpty());
+        assertTrue(index.suggest("090", 0).isEmpty());
+    }
+
+    private static Customer customer(int id, String phone, boolean active) {
+        Customer customer = new Customer("Khách " + id, phone);
+        customer.setCustomerId(id);
+        customer.setActive(active);
+        return customer;
+    }
+}
@@ -0,0 +1,115 @@
+package com.cafe.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderNumberGeneratorTest {
+
+    // Trạng thái của generator là static (dùng chung giữa các test) → so sánh với số vừa cấp
+    private String prefix;
+    private int last;
+
+    @BeforeEach
+    void setUp() {
+        prefix = String.format("ORD-%s-%02d-",
+                LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd")),
+                OrderNumberGenerator.getTerminalId());
+        OrderNumberGenerator.resync(connectionWithMaxSequence(0));
+        last = sequenceOf(OrderNumberGenerator.next(null));
+    }
+
+    @Test
+    void issuesConsecutiveNumbersWithDayAndTerminalPrefix() {
+        assertEquals(prefix + String.format("%04d", last + 1), OrderNumberGenerator.next(null));
+        assertEquals(prefix + String.format("%04d", last + 2), OrderNumberGenerator.next(null));
+    }
+
+    @Test
+    void resyncJumpsPastNumbersUsedElsewhere() {
+        OrderNumberGenerator.resync(connectionWithMaxSequence(last + 40));
+
+        assertEquals(last + 41, sequenceOf(OrderNumberGenerator.next(null)));
+    }
+
+    @Test
+    void resyncNeverMovesBackwards() {
+        OrderNumberGenerator.resync(connectionWithMaxSequence(Math.max(0, last - 5)));
+
+        assertEquals(last + 1, sequenceOf(OrderNumberGenerator.next(null)));
+    }
+
+    @Test
+    void concurrentCallersGetDistinctConsecutiveNumbers() throws Exception {
+        int threads = 8;
+        int perThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Callable<List<String>> issue = () -> {
+                String[] numbers = new String[perThread];
+                for (int i = 0; i < perThread; i++) {
+                    numbers[i] = OrderNumberGenerator.next(null);
+                }
+                return List.of(numbers);
+            };
+            Set<Integer> issued = new HashSet<>();
+            for (Future<List<String>> future : executor.invokeAll(Collections.nCopies(threads, issue))) {
+                for (String number : future.get()) {
+                    assertTrue(number.startsWith(prefix), number);
+                    issued.add(sequenceOf(number));
+                }
+            }
+
+            assertEquals(threads * perThread, issued.size());
+            assertEquals(last + 1, Collections.min(issued));
+            assertEquals(last + threads * perThread, Collections.max(issued));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int sequenceOf(String orderNumber) {
+        assertTrue(orderNumber.startsWith(prefix), orderNumber);
+        return Integer.parseInt(orderNumber.substring(prefix.length()));
+    }
+
+    /**
+     * Connection giả: mọi truy vấn trả về một dòng với MAX(sequence) = maxSequence
+     */
+    private static Connection connectionWithMaxSequence(int maxSequence) {
+        ResultSet rs = stub(ResultSet.class, (method, args) -> switch (method) {
+            case "next" -> true;
+            case "getInt" -> maxSequence;
+            default -> null;
+        });
+        PreparedStatement ps = stub(PreparedStatement.class,
+                (method, args) -> "executeQuery".equals(method) ? rs : null);
+        return stub(Connection.class, (method, args) -> "prepareStatement".equals(method) ? ps : null);
+    }
+
+    private interface Answer {
+        Object answer(String method, Object[] args);
+    }
+
+    private static <T> T stub(Class<T> type, Answer answer) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> answer.answer(method.getName(), args)));
+    }
+}
@@ -0,0 +1,89 @@
+package com.cafe.service;
+
+import com.cafe.model.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSearchIndexTest {
+
+    private static final Product CA_PHE = product(1, "Cà phê", "Cà phê phin truyền thống");
+    private static final Product CA_PHE_SUA = product(2, "Cà phê sữa", "Cà phê pha sữa đặc");
+    private static final Product SUA_TUOI = product(3, "Sữa tươi", "Sữa tươi trân châu");
+    private static final Product TRA_DAO = product(4, "Trà đào", "Trà đào cam sả");
+    private static final Product BAC_XIU = product(5, "Bạc xỉu", "Nhiều sữa, ít cà phê");
+
+    private static final List<Product> MENU = List.of(CA_PHE, CA_PHE_SUA, SUA_TUOI, TRA_DAO, BAC_XIU);
+
+    @Test
+    void matchesWithoutDiacritics() {
+        ProductSearchIndex index = ProductSearchIndex.build(MENU, null);
+
+        assertEquals(List.of(TRA_DAO), index.search("tra dao", null));
+        assertEquals(List.of(TRA_DAO), index.search("TRÀ ĐÀO", null));
+    }
+
+    @Test
+    void ranksExactNameAboveLongerNamesAndDescriptionMatches() {
+        ProductSearchIndex index = ProductSearchIndex.build(MENU, null);
+
+        assertEquals(List.of(CA_PHE, CA_PHE_SUA, BAC_XIU), index.search("ca phe", null));
+    }
+
+    @Test
+    void everyQueryWordMustMatch() {
+        ProductSearchIndex index = ProductSearchIndex.build(MENU, null);
+
+        assertEquals(List.of(CA_PHE_SUA, BAC_XIU), index.search("phe sua", null));
+        assertTrue(index.search("dao phe", null).isEmpty());
+    }
+
+    @Test
+    void matchesWordPrefixAndInfix() {
+        Product caPheMuoi = product(6, "Caphe muối", null);
+        ProductSearchIndex index = ProductSearchIndex.build(List.of(caPheMuoi, SUA_TUOI), null);
+
+        assertEquals(List.of(SUA_TUOI), index.search("tuo", null));
+        assertEquals(List.of(caPheMuoi), index.search("phe", null));
+        assertEquals(List.of(SUA_TUOI, caPheMuoi), index.search("uoi", null));
+    }
+
+    @Test
+    void appliesFilter() {
+        ProductSearchIndex index = ProductSearchIndex.build(MENU, null);
+
+        assertEquals(List.of(CA_PHE_SUA), index.search("ca phe", p -> p.getProductId() == 2));
+    }
+
+    @Test
+    void blankQueryReturnsNothing() {
+        ProductSearchIndex index = ProductSearchIndex.build(MENU, null);
+
+        assertTrue(index.search("  ", null).isEmpty());
+        assertTrue(index.search(null, null).isEmpty());
+    }
+
+    @Test
+    void rebuildPicksUpRenamedProducts() {
+        ProductSearchIndex first = ProductSearchIndex.build(MENU, null);
+        Product renamed = product(4, "Trà vải", "Trà vải nhiệt đới");
+
+        ProductSearchIndex second = ProductSearchIndex.build(
+                List.of(CA_PHE, CA_PHE_SUA, SUA_TUOI, renamed, BAC_XIU), first);
+
+        assertTrue(second.search("dao", null).isEmpty());
+        assertEquals(List.of(renamed), second.search("vai", null));
+        assertEquals(List.of(SUA_TUOI), second.search("tuoi", null));
+    }
+
+    private static Product product(int id, String name, String description) {
+        Product product = new Product();
+        product.setProductId(id);
+        product.setProductName(name);
+        product.setDescription(description);
+        return product;
+    }
+}
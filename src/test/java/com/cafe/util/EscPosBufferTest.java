@@ -0,0 +1,92 @@
+package com.cafe.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EscPosBufferTest {
+
+    @Test
+    void textIsWrittenWithoutVietnameseMarks() {
+        EscPosBuffer buffer = new EscPosBuffer(64, false);
+
+        buffer.text("Cà phê sữa Đá");
+
+        assertEquals("Ca phe sua Da", buffer.toText());
+    }
+
+    @Test
+    void unmappedCharactersBecomeQuestionMarks() {
+        EscPosBuffer buffer = new EscPosBuffer(64, false);
+
+        buffer.text("Trà ☕ 1 km");
+
+        assertEquals("Tra ? 1 km", buffer.toText());
+    }
+
+    @Test
+    void moneyUsesDotThousandsSeparatorAndRounds() {
+        EscPosBuffer buffer = new EscPosBuffer(64, false);
+
+        buffer.money(1_234_567).writeByte('|').money(999.6).writeByte('|')
+              .money(0).writeByte('|').money(-1_500);
+
+        assertEquals("1.234.567|1.000|0|-1.500", buffer.toText());
+    }
+
+    @Test
+    void numbersAreRightAlignedInColumn() {
+        EscPosBuffer buffer = new EscPosBuffer(64, false);
+
+        buffer.numberRight(7, 4).moneyRight(29_000, 10).numberRight(12_345, 3);
+
+        assertEquals("   7    29.00012345", buffer.toText());
+    }
+
+    @Test
+    void padRightTruncatesOrFillsToWidth() {
+        EscPosBuffer buffer = new EscPosBuffer(64, false);
+
+        buffer.padRight("Cà phê sữa", 6).writeByte('|').padRight("Trà", 6).writeByte('|').padRight(null, 2);
+
+        assertEquals("Ca phe|Tra   |  ", buffer.toText());
+    }
+
+    @Test
+    void twoDigitsPadsWithZero() {
+        EscPosBuffer buffer = new EscPosBuffer(64, false);
+
+        buffer.twoDigits(5).writeByte(':').twoDigits(30);
+
+        assertEquals("05:30", buffer.toText());
+    }
+
+    @Test
+    void commandsAreSkippedInTextMode() {
+        EscPosBuffer text = new EscPosBuffer(64, false);
+        EscPosBuffer printer = new EscPosBuffer(64, true);
+
+        text.command(EscPosBuffer.INIT).text("A");
+        printer.command(EscPosBuffer.INIT).text("A");
+
+        assertEquals("A", text.toText());
+        assertArrayEquals(new byte[]{0x1B, 0x40, 'A'}, printer.toByteArray());
+    }
+
+    @Test
+    void resetReusesBufferAndGrowsPastInitialCapacity() {
+        EscPosBuffer buffer = new EscPosBuffer(64, false);
+        buffer.repeat('-', 200);
+        assertEquals(200, buffer.size());
+
+        buffer.reset().text("OK").newline();
+
+        assertEquals("OK\n", buffer.toText());
+    }
+
+    @Test
+    void encodeFoldsTemplateText() {
+        assertArrayEquals("Tong cong:".getBytes(), EscPosBuffer.encode("Tổng cộng:"));
+    }
+}
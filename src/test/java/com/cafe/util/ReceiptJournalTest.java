@@ -0,0 +1,131 @@
+package com.cafe.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReceiptJournalTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 18);
+    private static final String FIRST = "Hóa đơn 1\nCà phê sữa  1  29.000";
+    private static final String SECOND = "Hóa đơn 2\nTrà đào  2  70.000";
+    private static final String THIRD = "Hóa đơn 3\nBạc xỉu  1  32.000";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readFallsBackToJournalWhenIndexIsBehind() throws IOException {
+        writeJournal(record("1", FIRST) + record("2", SECOND));
+        writeIndex(indexLine("1", FIRST, 0));
+
+        ReceiptJournal journal = new ReceiptJournal(directory);
+
+        assertEquals(Optional.of(FIRST), journal.read(journal.referenceFor(DAY, "1")));
+        assertEquals(Optional.of(SECOND), journal.read(journal.referenceFor(DAY, "2")));
+    }
+
+    @Test
+    void readScansJournalWhenIndexIsMissing() throws IOException {
+        writeJournal(record("1", FIRST) + record("2", SECOND));
+
+        ReceiptJournal journal = new ReceiptJournal(directory);
+
+        assertEquals(Optional.of(SECOND), journal.read(journal.referenceFor(DAY, "2")));
+        assertEquals(List.of(journal.referenceFor(DAY, "1"), journal.referenceFor(DAY, "2")),
+                journal.referencesForDay(DAY));
+    }
+
+    @Test
+    void appendRebuildsStaleIndexFileBeforeWriting() throws Exception {
+        writeJournal(record("1", FIRST) + record("2", SECOND));
+        writeIndex(indexLine("1", FIRST, 0));
+
+        ReceiptJournal journal = new ReceiptJournal(directory);
+        journal.append(journal.referenceFor(DAY, "3"), THIRD);
+        awaitWritten(journal);
+
+        long second = record("1", FIRST).getBytes(StandardCharsets.UTF_8).length;
+        long third = second + record("2", SECOND).getBytes(StandardCharsets.UTF_8).length;
+        assertEquals(List.of(
+                        indexLine("1", FIRST, 0).strip(),
+                        indexLine("2", SECOND, second).strip(),
+                        indexLine("3", THIRD, third).strip()),
+                Files.readAllLines(indexPath(), StandardCharsets.UTF_8));
+
+        ReceiptJournal reopened = new ReceiptJournal(directory);
+        assertEquals(Optional.of(THIRD), reopened.read(reopened.referenceFor(DAY, "3")));
+        assertEquals(Optional.of(SECOND), reopened.read(reopened.referenceFor(DAY, "2")));
+    }
+
+    @Test
+    void tornTailRecordIsSkippedAndLaterAppendsStayReadable() throws Exception {
+        writeJournal(record("1", FIRST) + "### 2 500\nHóa đơn 2 ghi d");
+
+        ReceiptJournal journal = new ReceiptJournal(directory);
+        assertEquals(Optional.empty(), journal.read(journal.referenceFor(DAY, "2")));
+
+        journal.append(journal.referenceFor(DAY, "3"), THIRD);
+        awaitWritten(journal);
+
+        ReceiptJournal reopened = new ReceiptJournal(directory);
+        assertEquals(Optional.of(FIRST), reopened.read(reopened.referenceFor(DAY, "1")));
+        assertEquals(Optional.of(THIRD), reopened.read(reopened.referenceFor(DAY, "3")));
+        assertEquals(Optional.empty(), reopened.read(reopened.referenceFor(DAY, "2")));
+    }
+
+    @Test
+    void receiptIsReadableRightAfterAppend() throws Exception {
+        ReceiptJournal journal = new ReceiptJournal(directory);
+        String reference = journal.referenceFor(DAY, "9");
+
+        journal.append(reference, FIRST);
+
+        assertEquals(Optional.of(FIRST), journal.read(reference));
+        awaitWritten(journal);
+        assertEquals(Optional.of(FIRST), journal.read(reference));
+    }
+
+    // ===================== Helper Methods =======================
+
+    private static String record(String id, String content) {
+        return "### " + id + " " + content.getBytes(StandardCharsets.UTF_8).length + "\n" + content + "\n";
+    }
+
+    /**
+     * Dòng .idx của bản ghi bắt đầu ở recordOffset trong journal
+     */
+    private static String indexLine(String id, String content, long recordOffset) {
+        long contentOffset = recordOffset + ("### " + id + " " + content.getBytes(StandardCharsets.UTF_8).length + "\n").length();
+        return id + "\t" + contentOffset + "\t" + content.getBytes(StandardCharsets.UTF_8).length + "\n";
+    }
+
+    private void writeJournal(String records) throws IOException {
+        Files.writeString(directory.resolve("receipts-20261018.journal"), records, StandardCharsets.UTF_8);
+    }
+
+    private void writeIndex(String lines) throws IOException {
+        Files.writeString(indexPath(), lines, StandardCharsets.UTF_8);
+    }
+
+    private Path indexPath() {
+        return directory.resolve("receipts-20261018.idx");
+    }
+
+    private static void awaitWritten(ReceiptJournal journal) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (journal.getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, journal.getPendingCount(), "receipt journal writer did not finish");
+    }
+}
@@ -0,0 +1,97 @@
+package com.cafe.util;
+
+import com.cafe.model.entity.Order;
+import com.cafe.model.entity.OrderDetail;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReceiptTemplateTest {
+
+    private static final Order ORDER = new Order(7, "ORD-20261018-01-0007", 5, null, 2,
+            Timestamp.valueOf("2026-10-18 09:30:00"), 99_000, 0, 99_000, "cash", "paid", "completed", null);
+
+    private static final List<OrderDetail> DETAILS = List.of(
+            detail(1, "Cà phê sữa đá", 1, 29_000),
+            detail(2, "Trà đào cam sả size lớn thêm trân châu", 2, 35_000));
+
+    @Test
+    void everyLineFitsPaperWidth() {
+        for (int width : new int[]{32, 48}) {
+            String[] lines = render(new ReceiptTemplate(width, "Cafe Sài Gòn", "123 Lê Lợi"),
+                    new ReceiptTemplate.Payment("Tiền mặt", true, 200_000, null));
+
+            for (String line : lines) {
+                assertTrue(line.length() <= width, width + ": " + line);
+            }
+            assertTrue(Arrays.asList(lines).contains("=".repeat(width)));
+        }
+    }
+
+    @Test
+    void headerAndItemsAreFoldedAndAligned() {
+        List<String> lines = Arrays.asList(render(new ReceiptTemplate(32, "Cafe Sài Gòn", "123 Lê Lợi"), null));
+
+        assertTrue(lines.contains("Cafe Sai Gon"));
+        assertTrue(lines.contains("Hoa don: ORD-20261018-01-0007"));
+        assertTrue(lines.contains("Ban: 5"));
+        assertTrue(lines.contains("Thoi gian: 18/10/2026 09:30"));
+        assertTrue(lines.contains("Ca phe sua da        1    29.000"));
+        assertTrue(lines.contains("Tra dao cam sa si    2    70.000"));
+        assertTrue(lines.contains("  @35.000/mon"));
+    }
+
+    @Test
+    void totalsComeFromPaymentWhenCharged() {
+        List<String> lines = Arrays.asList(render(new ReceiptTemplate(32, "Cafe", "Quận 1"),
+                new ReceiptTemplate.Payment("Tiền mặt", true, 200_000, null, 99_000, 9_900, 0, 108_900)));
+
+        assertTrue(lines.contains("Tam tinh:                 99.000"));
+        assertTrue(lines.contains("Thue VAT:                  9.900"));
+        assertTrue(lines.contains("TONG CONG:               108.900"));
+        assertTrue(lines.contains("Tien nhan:               200.000"));
+        assertTrue(lines.contains("Tien thoi:                91.100"));
+        assertFalse(lines.stream().anyMatch(line -> line.startsWith("Giam gia:")));
+    }
+
+    @Test
+    void totalsFallBackToOrderAndShowTransactionCode() {
+        List<String> lines = Arrays.asList(render(new ReceiptTemplate(32, "Cafe", "Quận 1"),
+                new ReceiptTemplate.Payment("MoMo", false, 0, "MM123456")));
+
+        assertTrue(lines.contains("TONG CONG:                99.000"));
+        assertTrue(lines.contains("Thanh toan: MoMo"));
+        assertTrue(lines.contains("Ma GD: MM123456"));
+        assertFalse(lines.stream().anyMatch(line -> line.startsWith("Tien thoi:")));
+    }
+
+    @Test
+    void printerOutputStartsWithInitAndEndsWithCut() {
+        EscPosBuffer out = new EscPosBuffer(512, true);
+
+        new ReceiptTemplate(32, "Cafe", "Quận 1").render(out, ORDER, DETAILS, "Thu ngân", null);
+
+        byte[] bytes = out.toByteArray();
+        assertArrayEquals(EscPosBuffer.INIT, Arrays.copyOf(bytes, EscPosBuffer.INIT.length));
+        assertArrayEquals(EscPosBuffer.PARTIAL_CUT,
+                Arrays.copyOfRange(bytes, bytes.length - EscPosBuffer.PARTIAL_CUT.length, bytes.length));
+    }
+
+    private static String[] render(ReceiptTemplate template, ReceiptTemplate.Payment payment) {
+        EscPosBuffer out = new EscPosBuffer(512, false);
+        template.render(out, ORDER, DETAILS, "Thu ngân", payment);
+        return out.toText().split("\n");
+    }
+
+    private static OrderDetail detail(int productId, String name, int quantity, double unitPrice) {
+        OrderDetail detail = new OrderDetail(7, productId, quantity, unitPrice);
+        detail.setProductName(name);
+        return detail;
+    }
+}
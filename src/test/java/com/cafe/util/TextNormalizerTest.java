@@ -0,0 +1,34 @@
+package com.cafe.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TextNormalizerTest {
+
+    @Test
+    void foldStripsVietnameseMarksAndLowercases() {
+        assertEquals("ca phe sua da", TextNormalizer.fold("Cà Phê Sữa Đá"));
+        assertEquals("tra dao cam sa", TextNormalizer.fold("Trà đào cam sả"));
+    }
+
+    @Test
+    void foldCollapsesSeparatorsAndTrims() {
+        assertEquals("bac xiu 2", TextNormalizer.fold("  Bạc-xỉu,,  (2) "));
+    }
+
+    @Test
+    void foldHandlesNullAndEmpty() {
+        assertEquals("", TextNormalizer.fold(null));
+        assertEquals("", TextNormalizer.fold(""));
+        assertEquals("", TextNormalizer.fold(" - "));
+    }
+
+    @Test
+    void tokenizeSplitsFoldedWords() {
+        assertArrayEquals(new String[]{"ca", "phe", "sua"}, TextNormalizer.tokenize("Cà phê  sữa"));
+        assertArrayEquals(new String[0], TextNormalizer.tokenize(null));
+        assertArrayEquals(new String[0], TextNormalizer.tokenize("  "));
+    }
+}